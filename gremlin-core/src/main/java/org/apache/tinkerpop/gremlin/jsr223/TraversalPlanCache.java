@@ -0,0 +1,510 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.jsr223;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.tinkerpop.gremlin.process.traversal.Bytecode;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.TextP;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalSource;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.step.HasContainerHolder;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.TraversalStrategyProxy;
+import org.apache.tinkerpop.gremlin.process.traversal.util.BytecodeHelper;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalInterruptedException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of the traversals that the {@link JavaTranslator} produces from {@link Bytecode}, kept with their strategies
+ * applied, so that a request that only differs from an earlier one in its literals skips both the translation and the
+ * strategies. It is keyed by the shape of the {@link Bytecode}, in which the ids given to {@code V()}, {@code E()} and
+ * {@code hasId()} and the values given to {@code has()}, plain or in a {@link P} or {@link TextP}, are replaced by
+ * their type. A hit clones the cached traversal and binds the literals of the request into the {@link GraphStep} ids
+ * and the {@link HasContainer} predicates that they ended up in.
+ * <p/>
+ * Those are found by translating the first request of a shape with its literals replaced by copies that are only equal
+ * to them and looking for the copies by identity once the strategies are applied. A shape whose literals a strategy
+ * moved anywhere else, for example into the edge labels of a {@code VertexStep}, is not cached. Neither is
+ * {@link Bytecode} with lambdas, with side effects or sacks, whose initial values would be shared by all requests, or
+ * that runs on a {@code GraphComputer}. The steps of a cached traversal must clone their {@link HasContainer}
+ * instances, which is checked before it is cached. The {@link Traversal#getBytecode()} of a traversal taken from the
+ * cache is that of the request, while its child traversals keep the {@link Bytecode} of the first request of its
+ * shape.
+ * <p/>
+ * A shape that turns out not to be cacheable is remembered as such, so that later requests of it are translated
+ * without the copies and without applying the strategies twice. The least recently used shapes, cacheable or not, are
+ * evicted once there are more than the maximum number of them.
+ */
+public final class TraversalPlanCache {
+
+    private static final Set<String> UNCACHEABLE_SOURCE_INSTRUCTIONS = new HashSet<>(Arrays.asList(
+            TraversalSource.Symbols.withSideEffect, TraversalSource.Symbols.withSack, TraversalSource.Symbols.withComputer));
+
+    private static final Set<Class<?>> LITERAL_CLASSES = new HashSet<>(Arrays.asList(
+            String.class, Integer.class, Long.class, Short.class, Byte.class, Double.class, Float.class, UUID.class));
+
+    private final int maxSize;
+    private final Map<Key, Plan> plans;
+    private final Map<Key, Boolean> uncacheable;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public TraversalPlanCache(final int maxSize) {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("The maxSize of the cache must be greater than zero");
+
+        this.maxSize = maxSize;
+        this.plans = new LinkedHashMap<Key, Plan>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Plan> eldest) {
+                if (this.size() <= TraversalPlanCache.this.maxSize)
+                    return false;
+                TraversalPlanCache.this.evictionCount.incrementAndGet();
+                return true;
+            }
+        };
+        this.uncacheable = new LinkedHashMap<Key, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Boolean> eldest) {
+                return this.size() > TraversalPlanCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Translates the {@link Bytecode} against the {@link TraversalSource}. The traversal that is returned has its
+     * strategies applied if {@link Traversal.Admin#isLocked()} says so, which is always the case when it was taken
+     * from the cache. Otherwise the caller applies them as it would have for the {@link JavaTranslator}. Either way
+     * its {@link Traversal#getBytecode()} is the {@link Bytecode} given here.
+     */
+    public Traversal.Admin<?, ?> translate(final TraversalSource traversalSource, final Bytecode bytecode) {
+        if (BytecodeHelper.isGraphOperation(bytecode) || bytecode.getStepInstructions().isEmpty() ||
+                BytecodeHelper.getLambdaLanguage(bytecode).isPresent()) {
+            this.missCount.incrementAndGet();
+            return translateAsIs(traversalSource, bytecode);
+        }
+
+        final Shape shape = new Shape(bytecode);
+        if (!shape.cacheable) {
+            this.missCount.incrementAndGet();
+            return translateAsIs(traversalSource, bytecode);
+        }
+
+        final Key key = new Key(traversalSource, shape.key);
+        Plan plan;
+        final boolean known;
+        synchronized (this.plans) {
+            plan = this.plans.get(key);
+            known = null == plan && null != this.uncacheable.get(key);
+        }
+        if (null != plan) {
+            this.hitCount.incrementAndGet();
+            return plan.instantiate(bytecode, shape.values);
+        }
+
+        this.missCount.incrementAndGet();
+        if (known)
+            return translateAsIs(traversalSource, bytecode);
+
+        final Traversal.Admin<?, ?> traversal = JavaTranslator.of(traversalSource).translate(shape.probe);
+        try {
+            traversal.applyStrategies();
+        } catch (final TraversalInterruptedException ex) {
+            // the request ran out of time, which says nothing about the shape
+            throw ex;
+        } catch (final RuntimeException ex) {
+            // the caller applies the strategies again and reports the failure as it would without the cache
+            this.markUncacheable(key);
+            return translateAsIs(traversalSource, bytecode);
+        }
+
+        // the copies are equal to the literals so the traversal can be used as it is when it cannot be cached
+        plan = Plan.of(traversal, shape.copies);
+        if (null == plan) {
+            this.markUncacheable(key);
+            rebind(traversal, bytecode);
+            return traversal;
+        }
+
+        synchronized (this.plans) {
+            this.plans.put(key, plan);
+        }
+        return plan.instantiate(bytecode, shape.values);
+    }
+
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+    /**
+     * Gets the number of shapes that have a traversal in the cache.
+     */
+    public int size() {
+        synchronized (this.plans) {
+            return this.plans.size();
+        }
+    }
+
+    /**
+     * Gets the number of shapes that are remembered as not cacheable.
+     */
+    public int uncacheableSize() {
+        synchronized (this.plans) {
+            return this.uncacheable.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (this.plans) {
+            this.plans.clear();
+            this.uncacheable.clear();
+        }
+    }
+
+    private void markUncacheable(final Key key) {
+        synchronized (this.plans) {
+            this.uncacheable.put(key, Boolean.TRUE);
+        }
+    }
+
+    private static Traversal.Admin<?, ?> translateAsIs(final TraversalSource traversalSource, final Bytecode bytecode) {
+        final Traversal.Admin<?, ?> traversal = JavaTranslator.of(traversalSource).translate(bytecode);
+        rebind(traversal, bytecode);
+        return traversal;
+    }
+
+    /**
+     * Replaces the {@link Bytecode} of a traversal with the instructions of the request, which differ from the ones it
+     * was translated from in their literals, when it was translated from another request of the same shape, or in
+     * their {@link Bytecode.Binding} instances, which the {@link JavaTranslator} resolves.
+     */
+    private static void rebind(final Traversal.Admin<?, ?> traversal, final Bytecode bytecode) {
+        final Bytecode current = traversal.getBytecode();
+        current.getSourceInstructions().clear();
+        current.getSourceInstructions().addAll(bytecode.getSourceInstructions());
+        current.getStepInstructions().clear();
+        current.getStepInstructions().addAll(bytecode.getStepInstructions());
+    }
+
+    private static boolean isLiteral(final Object value) {
+        return null != value && LITERAL_CLASSES.contains(value.getClass());
+    }
+
+    private static boolean isLiteralPredicate(final Object value) {
+        return null != value && (value.getClass() == P.class || value.getClass() == TextP.class) && isLiteral(((P<?>) value).getValue());
+    }
+
+    /**
+     * Creates a copy of the literal that is equal to it but not the same object.
+     */
+    private static Object copyOf(final Object literal) {
+        if (literal instanceof String)
+            return new String((String) literal);
+        else if (literal instanceof Integer)
+            return new Integer((Integer) literal);
+        else if (literal instanceof Long)
+            return new Long((Long) literal);
+        else if (literal instanceof Short)
+            return new Short((Short) literal);
+        else if (literal instanceof Byte)
+            return new Byte((Byte) literal);
+        else if (literal instanceof Double)
+            return new Double((Double) literal);
+        else if (literal instanceof Float)
+            return new Float((Float) literal);
+        else
+            return new UUID(((UUID) literal).getMostSignificantBits(), ((UUID) literal).getLeastSignificantBits());
+    }
+
+    /**
+     * Determines if the argument at the index of a step instruction is one of the literals of the shape.
+     */
+    private static boolean isParameter(final String operator, final int arguments, final int index) {
+        switch (operator) {
+            case GraphTraversal.Symbols.V:
+            case GraphTraversal.Symbols.E:
+                return true;
+            case GraphTraversal.Symbols.hasId:
+                return 1 == arguments;
+            case GraphTraversal.Symbols.has:
+                return (2 == arguments && 1 == index) || (3 == arguments && 2 == index);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Gets an object that is equal for equal arguments, which the argument itself is not for strategies.
+     */
+    private static Object keyOf(final Object argument) {
+        if (argument instanceof Bytecode.Binding)
+            return keyOf(((Bytecode.Binding) argument).value());
+        else if (argument instanceof TraversalStrategyProxy)
+            return Arrays.asList(((TraversalStrategyProxy<?>) argument).getStrategyClass(), keyOf(((TraversalStrategyProxy<?>) argument).getConfiguration()));
+        else if (argument instanceof TraversalStrategy)
+            return Arrays.asList(argument.getClass(), keyOf(((TraversalStrategy<?>) argument).getConfiguration()));
+        else if (argument instanceof Configuration) {
+            final Map<String, Object> map = new HashMap<>();
+            ((Configuration) argument).getKeys().forEachRemaining(k -> map.put(k, keyOf(((Configuration) argument).getProperty(k))));
+            return map;
+        } else if (argument instanceof Traversal)
+            return ((Traversal<?, ?>) argument).asAdmin().getBytecode();
+        else
+            return argument;
+    }
+
+    private static List<Step<?, ?>> getSteps(final Traversal.Admin<?, ?> traversal) {
+        return (List) TraversalHelper.getStepsOfAssignableClassRecursively(Step.class, traversal);
+    }
+
+    /**
+     * The shape of a {@link Bytecode} with its literals and a copy of it in which they are replaced by copies.
+     */
+    private static final class Shape {
+        private final List<Object> key = new ArrayList<>();
+        private final List<Object> values = new ArrayList<>();
+        private final List<Object> copies = new ArrayList<>();
+        private final Bytecode probe;
+        private boolean cacheable = true;
+
+        private Shape(final Bytecode bytecode) {
+            this.probe = this.normalize(bytecode, this.key);
+        }
+
+        private Bytecode normalize(final Bytecode bytecode, final List<Object> key) {
+            final Bytecode probe = bytecode.clone();
+            for (final Bytecode.Instruction instruction : bytecode.getSourceInstructions()) {
+                if (UNCACHEABLE_SOURCE_INSTRUCTIONS.contains(instruction.getOperator()))
+                    this.cacheable = false;
+                final List<Object> instructionKey = new ArrayList<>();
+                instructionKey.add(instruction.getOperator());
+                if (null != instruction.getArguments()) {
+                    for (final Object argument : instruction.getArguments()) {
+                        instructionKey.add(keyOf(argument));
+                    }
+                }
+                key.add(instructionKey);
+            }
+
+            final List<Bytecode.Instruction> stepInstructions = bytecode.getStepInstructions();
+            for (int i = 0; i < stepInstructions.size(); i++) {
+                final String operator = stepInstructions.get(i).getOperator();
+                final Object[] arguments = stepInstructions.get(i).getArguments();
+                final Object[] probeArguments = arguments.clone();
+                final List<Object> instructionKey = new ArrayList<>(arguments.length + 1);
+                instructionKey.add(operator);
+                boolean changed = false;
+                for (int j = 0; j < arguments.length; j++) {
+                    final Object argument = arguments[j] instanceof Bytecode.Binding ? ((Bytecode.Binding) arguments[j]).value() : arguments[j];
+                    if (isParameter(operator, arguments.length, j) && isLiteral(argument)) {
+                        final Object copy = copyOf(argument);
+                        instructionKey.add(new Parameter(argument.getClass()));
+                        this.values.add(argument);
+                        this.copies.add(copy);
+                        probeArguments[j] = copy;
+                        changed = true;
+                    } else if (isParameter(operator, arguments.length, j) && isLiteralPredicate(argument)) {
+                        final P<Object> predicate = (P<Object>) argument;
+                        final P<Object> copy = predicate.clone();
+                        copy.resetValue(copyOf(predicate.getValue()));
+                        instructionKey.add(new Parameter(Arrays.asList(predicate.getClass(), predicate.getBiPredicate(), predicate.getValue().getClass())));
+                        this.values.add(predicate.getValue());
+                        this.copies.add(copy.getValue());
+                        probeArguments[j] = copy;
+                        changed = true;
+                    } else if (argument instanceof Bytecode) {
+                        final List<Object> childKey = new ArrayList<>();
+                        probeArguments[j] = this.normalize((Bytecode) argument, childKey);
+                        instructionKey.add(childKey);
+                        changed = true;
+                    } else {
+                        instructionKey.add(keyOf(argument));
+                    }
+                }
+
+                if (changed) {
+                    final Bytecode instruction = new Bytecode();
+                    instruction.addStep(operator, probeArguments);
+                    probe.getStepInstructions().set(i, instruction.getStepInstructions().get(0));
+                }
+                key.add(instructionKey);
+            }
+            return probe;
+        }
+    }
+
+    /**
+     * Stands in the key of a shape for a literal of a type.
+     */
+    private static final class Parameter {
+        private final Object type;
+
+        private Parameter(final Object type) {
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Parameter && this.type.equals(((Parameter) other).type);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.type.hashCode();
+        }
+    }
+
+    private static final class Key {
+        private final TraversalSource traversalSource;
+        private final List<Object> shape;
+        private final int hashCode;
+
+        private Key(final TraversalSource traversalSource, final List<Object> shape) {
+            this.traversalSource = traversalSource;
+            this.shape = shape;
+            this.hashCode = 31 * System.identityHashCode(traversalSource) + shape.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Key && this.traversalSource == ((Key) other).traversalSource &&
+                    this.shape.equals(((Key) other).shape);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+
+    /**
+     * A traversal with its strategies applied along with the places that the literals of its shape have to be bound
+     * to, which are either an id of a {@link GraphStep} or the value of the predicate of a {@link HasContainer}.
+     */
+    private static final class Plan {
+        private final Traversal.Admin<?, ?> traversal;
+        private final List<int[]> idSlots;
+        private final List<int[]> predicateSlots;
+
+        private Plan(final Traversal.Admin<?, ?> traversal, final List<int[]> idSlots, final List<int[]> predicateSlots) {
+            this.traversal = traversal;
+            this.idSlots = idSlots;
+            this.predicateSlots = predicateSlots;
+        }
+
+        /**
+         * Finds the copies in the traversal or returns {@code null} if any of them cannot be found or if a clone of
+         * the traversal would share a predicate with it.
+         */
+        private static Plan of(final Traversal.Admin<?, ?> traversal, final List<Object> copies) {
+            final Map<Object, Integer> parameters = new IdentityHashMap<>();
+            for (int i = 0; i < copies.size(); i++) {
+                parameters.put(copies.get(i), i);
+            }
+
+            final BitSet found = new BitSet(copies.size());
+            final List<int[]> idSlots = new ArrayList<>();
+            final List<int[]> predicateSlots = new ArrayList<>();
+            final List<Step<?, ?>> steps = getSteps(traversal);
+            for (int s = 0; s < steps.size(); s++) {
+                final Step<?, ?> step = steps.get(s);
+                if (step instanceof GraphStep && null != ((GraphStep<?, ?>) step).getIds()) {
+                    final Object[] ids = ((GraphStep<?, ?>) step).getIds();
+                    for (int i = 0; i < ids.length; i++) {
+                        final Integer parameter = parameters.get(ids[i]);
+                        if (null != parameter) {
+                            idSlots.add(new int[]{s, i, parameter});
+                            found.set(parameter);
+                        }
+                    }
+                }
+                if (step instanceof HasContainerHolder) {
+                    final List<HasContainer> hasContainers = ((HasContainerHolder) step).getHasContainers();
+                    for (int i = 0; i < hasContainers.size(); i++) {
+                        final P<?> predicate = hasContainers.get(i).getPredicate();
+                        final Integer parameter = null == predicate ? null : parameters.get(predicate.getValue());
+                        if (null != parameter) {
+                            predicateSlots.add(new int[]{s, i, parameter});
+                            found.set(parameter);
+                        }
+                    }
+                }
+            }
+            if (found.cardinality() != copies.size())
+                return null;
+
+            final List<Step<?, ?>> clonedSteps = getSteps(traversal.clone());
+            if (clonedSteps.size() != steps.size())
+                return null;
+            for (final int[] slot : predicateSlots) {
+                if (predicate(steps, slot) == predicate(clonedSteps, slot))
+                    return null;
+            }
+            return new Plan(traversal, idSlots, predicateSlots);
+        }
+
+        private Traversal.Admin<?, ?> instantiate(final Bytecode bytecode, final List<Object> values) {
+            final Traversal.Admin<?, ?> clone = this.traversal.clone();
+            rebind(clone, bytecode);
+            final List<Step<?, ?>> steps = getSteps(clone);
+            for (final int[] slot : this.idSlots) {
+                final GraphStep<?, ?> graphStep = (GraphStep<?, ?>) steps.get(slot[0]);
+                final Object[] ids = graphStep.getIds().clone();
+                ids[slot[1]] = values.get(slot[2]);
+                graphStep.clearIds();
+                graphStep.addIds(ids);
+            }
+            for (final int[] slot : this.predicateSlots) {
+                ((P<Object>) predicate(steps, slot)).resetValue(values.get(slot[2]));
+            }
+            return clone;
+        }
+
+        private static P<?> predicate(final List<Step<?, ?>> steps, final int[] slot) {
+            return ((HasContainerHolder) steps.get(slot[0])).getHasContainers().get(slot[1]).getPredicate();
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequire
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -172,6 +173,24 @@ public interface Step<S, E> extends Iterator<Traverser.Admin<E>>, Serializable,
         return Collections.emptySet();
     }
 
+    /**
+     * Adds up to {@code maxSize} of the traversers that the step emits to the batch, in the order that {@link #next()}
+     * would return them, and returns how many were added, which is fewer only if the step has no more. The default
+     * implementation takes them one at a time from {@link #hasNext()} and {@link #next()}.
+     *
+     * @param batch   the list to add the traversers to
+     * @param maxSize the most traversers to add
+     * @return the number of traversers added
+     */
+    public default int nextBatch(final List<Traverser.Admin<E>> batch, final int maxSize) {
+        int count = 0;
+        while (count < maxSize && this.hasNext()) {
+            batch.add(this.next());
+            count++;
+        }
+        return count;
+    }
+
     /**
      * Compare the current step with another step.
      *
@@ -455,6 +455,16 @@ public interface Traversal<S, E> extends Iterator<E>, Serializable, Cloneable, A
             return TraverserSetSupplier.instance();
         }
 
+        /**
+         * Gets a generator that creates new {@link TraverserSet} instances for the traversers that a step keeps to
+         * itself, which are only accessed by the thread that iterates the step and so need no synchronization. Sets
+         * that a step hands out, as barriers are handed to the memory of a {@code GraphComputer}, come from
+         * {@link #getTraverserSetSupplier()} instead.
+         */
+        public default Supplier<TraverserSet<S>> getLocalTraverserSetSupplier() {
+            return TraverserSetSupplier.unsynchronizedInstance();
+        }
+
         /**
          * Get the set of all {@link TraverserRequirement}s for this traversal.
          *
@@ -24,6 +24,8 @@ import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.EmptyStep;
 
+import java.util.List;
+
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
@@ -41,19 +43,41 @@ public abstract class FilterStep<S> extends AbstractStep<S, S> {
                 if (this.filter(traverser))
                     return traverser;
             } catch (GremlinTypeErrorException ex) {
-                if (this instanceof BinaryReductionStep || getTraversal().isRoot()) {
-                    /*
-                     * Either we are at a known reduction point (TraversalFilterStep, WhereTraversalStep), or we
-                     * are at the top level of the query. In either of these cases we do a binary reduction from
-                     * ERROR -> FALSE and filter the solution quietly.
-                     */
-                } else {
-                    // not a ternary -> binary reducer, pass the ERROR on
-                    throw ex;
+                this.reduceTypeError(ex);
+            }
+        }
+    }
+
+    @Override
+    protected void processNextBatch(final List<Traverser.Admin<S>> batch, final int maxSize) {
+        int count = 0;
+        while (count < maxSize) {
+            try {
+                if (!this.starts.fetchBatch(maxSize))
+                    return;
+                final Traverser.Admin<S> traverser = this.starts.next();
+                if (this.filter(traverser)) {
+                    batch.add(traverser);
+                    count++;
                 }
+            } catch (GremlinTypeErrorException ex) {
+                this.reduceTypeError(ex);
             }
         }
     }
 
+    private void reduceTypeError(final GremlinTypeErrorException ex) {
+        if (this instanceof BinaryReductionStep || getTraversal().isRoot()) {
+            /*
+             * Either we are at a known reduction point (TraversalFilterStep, WhereTraversalStep), or we
+             * are at the top level of the query. In either of these cases we do a binary reduction from
+             * ERROR -> FALSE and filter the solution quietly.
+             */
+        } else {
+            // not a ternary -> binary reducer, pass the ERROR on
+            throw ex;
+        }
+    }
+
     protected abstract boolean filter(final Traverser.Admin<S> traverser);
 }
@@ -73,6 +73,11 @@ public class HasStep<S extends Element> extends FilterStep<S> implements HasCont
                     traverser.get().getClass().getName()));
     }
 
+    @Override
+    protected boolean supportsBatchProcessing() {
+        return this.getClass() == HasStep.class;
+    }
+
     @Override
     public String toString() {
         return StringFactory.stepString(this, this.hasContainers);
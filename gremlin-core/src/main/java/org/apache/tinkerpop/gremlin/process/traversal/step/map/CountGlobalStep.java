@@ -52,4 +52,9 @@ public final class CountGlobalStep<S> extends ReducingBarrierStep<S, Long> {
         return REQUIREMENTS;
     }
 
+    @Override
+    protected boolean supportsBatchProcessing() {
+        return true;
+    }
+
 }
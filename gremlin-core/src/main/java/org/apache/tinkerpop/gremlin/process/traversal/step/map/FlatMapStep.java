@@ -25,6 +25,7 @@ import org.apache.tinkerpop.gremlin.structure.util.CloseableIterator;
 import org.apache.tinkerpop.gremlin.util.iterator.EmptyIterator;
 
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
@@ -51,6 +52,24 @@ public abstract class FlatMapStep<S, E> extends AbstractStep<S, E> {
         }
     }
 
+    @Override
+    protected void processNextBatch(final List<Traverser.Admin<E>> batch, final int maxSize) {
+        int count = 0;
+        while (count < maxSize) {
+            if (this.iterator.hasNext()) {
+                batch.add(this.head.split(this.iterator.next(), this));
+                count++;
+            } else {
+                closeIterator();
+                this.iterator = EmptyIterator.instance();
+                if (!this.starts.fetchBatch(maxSize))
+                    return;
+                this.head = this.starts.next();
+                this.iterator = this.flatMap(this.head);
+            }
+        }
+    }
+
     protected abstract Iterator<E> flatMap(final Traverser.Admin<S> traverser);
 
     @Override
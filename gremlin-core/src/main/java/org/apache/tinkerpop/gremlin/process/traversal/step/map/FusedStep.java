@@ -0,0 +1,336 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.process.traversal.step.map;
+
+import org.apache.tinkerpop.gremlin.process.traversal.GremlinTypeErrorException;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.finalization.StepFusionStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalInterruptedException;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.Property;
+import org.apache.tinkerpop.gremlin.structure.PropertyType;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.CloseableIterator;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Runs a chain of {@link VertexStep}, {@link EdgeVertexStep}, {@link PropertiesStep}, {@link IdStep},
+ * {@link LabelStep} and {@link HasStep} instances as one step, which {@link StepFusionStrategy} puts in their place.
+ * The steps are compiled into a table of stages, each of a fixed kind, that a single loop pulls the results of every
+ * start through, keeping a stack of the expansions that are still open. The objects in between the steps thus never
+ * become traversers and never pass through the iterators that connect steps, and the loop is reused for every start,
+ * so that the only objects created per start are the adjacent elements and properties that the graph returns. The
+ * loop only goes as far as the results are pulled, so a {@code limit()} after the step does not expand a start
+ * completely.
+ */
+public final class FusedStep<S, E> extends FlatMapStep<S, E> {
+
+    private static final int VERTICES = 0;
+    private static final int EDGES = 1;
+    private static final int EDGE_VERTICES = 2;
+    private static final int VALUES = 3;
+    private static final int PROPERTIES = 4;
+    private static final int ID = 5;
+    private static final int LABEL = 6;
+    private static final int HAS = 7;
+
+    private List<Step<?, ?>> fusedSteps;
+    private transient Pipeline pipeline;
+
+    public FusedStep(final Traversal.Admin traversal, final List<Step<?, ?>> fusedSteps) {
+        super(traversal);
+        for (final Step<?, ?> step : fusedSteps) {
+            if (!isFusible(step))
+                throw new IllegalArgumentException(String.format("The step cannot be fused: %s", step));
+        }
+        this.fusedSteps = new ArrayList<>(fusedSteps);
+    }
+
+    /**
+     * Determines if the step is one that a {@code FusedStep} can run. Only the classes themselves qualify, not their
+     * subclasses, and only if they were not configured with {@code with()}.
+     */
+    public static boolean isFusible(final Step<?, ?> step) {
+        final Class<?> stepClass = step.getClass();
+        if (stepClass == VertexStep.class)
+            return ((VertexStep<?>) step).getParameters().isEmpty();
+        if (stepClass == EdgeVertexStep.class)
+            return ((EdgeVertexStep) step).getParameters().isEmpty();
+        if (stepClass == PropertiesStep.class)
+            return ((PropertiesStep<?>) step).getParameters().isEmpty();
+        if (stepClass == HasStep.class)
+            return ((HasStep<?>) step).getParameters().isEmpty();
+        return stepClass == IdStep.class || stepClass == LabelStep.class;
+    }
+
+    public List<Step<?, ?>> getFusedSteps() {
+        return Collections.unmodifiableList(this.fusedSteps);
+    }
+
+    @Override
+    protected Iterator<E> flatMap(final Traverser.Admin<S> traverser) {
+        if (null == this.pipeline)
+            this.pipeline = new Pipeline(this.fusedSteps, this.getTraversal().isRoot());
+        this.pipeline.reset(traverser.get());
+        return (Iterator<E>) this.pipeline;
+    }
+
+    private static boolean test(final Object object, final List<HasContainer> hasContainers) {
+        if (object instanceof Element)
+            return HasContainer.testAll((Element) object, hasContainers);
+        else if (object instanceof Property)
+            return HasContainer.testAll((Property) object, hasContainers);
+        else
+            throw new IllegalStateException(String.format(
+                    "Traverser to has() must be of type Property or Element, not %s",
+                    object.getClass().getName()));
+    }
+
+    @Override
+    public Set<TraverserRequirement> getRequirements() {
+        final Set<TraverserRequirement> requirements = EnumSet.noneOf(TraverserRequirement.class);
+        for (final Step<?, ?> step : this.fusedSteps) {
+            requirements.addAll(step.getRequirements());
+        }
+        return requirements;
+    }
+
+    @Override
+    protected boolean supportsBatchProcessing() {
+        return true;
+    }
+
+    @Override
+    public FusedStep<S, E> clone() {
+        final FusedStep<S, E> clone = (FusedStep<S, E>) super.clone();
+        clone.fusedSteps = new ArrayList<>(this.fusedSteps.size());
+        for (final Step<?, ?> step : this.fusedSteps) {
+            clone.fusedSteps.add(step.clone());
+        }
+        clone.pipeline = null;
+        return clone;
+    }
+
+    @Override
+    public String toString() {
+        return StringFactory.stepString(this, this.fusedSteps);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode() ^ this.fusedSteps.hashCode();
+    }
+
+    /**
+     * The loop over the stages, which pulls the next result of a start from the innermost expansion that has one
+     * left and passes it through the stages after that expansion.
+     */
+    private static final class Pipeline implements CloseableIterator<Object> {
+
+        private final int[] kinds;
+        private final Direction[] directions;
+        private final String[][] keys;
+        private final List<HasContainer>[] hasContainers;
+        private final boolean root;
+
+        /**
+         * The open expansions, innermost last, and the stages they belong to.
+         */
+        private final Iterator<?>[] expansions;
+        private final int[] expanded;
+        private int open = 0;
+
+        private Object start = null;
+        private boolean started = true;
+        private Object pulled = null;
+        private Object next = null;
+        private boolean found = false;
+
+        Pipeline(final List<Step<?, ?>> steps, final boolean root) {
+            final int size = steps.size();
+            this.kinds = new int[size];
+            this.directions = new Direction[size];
+            this.keys = new String[size][];
+            this.hasContainers = (List<HasContainer>[]) new List[size];
+            this.root = root;
+            this.expansions = new Iterator<?>[size];
+            this.expanded = new int[size];
+            for (int i = 0; i < size; i++) {
+                final Step<?, ?> step = steps.get(i);
+                if (step instanceof VertexStep) {
+                    this.kinds[i] = ((VertexStep<?>) step).returnsVertex() ? VERTICES : EDGES;
+                    this.directions[i] = ((VertexStep<?>) step).getDirection();
+                    this.keys[i] = ((VertexStep<?>) step).getEdgeLabels();
+                } else if (step instanceof EdgeVertexStep) {
+                    this.kinds[i] = EDGE_VERTICES;
+                    this.directions[i] = ((EdgeVertexStep) step).getDirection();
+                } else if (step instanceof PropertiesStep) {
+                    this.kinds[i] = ((PropertiesStep<?>) step).getReturnType() == PropertyType.VALUE ? VALUES : PROPERTIES;
+                    this.keys[i] = ((PropertiesStep<?>) step).getPropertyKeys();
+                } else if (step instanceof IdStep) {
+                    this.kinds[i] = ID;
+                } else if (step instanceof LabelStep) {
+                    this.kinds[i] = LABEL;
+                } else {
+                    this.kinds[i] = HAS;
+                    this.hasContainers[i] = ((HasStep<?>) step).getHasContainers();
+                }
+            }
+        }
+
+        void reset(final Object start) {
+            this.close();
+            this.start = start;
+            this.started = false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.found)
+                return true;
+            Object object;
+            int stage;
+            if (!this.started) {
+                this.started = true;
+                object = this.start;
+                this.start = null;
+                stage = 0;
+            } else {
+                stage = this.pull();
+                object = this.pulled;
+            }
+            while (stage >= 0) {
+                if (stage == this.kinds.length) {
+                    this.next = object;
+                    this.found = true;
+                    return true;
+                }
+                switch (this.kinds[stage]) {
+                    case ID:
+                        object = ((Element) object).id();
+                        stage++;
+                        break;
+                    case LABEL:
+                        object = ((Element) object).label();
+                        stage++;
+                        break;
+                    case HAS:
+                        if (this.test(object, stage)) {
+                            stage++;
+                        } else {
+                            stage = this.pull();
+                            object = this.pulled;
+                        }
+                        break;
+                    default:
+                        this.expansions[this.open] = this.expand(object, stage);
+                        this.expanded[this.open++] = stage;
+                        stage = this.pull();
+                        object = this.pulled;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Object next() {
+            if (!this.hasNext())
+                throw FastNoSuchElementException.instance();
+            final Object object = this.next;
+            this.next = null;
+            this.found = false;
+            return object;
+        }
+
+        @Override
+        public void close() {
+            while (this.open > 0) {
+                CloseableIterator.closeIterator(this.expansions[--this.open]);
+                this.expansions[this.open] = null;
+            }
+            this.start = null;
+            this.started = true;
+            this.pulled = null;
+            this.next = null;
+            this.found = false;
+        }
+
+        /**
+         * Pulls the next object from the innermost open expansion that has one left, closing those that have none,
+         * and returns the stage that the object goes to next, or -1 if all expansions are exhausted.
+         */
+        private int pull() {
+            while (this.open > 0) {
+                final Iterator<?> expansion = this.expansions[this.open - 1];
+                if (expansion.hasNext()) {
+                    // objects that are filtered or expand to nothing are not emitted, so the step would not see an
+                    // interrupt for them
+                    if (Thread.interrupted()) throw new TraversalInterruptedException();
+                    this.pulled = expansion.next();
+                    return this.expanded[this.open - 1] + 1;
+                }
+                CloseableIterator.closeIterator(expansion);
+                this.expansions[--this.open] = null;
+            }
+            this.pulled = null;
+            return -1;
+        }
+
+        private Iterator<?> expand(final Object object, final int stage) {
+            switch (this.kinds[stage]) {
+                case VERTICES:
+                    return ((Vertex) object).vertices(this.directions[stage], this.keys[stage]);
+                case EDGES:
+                    return ((Vertex) object).edges(this.directions[stage], this.keys[stage]);
+                case EDGE_VERTICES:
+                    return ((Edge) object).vertices(this.directions[stage]);
+                case VALUES:
+                    return ((Element) object).values(this.keys[stage]);
+                default:
+                    return ((Element) object).properties(this.keys[stage]);
+            }
+        }
+
+        private boolean test(final Object object, final int stage) {
+            try {
+                return FusedStep.test(object, this.hasContainers[stage]);
+            } catch (final GremlinTypeErrorException ex) {
+                // like FilterStep, reduce the error to false at the top level of the query
+                if (!this.root)
+                    throw ex;
+                return false;
+            }
+        }
+    }
+}
@@ -55,6 +55,7 @@ public class GraphStep<S, E extends Element> extends AbstractStep<S, E> implemen
     protected final Class<E> returnClass;
     protected Object[] ids;
     protected transient Supplier<Iterator<E>> iteratorSupplier;
+    private transient Supplier<Iterator<E>> defaultIteratorSupplier;
     protected boolean isStart;
     protected boolean done = false;
     private Traverser.Admin<S> head = null;
@@ -66,7 +67,12 @@ public class GraphStep<S, E extends Element> extends AbstractStep<S, E> implemen
         this.returnClass = returnClass;
         this.ids = (ids != null && ids.length == 1 && ids[0] instanceof Collection) ? ((Collection) ids[0]).toArray(new Object[((Collection) ids[0]).size()]) : ids;
         this.isStart = isStart;
-        this.iteratorSupplier = () -> (Iterator<E>) (Vertex.class.isAssignableFrom(this.returnClass) ?
+        this.defaultIteratorSupplier = this.newDefaultIteratorSupplier();
+        this.iteratorSupplier = this.defaultIteratorSupplier;
+    }
+
+    private Supplier<Iterator<E>> newDefaultIteratorSupplier() {
+        return () -> (Iterator<E>) (Vertex.class.isAssignableFrom(this.returnClass) ?
                 this.getTraversal().getGraph().get().vertices(this.ids) :
                 this.getTraversal().getGraph().get().edges(this.ids));
     }
@@ -173,6 +179,18 @@ public class GraphStep<S, E extends Element> extends AbstractStep<S, E> implemen
         this.iterator = EmptyIterator.instance();
     }
 
+    @Override
+    public GraphStep<S, E> clone() {
+        final GraphStep<S, E> clone = (GraphStep<S, E>) super.clone();
+        if (null != this.ids)
+            clone.ids = this.ids.clone();
+        // the default supplier reads the ids of the step that created it, so the clone needs one of its own
+        clone.defaultIteratorSupplier = clone.newDefaultIteratorSupplier();
+        if (null != this.iteratorSupplier && this.iteratorSupplier == this.defaultIteratorSupplier)
+            clone.iteratorSupplier = clone.defaultIteratorSupplier;
+        return clone;
+    }
+
     @Override
     public int hashCode() {
         int result = super.hashCode() ^ this.returnClass.hashCode();
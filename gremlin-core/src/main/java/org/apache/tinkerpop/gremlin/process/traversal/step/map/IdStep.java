@@ -44,4 +44,9 @@ public final class IdStep<S extends Element> extends ScalarMapStep<S, Object> {
     public Set<TraverserRequirement> getRequirements() {
         return Collections.singleton(TraverserRequirement.OBJECT);
     }
+
+    @Override
+    protected boolean supportsBatchProcessing() {
+        return true;
+    }
 }
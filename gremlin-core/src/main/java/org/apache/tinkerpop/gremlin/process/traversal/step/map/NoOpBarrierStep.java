@@ -47,7 +47,7 @@ public final class NoOpBarrierStep<S> extends AbstractStep<S, S> implements Loca
     public NoOpBarrierStep(final Traversal.Admin traversal, final int maxBarrierSize) {
         super(traversal);
         this.maxBarrierSize = maxBarrierSize;
-        this.barrier = (TraverserSet<S>) this.traversal.getTraverserSetSupplier().get();
+        this.barrier = (TraverserSet<S>) this.traversal.getLocalTraverserSetSupplier().get();
     }
 
     @Override
@@ -64,7 +64,8 @@ public final class NoOpBarrierStep<S> extends AbstractStep<S, S> implements Loca
 
     @Override
     public void processAllStarts() {
-        while ((this.maxBarrierSize == Integer.MAX_VALUE || this.barrier.size() < this.maxBarrierSize) && this.starts.hasNext()) {
+        while ((this.maxBarrierSize == Integer.MAX_VALUE || this.barrier.size() < this.maxBarrierSize) &&
+                (this.supportsBatchProcessing() ? this.starts.fetchBatch(DEFAULT_BATCH_SIZE) : this.starts.hasNext())) {
             final Traverser.Admin<S> traverser = this.starts.next();
             traverser.setStepId(this.getNextStep().getId()); // when barrier is reloaded, the traversers should be at the next step
             this.barrier.add(traverser);
@@ -83,8 +84,9 @@ public final class NoOpBarrierStep<S> extends AbstractStep<S, S> implements Loca
         if (this.barrier.isEmpty())
             throw FastNoSuchElementException.instance();
         else {
-            final TraverserSet<S> temp = this.barrier;
-            this.barrier = (TraverserSet<S>) this.traversal.getTraverserSetSupplier().get();
+            final TraverserSet<S> temp = (TraverserSet<S>) this.traversal.getTraverserSetSupplier().get();
+            temp.addAll(this.barrier);
+            this.barrier.clear();
             return temp;
         }
     }
@@ -97,10 +99,15 @@ public final class NoOpBarrierStep<S> extends AbstractStep<S, S> implements Loca
     @Override
     public NoOpBarrierStep<S> clone() {
         final NoOpBarrierStep<S> clone = (NoOpBarrierStep<S>) super.clone();
-        clone.barrier = (TraverserSet<S>) this.traversal.getTraverserSetSupplier().get();
+        clone.barrier = (TraverserSet<S>) this.traversal.getLocalTraverserSetSupplier().get();
         return clone;
     }
 
+    @Override
+    protected boolean supportsBatchProcessing() {
+        return this.getClass() == NoOpBarrierStep.class;
+    }
+
     @Override
     public String toString() {
         return StringFactory.stepString(this, this.maxBarrierSize == Integer.MAX_VALUE ? null : this.maxBarrierSize);
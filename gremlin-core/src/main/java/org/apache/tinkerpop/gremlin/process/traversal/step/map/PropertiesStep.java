@@ -73,6 +73,11 @@ public class PropertiesStep<E> extends FlatMapStep<Element, E> implements AutoCl
         return this.propertyKeys;
     }
 
+    @Override
+    protected boolean supportsBatchProcessing() {
+        return this.getClass() == PropertiesStep.class;
+    }
+
     @Override
     public String toString() {
         return StringFactory.stepString(this, Arrays.asList(this.propertyKeys), this.returnType.name().toLowerCase());
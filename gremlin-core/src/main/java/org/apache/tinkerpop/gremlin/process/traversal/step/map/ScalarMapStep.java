@@ -21,6 +21,8 @@ package org.apache.tinkerpop.gremlin.process.traversal.step.map;
 import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
 import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
 
+import java.util.List;
+
 /**
  * A type of {@link MapStep} class which will transform the object of one {@link Traverser} into another. This class
  * simply requires the implementation of the {@link #map(Traverser.Admin)} method to extract the object of the given
@@ -40,5 +42,13 @@ public abstract class ScalarMapStep<S, E> extends MapStep<S,E> {
         return traverser.split(this.map(traverser), this);
     }
 
+    @Override
+    protected void processNextBatch(final List<Traverser.Admin<E>> batch, final int maxSize) {
+        for (int i = 0; i < maxSize && this.starts.fetchBatch(maxSize); i++) {
+            final Traverser.Admin<S> traverser = this.starts.next();
+            batch.add(traverser.split(this.map(traverser), this));
+        }
+    }
+
     protected abstract E map(final Traverser.Admin<S> traverser);
 }
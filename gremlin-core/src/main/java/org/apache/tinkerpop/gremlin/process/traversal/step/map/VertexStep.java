@@ -92,6 +92,11 @@ public class VertexStep<E extends Element> extends FlatMapStep<Vertex, E> implem
         return this.returnClass.equals(Edge.class);
     }
 
+    @Override
+    protected boolean supportsBatchProcessing() {
+        return this.getClass() == VertexStep.class;
+    }
+
     @Override
     public String toString() {
         return StringFactory.stepString(this, this.direction, Arrays.asList(this.edgeLabels), this.returnClass.getSimpleName().toLowerCase());
@@ -54,7 +54,7 @@ public final class AggregateGlobalStep<S> extends AbstractStep<S, S> implements
     public AggregateGlobalStep(final Traversal.Admin traversal, final String sideEffectKey) {
         super(traversal);
         this.sideEffectKey = sideEffectKey;
-        this.barrier = (TraverserSet<S>) this.traversal.getTraverserSetSupplier().get();
+        this.barrier = (TraverserSet<S>) this.traversal.getLocalTraverserSetSupplier().get();
         this.getTraversal().getSideEffects().registerIfAbsent(this.sideEffectKey, (Supplier) BulkSetSupplier.instance(), Operator.addAll);
     }
 
@@ -92,7 +92,7 @@ public final class AggregateGlobalStep<S> extends AbstractStep<S, S> implements
     @Override
     public AggregateGlobalStep<S> clone() {
         final AggregateGlobalStep<S> clone = (AggregateGlobalStep<S>) super.clone();
-        clone.barrier = (TraverserSet<S>) this.traversal.getTraverserSetSupplier().get();
+        clone.barrier = (TraverserSet<S>) this.traversal.getLocalTraverserSetSupplier().get();
         if (null != this.aggregateTraversal)
             clone.aggregateTraversal = this.aggregateTraversal.clone();
         return clone;
@@ -153,8 +153,9 @@ public final class AggregateGlobalStep<S> extends AbstractStep<S, S> implements
         if (this.barrier.isEmpty())
             throw FastNoSuchElementException.instance();
         else {
-            final TraverserSet<S> temp = this.barrier;
-            this.barrier = (TraverserSet<S>) this.traversal.getTraverserSetSupplier().get();
+            final TraverserSet<S> temp = (TraverserSet<S>) this.traversal.getTraverserSetSupplier().get();
+            temp.addAll(this.barrier);
+            this.barrier.clear();
             return temp;
         }
     }
@@ -30,6 +30,7 @@ import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
@@ -39,6 +40,12 @@ import java.util.Set;
  */
 public abstract class AbstractStep<S, E> implements Step<S, E> {
 
+    /**
+     * The number of traversers that a step which processes batches takes from the previous step at once when it is
+     * not asked for a batch of a particular size itself.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
     protected Set<String> labels = new LinkedHashSet<>();
     protected String id = Traverser.Admin.HALT;
     protected Traversal.Admin traversal;
@@ -51,7 +58,7 @@ public abstract class AbstractStep<S, E> implements Step<S, E> {
 
     public AbstractStep(final Traversal.Admin traversal) {
         this.traversal = traversal;
-        this.starts = new ExpandableStepIterator<>(this, (TraverserSet<S>) traversal.getTraverserSetSupplier().get());
+        this.starts = new ExpandableStepIterator<>(this, (TraverserSet<S>) traversal.getLocalTraverserSetSupplier().get());
     }
 
     @Override
@@ -159,6 +166,79 @@ public abstract class AbstractStep<S, E> implements Step<S, E> {
         }
     }
 
+    /**
+     * Adds up to {@code maxSize} traversers to the batch. A step that {@link #supportsBatchProcessing()} fills it
+     * through {@link #processNextBatch(List, int)}, while any other step emits its traversers one at a time through
+     * {@link #hasNext()} and {@link #next()}.
+     */
+    @Override
+    public int nextBatch(final List<Traverser.Admin<E>> batch, final int maxSize) {
+        if (!this.supportsBatchProcessing())
+            return Step.super.nextBatch(batch, maxSize);
+
+        int count = 0;
+        if (EmptyTraverser.instance() != this.nextEnd && maxSize > 0) {
+            batch.add(this.prepareTraversalForNextStep(this.nextEnd));
+            this.nextEnd = EmptyTraverser.instance();
+            count++;
+        }
+        while (count < maxSize) {
+            if (Thread.interrupted()) throw new TraversalInterruptedException();
+            final int from = batch.size();
+            final int added;
+            try {
+                this.processNextBatch(batch, maxSize - count);
+            } finally {
+                // prepare what was added even if a later start failed as the caller may keep it
+                added = batch.size() - from;
+                this.prepareBatch(batch, from);
+            }
+            if (0 == added)
+                break;
+            count = count + batch.size() - from;
+        }
+        return count;
+    }
+
+    /**
+     * Prepares the traversers of the batch from the given position on for the next step and, like {@link #next()},
+     * drops those that have no bulk left.
+     */
+    private void prepareBatch(final List<Traverser.Admin<E>> batch, final int from) {
+        int to = from;
+        for (int i = from; i < batch.size(); i++) {
+            final Traverser.Admin<E> traverser = batch.get(i);
+            if (traverser.bulk() > 0)
+                batch.set(to++, this.prepareTraversalForNextStep(traverser));
+        }
+        batch.subList(to, batch.size()).clear();
+    }
+
+    /**
+     * Determines if the step processes its starts in batches through {@link #processNextBatch(List, int)}, which a
+     * step opts into where doing so gives the same traversers as {@link #processNextStart()}. A step that does may
+     * take up to a batch of traversers from the previous step before it emits any. As a subclass may process its
+     * starts differently, steps opt in for their own class only.
+     */
+    protected boolean supportsBatchProcessing() {
+        return false;
+    }
+
+    /**
+     * Adds up to {@code maxSize} traversers to the batch, adding none only if the step has no more. It is only called
+     * if the step {@link #supportsBatchProcessing()}. The default implementation calls {@link #processNextStart()}
+     * for every traverser.
+     */
+    protected void processNextBatch(final List<Traverser.Admin<E>> batch, final int maxSize) {
+        try {
+            for (int i = 0; i < maxSize; i++) {
+                batch.add(this.processNextStart());
+            }
+        } catch (final NoSuchElementException e) {
+            // no more starts
+        }
+    }
+
     @Override
     public <A, B> Traversal.Admin<A, B> getTraversal() {
         return this.traversal;
@@ -181,7 +261,7 @@ public abstract class AbstractStep<S, E> implements Step<S, E> {
     public AbstractStep<S, E> clone() {
         try {
             final AbstractStep<S, E> clone = (AbstractStep<S, E>) super.clone();
-            clone.starts = new ExpandableStepIterator<>(clone, (TraverserSet<S>) traversal.getTraverserSetSupplier().get());
+            clone.starts = new ExpandableStepIterator<>(clone, (TraverserSet<S>) traversal.getLocalTraverserSetSupplier().get());
             clone.previousStep = EmptyStep.instance();
             clone.nextStep = EmptyStep.instance();
             clone.nextEnd = EmptyTraverser.instance();
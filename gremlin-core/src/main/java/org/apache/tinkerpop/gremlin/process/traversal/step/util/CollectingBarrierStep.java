@@ -51,7 +51,7 @@ public abstract class CollectingBarrierStep<S> extends AbstractStep<S, S> implem
 
     public CollectingBarrierStep(final Traversal.Admin traversal, final int maxBarrierSize) {
         super(traversal);
-        this.traverserSet = (TraverserSet<S>) this.traversal.getTraverserSetSupplier().get();
+        this.traverserSet = (TraverserSet<S>) this.traversal.getLocalTraverserSetSupplier().get();
         this.maxBarrierSize = maxBarrierSize;
     }
 
@@ -120,7 +120,7 @@ public abstract class CollectingBarrierStep<S> extends AbstractStep<S, S> implem
     @Override
     public CollectingBarrierStep<S> clone() {
         final CollectingBarrierStep<S> clone = (CollectingBarrierStep<S>) super.clone();
-        clone.traverserSet = (TraverserSet<S>) this.traversal.getTraverserSetSupplier().get();
+        clone.traverserSet = (TraverserSet<S>) this.traversal.getLocalTraverserSetSupplier().get();
         clone.barrierConsumed = false;
         return clone;
     }
@@ -21,9 +21,12 @@ package org.apache.tinkerpop.gremlin.process.traversal.step.util;
 import org.apache.tinkerpop.gremlin.process.traversal.Step;
 import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
 import org.apache.tinkerpop.gremlin.process.traversal.traverser.util.TraverserSet;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.util.UnsynchronizedTraverserSet;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
@@ -33,8 +36,15 @@ public final class ExpandableStepIterator<S> implements Iterator<Traverser.Admin
     private TraverserSet<S> traverserSet;
     private final Step<S, ?> hostStep;
 
+    /**
+     * The traversers last taken by {@link #fetchBatch(int)}, which are returned before any other, from the position
+     * of {@link #batchIndex} on.
+     */
+    private List<Traverser.Admin<S>> batch = null;
+    private int batchIndex = 0;
+
     public ExpandableStepIterator(final Step<S, ?> hostStep) {
-        this(hostStep, new TraverserSet<>());
+        this(hostStep, new UnsynchronizedTraverserSet<>());
     }
 
     public ExpandableStepIterator(final Step<S, ?> hostStep, final TraverserSet<S> traverserSet) {
@@ -44,11 +54,13 @@ public final class ExpandableStepIterator<S> implements Iterator<Traverser.Admin
 
     @Override
     public boolean hasNext() {
-        return !this.traverserSet.isEmpty() || this.hostStep.getPreviousStep().hasNext();
+        return this.hasBatched() || !this.traverserSet.isEmpty() || this.hostStep.getPreviousStep().hasNext();
     }
 
     @Override
     public Traverser.Admin<S> next() {
+        if (this.hasBatched())
+            return this.batch.get(this.batchIndex++);
         if (!this.traverserSet.isEmpty())
             return this.traverserSet.remove();
         /////////////
@@ -58,6 +70,58 @@ public final class ExpandableStepIterator<S> implements Iterator<Traverser.Admin
         return this.traverserSet.remove();
     }
 
+    /**
+     * Makes sure that {@link #next()} has a traverser to return by taking up to {@code maxSize} traversers at once from
+     * the starts and the previous step if none is left from the last batch. The host step can then take them one at a
+     * time without going through the previous step for each of them.
+     *
+     * @return {@code false} if there are no traversers left
+     */
+    public boolean fetchBatch(final int maxSize) {
+        if (this.hasBatched())
+            return true;
+        if (null == this.batch)
+            this.batch = new ArrayList<>();
+        else
+            this.batch.clear();
+        this.batchIndex = 0;
+        this.take(this.batch, maxSize);
+        return !this.batch.isEmpty();
+    }
+
+    /**
+     * Adds up to {@code maxSize} traversers to the batch, in the order that {@link #next()} would return them, and
+     * returns how many were added.
+     */
+    public int nextBatch(final List<Traverser.Admin<S>> batch, final int maxSize) {
+        int count = 0;
+        while (count < maxSize && this.hasBatched()) {
+            batch.add(this.batch.get(this.batchIndex++));
+            count++;
+        }
+        return count < maxSize ? count + this.take(batch, maxSize - count) : count;
+    }
+
+    private int take(final List<Traverser.Admin<S>> batch, final int maxSize) {
+        int count = 0;
+        while (count < maxSize && !this.traverserSet.isEmpty()) {
+            batch.add(this.traverserSet.remove());
+            count++;
+        }
+        if (count < maxSize)
+            count = count + this.hostStep.getPreviousStep().nextBatch(batch, maxSize - count);
+        // the previous step may have added starts while it was iterated
+        while (count < maxSize && !this.traverserSet.isEmpty()) {
+            batch.add(this.traverserSet.remove());
+            count++;
+        }
+        return count;
+    }
+
+    private boolean hasBatched() {
+        return null != this.batch && this.batchIndex < this.batch.size();
+    }
+
     public void add(final Iterator<Traverser.Admin<S>> iterator) {
         iterator.forEachRemaining(this.traverserSet::add);
     }
@@ -73,5 +137,9 @@ public final class ExpandableStepIterator<S> implements Iterator<Traverser.Admin
 
     public void clear() {
         this.traverserSet.clear();
+        if (null != this.batch) {
+            this.batch.clear();
+            this.batchIndex = 0;
+        }
     }
 }
@@ -0,0 +1,362 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.process.traversal.step.util;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.Barrier;
+import org.apache.tinkerpop.gremlin.process.traversal.step.TraversalParent;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.finalization.ParallelStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalInterruptedException;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs a chain of steps, which {@link ParallelStrategy} takes from the root traversal, over partitions of its starts
+ * on an {@link Executor}. Every partition is processed by its own clone of the chain, at most {@code parallelism} of
+ * them at the same time, and the results are emitted partition by partition in the order of the starts. A partition
+ * hands its results over through a queue that holds at most {@code partitionSize} of them, so that it waits for the
+ * traversal to take them rather than piling them up. If the chain ends with a {@link ReducingBarrierStep}, each
+ * partition only produces the barrier of its own clone of that step, and the barriers are merged with the reducer of
+ * the step, so that the result is the same as if all the starts had passed through it.
+ * <p/>
+ * The threads of the {@link Executor} are never interrupted. Closing the step, or interrupting the thread that
+ * iterates it, cancels the partitions that are still running, which stop at the next start or result that they
+ * handle. A partition that the {@link Executor} rejects or runs on the thread that iterates the step is processed
+ * there once the traversal gets to its results.
+ */
+public final class ParallelStep<S, E> extends AbstractStep<S, E> implements TraversalParent, AutoCloseable {
+
+    private static final Object END = new Object();
+
+    private Traversal.Admin<S, E> chain;
+    private final int parallelism;
+    private final int partitionSize;
+    private final Executor executor;
+    private final boolean reducing;
+
+    private transient Deque<Partition> partitions;
+    private transient ReducingBarrierStep<?, E> reducer;
+
+    public ParallelStep(final Traversal.Admin traversal, final Traversal.Admin<S, E> chain, final int parallelism,
+                        final int partitionSize, final Executor executor) {
+        super(traversal);
+        if (parallelism < 1)
+            throw new IllegalArgumentException("The parallelism must be at least 1");
+        if (partitionSize < 1)
+            throw new IllegalArgumentException("The partition size must be at least 1");
+        if (null == executor)
+            throw new IllegalArgumentException("The executor cannot be null");
+        this.chain = this.integrateChild(chain);
+        this.parallelism = parallelism;
+        this.partitionSize = partitionSize;
+        this.executor = executor;
+        this.reducing = chain.getEndStep() instanceof ReducingBarrierStep;
+    }
+
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    public int getPartitionSize() {
+        return this.partitionSize;
+    }
+
+    public Executor getExecutor() {
+        return this.executor;
+    }
+
+    @Override
+    public List<Traversal.Admin<S, E>> getLocalChildren() {
+        return Collections.singletonList(this.chain);
+    }
+
+    @Override
+    public Set<TraverserRequirement> getRequirements() {
+        return this.chain.getTraverserRequirements();
+    }
+
+    @Override
+    protected Traverser.Admin<E> processNextStart() {
+        if (null == this.partitions) {
+            // the clones take the generator of the template as they stand in for the root traversal
+            this.chain.getTraverserGenerator();
+            this.partitions = new ArrayDeque<>();
+        }
+
+        if (this.reducing) {
+            if (null == this.reducer)
+                this.reducer = this.reduce();
+            return this.reducer.next();
+        }
+
+        while (true) {
+            this.fill();
+            if (this.partitions.isEmpty())
+                throw FastNoSuchElementException.instance();
+            final Object result = this.take(this.partitions.getFirst());
+            if (END != result)
+                return (Traverser.Admin<E>) result;
+            this.partitions.removeFirst();
+        }
+    }
+
+    /**
+     * Merges the barriers of all the partitions into a clone of the {@link ReducingBarrierStep} that ends the chain.
+     * That clone has no starts of its own, so it emits what it would have emitted for no starts at all if every
+     * partition is empty.
+     */
+    private ReducingBarrierStep<?, E> reduce() {
+        final ReducingBarrierStep<?, E> reducer = (ReducingBarrierStep<?, E>) this.chain.getEndStep().clone();
+        reducer.setTraversal(this.getTraversal());
+        this.fill();
+        while (!this.partitions.isEmpty()) {
+            final Object barrier = this.take(this.partitions.removeFirst());
+            if (END != barrier && ReducingBarrierStep.NON_EMITTING_SEED != barrier)
+                reducer.addBarrier((E) barrier);
+            this.fill();
+        }
+        return reducer;
+    }
+
+    /**
+     * Takes the starts for as many partitions as may run alongside the ones that are still running.
+     */
+    private void fill() {
+        while (this.partitions.size() < this.parallelism && this.starts.hasNext()) {
+            final List<Traverser.Admin<S>> starts = new ArrayList<>(this.partitionSize);
+            while (starts.size() < this.partitionSize && this.starts.hasNext()) {
+                starts.add(this.starts.next());
+            }
+            final Partition partition = new Partition(this.chain.clone(), starts);
+            this.partitions.add(partition);
+
+            // a partition that has nothing to run alongside is processed right here
+            if (1 == this.partitions.size() && !this.starts.hasNext())
+                partition.inline = true;
+            else {
+                try {
+                    this.executor.execute(partition);
+                } catch (final RejectedExecutionException ex) {
+                    partition.inline = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes the next result of the partition, which is {@link #END} once it has no more, and cancels all of them if
+     * it failed or if the thread is interrupted while it waits.
+     */
+    private Object take(final Partition partition) {
+        final Object result;
+        try {
+            result = partition.take();
+        } catch (final InterruptedException ex) {
+            this.cancel();
+            throw new TraversalInterruptedException();
+        } catch (final RuntimeException | Error ex) {
+            this.cancel();
+            throw ex;
+        }
+
+        if (END == result && null != partition.failure) {
+            this.cancel();
+            if (partition.failure instanceof Error)
+                throw (Error) partition.failure;
+            throw (RuntimeException) partition.failure;
+        }
+        return result;
+    }
+
+    private void cancel() {
+        for (final Partition partition : this.partitions) {
+            partition.cancel();
+        }
+        this.partitions.clear();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        if (null != this.partitions)
+            this.cancel();
+        this.reducer = null;
+    }
+
+    @Override
+    public void close() {
+        if (null != this.partitions)
+            this.cancel();
+    }
+
+    @Override
+    public ParallelStep<S, E> clone() {
+        final ParallelStep<S, E> clone = (ParallelStep<S, E>) super.clone();
+        clone.chain = this.chain.clone();
+        clone.partitions = null;
+        clone.reducer = null;
+        return clone;
+    }
+
+    @Override
+    public void setTraversal(final Traversal.Admin<?, ?> parentTraversal) {
+        super.setTraversal(parentTraversal);
+        this.integrateChild(this.chain);
+    }
+
+    @Override
+    public String toString() {
+        return StringFactory.stepString(this, this.parallelism, this.partitionSize, this.chain);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode() ^ this.chain.hashCode() ^ Integer.hashCode(this.parallelism) ^ Integer.hashCode(this.partitionSize);
+    }
+
+    /**
+     * A clone of the chain along with the starts that it processes. It keeps the failure of the chain, so that the
+     * thread that takes its results rethrows it as it was, and it stops once it is cancelled, which it notices when
+     * the chain pulls its next start or when it hands over its next result.
+     */
+    private final class Partition implements Runnable {
+
+        private final Traversal.Admin<S, E> traversal;
+        private final Step<?, E> endStep;
+        private final Thread consumer = Thread.currentThread();
+        private final BlockingQueue<Object> results = new ArrayBlockingQueue<>(partitionSize);
+        private volatile boolean cancelled;
+        private boolean inline;
+        private boolean reduced;
+        private Throwable failure;
+
+        private Partition(final Traversal.Admin<S, E> traversal, final List<Traverser.Admin<S>> starts) {
+            this.traversal = traversal;
+            this.endStep = traversal.getEndStep();
+            // the clone stands in for the root traversal, so that its filters reduce type errors as they would there
+            this.traversal.setParent(EmptyStep.instance());
+            final Feed feed = new Feed();
+            feed.addStarts(starts.iterator());
+            feed.setNextStep(traversal.getStartStep());
+            traversal.getStartStep().setPreviousStep(feed);
+        }
+
+        @Override
+        public void run() {
+            // the thread that takes the results would wait for itself, so it processes the partition when it gets to it
+            if (Thread.currentThread() == this.consumer) {
+                this.inline = true;
+                return;
+            }
+
+            try {
+                if (reducing) {
+                    // the barrier is all that is taken from the partition
+                    this.results.put(this.reduce());
+                    return;
+                }
+                while (!this.cancelled && this.endStep.hasNext()) {
+                    this.results.put(this.endStep.next());
+                }
+            } catch (final InterruptedException ex) {
+                this.failure = new TraversalInterruptedException();
+            } catch (final RuntimeException | Error ex) {
+                this.failure = ex;
+            }
+            this.end();
+        }
+
+        /**
+         * Hands over the end of the results unless no one takes them anymore, even if the thread is interrupted, as
+         * the thread that takes them would otherwise wait for it forever.
+         */
+        private void end() {
+            boolean interrupted = false;
+            while (!this.cancelled) {
+                try {
+                    this.results.put(END);
+                    break;
+                } catch (final InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+
+        private Object reduce() {
+            // an empty partition would add the seed of the reducer, which only the merged result may hold
+            if (!this.endStep.getPreviousStep().hasNext())
+                return ReducingBarrierStep.NON_EMITTING_SEED;
+            return ((Barrier<?>) this.endStep).nextBarrier();
+        }
+
+        private Object take() throws InterruptedException {
+            if (!this.inline)
+                return this.results.take();
+
+            if (reducing) {
+                if (this.reduced)
+                    return END;
+                this.reduced = true;
+                return this.reduce();
+            }
+            return this.endStep.hasNext() ? this.endStep.next() : END;
+        }
+
+        /**
+         * Stops the partition and frees the room in its queue, which lets it notice if it waits to hand over a result.
+         */
+        private void cancel() {
+            this.cancelled = true;
+            this.results.clear();
+        }
+
+        /**
+         * Feeds the starts of the partition to the chain, checking before each whether the partition was cancelled.
+         */
+        private final class Feed extends AbstractStep<S, S> {
+
+            private Feed() {
+                super(Partition.this.traversal);
+            }
+
+            @Override
+            protected Traverser.Admin<S> processNextStart() {
+                if (Partition.this.cancelled)
+                    throw new TraversalInterruptedException();
+                return this.starts.next();
+            }
+        }
+    }
+}
@@ -107,7 +107,7 @@ public abstract class ReducingBarrierStep<S, E> extends AbstractStep<S, E> imple
             this.seed = getSeedSupplier().get();
         }
 
-        while (this.starts.hasNext())
+        while (this.supportsBatchProcessing() ? this.starts.fetchBatch(DEFAULT_BATCH_SIZE) : this.starts.hasNext())
             this.seed = this.reducingBiOperator.apply(this.seed, this.projectTraverser(this.starts.next()));
     }
 
@@ -0,0 +1,337 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.process.traversal.strategy.finalization;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.configuration2.MapConfiguration;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.step.Barrier;
+import org.apache.tinkerpop.gremlin.process.traversal.step.LambdaHolder;
+import org.apache.tinkerpop.gremlin.process.traversal.step.LocalBarrier;
+import org.apache.tinkerpop.gremlin.process.traversal.step.Mutating;
+import org.apache.tinkerpop.gremlin.process.traversal.step.Seedable;
+import org.apache.tinkerpop.gremlin.process.traversal.step.SideEffectCapable;
+import org.apache.tinkerpop.gremlin.process.traversal.step.TraversalParent;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.DedupGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.CallStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.CountGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.FoldStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.GroupCountStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.GroupStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.MaxGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.MeanGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.MinGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.SumGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.ProfileSideEffectStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.SideEffectStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.StartStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.EmptyStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.ParallelStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.ProfileStep;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
+import org.apache.tinkerpop.gremlin.process.traversal.util.DefaultTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the steps that follow the {@link GraphStep} at the start of a traversal up to its first {@link Barrier} on
+ * several threads with a {@link ParallelStep}, which splits the elements of the {@link GraphStep} into partitions.
+ * If that barrier is a {@code count()}, {@code sum()}, {@code max()}, {@code min()}, {@code mean()},
+ * {@code group()}, {@code groupCount()} or {@code fold()}, every partition computes its part of it, which are then
+ * merged. Every partition removes its own duplicates in front of a {@code dedup()} without labels, which then only
+ * has to remove those that appear in more than one partition. Otherwise the barrier and the steps after it run on the
+ * calling thread. A {@link LocalBarrier}, which only bulks, does not end the steps that run in parallel.
+ * <p/>
+ * The strategy leaves a traversal as it is if any of those steps or of their children may not run on separate threads
+ * or would not give the same result when it does: steps with side-effects, mutations, lambdas, random steps,
+ * {@code call()} and barriers in global children, which would only see the traversers of one partition. Neither does
+ * it change traversals whose traversers carry a path or a sack, traversals on graphs that support transactions, as
+ * those are bound to a thread, or traversals that are profiled or run on a {@code GraphComputer}.
+ * <p/>
+ * The partitions run on the {@link Executor} given to the {@link Builder} or, by default, on as many daemon threads as
+ * there are processors, which are kept for this strategy alone and end once they have been idle for a minute. A
+ * partition that an {@link Executor} rejects, for example because all of those threads are busy, runs on the calling
+ * thread instead. The strategy is a
+ * {@link TraversalStrategy.FinalizationStrategy} so that it sees the steps that the optimizations of the provider leave
+ * behind, which for example fold filters into the {@link GraphStep}.
+ *
+ * @example <pre>
+ * g.withStrategies(ParallelStrategy.build().create())
+ * g.V().hasLabel("account").where(out("owns").count().is(gt(10))).count()    // the whole traversal runs in parallel
+ * g.V().out().dedup().values("name")                                         // out() and a dedup() per partition run in parallel
+ * g.V().out().order().values("name")                                         // only out() runs in parallel
+ * g.V().sideEffect(out().aggregate("x")).count()                             // is not changed
+ * </pre>
+ */
+public final class ParallelStrategy extends AbstractTraversalStrategy<TraversalStrategy.FinalizationStrategy> implements TraversalStrategy.FinalizationStrategy {
+
+    public static final String PARALLELISM = "parallelism";
+    public static final String PARTITION_SIZE = "partitionSize";
+
+    /**
+     * The default number of partitions that run at the same time, which is the number of processors.
+     */
+    public static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The default number of starts of a partition.
+     */
+    public static final int DEFAULT_PARTITION_SIZE = 256;
+
+    private static final List<Class<? extends Step>> MERGEABLE_BARRIERS = Arrays.asList(CountGlobalStep.class,
+            SumGlobalStep.class, MaxGlobalStep.class, MinGlobalStep.class, MeanGlobalStep.class, GroupStep.class,
+            GroupCountStep.class);
+
+    private final int parallelism;
+    private final int partitionSize;
+    private final Executor executor;
+
+    private ParallelStrategy(final int parallelism, final int partitionSize, final Executor executor) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("The parallelism must be at least 1");
+        if (partitionSize < 1)
+            throw new IllegalArgumentException("The partition size must be at least 1");
+        this.parallelism = parallelism;
+        this.partitionSize = partitionSize;
+        this.executor = executor;
+    }
+
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    public int getPartitionSize() {
+        return this.partitionSize;
+    }
+
+    /**
+     * Gets the {@link Executor} that the partitions run on, which is the default one if none was given.
+     */
+    public Executor getExecutor() {
+        return null == this.executor ? DefaultExecutor.INSTANCE : this.executor;
+    }
+
+    @Override
+    public void apply(final Traversal.Admin<?, ?> traversal) {
+        if (!traversal.isRoot() || TraversalHelper.onGraphComputer(traversal))
+            return;
+
+        // profile() reports metrics per step, which would be spread over the clones of the partitions
+        if (TraversalHelper.hasStepOfAssignableClassRecursively(ProfileSideEffectStep.class, traversal))
+            return;
+
+        // a transaction only spans the thread that opened it
+        final Optional<Graph> graph = traversal.getGraph();
+        if (!graph.isPresent() || graph.get().features().graph().supportsTransactions())
+            return;
+
+        final Set<TraverserRequirement> requirements = traversal.getTraverserRequirements();
+        if (requirements.contains(TraverserRequirement.PATH) ||
+                requirements.contains(TraverserRequirement.LABELED_PATH) ||
+                requirements.contains(TraverserRequirement.SACK))
+            return;
+
+        final Step<?, ?> graphStep = traversal.getStartStep();
+        if (!(graphStep instanceof GraphStep) || !((GraphStep<?, ?>) graphStep).isStartStep())
+            return;
+
+        Step<?, ?> endStep = graphStep.getNextStep();
+        while (!(endStep instanceof EmptyStep) && (!(endStep instanceof Barrier) || endStep instanceof LocalBarrier) &&
+                isParallelizable(endStep, true)) {
+            endStep = endStep.getNextStep();
+        }
+        if (endStep == graphStep.getNextStep())
+            return;
+        final boolean dedup = isPartitionable(endStep) && isParallelizable(endStep, true);
+        if (isMergeable(endStep) && isParallelizable(endStep, true))
+            endStep = endStep.getNextStep();
+
+        final Traversal.Admin<?, ?> chain = new DefaultTraversal<>();
+        TraversalHelper.removeToTraversal((Step) graphStep.getNextStep(), (Step) endStep, (Traversal.Admin) chain);
+        if (dedup) {
+            // the dedup() of a partition sets the bulk of the traversers it keeps to one, so the dedup() that stays on
+            // the calling thread sees every object once per partition that it appears in, which it then reduces to one
+            final Step<?, ?> partitionDedup = endStep.clone();
+            for (final String label : partitionDedup.getLabels()) {
+                partitionDedup.removeLabel(label);
+            }
+            chain.addStep((Step) partitionDedup);
+        }
+        final ParallelStep<?, ?> parallelStep = new ParallelStep<>(traversal, chain, this.parallelism, this.partitionSize, this.getExecutor());
+        for (final String label : chain.getEndStep().getLabels()) {
+            parallelStep.addLabel(label);
+        }
+        TraversalHelper.insertAfterStep((Step) parallelStep, graphStep, traversal);
+    }
+
+    /**
+     * Determines if clones of the step may run alongside each other. A step is {@code global} if it sees the
+     * traversers of more than one start, which those of the global children of such a step do as well, in which
+     * case the barriers among its children would only see those of one partition.
+     */
+    private static boolean isParallelizable(final Step<?, ?> step, final boolean global) {
+        if (step instanceof SideEffectStep || step instanceof SideEffectCapable || step instanceof Mutating ||
+                step instanceof LambdaHolder || step instanceof Seedable || step instanceof StartStep ||
+                step instanceof CallStep || step instanceof ProfileStep || step instanceof ParallelStep)
+            return false;
+
+        if (step instanceof TraversalParent) {
+            for (final Traversal.Admin<?, ?> child : ((TraversalParent) step).getLocalChildren()) {
+                if (!isParallelizable(child, false))
+                    return false;
+            }
+            for (final Traversal.Admin<?, ?> child : ((TraversalParent) step).getGlobalChildren()) {
+                if (!isParallelizable(child, global))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isParallelizable(final Traversal.Admin<?, ?> traversal, final boolean global) {
+        for (final Step<?, ?> step : traversal.getSteps()) {
+            if (global && step instanceof Barrier && !(step instanceof LocalBarrier))
+                return false;
+            if (!isParallelizable(step, global))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Determines if the step is a barrier whose partial results can be merged. Only the classes themselves qualify
+     * and a {@code fold()} only if it collects into an empty list, as every partition starts from the seed.
+     */
+    private static boolean isMergeable(final Step<?, ?> step) {
+        if (step.getClass() == FoldStep.class) {
+            final FoldStep<?, ?> foldStep = (FoldStep<?, ?>) step;
+            final Object seed = foldStep.getSeedSupplier().get();
+            return foldStep.isListFold() && seed instanceof Collection && ((Collection<?>) seed).isEmpty();
+        }
+        return MERGEABLE_BARRIERS.contains(step.getClass());
+    }
+
+    /**
+     * Determines if the step is a {@code dedup()} that every partition can run on its own traversers ahead of it, which
+     * is only the case if it removes duplicates of the objects of the traversers rather than of labelled ones.
+     */
+    private static boolean isPartitionable(final Step<?, ?> step) {
+        return step.getClass() == DedupGlobalStep.class && ((DedupGlobalStep<?>) step).getScopeKeys().isEmpty();
+    }
+
+    /**
+     * Creates the strategy from its configuration, which the partitions then run on the default {@link Executor}, as
+     * only the {@link Builder} takes one.
+     */
+    public static ParallelStrategy create(final Configuration configuration) {
+        return new ParallelStrategy(configuration.getInt(PARALLELISM, DEFAULT_PARALLELISM),
+                configuration.getInt(PARTITION_SIZE, DEFAULT_PARTITION_SIZE), null);
+    }
+
+    @Override
+    public Configuration getConfiguration() {
+        final Map<String, Object> map = new HashMap<>();
+        map.put(STRATEGY, ParallelStrategy.class.getCanonicalName());
+        map.put(PARALLELISM, this.parallelism);
+        map.put(PARTITION_SIZE, this.partitionSize);
+        return new MapConfiguration(map);
+    }
+
+    public static Builder build() {
+        return new Builder();
+    }
+
+    public final static class Builder {
+
+        private int parallelism = DEFAULT_PARALLELISM;
+        private int partitionSize = DEFAULT_PARTITION_SIZE;
+        private Executor executor = null;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the number of partitions that run at the same time, which defaults to the number of processors.
+         */
+        public Builder parallelism(final int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Sets the number of starts of a partition, which defaults to {@link #DEFAULT_PARTITION_SIZE}.
+         */
+        public Builder partitionSize(final int partitionSize) {
+            this.partitionSize = partitionSize;
+            return this;
+        }
+
+        /**
+         * Sets the {@link Executor} that the partitions run on, which defaults to threads that are kept for this
+         * strategy alone. The strategy never interrupts its threads. The {@link Executor} is not part of the
+         * configuration of the strategy, so a strategy that is created from that configuration uses the default one.
+         */
+        public Builder executor(final Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public ParallelStrategy create() {
+            return new ParallelStrategy(this.parallelism, this.partitionSize, this.executor);
+        }
+    }
+
+    /**
+     * Holds the default {@link Executor}, which starts its daemon threads only once a partition needs one and keeps
+     * no more of them than there are processors. It does not queue partitions but rejects those that find all of its
+     * threads busy, which then run on the thread that consumes them.
+     */
+    private static final class DefaultExecutor {
+        private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+        private static final Executor INSTANCE = create(Runtime.getRuntime().availableProcessors());
+
+        private static ThreadPoolExecutor create(final int threads) {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), runnable -> {
+                        final Thread thread = new Thread(runnable, "gremlin-parallel-" + THREAD_COUNT.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.process.traversal.strategy.finalization;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.FusedStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.ProfileSideEffectStep;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Replaces every run of at least two steps that {@link FusedStep} can run with one {@link FusedStep}, so that the
+ * run is executed as a single loop over its starts rather than through the iterators between the steps. Only the
+ * last step of a run may have labels, which the {@link FusedStep} takes over. Nothing is fused if the traversers
+ * carry a path or a sack, which the steps of a run would have to update one by one, or if the traversal runs on a
+ * {@code GraphComputer}, where the adjacent elements of a vertex are not available to it, or if it is profiled, as the
+ * metrics are reported per step.
+ * <p/>
+ * The strategy is a {@link TraversalStrategy.FinalizationStrategy} so that it sees the steps that the provider
+ * optimizations leave behind, as those may fold some of the same steps into their own.
+ *
+ * @example <pre>
+ * __.out().has("age", gt(30)).values("name")    // is replaced by FusedStep([VertexStep(OUT,vertex), HasStep([age.gt(30)]), PropertiesStep([name],value)])
+ * __.out().as("a").out()                        // is not replaced as the traversers carry a path
+ * </pre>
+ */
+public final class StepFusionStrategy extends AbstractTraversalStrategy<TraversalStrategy.FinalizationStrategy> implements TraversalStrategy.FinalizationStrategy {
+
+    private static final StepFusionStrategy INSTANCE = new StepFusionStrategy();
+
+    private static final Set<Class<? extends FinalizationStrategy>> POSTS = Collections.singleton(ProfileStrategy.class);
+
+    private StepFusionStrategy() {
+    }
+
+    @Override
+    public void apply(final Traversal.Admin<?, ?> traversal) {
+        if (TraversalHelper.onGraphComputer(traversal))
+            return;
+
+        // profile() reports metrics per step, which a fused run would merge into one
+        final Traversal.Admin<?, ?> root = TraversalHelper.getRootTraversal(traversal);
+        if (TraversalHelper.hasStepOfAssignableClassRecursively(ProfileSideEffectStep.class, root))
+            return;
+
+        final Set<TraverserRequirement> requirements = root.getTraverserRequirements();
+        if (requirements.contains(TraverserRequirement.PATH) ||
+                requirements.contains(TraverserRequirement.LABELED_PATH) ||
+                requirements.contains(TraverserRequirement.SACK))
+            return;
+
+        final List<Step<?, ?>> run = new ArrayList<>();
+        for (final Step<?, ?> step : new ArrayList<>(traversal.getSteps())) {
+            if (FusedStep.isFusible(step)) {
+                run.add(step);
+                if (!step.getLabels().isEmpty()) {
+                    fuse(run, traversal);
+                    run.clear();
+                }
+            } else {
+                fuse(run, traversal);
+                run.clear();
+            }
+        }
+        fuse(run, traversal);
+    }
+
+    private static void fuse(final List<Step<?, ?>> run, final Traversal.Admin<?, ?> traversal) {
+        if (run.size() < 2)
+            return;
+
+        final Step<?, ?> last = run.get(run.size() - 1);
+        final FusedStep fusedStep = new FusedStep<>(traversal, run);
+        for (final String label : last.getLabels()) {
+            fusedStep.addLabel(label);
+        }
+        TraversalHelper.insertBeforeStep(fusedStep, (Step) run.get(0), traversal);
+        for (final Step<?, ?> step : run) {
+            traversal.removeStep(step);
+        }
+    }
+
+    @Override
+    public Set<Class<? extends FinalizationStrategy>> applyPost() {
+        return POSTS;
+    }
+
+    public static StepFusionStrategy instance() {
+        return INSTANCE;
+    }
+}
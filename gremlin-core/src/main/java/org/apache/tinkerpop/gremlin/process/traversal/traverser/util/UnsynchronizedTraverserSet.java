@@ -0,0 +1,387 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.process.traversal.traverser.util;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.StringJoiner;
+
+/**
+ * A {@link TraverserSet} for a single thread, which is what a step needs for the traversers it keeps to itself. The
+ * traversers are kept in an array in the order they were added and found through an open addressing hash table of
+ * positions in that array, so adding a traverser takes no lock and allocates nothing unless the arrays have to grow.
+ * Removing a traverser leaves a gap in the array that is closed when the arrays are rebuilt.
+ */
+public class UnsynchronizedTraverserSet<S> extends TraverserSet<S> {
+
+    private static final int MINIMUM_CAPACITY = 8;
+
+    /**
+     * Marks a slot whose traverser was removed, which must not end a probe.
+     */
+    private static final int REMOVED = -1;
+
+    /**
+     * The traversers in the order they were added with {@code null} where one was removed.
+     */
+    private Traverser.Admin<S>[] entries = newEntries(0);
+
+    /**
+     * The hash of every traverser in {@link #entries} as it was when it was added, which the traverser is found by
+     * when it is removed from its position as a traverser may change its hash code, for example with its sack.
+     */
+    private int[] hashes = new int[0];
+
+    /**
+     * The hash table, twice as long as {@link #entries}, that holds the position of a traverser plus one, zero for a
+     * free slot or {@link #REMOVED}.
+     */
+    private int[] slots = new int[0];
+
+    /**
+     * The position of the first traverser in {@link #entries} if there is any.
+     */
+    private int head = 0;
+
+    /**
+     * The position that the next traverser is added at.
+     */
+    private int tail = 0;
+
+    private int size = 0;
+    private int removed = 0;
+
+    /**
+     * Counts how often {@link #head} and {@link #tail} started over from zero because the set became empty, which
+     * tells an iterator that the traversers after the position it stopped at are now at the start of the array.
+     */
+    private int restarts = 0;
+
+    public UnsynchronizedTraverserSet() {
+        super((Map<Traverser.Admin<S>, Traverser.Admin<S>>) null);
+    }
+
+    public UnsynchronizedTraverserSet(final Traverser.Admin<S> traverser) {
+        this();
+        if (traverser != null)
+            this.add(traverser);
+    }
+
+    @Override
+    public Iterator<Traverser.Admin<S>> iterator() {
+        return new EntryIterator();
+    }
+
+    @Override
+    public Traverser.Admin<S> get(final Traverser.Admin<S> traverser) {
+        final int slot = this.find(traverser);
+        return slot < 0 ? null : this.entries[this.slots[slot] - 1];
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public long bulkSize() {
+        long bulk = 0L;
+        for (int i = this.head; i < this.tail; i++) {
+            if (null != this.entries[i])
+                bulk = bulk + this.entries[i].bulk();
+        }
+        return bulk;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return 0 == this.size;
+    }
+
+    @Override
+    public boolean contains(final Object traverser) {
+        return this.find(traverser) >= 0;
+    }
+
+    @Override
+    public boolean add(final Traverser.Admin<S> traverser) {
+        if (this.tail == this.entries.length || this.size + this.removed >= this.entries.length)
+            this.rebuild();
+
+        final int mask = this.slots.length - 1;
+        final int hash = hash(traverser);
+        int free = -1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            final int position = this.slots[slot];
+            if (0 == position) {
+                if (free < 0)
+                    free = slot;
+                break;
+            } else if (REMOVED == position) {
+                if (free < 0)
+                    free = slot;
+            } else {
+                final Traverser.Admin<S> existing = this.entries[position - 1];
+                if (existing.equals(traverser)) {
+                    existing.merge(traverser);
+                    return false;
+                }
+            }
+        }
+
+        if (REMOVED == this.slots[free])
+            this.removed--;
+        this.entries[this.tail] = traverser;
+        this.hashes[this.tail] = hash;
+        this.slots[free] = ++this.tail;
+        this.size++;
+        return true;
+    }
+
+    @Override
+    public Traverser.Admin<S> remove() {  // pop, exception if empty
+        if (0 == this.size)
+            throw FastNoSuchElementException.instance();
+        final Traverser.Admin<S> first = this.entries[this.head];
+        this.removeAt(this.slotOf(this.head));
+        return first;
+    }
+
+    @Override
+    public Traverser.Admin<S> poll() {  // pop, null if empty
+        return 0 == this.size ? null : this.remove();
+    }
+
+    @Override
+    public Traverser.Admin<S> element() { // peek, exception if empty
+        if (0 == this.size)
+            throw FastNoSuchElementException.instance();
+        return this.entries[this.head];
+    }
+
+    @Override
+    public Traverser.Admin<S> peek() { // peek, null if empty
+        return 0 == this.size ? null : this.entries[this.head];
+    }
+
+    @Override
+    public boolean remove(final Object traverser) {
+        final int slot = this.find(traverser);
+        if (slot < 0)
+            return false;
+        this.removeAt(slot);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.entries, this.head, this.tail, null);
+        Arrays.fill(this.slots, 0);
+        this.head = 0;
+        this.tail = 0;
+        this.size = 0;
+        this.removed = 0;
+        this.restarts++;
+    }
+
+    @Override
+    public Spliterator<Traverser.Admin<S>> spliterator() {
+        return Spliterators.spliterator(this, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    @Override
+    public String toString() {
+        final StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (final Traverser.Admin<S> traverser : this) {
+            joiner.add(String.valueOf(traverser));
+        }
+        return joiner.toString();
+    }
+
+    @Override
+    public void sort(final Comparator<Traverser<S>> comparator) {
+        final List<Traverser.Admin<S>> list = new ArrayList<>(this);
+        Collections.sort(list, comparator);
+        this.clear();
+        list.forEach(this::add);
+    }
+
+    @Override
+    public void shuffle(final Random random) {
+        final List<Traverser.Admin<S>> list = new ArrayList<>(this);
+        Collections.shuffle(list, random);
+        this.clear();
+        list.forEach(this::add);
+    }
+
+    /**
+     * Finds the slot of the traverser that equals the given one or returns -1 if there is none.
+     */
+    private int find(final Object traverser) {
+        if (0 == this.size || null == traverser)
+            return -1;
+        final int mask = this.slots.length - 1;
+        for (int slot = hash(traverser) & mask; ; slot = (slot + 1) & mask) {
+            final int position = this.slots[slot];
+            if (0 == position)
+                return -1;
+            if (REMOVED != position && this.entries[position - 1].equals(traverser))
+                return slot;
+        }
+    }
+
+    /**
+     * Finds the slot that refers to the position in {@link #entries}.
+     */
+    private int slotOf(final int position) {
+        final int mask = this.slots.length - 1;
+        int slot = this.hashes[position] & mask;
+        while (this.slots[slot] != position + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void removeAt(final int slot) {
+        final int position = this.slots[slot] - 1;
+        this.entries[position] = null;
+        // a probe can only pass the slot if the next one is taken, otherwise the slot can simply be freed
+        if (0 == this.slots[(slot + 1) & (this.slots.length - 1)]) {
+            this.slots[slot] = 0;
+        } else {
+            this.slots[slot] = REMOVED;
+            this.removed++;
+        }
+        this.size--;
+        if (0 == this.size) {
+            // there are no positions left in the table to keep, so the array can be filled again from the start
+            this.head = 0;
+            this.tail = 0;
+            this.restarts++;
+        } else if (position == this.head) {
+            while (null == this.entries[this.head]) {
+                this.head++;
+            }
+        }
+    }
+
+    /**
+     * Moves the traversers to new arrays, doubling them if they are at least half full, which also closes the gaps
+     * and drops the removed slots.
+     */
+    private void rebuild() {
+        final int capacity = this.size >= this.entries.length / 2 ?
+                Math.max(MINIMUM_CAPACITY, this.entries.length * 2) :
+                this.entries.length;
+        final Traverser.Admin<S>[] oldEntries = this.entries;
+        final int[] oldHashes = this.hashes;
+        final int oldHead = this.head;
+        final int oldTail = this.tail;
+        this.entries = newEntries(capacity);
+        this.hashes = new int[capacity];
+        this.slots = new int[capacity * 2];
+        this.head = 0;
+        this.tail = 0;
+        this.removed = 0;
+
+        final int mask = this.slots.length - 1;
+        for (int i = oldHead; i < oldTail; i++) {
+            final Traverser.Admin<S> traverser = oldEntries[i];
+            if (null == traverser)
+                continue;
+            int slot = oldHashes[i] & mask;
+            while (0 != this.slots[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            this.entries[this.tail] = traverser;
+            this.hashes[this.tail] = oldHashes[i];
+            this.slots[slot] = ++this.tail;
+        }
+    }
+
+    private static int hash(final Object traverser) {
+        final int h = traverser.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static <S> Traverser.Admin<S>[] newEntries(final int capacity) {
+        return (Traverser.Admin<S>[]) new Traverser.Admin[capacity];
+    }
+
+    /**
+     * Iterates the traversers in the order they were added, including those added while iterating. The arrays must
+     * not be rebuilt while iterating, which only adding traversers can do. If the set became empty in the meantime,
+     * every traverser it holds now was added after the iterator stopped, so the iterator continues from the start.
+     */
+    private final class EntryIterator implements Iterator<Traverser.Admin<S>> {
+
+        private final Traverser.Admin<S>[] entries = UnsynchronizedTraverserSet.this.entries;
+        private int next = UnsynchronizedTraverserSet.this.head;
+        private int last = -1;
+        private int restarts = UnsynchronizedTraverserSet.this.restarts;
+
+        @Override
+        public boolean hasNext() {
+            this.checkForChanges();
+            while (this.next < tail && null == this.entries[this.next]) {
+                this.next++;
+            }
+            return this.next < tail;
+        }
+
+        @Override
+        public Traverser.Admin<S> next() {
+            if (!this.hasNext())
+                throw FastNoSuchElementException.instance();
+            this.last = this.next++;
+            return this.entries[this.last];
+        }
+
+        @Override
+        public void remove() {
+            this.checkForChanges();
+            if (this.last < 0 || null == this.entries[this.last])
+                throw new IllegalStateException();
+            removeAt(slotOf(this.last));
+            this.last = -1;
+        }
+
+        private void checkForChanges() {
+            if (this.entries != UnsynchronizedTraverserSet.this.entries)
+                throw new ConcurrentModificationException();
+            if (this.restarts != UnsynchronizedTraverserSet.this.restarts) {
+                this.restarts = UnsynchronizedTraverserSet.this.restarts;
+                this.next = head;
+                this.last = -1;
+            }
+        }
+    }
+}
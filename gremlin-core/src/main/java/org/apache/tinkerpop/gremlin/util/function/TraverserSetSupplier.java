@@ -19,6 +19,7 @@
 package org.apache.tinkerpop.gremlin.util.function;
 
 import org.apache.tinkerpop.gremlin.process.traversal.traverser.util.TraverserSet;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.util.UnsynchronizedTraverserSet;
 
 import java.io.Serializable;
 import java.util.function.Supplier;
@@ -28,17 +29,28 @@ import java.util.function.Supplier;
  */
 public final class TraverserSetSupplier<S> implements Supplier<TraverserSet<S>>, Serializable {
 
-    private static final TraverserSetSupplier INSTANCE = new TraverserSetSupplier();
+    private static final TraverserSetSupplier INSTANCE = new TraverserSetSupplier(true);
+    private static final TraverserSetSupplier UNSYNCHRONIZED_INSTANCE = new TraverserSetSupplier(false);
 
-    private TraverserSetSupplier() {
+    private final boolean synchronize;
+
+    private TraverserSetSupplier(final boolean synchronize) {
+        this.synchronize = synchronize;
     }
 
     @Override
     public TraverserSet<S> get() {
-        return new TraverserSet<>();
+        return this.synchronize ? new TraverserSet<>() : new UnsynchronizedTraverserSet<>();
     }
 
     public static <S> TraverserSetSupplier<S> instance() {
         return INSTANCE;
     }
+
+    /**
+     * Gets a supplier of {@link UnsynchronizedTraverserSet} instances, which may only be used by one thread at a time.
+     */
+    public static <S> TraverserSetSupplier<S> unsynchronizedInstance() {
+        return UNSYNCHRONIZED_INSTANCE;
+    }
 }
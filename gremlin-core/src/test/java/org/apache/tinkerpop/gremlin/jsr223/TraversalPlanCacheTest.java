@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.jsr223;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Bytecode;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.TextP;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.decoration.SeedStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.finalization.StepFusionStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.verification.ReadOnlyStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.verification.VerificationException;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalInterruptedException;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.empty.EmptyGraph;
+import org.apache.tinkerpop.gremlin.structure.util.star.StarGraph;
+import org.apache.tinkerpop.gremlin.util.function.Lambda;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TraversalPlanCacheTest {
+
+    private final static GraphTraversalSource g = EmptyGraph.instance().traversal();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequirePositiveMaxSize() {
+        new TraversalPlanCache(0);
+    }
+
+    @Test
+    public void shouldReuseTraversalOfSameShape() {
+        final TraversalPlanCache cache = new TraversalPlanCache(10);
+        assertCompiledLike(g.V(1).has("name", "marko").out(), cache.translate(g, g.V(1).has("name", "marko").out().asAdmin().getBytecode()));
+        assertCompiledLike(g.V(2).has("name", "josh").out(), cache.translate(g, g.V(2).has("name", "josh").out().asAdmin().getBytecode()));
+        assertCompiledLike(g.V(3, 4).has("person", "name", "vadas").out(), cache.translate(g, g.V(3, 4).has("person", "name", "vadas").out().asAdmin().getBytecode()));
+        assertCompiledLike(g.V(5, 6).has("person", "name", "peter").out(), cache.translate(g, g.V(5, 6).has("person", "name", "peter").out().asAdmin().getBytecode()));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void shouldBindLiteralsOfPredicatesAndChildren() {
+        final TraversalPlanCache cache = new TraversalPlanCache(10);
+        cache.translate(g, g.V().hasId(1).where(__.out().has("age", P.gt(30)).has("name", TextP.startingWith("m"))).asAdmin().getBytecode());
+        assertCompiledLike(g.V().hasId(2).where(__.out().has("age", P.gt(40)).has("name", TextP.startingWith("j"))),
+                cache.translate(g, g.V().hasId(2).where(__.out().has("age", P.gt(40)).has("name", TextP.startingWith("j"))).asAdmin().getBytecode()));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void shouldNotChangeCachedTraversal() {
+        final TraversalPlanCache cache = new TraversalPlanCache(10);
+        final Traversal.Admin<?, ?> first = cache.translate(g, g.V(1).has("age", 29).asAdmin().getBytecode());
+        final Traversal.Admin<?, ?> second = cache.translate(g, g.V(2).has("age", 30).asAdmin().getBytecode());
+        final Traversal.Admin<?, ?> third = cache.translate(g, g.V(1).has("age", 29).asAdmin().getBytecode());
+        assertCompiledLike(g.V(1).has("age", 29), first);
+        assertCompiledLike(g.V(2).has("age", 30), second);
+        assertCompiledLike(g.V(1).has("age", 29), third);
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void shouldSeparateShapes() {
+        final TraversalPlanCache cache = new TraversalPlanCache(100);
+        cache.translate(g, g.V(1).out().asAdmin().getBytecode());
+        cache.translate(g, g.V(1L).out().asAdmin().getBytecode());
+        cache.translate(g, g.V(1).in().asAdmin().getBytecode());
+        cache.translate(g, g.V().has("name", "marko").asAdmin().getBytecode());
+        cache.translate(g, g.V().has("age", "marko").asAdmin().getBytecode());
+        cache.translate(g, g.V().has("age", P.gt(1)).asAdmin().getBytecode());
+        cache.translate(g, g.V().has("age", P.lt(1)).asAdmin().getBytecode());
+        cache.translate(g, g.withStrategies(new SeedStrategy(1)).V().asAdmin().getBytecode());
+        cache.translate(g, g.withStrategies(new SeedStrategy(2)).V().asAdmin().getBytecode());
+        cache.translate(g, g.V().limit(1).asAdmin().getBytecode());
+        cache.translate(g, g.V().limit(2).asAdmin().getBytecode());
+        cache.translate(EmptyGraph.instance().traversal(), g.V().limit(2).asAdmin().getBytecode());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(12, cache.getMissCount());
+        assertEquals(12, cache.size());
+    }
+
+    @Test
+    public void shouldNotCacheLambdasOrSideEffects() {
+        final TraversalPlanCache cache = new TraversalPlanCache(10);
+        final Traversal.Admin<?, ?> lambda = cache.translate(g, g.V(1).map(Lambda.function("it.get()")).asAdmin().getBytecode());
+        assertFalse(lambda.isLocked());
+        final Traversal.Admin<?, ?> sideEffect = cache.translate(g, g.withSideEffect("a", new ArrayList<>()).V(1).aggregate("a").asAdmin().getBytecode());
+        assertFalse(sideEffect.isLocked());
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void shouldNotCacheLiteralsThatCannotBeBound() {
+        final TraversalPlanCache cache = new TraversalPlanCache(10);
+        final GraphTraversalSource fused = g.withStrategies(StepFusionStrategy.instance());
+        assertCompiledLike(fused.V().out().has("age", 30).values("name"), cache.translate(fused, fused.V().out().has("age", 30).values("name").asAdmin().getBytecode()));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.uncacheableSize());
+
+        // the shape is known to be uncacheable so the second request is translated as it is and left to the caller
+        final Traversal.Admin<?, ?> traversal = cache.translate(fused, fused.V().out().has("age", 31).values("name").asAdmin().getBytecode());
+        assertFalse(traversal.isLocked());
+        traversal.applyStrategies();
+        assertCompiledLike(fused.V().out().has("age", 31).values("name"), traversal);
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.uncacheableSize());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void shouldLeaveStrategyFailuresToCaller() {
+        final TraversalPlanCache cache = new TraversalPlanCache(10);
+        for (int i = 0; i < 2; i++) {
+            final Traversal.Admin<?, ?> traversal = cache.translate(g, g.withStrategies(ReadOnlyStrategy.instance()).addV("person").has("name", "marko").asAdmin().getBytecode());
+            assertFalse(traversal.isLocked());
+            try {
+                traversal.applyStrategies();
+                fail("The traversal should not pass verification");
+            } catch (VerificationException ex) {
+                // expected
+            }
+        }
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.uncacheableSize());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void shouldApplyStrategiesOfMissInCallingThread() {
+        // the server translates within the timeout of the request, which only bounds the strategies if a miss
+        // applies them as it translates
+        final RecordingStrategy strategy = new RecordingStrategy();
+        final GraphTraversalSource recorded = g.withStrategies(strategy);
+        final TraversalPlanCache cache = new TraversalPlanCache(10);
+
+        final Traversal.Admin<?, ?> miss = cache.translate(recorded, recorded.V(1).has("name", "marko").asAdmin().getBytecode());
+        assertTrue(miss.isLocked());
+        assertEquals(1, strategy.applied.get());
+        assertSame(Thread.currentThread(), strategy.thread);
+
+        final Traversal.Admin<?, ?> hit = cache.translate(recorded, recorded.V(2).has("name", "josh").asAdmin().getBytecode());
+        assertTrue(hit.isLocked());
+        assertEquals(1, strategy.applied.get());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void shouldNotMarkShapeUncacheableWhenInterrupted() {
+        final RecordingStrategy strategy = new RecordingStrategy();
+        strategy.interrupt = true;
+        final GraphTraversalSource recorded = g.withStrategies(strategy);
+        final TraversalPlanCache cache = new TraversalPlanCache(10);
+        try {
+            cache.translate(recorded, recorded.V(1).has("name", "marko").asAdmin().getBytecode());
+            fail("The strategies should have been interrupted");
+        } catch (TraversalInterruptedException ex) {
+            // expected
+        }
+        assertEquals(0, cache.uncacheableSize());
+
+        strategy.interrupt = false;
+        assertTrue(cache.translate(recorded, recorded.V(2).has("name", "josh").asAdmin().getBytecode()).isLocked());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void shouldReturnBytecodeOfRequest() {
+        final TraversalPlanCache cache = new TraversalPlanCache(10);
+        final Bytecode first = g.V(1).has("name", "marko").out().asAdmin().getBytecode();
+        final Bytecode second = g.V(2).has("name", "josh").out().asAdmin().getBytecode();
+        final Bytecode bound = g.V(new Bytecode.Binding<>("x", 3)).has("name", new Bytecode.Binding<>("y", "vadas")).out().asAdmin().getBytecode();
+        assertEquals(first, cache.translate(g, first).getBytecode());
+        assertEquals(second, cache.translate(g, second).getBytecode());
+        assertEquals(bound, cache.translate(g, bound).getBytecode());
+        assertEquals(bound.getBindings(), cache.translate(g, bound).getBytecode().getBindings());
+        assertEquals(3, cache.getHitCount());
+
+        final GraphTraversalSource fused = g.withStrategies(StepFusionStrategy.instance());
+        final Bytecode uncacheable = fused.V().out().has("age", new Bytecode.Binding<>("a", 30)).asAdmin().getBytecode();
+        assertEquals(uncacheable, cache.translate(fused, uncacheable).getBytecode());
+        assertEquals(uncacheable.getBindings(), cache.translate(fused, uncacheable).getBytecode().getBindings());
+    }
+
+    @Test
+    public void shouldReturnSameResultsAsTranslator() {
+        final StarGraph graph = StarGraph.open();
+        final Vertex marko = graph.addVertex(T.id, 1, T.label, "person", "name", "marko", "age", 29);
+        marko.addEdge("knows", graph.addVertex(T.id, 2), "weight", 0.5d);
+        marko.addEdge("knows", graph.addVertex(T.id, 4), "weight", 1.0d);
+        marko.addEdge("created", graph.addVertex(T.id, 3), "weight", 0.4d);
+        final GraphTraversalSource star = graph.traversal();
+        final TraversalPlanCache cache = new TraversalPlanCache(100);
+
+        final List<Traversal<?, ?>> traversals = new ArrayList<>();
+        for (int id = 1; id <= 4; id++) {
+            traversals.add(star.V(id).out().id());
+            traversals.add(star.V().hasId(id).where(__.out().hasId(2)).values("name"));
+            traversals.add(star.V(id).bothE().has("weight", P.gte(0.5d)).otherV().id());
+            // uncacheable as the fused step holds the id
+            traversals.add(star.withStrategies(StepFusionStrategy.instance()).V().out().hasId(id).id());
+        }
+        for (final String name : Arrays.asList("marko", "josh", "nobody")) {
+            traversals.add(star.V().has("name", name).out("knows", "created").id());
+            traversals.add(star.V().has("person", "name", name).outE().has("weight", P.lt(1.0d)).inV().id());
+            traversals.add(star.V().has("name", TextP.startingWith(name.substring(0, 1))).values("age"));
+            // uncacheable as it has a side effect
+            traversals.add(star.withSideEffect("a", 1).V().has("name", name).id());
+        }
+        for (int age = 25; age <= 35; age += 5) {
+            traversals.add(star.V().has("age", P.gt(age)).values("name"));
+        }
+
+        for (final Traversal<?, ?> traversal : traversals) {
+            final Traversal.Admin<?, ?> cached = cache.translate(star, traversal.asAdmin().getBytecode());
+            assertEquals(traversal.asAdmin().getBytecode(), cached.getBytecode());
+            if (!cached.isLocked()) cached.applyStrategies();
+            assertEquals(traversal.asAdmin().getBytecode().toString(), traversal.toList(), cached.toList());
+        }
+        assertEquals(7, cache.size());
+        assertEquals(1, cache.uncacheableSize());
+        assertEquals(7 + 4 + 3, cache.getMissCount());
+        assertEquals(traversals.size() - 7 - 4 - 3, cache.getHitCount());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() {
+        final TraversalPlanCache cache = new TraversalPlanCache(2);
+        final Bytecode out = g.V(1).out().asAdmin().getBytecode();
+        final Bytecode in = g.V(1).in().asAdmin().getBytecode();
+        final Bytecode both = g.V(1).both().asAdmin().getBytecode();
+        cache.translate(g, out);
+        cache.translate(g, in);
+        cache.translate(g, out);
+        cache.translate(g, both);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        cache.translate(g, out);
+        assertEquals(2, cache.getHitCount());
+        cache.translate(g, in);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+        assertEquals(2, cache.getEvictionCount());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    private static void assertCompiledLike(final GraphTraversal<?, ?> expected, final Traversal.Admin<?, ?> traversal) {
+        expected.asAdmin().applyStrategies();
+        assertTrue(traversal.isLocked());
+        assertEquals(expected.toString(), traversal.toString());
+    }
+
+    /**
+     * Records how often and on which thread it is applied to a root traversal and fails as if the request timed out
+     * if told to.
+     */
+    private static final class RecordingStrategy extends AbstractTraversalStrategy<TraversalStrategy.FinalizationStrategy>
+            implements TraversalStrategy.FinalizationStrategy {
+        private final AtomicInteger applied = new AtomicInteger();
+        private volatile Thread thread;
+        private volatile boolean interrupt = false;
+
+        @Override
+        public void apply(final Traversal.Admin<?, ?> traversal) {
+            if (!traversal.isRoot()) return;
+            if (this.interrupt) throw new TraversalInterruptedException();
+            this.applied.incrementAndGet();
+            this.thread = Thread.currentThread();
+        }
+    }
+}
@@ -34,6 +34,7 @@ public class AddVertexStepTest {
     public void shouldDefaultTheLabelIfNullString() {
         final Traversal.Admin t = mock(Traversal.Admin.class);
         when(t.getTraverserSetSupplier()).thenReturn(TraverserSetSupplier.instance());
+        when(t.getLocalTraverserSetSupplier()).thenReturn(TraverserSetSupplier.unsynchronizedInstance());
         final AddVertexStartStep starStep = new AddVertexStartStep(t, (String) null);
         assertEquals(Vertex.DEFAULT_LABEL, starStep.getParameters().getRaw().get(T.label).get(0));
         final AddVertexStep step = new AddVertexStep(t, (String) null);
@@ -44,6 +45,7 @@ public class AddVertexStepTest {
     public void shouldDefaultTheLabelIfNullTraversal() {
         final Traversal.Admin t = mock(Traversal.Admin.class);
         when(t.getTraverserSetSupplier()).thenReturn(TraverserSetSupplier.instance());
+        when(t.getLocalTraverserSetSupplier()).thenReturn(TraverserSetSupplier.unsynchronizedInstance());
         final AddVertexStartStep starStep = new AddVertexStartStep(t, (Traversal<?,String>) null);
         assertEquals(Vertex.DEFAULT_LABEL, starStep.getParameters().getRaw().get(T.label).get(0));
         final AddVertexStep step = new AddVertexStep(t, (String) null);
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.process.traversal.step.map;
+
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategies;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.finalization.StepFusionStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.B_O_Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.util.DefaultTraversalStrategies;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalInterruptedException;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.CloseableIterator;
+import org.apache.tinkerpop.gremlin.structure.util.star.StarGraph;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FusedStepTest {
+
+    @Test
+    public void shouldReturnSameResultsAsUnfusedSteps() {
+        final StarGraph graph = StarGraph.open();
+        final Vertex marko = graph.addVertex(T.id, 1, T.label, "person", "name", "marko", "age", 29);
+        marko.addEdge("knows", graph.addVertex(T.id, 2), "weight", 0.5d);
+        marko.addEdge("knows", graph.addVertex(T.id, 4), "weight", 1.0d);
+        marko.addEdge("created", graph.addVertex(T.id, 3), "weight", 0.4d);
+
+        assertSameResults(__.inject(marko).out().id());
+        assertSameResults(__.inject(marko).outE("knows").has("weight", P.gt(0.5d)).inV().id());
+        assertSameResults(__.inject(marko).outE().values("weight"));
+        assertSameResults(__.inject(marko).outE().label());
+        assertSameResults(__.inject(marko).properties("name", "age").has(T.value, "marko").label());
+        assertSameResults(__.inject(marko).outE().has("weight", P.lt(1.0d)).properties().value());
+    }
+
+    @Test
+    public void shouldExpandStartsOnlyAsFarAsPulled() {
+        final Adjacent adjacent = new Adjacent(Integer.MAX_VALUE, -1);
+        final Traversal.Admin<?, ?> traversal = fuse(__.inject(vertex(adjacent)).out().id().limit(3).asAdmin());
+
+        assertEquals(Arrays.asList(7, 7, 7), traversal.toList());
+        // the limit pulls one more than it returns
+        assertThat(adjacent.pulled, lessThan(5));
+    }
+
+    @Test
+    public void shouldReuseLoopForEveryStart() {
+        final StarGraph graph = StarGraph.open();
+        final Vertex marko = graph.addVertex(T.id, 1, "name", "marko");
+        marko.addEdge("knows", graph.addVertex(T.id, 2), "weight", 0.5d);
+
+        final Traversal.Admin<?, ?> traversal = fuse(__.inject(marko).outE().inV().id().asAdmin());
+        final FusedStep<Vertex, Object> step = (FusedStep<Vertex, Object>) traversal.getSteps().get(1);
+        final Iterator<Object> first = step.flatMap(new B_O_Traverser<>(marko, 1L).asAdmin());
+        assertEquals(Collections.singletonList(2), IteratorUtils.list(first));
+        final Iterator<Object> second = step.flatMap(new B_O_Traverser<>(marko, 1L).asAdmin());
+        assertSame(first, second);
+        assertEquals(Collections.singletonList(2), IteratorUtils.list(second));
+    }
+
+    @Test
+    public void shouldCloseExpansionsOnReset() {
+        final Adjacent adjacent = new Adjacent(Integer.MAX_VALUE, -1);
+        final Traversal.Admin<?, ?> traversal = fuse(__.inject(vertex(adjacent)).out().id().asAdmin());
+
+        assertEquals(7, traversal.next());
+        assertFalse(adjacent.closed);
+        traversal.reset();
+        assertTrue(adjacent.closed);
+    }
+
+    @Test
+    public void shouldCheckForInterruptWhileFiltering() {
+        final Adjacent adjacent = new Adjacent(1000, 100);
+        final Traversal.Admin<?, ?> traversal = fuse(__.inject(vertex(adjacent)).out().hasId(-1).asAdmin());
+        assertInterrupted(traversal, adjacent);
+    }
+
+    @Test
+    public void shouldCheckForInterruptWhileExpanding() {
+        final Adjacent adjacent = new Adjacent(1000, 100);
+        final Traversal.Admin<?, ?> traversal = fuse(__.inject(vertex(adjacent)).out().out().asAdmin());
+        assertInterrupted(traversal, adjacent);
+    }
+
+    private static void assertInterrupted(final Traversal.Admin<?, ?> traversal, final Adjacent adjacent) {
+        try {
+            traversal.hasNext();
+            fail("The traversal should have been interrupted");
+        } catch (final TraversalInterruptedException ex) {
+            // none of the objects is emitted, so only the fused step can see the interrupt
+            assertThat(adjacent.pulled, lessThan(1000));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    private static void assertSameResults(final Traversal<?, ?> traversal) {
+        final Traversal.Admin<?, ?> fused = fuse(traversal.asAdmin().clone());
+        assertTrue(fused.getSteps().stream().anyMatch(s -> s instanceof FusedStep));
+        assertEquals(traversal.toList(), fused.toList());
+    }
+
+    private static Traversal.Admin<?, ?> fuse(final Traversal.Admin<?, ?> traversal) {
+        final TraversalStrategies strategies = new DefaultTraversalStrategies();
+        strategies.addStrategies(StepFusionStrategy.instance());
+        traversal.setStrategies(strategies);
+        traversal.applyStrategies();
+        return traversal;
+    }
+
+    /**
+     * A vertex whose out vertices are the given ones, all of which have the id 7 and no out vertices themselves.
+     */
+    private static Vertex vertex(final Adjacent adjacent) {
+        final Vertex other = mock(Vertex.class);
+        when(other.id()).thenReturn(7);
+        when(other.vertices(Direction.OUT)).thenReturn(Collections.emptyIterator());
+        adjacent.vertex = other;
+
+        final Vertex vertex = mock(Vertex.class);
+        when(vertex.vertices(Direction.OUT)).thenReturn(adjacent);
+        return vertex;
+    }
+
+    /**
+     * Returns the same vertex a number of times, counting how many were pulled, and interrupts the thread once the
+     * given number of them was pulled.
+     */
+    private static final class Adjacent implements CloseableIterator<Vertex> {
+        private final int size;
+        private final int interruptAt;
+        private Vertex vertex;
+        private int pulled = 0;
+        private boolean closed = false;
+
+        Adjacent(final int size, final int interruptAt) {
+            this.size = size;
+            this.interruptAt = interruptAt;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.pulled < this.size;
+        }
+
+        @Override
+        public Vertex next() {
+            if (++this.pulled == this.interruptAt)
+                Thread.currentThread().interrupt();
+            return this.vertex;
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+    }
+}
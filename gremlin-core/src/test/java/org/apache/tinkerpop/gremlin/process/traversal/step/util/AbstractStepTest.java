@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.process.traversal.step.util;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.FilterStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.ScalarMapStep;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.B_O_Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.util.DefaultTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AbstractStepTest {
+
+    @Test
+    public void shouldProcessBatchesOnlyIfTheStepOptsIn() {
+        final SourceStep source = new SourceStep(true, 1, 2, 3, 4, 5);
+        final TimesTenStep step = new TimesTenStep(false);
+        chain(source, step);
+
+        final List<Traverser.Admin<Integer>> batch = new ArrayList<>();
+        assertEquals(5, step.nextBatch(batch, 10));
+        assertEquals(Arrays.asList(10, 20, 30, 40, 50), values(batch));
+        assertEquals(0, step.batches);
+        // one traverser at a time, so the previous step is never asked for a batch
+        assertTrue(source.batchSizes.isEmpty());
+
+        final SourceStep batchingSource = new SourceStep(true, 1, 2, 3, 4, 5);
+        final TimesTenStep batchingStep = new TimesTenStep(true);
+        chain(batchingSource, batchingStep);
+
+        batch.clear();
+        assertEquals(5, batchingStep.nextBatch(batch, 10));
+        assertEquals(Arrays.asList(10, 20, 30, 40, 50), values(batch));
+        assertEquals(2, batchingStep.batches);
+        // all five come with the first batch asked for, the later ones only find the previous step exhausted
+        assertEquals(Arrays.asList(10, 10, 5), batchingSource.batchSizes);
+    }
+
+    @Test
+    public void shouldPreserveBulkInBatches() {
+        final SourceStep source = new SourceStep(true);
+        source.add(1, 3);
+        source.add(2, 1);
+        source.add(3, 7);
+        final TimesTenStep step = new TimesTenStep(true);
+        chain(source, step);
+
+        final List<Traverser.Admin<Integer>> batch = new ArrayList<>();
+        assertEquals(3, step.nextBatch(batch, 10));
+        assertEquals(Arrays.asList(10, 20, 30), values(batch));
+        assertEquals(Arrays.asList(3L, 1L, 7L), batch.stream().map(Traverser.Admin::bulk).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void shouldReturnPartialBatchesUntilExhausted() {
+        final SourceStep source = new SourceStep(true, 1, 2, 3, 4, 5);
+        final TimesTenStep step = new TimesTenStep(true);
+        chain(source, step);
+
+        final List<Traverser.Admin<Integer>> batch = new ArrayList<>();
+        assertEquals(3, step.nextBatch(batch, 3));
+        assertEquals(Arrays.asList(10, 20, 30), values(batch));
+        assertEquals(2, step.nextBatch(batch, 3));
+        assertEquals(Arrays.asList(10, 20, 30, 40, 50), values(batch));
+        assertEquals(0, step.nextBatch(batch, 3));
+        assertEquals(5, batch.size());
+
+        assertFalse(step.hasNext());
+        try {
+            step.next();
+            fail("The step should be exhausted");
+        } catch (final NoSuchElementException ex) {
+            assertTrue(ex instanceof FastNoSuchElementException);
+        }
+    }
+
+    @Test
+    public void shouldStartBatchWithTraverserTakenByHasNext() {
+        final SourceStep source = new SourceStep(true, 1, 2, 3);
+        final TimesTenStep step = new TimesTenStep(true);
+        chain(source, step);
+
+        assertTrue(step.hasNext());
+        final List<Traverser.Admin<Integer>> batch = new ArrayList<>();
+        assertEquals(2, step.nextBatch(batch, 2));
+        assertEquals(Arrays.asList(10, 20), values(batch));
+        assertEquals(30, step.next().get().intValue());
+        assertFalse(step.hasNext());
+    }
+
+    @Test
+    public void shouldDropTraversersWithoutBulkFromBatches() {
+        final SourceStep source = new SourceStep(true, 1, 2, 3, 4, 5, 6);
+        final OddStep step = new OddStep();
+        chain(source, step);
+
+        final List<Traverser.Admin<Integer>> batch = new ArrayList<>();
+        assertEquals(2, step.nextBatch(batch, 2));
+        assertEquals(Arrays.asList(1, 3), values(batch));
+        assertEquals(1, step.nextBatch(batch, 2));
+        assertEquals(Arrays.asList(1, 3, 5), values(batch));
+        assertEquals(0, step.nextBatch(batch, 2));
+    }
+
+    @Test
+    public void shouldNotAddToEmptyBatch() {
+        final SourceStep source = new SourceStep(true, 1, 2, 3);
+        final TimesTenStep step = new TimesTenStep(true);
+        chain(source, step);
+
+        assertTrue(step.hasNext());
+        final List<Traverser.Admin<Integer>> batch = new ArrayList<>();
+        assertEquals(0, step.nextBatch(batch, 0));
+        assertTrue(batch.isEmpty());
+        assertEquals(Arrays.asList(10, 20, 30), values(drain(step)));
+    }
+
+    static void chain(final AbstractStep<?, Integer> previous, final AbstractStep<Integer, ?> step) {
+        previous.setNextStep(step);
+        step.setPreviousStep(previous);
+    }
+
+    static List<Integer> values(final List<Traverser.Admin<Integer>> traversers) {
+        return traversers.stream().map(Traverser::get).collect(Collectors.toList());
+    }
+
+    private static List<Traverser.Admin<Integer>> drain(final AbstractStep<?, Integer> step) {
+        final List<Traverser.Admin<Integer>> traversers = new ArrayList<>();
+        while (step.hasNext()) {
+            traversers.add(step.next());
+        }
+        return traversers;
+    }
+
+    /**
+     * Emits the traversers it was given and records the size of every batch it is asked for.
+     */
+    static class SourceStep extends AbstractStep<Integer, Integer> {
+        private final Deque<Traverser.Admin<Integer>> traversers = new ArrayDeque<>();
+        private final boolean batching;
+        final List<Integer> batchSizes = new ArrayList<>();
+
+        SourceStep(final boolean batching, final int... values) {
+            super(new DefaultTraversal<>());
+            this.batching = batching;
+            for (final int value : values) {
+                this.add(value, 1);
+            }
+        }
+
+        void add(final int value, final long bulk) {
+            this.traversers.add(new B_O_Traverser<>(value, bulk).asAdmin());
+        }
+
+        @Override
+        public int nextBatch(final List<Traverser.Admin<Integer>> batch, final int maxSize) {
+            this.batchSizes.add(maxSize);
+            return super.nextBatch(batch, maxSize);
+        }
+
+        @Override
+        protected Traverser.Admin<Integer> processNextStart() {
+            if (this.traversers.isEmpty())
+                throw FastNoSuchElementException.instance();
+            return this.traversers.removeFirst();
+        }
+
+        @Override
+        protected boolean supportsBatchProcessing() {
+            return this.batching;
+        }
+    }
+
+    private static class TimesTenStep extends ScalarMapStep<Integer, Integer> {
+        private final boolean batching;
+        private int batches = 0;
+
+        TimesTenStep(final boolean batching) {
+            super(new DefaultTraversal<>());
+            this.batching = batching;
+        }
+
+        @Override
+        protected Integer map(final Traverser.Admin<Integer> traverser) {
+            return traverser.get() * 10;
+        }
+
+        @Override
+        protected void processNextBatch(final List<Traverser.Admin<Integer>> batch, final int maxSize) {
+            this.batches++;
+            super.processNextBatch(batch, maxSize);
+        }
+
+        @Override
+        protected boolean supportsBatchProcessing() {
+            return this.batching;
+        }
+    }
+
+    /**
+     * Keeps the odd values by setting the bulk of the even ones to zero rather than by filtering them.
+     */
+    private static class OddStep extends FilterStep<Integer> {
+
+        OddStep() {
+            super(new DefaultTraversal<>());
+        }
+
+        @Override
+        protected boolean filter(final Traverser.Admin<Integer> traverser) {
+            if (traverser.get() % 2 == 0)
+                traverser.setBulk(0);
+            return true;
+        }
+
+        @Override
+        protected boolean supportsBatchProcessing() {
+            return true;
+        }
+    }
+}
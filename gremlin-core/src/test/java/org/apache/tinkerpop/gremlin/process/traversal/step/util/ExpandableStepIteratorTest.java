@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.process.traversal.step.util;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.IdentityStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStepTest.SourceStep;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.B_O_Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.util.DefaultTraversal;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStepTest.chain;
+import static org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStepTest.values;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExpandableStepIteratorTest {
+
+    @Test
+    public void shouldFetchBatchFromPreviousStepAtOnce() {
+        final SourceStep source = new SourceStep(true, 1, 2, 3, 4, 5);
+        final ExpandableStepIterator<Integer> starts = startsOf(source);
+
+        assertTrue(starts.fetchBatch(3));
+        assertEquals(Collections.singletonList(3), source.batchSizes);
+        assertEquals(1, starts.next().get().intValue());
+        // the traversers left from the batch are returned without going back to the previous step
+        assertTrue(starts.fetchBatch(3));
+        assertEquals(2, starts.next().get().intValue());
+        assertEquals(3, starts.next().get().intValue());
+        assertEquals(Collections.singletonList(3), source.batchSizes);
+
+        assertTrue(starts.fetchBatch(3));
+        assertEquals(Arrays.asList(3, 3), source.batchSizes);
+        assertEquals(4, starts.next().get().intValue());
+        assertEquals(5, starts.next().get().intValue());
+        assertFalse(starts.fetchBatch(3));
+        assertFalse(starts.hasNext());
+    }
+
+    @Test(expected = FastNoSuchElementException.class)
+    public void shouldThrowWhenExhaustedAfterBatches() {
+        final ExpandableStepIterator<Integer> starts = startsOf(new SourceStep(true, 1));
+        assertTrue(starts.fetchBatch(10));
+        starts.next();
+        assertFalse(starts.fetchBatch(10));
+        starts.next();
+    }
+
+    @Test
+    public void shouldPreserveBulkInBatches() {
+        final SourceStep source = new SourceStep(true);
+        source.add(1, 4);
+        source.add(2, 9);
+        final ExpandableStepIterator<Integer> starts = startsOf(source);
+
+        assertTrue(starts.fetchBatch(10));
+        assertEquals(4, starts.next().bulk());
+        assertEquals(9, starts.next().bulk());
+    }
+
+    @Test
+    public void shouldTakeAddedStartsBeforePreviousStep() {
+        final SourceStep source = new SourceStep(true, 3, 4);
+        final ExpandableStepIterator<Integer> starts = startsOf(source);
+        starts.add(new B_O_Traverser<>(1, 1).asAdmin());
+        starts.add(new B_O_Traverser<>(2, 1).asAdmin());
+
+        assertTrue(starts.fetchBatch(3));
+        assertEquals(Collections.singletonList(1), source.batchSizes);
+        // a start added while the batch is taken comes after the batch
+        starts.add(new B_O_Traverser<>(5, 1).asAdmin());
+        final List<Integer> values = new ArrayList<>();
+        while (starts.hasNext()) {
+            values.add(starts.next().get());
+        }
+        assertEquals(Arrays.asList(1, 2, 3, 5, 4), values);
+    }
+
+    @Test
+    public void shouldReturnBatchedTraversersFirstFromNextBatch() {
+        final SourceStep source = new SourceStep(true, 1, 2, 3, 4, 5);
+        final ExpandableStepIterator<Integer> starts = startsOf(source);
+
+        assertTrue(starts.fetchBatch(2));
+        final List<Traverser.Admin<Integer>> batch = new ArrayList<>();
+        assertEquals(4, starts.nextBatch(batch, 4));
+        assertEquals(Arrays.asList(1, 2, 3, 4), values(batch));
+        assertEquals(Arrays.asList(2, 2), source.batchSizes);
+        // a partial batch at the end
+        assertEquals(1, starts.nextBatch(batch, 4));
+        assertEquals(0, starts.nextBatch(batch, 4));
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), values(batch));
+    }
+
+    @Test
+    public void shouldForgetBatchOnClear() {
+        final ExpandableStepIterator<Integer> starts = startsOf(new SourceStep(true, 1, 2, 3));
+        assertTrue(starts.fetchBatch(2));
+        starts.clear();
+        assertEquals(3, starts.next().get().intValue());
+        assertFalse(starts.hasNext());
+    }
+
+    private static ExpandableStepIterator<Integer> startsOf(final SourceStep source) {
+        final IdentityStep<Integer> host = new IdentityStep<>(new DefaultTraversal<>());
+        chain(source, host);
+        return new ExpandableStepIterator<>(host);
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.process.traversal.strategy.finalization;
+
+import org.apache.commons.configuration2.MapConfiguration;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategies;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.DedupGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.TraversalFilterStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.CountGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.FoldStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.OrderGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.PropertiesStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.ParallelStep;
+import org.apache.tinkerpop.gremlin.process.traversal.util.DefaultTraversalStrategies;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalInterruptedException;
+import org.apache.tinkerpop.gremlin.structure.util.empty.EmptyGraph;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelStrategyTest {
+
+    private static final GraphTraversalSource g = EmptyGraph.instance().traversal();
+
+    @Test
+    public void shouldRunStepsUpToMergeableBarrierInParallel() {
+        final Traversal.Admin<?, ?> traversal = applyParallelStrategy(g.V().hasLabel("account").where(__.out("owns").count().is(P.gt(10))).count().asAdmin());
+        assertEquals(2, traversal.getSteps().size());
+        assertTrue(traversal.getStartStep() instanceof GraphStep);
+        final ParallelStep<?, ?> parallelStep = (ParallelStep<?, ?>) traversal.getEndStep();
+        assertEquals(4, parallelStep.getParallelism());
+        assertEquals(100, parallelStep.getPartitionSize());
+        assertEquals(Arrays.asList(HasStep.class, TraversalFilterStep.class, CountGlobalStep.class),
+                classes(parallelStep.getLocalChildren().get(0).getSteps()));
+    }
+
+    @Test
+    public void shouldRunBarrierThatCannotBeMergedOnCallingThread() {
+        final Traversal.Admin<?, ?> traversal = applyParallelStrategy(g.V().out().order().values("name").asAdmin());
+        assertEquals(Arrays.asList(GraphStep.class, ParallelStep.class, OrderGlobalStep.class, PropertiesStep.class), classes(traversal.getSteps()));
+        assertEquals(Arrays.asList(VertexStep.class), classes(((ParallelStep<?, ?>) traversal.getSteps().get(1)).getLocalChildren().get(0).getSteps()));
+    }
+
+    @Test
+    public void shouldDedupEveryPartitionAheadOfDedup() {
+        final Traversal.Admin<?, ?> traversal = applyParallelStrategy(g.V().out().dedup().values("name").asAdmin());
+        assertEquals(Arrays.asList(GraphStep.class, ParallelStep.class, DedupGlobalStep.class, PropertiesStep.class), classes(traversal.getSteps()));
+        final ParallelStep<?, ?> parallelStep = (ParallelStep<?, ?>) traversal.getSteps().get(1);
+        assertEquals(Arrays.asList(VertexStep.class, DedupGlobalStep.class), classes(parallelStep.getLocalChildren().get(0).getSteps()));
+
+        final Traversal.Admin<?, ?> by = applyParallelStrategy(g.V().out().dedup().by("name").asAdmin());
+        assertEquals(Arrays.asList(VertexStep.class, DedupGlobalStep.class),
+                classes(((ParallelStep<?, ?>) by.getSteps().get(1)).getLocalChildren().get(0).getSteps()));
+        assertEquals(DedupGlobalStep.class, by.getEndStep().getClass());
+    }
+
+    @Test
+    public void shouldRunWholeTraversalInParallelWithoutBarrier() {
+        final Traversal.Admin<?, ?> traversal = applyParallelStrategy(g.V().out().values("name").asAdmin());
+        assertEquals(Arrays.asList(GraphStep.class, ParallelStep.class), classes(traversal.getSteps()));
+    }
+
+    @Test
+    public void shouldNotMergeFoldWithSeed() {
+        final Traversal.Admin<?, ?> fold = applyParallelStrategy(g.V().out().fold().asAdmin());
+        assertEquals(2, fold.getSteps().size());
+        final Traversal.Admin<?, ?> seeded = applyParallelStrategy(g.V().out().values("age").fold(0, (a, b) -> (int) a + (int) b).asAdmin());
+        assertEquals(Arrays.asList(GraphStep.class, ParallelStep.class, FoldStep.class), classes(seeded.getSteps()));
+    }
+
+    @Test
+    public void shouldNotChangeTraversalsThatCannotRunInParallel() {
+        assertNotChanged(g.V().count().asAdmin());
+        assertNotChanged(g.inject(1, 2).map(__.constant(3)).asAdmin());
+        assertNotChanged(g.V().sideEffect(__.out().aggregate("x")).count().asAdmin());
+        assertNotChanged(g.V().map(t -> t.get()).count().asAdmin());
+        assertNotChanged(g.V().coin(0.5).count().asAdmin());
+        assertNotChanged(g.V().union(__.out().count()).asAdmin());
+        assertNotChanged(g.V().as("a").out().select("a").asAdmin());
+        assertNotChanged(g.V().out().path().asAdmin());
+        assertNotChanged(g.withSack(1).V().out().sack().asAdmin());
+        assertNotChanged(g.V().out().out().profile().asAdmin());
+        assertNotChanged(g.V().property("name", "x").out().asAdmin());
+    }
+
+    @Test
+    public void shouldAllowBarriersOfLocalChildren() {
+        final Traversal.Admin<?, ?> traversal = applyParallelStrategy(g.V().local(__.out().dedup().count()).asAdmin());
+        assertTrue(traversal.getEndStep() instanceof ParallelStep);
+    }
+
+    @Test
+    public void shouldCreateFromConfiguration() {
+        final Map<String, Object> configuration = new HashMap<>();
+        configuration.put(ParallelStrategy.PARALLELISM, 8);
+        configuration.put(ParallelStrategy.PARTITION_SIZE, 1000);
+        final ParallelStrategy strategy = ParallelStrategy.create(new MapConfiguration(configuration));
+        assertEquals(8, strategy.getParallelism());
+        assertEquals(1000, strategy.getPartitionSize());
+
+        final ParallelStrategy copy = ParallelStrategy.create(strategy.getConfiguration());
+        assertEquals(8, copy.getParallelism());
+        assertEquals(1000, copy.getPartitionSize());
+
+        final ParallelStrategy defaults = ParallelStrategy.create(new MapConfiguration(new HashMap<>()));
+        assertEquals(ParallelStrategy.DEFAULT_PARALLELISM, defaults.getParallelism());
+        assertEquals(ParallelStrategy.DEFAULT_PARTITION_SIZE, defaults.getPartitionSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequirePositiveParallelism() {
+        ParallelStrategy.build().parallelism(0).create();
+    }
+
+    @Test
+    public void shouldUseConfiguredExecutor() {
+        final Executor executor = Runnable::run;
+        final ParallelStrategy strategy = ParallelStrategy.build().executor(executor).create();
+        assertSame(executor, strategy.getExecutor());
+        assertNotNull(ParallelStrategy.build().create().getExecutor());
+        assertEquals(Runtime.getRuntime().availableProcessors(),
+                ((ThreadPoolExecutor) ParallelStrategy.build().create().getExecutor()).getMaximumPoolSize());
+        assertFalse(strategy.getConfiguration().containsKey("executor"));
+        assertSame(ParallelStrategy.build().create().getExecutor(), ParallelStrategy.create(strategy.getConfiguration()).getExecutor());
+
+        final Traversal.Admin<?, ?> traversal = g.withStrategies(strategy).V().out().asAdmin();
+        traversal.applyStrategies();
+        assertSame(executor, ((ParallelStep<?, ?>) traversal.getEndStep()).getExecutor());
+    }
+
+    @Test
+    public void shouldReturnSameResultsAsSequentialSteps() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Integer> starts = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+            assertEquals(starts.stream().map(i -> i * 2).collect(Collectors.toList()),
+                    parallel(__.<Integer, Integer>map(t -> t.get() * 2), executor, starts).toList());
+            assertEquals(Collections.singletonList(899L), parallel(__.<Integer>is(P.gt(100)).count(), executor, starts).toList());
+            assertEquals(Collections.singletonList(499500L), parallel(__.<Integer>sum(), executor, starts).toList());
+            assertEquals(Collections.singletonList(starts), parallel(__.<Integer>fold(), executor, starts).toList());
+            assertEquals(Collections.singletonList(0L), parallel(__.<Integer>is(P.lt(0)).count(), executor, starts).toList());
+            assertEquals(Collections.emptyList(), parallel(__.<Integer>is(P.lt(0)).sum(), executor, starts).toList());
+
+            final Traversal.Admin<Integer, Integer> dedup = parallel(__.<Integer, Integer>map(t -> t.get() % 10).dedup(), executor, starts);
+            dedup.addStep(new DedupGlobalStep<>(dedup));
+            assertEquals(IntStream.range(0, 10).boxed().collect(Collectors.toList()), dedup.toList());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldRethrowFailureOfPartition() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            parallel(__.<Integer, Integer>map(t -> {
+                if (t.get() == 500)
+                    throw new IllegalStateException("fails at 500");
+                return t.get();
+            }), executor, IntStream.range(0, 1000).boxed().collect(Collectors.toList())).iterate();
+            fail("The failure of the partition should have been rethrown");
+        } catch (IllegalStateException ex) {
+            assertEquals("fails at 500", ex.getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldRunPartitionsOnCallingThreadIfExecutorDoesNotTakeThem() {
+        final List<Integer> starts = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final Executor callerRuns = Runnable::run;
+        final Executor rejecting = runnable -> {
+            throw new RejectedExecutionException();
+        };
+        for (final Executor executor : Arrays.asList(callerRuns, rejecting)) {
+            assertEquals(starts, parallel(__.<Integer, Integer>map(t -> {
+                threads.add(Thread.currentThread());
+                return t.get();
+            }), executor, starts).toList());
+            assertEquals(Collections.singletonList(4950L), parallel(__.<Integer>sum(), executor, starts).toList());
+        }
+        assertEquals(Collections.singleton(Thread.currentThread()), threads);
+    }
+
+    @Test
+    public void shouldStopPartitionsWhenClosedWithoutInterruptingThem() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final AtomicInteger produced = new AtomicInteger();
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final Traversal.Admin<Integer, Integer> traversal = parallel(__.<Integer, Integer>flatMap(t -> new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (Thread.currentThread().isInterrupted())
+                    interrupted.set(true);
+                produced.incrementAndGet();
+                return t.get();
+            }
+        }), executor, Arrays.asList(1, 2, 3, 4));
+
+        assertEquals(1, (int) traversal.next());
+        Thread.sleep(200);
+        // each of the two partitions holds two results and waits to hand over one more
+        assertThat(produced.get(), lessThanOrEqualTo(7));
+
+        traversal.close();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertFalse(interrupted.get());
+    }
+
+    @Test
+    public void shouldStopPartitionsWhenCallingThreadIsInterrupted() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final Traversal.Admin<Integer, Integer> traversal = parallel(__.<Integer, Integer>map(t -> {
+            while (true) {
+                try {
+                    latch.await();
+                    return t.get();
+                } catch (InterruptedException ex) {
+                    interrupted.set(true);
+                }
+            }
+        }), executor, Arrays.asList(1, 2, 3, 4));
+
+        final Thread caller = Thread.currentThread();
+        final Thread interrupter = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            caller.interrupt();
+        });
+        interrupter.start();
+        try {
+            traversal.next();
+            fail("The traversal should have been interrupted");
+        } catch (TraversalInterruptedException ex) {
+            // expected
+        } finally {
+            interrupter.join();
+            Thread.interrupted();
+        }
+
+        latch.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertFalse(interrupted.get());
+    }
+
+    private static void assertNotChanged(final Traversal.Admin<?, ?> traversal) {
+        assertFalse(applyParallelStrategy(traversal).getSteps().stream().anyMatch(s -> s instanceof ParallelStep));
+    }
+
+    private static List<Class<?>> classes(final List<Step> steps) {
+        return steps.stream().map(Object::getClass).collect(Collectors.toList());
+    }
+
+    /**
+     * Runs the chain in a {@link ParallelStep} with a parallelism of two and partitions of two starts.
+     */
+    private static <E> Traversal.Admin<Integer, E> parallel(final Traversal<Integer, E> chain, final Executor executor,
+                                                          final List<Integer> starts) {
+        final Traversal.Admin<Integer, Integer> traversal = __.inject(starts.toArray(new Integer[0])).asAdmin();
+        traversal.addStep(new ParallelStep<>(traversal, chain.asAdmin(), 2, 2, executor));
+        return (Traversal.Admin<Integer, E>) traversal;
+    }
+
+    private static Traversal.Admin<?, ?> applyParallelStrategy(final Traversal.Admin<?, ?> traversal) {
+        final TraversalStrategies strategies = new DefaultTraversalStrategies();
+        strategies.addStrategies(ParallelStrategy.build().parallelism(4).partitionSize(100).create());
+        traversal.setStrategies(strategies);
+        traversal.applyStrategies();
+        return traversal;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.process.traversal.strategy.finalization;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Operator;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategies;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.process.traversal.step.TraversalParent;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.FusedStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.IdStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.NoOpBarrierStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.PropertiesStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.SackValueStep;
+import org.apache.tinkerpop.gremlin.process.traversal.util.DefaultTraversalStrategies;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StepFusionStrategyTest {
+
+    @Test
+    public void shouldFuseRunOfSteps() {
+        final Traversal.Admin<?, ?> traversal = applyStepFusionStrategy(__.out().has("age", P.gt(30)).values("name").asAdmin());
+        assertEquals(1, traversal.getSteps().size());
+        final FusedStep<?, ?> fusedStep = (FusedStep<?, ?>) traversal.getStartStep();
+        assertEquals(Arrays.asList(VertexStep.class, HasStep.class, PropertiesStep.class), classes(fusedStep.getFusedSteps()));
+    }
+
+    @Test
+    public void shouldFuseRunsOnEitherSideOfOtherSteps() {
+        final Traversal.Admin<?, ?> traversal = applyStepFusionStrategy(__.out().out().barrier().in().id().count().asAdmin());
+        assertEquals(4, traversal.getSteps().size());
+        assertEquals(Arrays.asList(VertexStep.class, VertexStep.class), classes(((FusedStep<?, ?>) traversal.getSteps().get(0)).getFusedSteps()));
+        assertTrue(traversal.getSteps().get(1) instanceof NoOpBarrierStep);
+        assertEquals(Arrays.asList(VertexStep.class, IdStep.class), classes(((FusedStep<?, ?>) traversal.getSteps().get(2)).getFusedSteps()));
+    }
+
+    @Test
+    public void shouldFuseWithinChildTraversals() {
+        final Traversal.Admin<?, ?> traversal = applyStepFusionStrategy(__.where(__.out().has("name", "marko")).asAdmin());
+        final Traversal.Admin<?, ?> child = ((TraversalParent) traversal.getStartStep()).getLocalChildren().get(0);
+        assertTrue(child.getStartStep() instanceof FusedStep);
+    }
+
+    @Test
+    public void shouldNotFuseSingleSteps() {
+        final Traversal.Admin<?, ?> traversal = applyStepFusionStrategy(__.out().barrier().in().asAdmin());
+        assertFalse(traversal.getSteps().stream().anyMatch(s -> s instanceof FusedStep));
+    }
+
+    @Test
+    public void shouldNotFuseWithPathOrSack() {
+        assertFalse(applyStepFusionStrategy(__.out().as("a").out().select("a").asAdmin()).getSteps().stream().anyMatch(s -> s instanceof FusedStep));
+        assertFalse(applyStepFusionStrategy(__.out().out().path().asAdmin()).getSteps().stream().anyMatch(s -> s instanceof FusedStep));
+        final Traversal.Admin<?, ?> sack = applyStepFusionStrategy(__.sack(Operator.sum).by("age").out().out().asAdmin());
+        assertTrue(sack.getStartStep() instanceof SackValueStep);
+        assertFalse(sack.getSteps().stream().anyMatch(s -> s instanceof FusedStep));
+    }
+
+    @Test
+    public void shouldNotFuseWhenProfiled() {
+        final Traversal.Admin<?, ?> traversal = applyStepFusionStrategy(__.out().out().profile().asAdmin());
+        assertFalse(traversal.getSteps().stream().anyMatch(s -> s instanceof FusedStep));
+    }
+
+    private static List<Class<?>> classes(final List<Step<?, ?>> steps) {
+        return steps.stream().map(Object::getClass).collect(Collectors.toList());
+    }
+
+    private static Traversal.Admin<?, ?> applyStepFusionStrategy(final Traversal.Admin<?, ?> traversal) {
+        final TraversalStrategies strategies = new DefaultTraversalStrategies();
+        strategies.addStrategies(StepFusionStrategy.instance());
+        traversal.setStrategies(strategies);
+        traversal.applyStrategies();
+        return traversal;
+    }
+}
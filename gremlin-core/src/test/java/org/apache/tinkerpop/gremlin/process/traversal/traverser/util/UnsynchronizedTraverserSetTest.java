@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.process.traversal.traverser.util;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.B_O_Traverser;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UnsynchronizedTraverserSetTest {
+
+    @Test
+    public void shouldKeepInsertionOrderWhileGrowing() {
+        final TraverserSet<Integer> ts = new UnsynchronizedTraverserSet<>();
+        for (int i = 0; i < 1000; i++) {
+            ts.add(makeTraverser(i, 1));
+        }
+        for (int i = 0; i < 1000; i = i + 2) {
+            ts.add(makeTraverser(i, 1));
+        }
+
+        assertEquals(1000, ts.size());
+        assertEquals(1500, ts.bulkSize());
+        final List<Integer> values = ts.stream().map(Traverser::get).collect(Collectors.toList());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, values.get(i).intValue());
+            assertEquals(i % 2 == 0 ? 2 : 1, ts.get(makeTraverser(i, 1)).bulk());
+        }
+    }
+
+    @Test
+    public void shouldRemoveAndAddAgain() {
+        final TraverserSet<Integer> ts = new UnsynchronizedTraverserSet<>();
+        for (int i = 0; i < 100; i++) {
+            ts.add(makeTraverser(i, 1));
+        }
+        for (int i = 0; i < 100; i = i + 3) {
+            assertTrue(ts.remove(makeTraverser(i, 1)));
+            assertFalse(ts.remove(makeTraverser(i, 1)));
+        }
+        for (int i = 0; i < 1000; i++) {
+            ts.add(makeTraverser(i, 1));
+        }
+
+        final List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            if (i % 3 != 0) expected.add(i);
+        }
+        for (int i = 0; i < 100; i = i + 3) {
+            expected.add(i);
+        }
+        for (int i = 100; i < 1000; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, ts.stream().map(Traverser::get).collect(Collectors.toList()));
+        assertEquals(1000, ts.size());
+
+        for (final int i : expected) {
+            assertEquals(i, ts.remove().get().intValue());
+        }
+        assertTrue(ts.isEmpty());
+        assertNull(ts.poll());
+    }
+
+    @Test
+    public void shouldQueueWithoutGrowing() {
+        final TraverserSet<Integer> ts = new UnsynchronizedTraverserSet<>();
+        for (int i = 0; i < 10000; i++) {
+            ts.add(makeTraverser(i, 1));
+            ts.add(makeTraverser(i + 1, 1));
+            assertEquals(i, ts.remove().get().intValue());
+            assertEquals(i + 1, ts.peek().get().intValue());
+            assertEquals(i + 1, ts.remove().get().intValue());
+        }
+        assertTrue(ts.isEmpty());
+    }
+
+    @Test
+    public void shouldRemoveWhileIterating() {
+        final TraverserSet<Integer> ts = new UnsynchronizedTraverserSet<>();
+        for (int i = 0; i < 10; i++) {
+            ts.add(makeTraverser(i, 1));
+        }
+        final Iterator<Traverser.Admin<Integer>> itty = ts.iterator();
+        while (itty.hasNext()) {
+            if (itty.next().get() % 2 == 0) itty.remove();
+        }
+        assertEquals(Arrays.asList(1, 3, 5, 7, 9), ts.stream().map(Traverser::get).collect(Collectors.toList()));
+        assertEquals("[1, 3, 5, 7, 9]", ts.toString());
+    }
+
+    @Test
+    public void shouldIterateTraversersAddedAfterBecomingEmpty() {
+        final TraverserSet<Integer> ts = new UnsynchronizedTraverserSet<>();
+        for (int i = 0; i < 5; i++) {
+            ts.add(makeTraverser(i, 1));
+        }
+        final Iterator<Traverser.Admin<Integer>> itty = ts.iterator();
+        final List<Integer> seen = new ArrayList<>();
+        while (itty.hasNext()) {
+            final int i = itty.next().get();
+            seen.add(i);
+            itty.remove();
+            // the set is empty after the last of the first traversers is removed, and the next ones start over
+            if (i == 4) {
+                ts.add(makeTraverser(5, 1));
+                ts.add(makeTraverser(6, 1));
+            }
+        }
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6), seen);
+        assertTrue(ts.isEmpty());
+
+        ts.add(makeTraverser(7, 1));
+        final Iterator<Traverser.Admin<Integer>> cleared = ts.iterator();
+        assertEquals(7, cleared.next().get().intValue());
+        ts.add(makeTraverser(8, 1));
+        ts.remove(makeTraverser(7, 1));
+        ts.remove(makeTraverser(8, 1));
+        ts.add(makeTraverser(9, 1));
+        assertTrue(cleared.hasNext());
+        assertEquals(9, cleared.next().get().intValue());
+        assertFalse(cleared.hasNext());
+
+        ts.clear();
+        ts.add(makeTraverser(10, 1));
+        assertTrue(cleared.hasNext());
+        assertEquals(10, cleared.next().get().intValue());
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void shouldNotIterateWhileGrowing() {
+        final TraverserSet<Integer> ts = new UnsynchronizedTraverserSet<>();
+        ts.add(makeTraverser(0, 1));
+        final Iterator<Traverser.Admin<Integer>> itty = ts.iterator();
+        for (int i = 1; i < 100; i++) {
+            ts.add(makeTraverser(i, 1));
+        }
+        itty.hasNext();
+    }
+
+    @Test
+    public void shouldSort() {
+        final TraverserSet<Integer> ts = new UnsynchronizedTraverserSet<>();
+        for (int i = 0; i < 20; i++) {
+            ts.add(makeTraverser(i, 1));
+        }
+        ts.remove(makeTraverser(5, 1));
+        ts.sort(Comparator.comparing(t -> -t.get()));
+
+        assertEquals(19, ts.size());
+        assertEquals(19, ts.peek().get().intValue());
+        assertTrue(ts.contains(makeTraverser(4, 1)));
+        assertFalse(ts.contains(makeTraverser(5, 1)));
+    }
+
+    private <T> Traverser.Admin<T> makeTraverser(final T val, final long bulk) {
+        return new B_O_Traverser<>(val, bulk).asAdmin();
+    }
+}
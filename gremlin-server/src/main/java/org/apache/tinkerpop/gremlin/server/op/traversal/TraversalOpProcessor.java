@@ -26,6 +26,7 @@ import org.apache.tinkerpop.gremlin.driver.message.RequestMessage;
 import org.apache.tinkerpop.gremlin.driver.message.ResponseMessage;
 import org.apache.tinkerpop.gremlin.driver.message.ResponseStatusCode;
 import org.apache.tinkerpop.gremlin.jsr223.JavaTranslator;
+import org.apache.tinkerpop.gremlin.jsr223.TraversalPlanCache;
 import org.apache.tinkerpop.gremlin.process.traversal.Bytecode;
 import org.apache.tinkerpop.gremlin.process.traversal.Failure;
 import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
@@ -55,6 +56,7 @@ import javax.script.ScriptException;
 import javax.script.SimpleBindings;
 import java.lang.reflect.UndeclaredThrowableException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -79,6 +81,29 @@ public class TraversalOpProcessor extends AbstractOpProcessor {
 
     private static final Bindings EMPTY_BINDINGS = new SimpleBindings();
 
+    /**
+     * Configuration setting for the number of traversals that the {@link TraversalPlanCache} keeps with their
+     * strategies applied so that requests of the same shape can skip strategy application. The cache is disabled
+     * when it is zero.
+     */
+    public static final String CONFIG_PLAN_CACHE_MAX_SIZE = "planCacheMaxSize";
+
+    /**
+     * Default size of the plan cache, which disables it.
+     */
+    public static final int DEFAULT_PLAN_CACHE_MAX_SIZE = 0;
+
+    static final Settings.ProcessorSettings DEFAULT_SETTINGS = new Settings.ProcessorSettings();
+
+    static {
+        DEFAULT_SETTINGS.className = TraversalOpProcessor.class.getCanonicalName();
+        DEFAULT_SETTINGS.config = new HashMap<String, Object>() {{
+            put(CONFIG_PLAN_CACHE_MAX_SIZE, DEFAULT_PLAN_CACHE_MAX_SIZE);
+        }};
+    }
+
+    private TraversalPlanCache planCache = null;
+
     public TraversalOpProcessor() {
         super(false);
     }
@@ -88,9 +113,30 @@ public class TraversalOpProcessor extends AbstractOpProcessor {
         return OP_PROCESSOR_NAME;
     }
 
+    @Override
+    public void init(final Settings settings) {
+        final int planCacheMaxSize = ((Number) settings.optionalProcessor(TraversalOpProcessor.class).orElse(DEFAULT_SETTINGS).config.
+                getOrDefault(CONFIG_PLAN_CACHE_MAX_SIZE, DEFAULT_PLAN_CACHE_MAX_SIZE)).intValue();
+
+        // the processor is initialized again when the server is, so drop the gauges of an earlier cache
+        final String prefix = name(GremlinServer.class, "traversal", "plan-cache");
+        MetricManager.INSTANCE.getRegistry().removeMatching((s, metric) -> s.startsWith(prefix));
+        if (planCacheMaxSize > 0) {
+            final TraversalPlanCache cache = new TraversalPlanCache(planCacheMaxSize);
+            MetricManager.INSTANCE.getGuage(cache::getHitCount, name(prefix, "hits"));
+            MetricManager.INSTANCE.getGuage(cache::getMissCount, name(prefix, "misses"));
+            MetricManager.INSTANCE.getGuage(cache::getEvictionCount, name(prefix, "evictions"));
+            MetricManager.INSTANCE.getGuage(cache::size, name(prefix, "size"));
+            MetricManager.INSTANCE.getGuage(cache::uncacheableSize, name(prefix, "uncacheable"));
+            this.planCache = cache;
+        } else {
+            this.planCache = null;
+        }
+    }
+
     @Override
     public void close() throws Exception {
-        // do nothing = no resources to release
+        if (planCache != null) planCache.clear();
     }
 
     @Override
@@ -177,26 +223,9 @@ public class TraversalOpProcessor extends AbstractOpProcessor {
         final String traversalSourceName = aliases.entrySet().iterator().next().getValue();
         final TraversalSource g = graphManager.getTraversalSource(traversalSourceName);
 
-        final Traversal.Admin<?, ?> traversal;
-        try {
-            final Optional<String> lambdaLanguage = BytecodeHelper.getLambdaLanguage(bytecode);
-            if (!lambdaLanguage.isPresent())
-                traversal = JavaTranslator.of(g).translate(bytecode);
-            else
-                traversal = context.getGremlinExecutor().eval(bytecode, EMPTY_BINDINGS, lambdaLanguage.get(), traversalSourceName);
-        } catch (ScriptException ex) {
-            logger.error("Traversal contains a lambda that cannot be compiled", ex);
-            throw new OpProcessorException("Traversal contains a lambda that cannot be compiled",
-                    ResponseMessage.build(msg).code(ResponseStatusCode.SERVER_ERROR_EVALUATION)
-                            .statusMessage(ex.getMessage())
-                            .statusAttributeException(ex).create());
-        } catch (Exception ex) {
-            logger.error("Could not deserialize the Traversal instance", ex);
-            throw new OpProcessorException("Could not deserialize the Traversal instance",
-                    ResponseMessage.build(msg).code(ResponseStatusCode.SERVER_ERROR_SERIALIZATION)
-                            .statusMessage(ex.getMessage())
-                            .statusAttributeException(ex).create());
-        }
+        // a miss of the plan cache applies the strategies as it translates, so with the cache the bytecode is
+        // translated by the thread that evaluates it where it is bound by the timeout
+        final Traversal.Admin<?, ?> translated = null == planCache ? translateBytecode(context, g, bytecode, traversalSourceName) : null;
         if (settings.enableAuditLog) {
             AuthenticatedUser user = context.getChannelHandlerContext().channel().attr(StateKey.AUTHENTICATED_USER).get();
             if (null == user) {    // This is expected when using the AllowAllAuthenticator
@@ -215,9 +244,16 @@ public class TraversalOpProcessor extends AbstractOpProcessor {
                 beforeProcessing(graph, context);
 
                 try {
-                    // compile the traversal - without it getEndStep() has nothing in it
-                    traversal.applyStrategies();
+                    final Traversal.Admin<?, ?> traversal = null == translated ?
+                            translateBytecode(context, g, bytecode, traversalSourceName) : translated;
+
+                    // compile the traversal - without it getEndStep() has nothing in it. a traversal from the plan
+                    // cache already has its strategies applied
+                    if (!traversal.isLocked()) traversal.applyStrategies();
                     handleIterator(context, new TraverserIterator(traversal), graph);
+                } catch (OpProcessorException ope) {
+                    context.writeAndFlush(ope.getResponseMessage());
+                    onError(graph, context);
                 } catch (Exception ex) {
                     Throwable t = ex;
                     if (ex instanceof UndeclaredThrowableException)
@@ -296,6 +332,33 @@ public class TraversalOpProcessor extends AbstractOpProcessor {
         }
     }
 
+    private Traversal.Admin<?, ?> translateBytecode(final Context context, final TraversalSource g, final Bytecode bytecode,
+                                                     final String traversalSourceName) throws OpProcessorException {
+        final RequestMessage msg = context.getRequestMessage();
+        try {
+            final Optional<String> lambdaLanguage = BytecodeHelper.getLambdaLanguage(bytecode);
+            if (!lambdaLanguage.isPresent())
+                return null == planCache ? JavaTranslator.of(g).translate(bytecode) : planCache.translate(g, bytecode);
+            else
+                return context.getGremlinExecutor().eval(bytecode, EMPTY_BINDINGS, lambdaLanguage.get(), traversalSourceName);
+        } catch (ScriptException ex) {
+            logger.error("Traversal contains a lambda that cannot be compiled", ex);
+            throw new OpProcessorException("Traversal contains a lambda that cannot be compiled",
+                    ResponseMessage.build(msg).code(ResponseStatusCode.SERVER_ERROR_EVALUATION)
+                            .statusMessage(ex.getMessage())
+                            .statusAttributeException(ex).create());
+        } catch (TraversalInterruptedException ex) {
+            // a miss of the plan cache that runs out of time applying the strategies is reported as a timeout
+            throw ex;
+        } catch (Exception ex) {
+            logger.error("Could not deserialize the Traversal instance", ex);
+            throw new OpProcessorException("Could not deserialize the Traversal instance",
+                    ResponseMessage.build(msg).code(ResponseStatusCode.SERVER_ERROR_SERIALIZATION)
+                            .statusMessage(ex.getMessage())
+                            .statusAttributeException(ex).create());
+        }
+    }
+
     protected void beforeProcessing(final Graph graph, final Context ctx) {
         if (graph.features().graph().supportsTransactions() && graph.tx().isOpen()) graph.tx().rollback();
     }
@@ -20,6 +20,7 @@ package org.apache.tinkerpop.gremlin.server;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
+import com.codahale.metrics.Gauge;
 import nl.altindag.log.LogCaptor;
 import org.apache.commons.configuration2.BaseConfiguration;
 import org.apache.commons.configuration2.Configuration;
@@ -44,11 +45,14 @@ import org.apache.tinkerpop.gremlin.jsr223.ScriptFileGremlinPlugin;
 import org.apache.tinkerpop.gremlin.server.handler.OpSelectorHandler;
 import org.apache.tinkerpop.gremlin.server.handler.UnifiedHandler;
 import org.apache.tinkerpop.gremlin.structure.RemoteGraph;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
 import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
 import org.apache.tinkerpop.gremlin.server.op.AbstractEvalOpProcessor;
 import org.apache.tinkerpop.gremlin.server.op.standard.StandardOpProcessor;
+import org.apache.tinkerpop.gremlin.server.op.traversal.TraversalOpProcessor;
+import org.apache.tinkerpop.gremlin.server.util.MetricManager;
 import org.apache.tinkerpop.gremlin.structure.Graph;
 import org.apache.tinkerpop.gremlin.structure.T;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
@@ -64,6 +68,7 @@ import org.junit.Test;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -77,6 +82,7 @@ import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import static com.codahale.metrics.MetricRegistry.name;
 import static org.apache.tinkerpop.gremlin.driver.Tokens.ARGS_EVAL_TIMEOUT;
 import static org.apache.tinkerpop.gremlin.groovy.jsr223.GroovyCompilerGremlinPlugin.Compilation.COMPILE_STATIC;
 import static org.apache.tinkerpop.gremlin.process.remote.RemoteConnection.GREMLIN_REMOTE;
@@ -230,6 +236,16 @@ public class GremlinServerIntegrateTest extends AbstractGremlinServerIntegration
                 settings.gremlinPool = 1;
                 settings.maxWorkQueueSize = 1;
                 break;
+            case "shouldUsePlanCacheForRemoteTraversal":
+            case "shouldTimeOutRemoteTraversalWithPlanCache":
+                final Settings.ProcessorSettings processorSettingsPlanCache = new Settings.ProcessorSettings();
+                processorSettingsPlanCache.className = TraversalOpProcessor.class.getName();
+                processorSettingsPlanCache.config = new HashMap<String,Object>() {{
+                    put(TraversalOpProcessor.CONFIG_PLAN_CACHE_MAX_SIZE, 10);
+                }};
+                settings.processors.add(processorSettingsPlanCache);
+                settings.evaluationTimeout = 500;
+                break;
             default:
                 break;
         }
@@ -424,6 +440,52 @@ public class GremlinServerIntegrateTest extends AbstractGremlinServerIntegration
         g.close();
     }
 
+    @Test
+    public void shouldUsePlanCacheForRemoteTraversal() throws Exception {
+        // the plan cache is configured on the TraversalOpProcessor
+        assumeThat("Must use OpProcessor", isUsingUnifiedChannelizer(), is(false));
+
+        graphGetter.get().traversal().addV("person").property("name", "marko").property("age", 29).
+                addV("person").property("name", "josh").property("age", 32).iterate();
+
+        final GraphTraversalSource g = traversal().withRemote(conf);
+        assertEquals(Collections.singletonList(29), g.V().has("person", "name", "marko").values("age").toList());
+        assertEquals(Collections.singletonList(32), g.V().has("person", "name", "josh").values("age").toList());
+        assertEquals(Collections.emptyList(), g.V().has("person", "name", "peter").values("age").toList());
+        assertEquals(Collections.singletonList("josh"), g.V().has("age", P.gt(30)).values("name").toList());
+        assertEquals(Collections.singletonList("marko"), g.V().has("age", P.gt(20)).has("age", P.lt(30)).values("name").toList());
+
+        final Map<String, Gauge> gauges = MetricManager.INSTANCE.getRegistry().getGauges();
+        assertEquals(3, gauges.get(name(GremlinServer.class, "traversal", "plan-cache", "size")).getValue());
+        assertEquals(3L, gauges.get(name(GremlinServer.class, "traversal", "plan-cache", "misses")).getValue());
+        assertEquals(2L, gauges.get(name(GremlinServer.class, "traversal", "plan-cache", "hits")).getValue());
+
+        g.close();
+    }
+
+    @Test
+    public void shouldTimeOutRemoteTraversalWithPlanCache() throws Exception {
+        assumeThat("Must use OpProcessor", isUsingUnifiedChannelizer(), is(false));
+
+        // make a graph with a cycle in it to force a long run traversal
+        graphGetter.get().traversal().addV("person").as("p").addE("self").to("p").iterate();
+
+        final GraphTraversalSource g = traversal().withRemote(conf);
+        for (int i = 0; i < 2; i++) {
+            try {
+                // the first request misses the cache and the second one hits it
+                g.V().hasLabel("person").repeat(__.out()).until(__.outE().count().is(0)).iterate();
+                fail("This traversal should have timed out");
+            } catch (Exception ex) {
+                final Throwable t = ex.getCause();
+                assertThat(t, instanceOf(ResponseException.class));
+                assertEquals(ResponseStatusCode.SERVER_ERROR_TIMEOUT, ((ResponseException) t).getResponseStatusCode());
+            }
+        }
+
+        g.close();
+    }
+
     @Test
     public void shouldProduceProperExceptionOnTimeout() throws Exception {
         // this test will not work quite right on UnifiedChannelizer
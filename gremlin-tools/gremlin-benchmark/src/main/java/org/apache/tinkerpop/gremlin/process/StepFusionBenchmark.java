@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.process;
+
+import org.apache.tinkerpop.benchmark.util.AbstractGraphBenchmark;
+import org.apache.tinkerpop.gremlin.LoadGraphWith;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.FusedStep;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.finalization.StepFusionStrategy;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Compares traversals over a {@link TinkerGraph} loaded with the Grateful Dead data set with and without the runs of
+ * simple steps in them fused into a {@link FusedStep} by {@link StepFusionStrategy}.
+ */
+@LoadGraphWith(LoadGraphWith.GraphData.GRATEFUL)
+public class StepFusionBenchmark extends AbstractGraphBenchmark {
+
+    private GraphTraversalSource fused;
+
+    @Setup
+    @Override
+    public void prepare() throws IOException {
+        super.prepare();
+        fused = g.withStrategies(StepFusionStrategy.instance());
+    }
+
+    @Benchmark
+    public List<Vertex> g_V_outE_inV_outE_inV() throws Exception {
+        return g.V().outE().inV().outE().inV().toList();
+    }
+
+    @Benchmark
+    public List<Vertex> g_V_outE_inV_outE_inV_fused() throws Exception {
+        return fused.V().outE().inV().outE().inV().toList();
+    }
+
+    @Benchmark
+    public List<Object> g_V_out_out_valuesXnameX() throws Exception {
+        return g.V().out().out().values("name").toList();
+    }
+
+    @Benchmark
+    public List<Object> g_V_out_out_valuesXnameX_fused() throws Exception {
+        return fused.V().out().out().values("name").toList();
+    }
+
+    @Benchmark
+    public List<Object> g_V_outEXfollowedByX_hasXweight_gtX1XX_inV_id() throws Exception {
+        return g.V().outE("followedBy").has("weight", P.gt(1)).inV().id().toList();
+    }
+
+    @Benchmark
+    public List<Object> g_V_outEXfollowedByX_hasXweight_gtX1XX_inV_id_fused() throws Exception {
+        return fused.V().outE("followedBy").has("weight", P.gt(1)).inV().id().toList();
+    }
+
+    @Benchmark
+    public Long g_V_out_out_label_count() throws Exception {
+        return g.V().out().out().label().count().next();
+    }
+
+    @Benchmark
+    public Long g_V_out_out_label_count_fused() throws Exception {
+        return fused.V().out().out().label().count().next();
+    }
+}
@@ -29,29 +29,50 @@ import org.apache.tinkerpop.gremlin.structure.T;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.structure.VertexProperty;
 import org.apache.tinkerpop.gremlin.structure.util.ElementHelper;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
 import org.apache.tinkerpop.gremlin.structure.util.empty.EmptyGraph;
+import org.apache.tinkerpop.gremlin.structure.util.wrapped.WrappedVertex;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerHelper;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerVertex;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerVertexProperty;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * The vertex compute keys of a graph computer job are kept in columns, one array per key, in which every vertex has
+ * its slot at the ordinal that it is given when the job starts. A slot holds nothing, the value of the key or a list
+ * of its values, so writing a compute key neither hashes the vertex nor allocates more than the small
+ * {@link VertexProperty} that is returned for it. Such a {@link VertexProperty} only takes an id, and its place in
+ * the column is only taken by a {@link TinkerVertexProperty}, once its id is asked for or it is given properties of
+ * its own. The ordinals are kept in a table of the view, looked up by the identity of the vertex, that does not change
+ * while the job runs. The columns are only ever written at the slot of the vertex that a worker executes, so they
+ * need no synchronization.
+ *
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
 public final class TinkerGraphComputerView {
 
+    /**
+     * Stands for a {@code null} value in a column, where {@code null} means that the slot is empty.
+     */
+    private static final Object NULL = new Object();
+
     private final TinkerGraph graph;
     protected final Map<String, VertexComputeKey> computeKeys;
-    private Map<Element, Map<String, List<VertexProperty<?>>>> computeProperties;
+    private final TinkerVertex[] vertices;
+    private final TinkerVertex[] ordinalTable;
+    private final int[] ordinals;
+    private final Map<String, Object[]> columns = new HashMap<>();
     private final Set<Object> legalVertices = new HashSet<>();
     private final Map<Object, Set<Object>> legalEdges = new HashMap<>();
     private final GraphFilter graphFilter;
@@ -60,10 +81,27 @@ public final class TinkerGraphComputerView {
         this.graph = graph;
         this.computeKeys = new HashMap<>();
         computeKeys.forEach(key -> this.computeKeys.put(key.getKey(), key));
-        this.computeProperties = new ConcurrentHashMap<>();
         this.graphFilter = graphFilter;
+
+        final List<TinkerVertex> vertices = new ArrayList<>();
+        graph.vertices().forEachRemaining(vertex -> vertices.add((TinkerVertex) vertex));
+        this.vertices = vertices.toArray(new TinkerVertex[vertices.size()]);
+        this.computeKeys.keySet().forEach(key -> this.columns.put(key, new Object[this.vertices.length]));
+
+        // an open addressing table that is at most half full
+        this.ordinalTable = new TinkerVertex[Integer.highestOneBit(Math.max(1, this.vertices.length) * 2 - 1) << 1];
+        this.ordinals = new int[this.ordinalTable.length];
+        for (int ordinal = 0; ordinal < this.vertices.length; ordinal++) {
+            int index = index(this.vertices[ordinal]);
+            while (null != this.ordinalTable[index]) {
+                index = (index + 1) & (this.ordinalTable.length - 1);
+            }
+            this.ordinalTable[index] = this.vertices[ordinal];
+            this.ordinals[index] = ordinal;
+        }
+
         if (this.graphFilter.hasFilter()) {
-            graph.vertices().forEachRemaining(vertex -> {
+            for (final TinkerVertex vertex : this.vertices) {
                 boolean legalVertex = false;
                 if (this.graphFilter.hasVertexFilter() && this.graphFilter.legalVertex(vertex)) {
                     this.legalVertices.add(vertex.id());
@@ -74,24 +112,58 @@ public final class TinkerGraphComputerView {
                     this.legalEdges.put(vertex.id(), edges);
                     this.graphFilter.legalEdges(vertex).forEachRemaining(edge -> edges.add(edge.id()));
                 }
-            });
+            }
         }
     }
 
-    public <V> Property<V> addProperty(final TinkerVertex vertex, final String key, final V value) {
+    /**
+     * Writes a value of a compute key with the given cardinality, where {@code single} replaces the values that the
+     * vertex has for the key and {@code set} returns the property of an equal value if there is one. The values that
+     * the vertex has for the key in the graph count as well, as the compute key hides them while it has values, which
+     * is how a job sees the values that an earlier job wrote back to the graph.
+     */
+    public <V> VertexProperty<V> addProperty(final TinkerVertex vertex, final VertexProperty.Cardinality cardinality,
+                                             final String key, final V value) {
         ElementHelper.validateProperty(key, value);
-        if (isComputeKey(key)) {
-            final TinkerVertexProperty<V> property = new TinkerVertexProperty<V>((TinkerVertex) vertex, key, value) {
-                @Override
-                public void remove() {
-                    removeProperty(vertex, key, this);
-                }
-            };
-            this.addValue(vertex, key, property);
-            return property;
-        } else {
+        if (!isComputeKey(key))
             throw GraphComputer.Exceptions.providedKeyIsNotAnElementComputeKey(key);
+
+        final int ordinal = ordinal(vertex);
+        if (ordinal < 0)
+            throw new IllegalStateException(String.format("The vertex %s was not part of the graph when the graph computer job started", vertex));
+
+        final List<VertexProperty> stored = TinkerHelper.getProperties(vertex).getOrDefault(key, Collections.emptyList());
+        if (VertexProperty.Cardinality.single == cardinality) {
+            new ArrayList<>(stored).forEach(VertexProperty::remove);
+        } else if (VertexProperty.Cardinality.set == cardinality) {
+            for (final VertexProperty<?> property : stored) {
+                if (Objects.equals(value, property.value()))
+                    return (VertexProperty<V>) property;
+            }
         }
+
+        final Object[] column = this.columns.get(key);
+        final Object current = column[ordinal];
+        final Object entry = null == value ? NULL : value;
+        if (null == current || VertexProperty.Cardinality.single == cardinality) {
+            column[ordinal] = entry;
+        } else {
+            if (VertexProperty.Cardinality.set == cardinality) {
+                for (final Object other : entries(current)) {
+                    if (Objects.equals(value, value(other)))
+                        return (VertexProperty<V>) property(vertex, key, other);
+                }
+            }
+            if (current instanceof Entries) {
+                ((Entries) current).add(entry);
+            } else {
+                final Entries entries = new Entries();
+                entries.add(current);
+                entries.add(entry);
+                column[ordinal] = entries;
+            }
+        }
+        return new ComputeProperty<>(vertex, key, value);
     }
 
     public List<VertexProperty<?>> getProperty(final TinkerVertex vertex, final String key) {
@@ -101,25 +173,30 @@ public final class TinkerGraphComputerView {
         //return isComputeKey(key) ? this.getValue(vertex, key) : (List) TinkerHelper.getProperties(vertex).getOrDefault(key, Collections.emptyList());
     }
 
-    public List<Property> getProperties(final TinkerVertex vertex) {
-        final List<Property> list = new ArrayList<>();
-        for (final List<VertexProperty> properties : TinkerHelper.getProperties(vertex).values()) {
-            list.addAll(properties);
+    /**
+     * Gets the properties of the vertex with one of the keys, or all of them if no key is given, which are those it
+     * has in the graph followed by its compute keys.
+     */
+    public List<VertexProperty<?>> getProperties(final TinkerVertex vertex, final String... keys) {
+        final List<VertexProperty<?>> list = new ArrayList<>();
+        for (final Map.Entry<String, List<VertexProperty>> properties : TinkerHelper.getProperties(vertex).entrySet()) {
+            if (ElementHelper.keyExists(properties.getKey(), keys))
+                list.addAll((List) properties.getValue());
         }
-        for (final List<VertexProperty<?>> properties : this.computeProperties.getOrDefault(vertex, Collections.emptyMap()).values()) {
-            list.addAll(properties);
+        final int ordinal = ordinal(vertex);
+        if (ordinal >= 0) {
+            for (final Map.Entry<String, Object[]> column : this.columns.entrySet()) {
+                final Object slot = column.getValue()[ordinal];
+                if (null != slot && ElementHelper.keyExists(column.getKey(), keys)) {
+                    for (final Object entry : entries(slot)) {
+                        list.add(property(vertex, column.getKey(), entry));
+                    }
+                }
+            }
         }
         return list;
     }
 
-    public void removeProperty(final TinkerVertex vertex, final String key, final VertexProperty property) {
-        if (isComputeKey(key)) {
-            this.removeValue(vertex, key, property);
-        } else {
-            throw GraphComputer.Exceptions.providedKeyIsNotAnElementComputeKey(key);
-        }
-    }
-
     public boolean legalVertex(final Vertex vertex) {
         return !this.graphFilter.hasVertexFilter() || this.legalVertices.contains(vertex.id());
     }
@@ -131,11 +208,8 @@ public final class TinkerGraphComputerView {
     protected void complete() {
         // remove all transient properties from the vertices
         for (final VertexComputeKey computeKey : this.computeKeys.values()) {
-            if (computeKey.isTransient()) {
-                for (final Map<String, List<VertexProperty<?>>> properties : this.computeProperties.values()) {
-                    properties.remove(computeKey.getKey());
-                }
-            }
+            if (computeKey.isTransient())
+                Arrays.fill(this.columns.get(computeKey.getKey()), null);
         }
     }
 
@@ -193,17 +267,23 @@ public final class TinkerGraphComputerView {
 
     private void addPropertiesToOriginalGraph() {
         TinkerHelper.dropGraphComputerView(this.graph);
-        this.computeProperties.forEach((element, properties) -> {
-            properties.forEach((key, vertexProperties) -> {
-                vertexProperties.forEach(vertexProperty -> {
-                    final VertexProperty<?> newVertexProperty = ((Vertex) element).property(VertexProperty.Cardinality.list, vertexProperty.key(), vertexProperty.value(), T.id, vertexProperty.id());
-                    vertexProperty.properties().forEachRemaining(property -> {
-                        newVertexProperty.property(property.key(), property.value());
-                    });
-                });
-            });
-        });
-        this.computeProperties.clear();
+        for (final Map.Entry<String, Object[]> column : this.columns.entrySet()) {
+            final Object[] slots = column.getValue();
+            for (int i = 0; i < slots.length; i++) {
+                if (null == slots[i])
+                    continue;
+                final Vertex vertex = this.vertices[i];
+                for (final Object entry : entries(slots[i])) {
+                    final VertexProperty<?> newVertexProperty = vertex.property(VertexProperty.Cardinality.list, column.getKey(), value(entry));
+                    if (entry instanceof StoredProperty) {
+                        ((StoredProperty<?>) entry).properties().forEachRemaining(property -> {
+                            newVertexProperty.property(property.key(), property.value());
+                        });
+                    }
+                }
+            }
+            Arrays.fill(slots, null);
+        }
     }
 
     //////////////////////
@@ -212,20 +292,267 @@ public final class TinkerGraphComputerView {
         return this.computeKeys.containsKey(key);
     }
 
-    private void addValue(final Vertex vertex, final String key, final VertexProperty property) {
-        final Map<String, List<VertexProperty<?>>> elementProperties = this.computeProperties.computeIfAbsent(vertex, k -> new HashMap<>());
-        elementProperties.compute(key, (k, v) -> {
-            if (null == v) v = new ArrayList<>();
-            v.add(property);
-            return v;
-        });
+    /**
+     * Gets the number of vertices that the job started with, which is the length of the columns.
+     */
+    int getVertexCount() {
+        return this.vertices.length;
     }
 
-    private void removeValue(final Vertex vertex, final String key, final VertexProperty property) {
-        this.computeProperties.<List<Map<String, VertexProperty<?>>>>getOrDefault(vertex, Collections.emptyMap()).get(key).remove(property);
+    /**
+     * Gets the vertex at the position in the columns.
+     */
+    TinkerVertex getVertex(final int ordinal) {
+        return this.vertices[ordinal];
+    }
+
+    /**
+     * Gets the position in the columns of a vertex that may also be given as a wrapper or a reference of it, or -1
+     * if the graph has no such vertex or it was added to the graph after the job started.
+     */
+    int ordinal(final Vertex vertex) {
+        Vertex base = vertex;
+        while (base instanceof WrappedVertex) {
+            base = ((WrappedVertex<Vertex>) base).getBaseVertex();
+        }
+        if (base instanceof TinkerVertex) {
+            final int ordinal = ordinal((TinkerVertex) base);
+            if (ordinal >= 0) return ordinal;
+        }
+        final Iterator<Vertex> vertices = this.graph.vertices(base.id());
+        return vertices.hasNext() ? ordinal((TinkerVertex) vertices.next()) : -1;
     }
 
-    private List<VertexProperty<?>> getValue(final Vertex vertex, final String key) {
-        return this.computeProperties.getOrDefault(vertex, Collections.emptyMap()).getOrDefault(key, Collections.emptyList());
+    /**
+     * Gets the position of the vertex in the columns or -1 if the vertex was added to the graph after the job started.
+     */
+    private int ordinal(final TinkerVertex vertex) {
+        int index = index(vertex);
+        TinkerVertex other;
+        while (null != (other = this.ordinalTable[index])) {
+            if (other == vertex)
+                return this.ordinals[index];
+            index = (index + 1) & (this.ordinalTable.length - 1);
+        }
+        return -1;
+    }
+
+    private int index(final TinkerVertex vertex) {
+        final int hash = System.identityHashCode(vertex);
+        return (hash ^ (hash >>> 16)) & (this.ordinalTable.length - 1);
+    }
+
+    /**
+     * Removes the entry of the value, or of the {@link StoredProperty} that took its place, from the slot of the
+     * vertex in the column of the key.
+     */
+    private void removeEntry(final TinkerVertex vertex, final String key, final Object entry) {
+        final int ordinal = ordinal(vertex);
+        if (ordinal < 0) return;
+
+        final Object[] column = this.columns.get(key);
+        final Object current = column[ordinal];
+        if (current instanceof Entries) {
+            final Entries entries = (Entries) current;
+            final int index = entries.indexOf(entry);
+            if (index < 0) return;
+            entries.remove(index);
+            if (entries.size() < 2)
+                column[ordinal] = entries.isEmpty() ? null : entries.get(0);
+        } else if (matches(current, entry)) {
+            column[ordinal] = null;
+        }
+    }
+
+    /**
+     * Replaces the entry of a value in the slot of the vertex by a {@link StoredProperty}, unless it was removed.
+     */
+    private <V> StoredProperty<V> store(final TinkerVertex vertex, final String key, final V value) {
+        final int ordinal = ordinal(vertex);
+        final Object[] column = this.columns.get(key);
+        final Object current = ordinal < 0 ? null : column[ordinal];
+        final Object entry = null == value ? NULL : value;
+        if (current instanceof Entries) {
+            final Entries entries = (Entries) current;
+            final int index = entries.indexOf(entry);
+            if (index >= 0) {
+                if (entries.get(index) instanceof StoredProperty)
+                    return (StoredProperty<V>) entries.get(index);
+                final StoredProperty<V> property = new StoredProperty<>(vertex, key, value);
+                entries.set(index, property);
+                return property;
+            }
+        } else if (matches(current, entry)) {
+            if (current instanceof StoredProperty)
+                return (StoredProperty<V>) current;
+            final StoredProperty<V> property = new StoredProperty<>(vertex, key, value);
+            column[ordinal] = property;
+            return property;
+        }
+        return new StoredProperty<>(vertex, key, value);
+    }
+
+    private List<VertexProperty<?>> getValue(final TinkerVertex vertex, final String key) {
+        final Object[] column = this.columns.get(key);
+        final int ordinal = null == column ? -1 : ordinal(vertex);
+        if (ordinal < 0) return Collections.emptyList();
+
+        final Object current = column[ordinal];
+        if (null == current)
+            return Collections.emptyList();
+        else if (current instanceof Entries) {
+            final List<VertexProperty<?>> properties = new ArrayList<>(((Entries) current).size());
+            for (final Object entry : (Entries) current) {
+                properties.add(property(vertex, key, entry));
+            }
+            return properties;
+        } else
+            return Collections.singletonList(property(vertex, key, current));
+    }
+
+    private VertexProperty<?> property(final TinkerVertex vertex, final String key, final Object entry) {
+        return entry instanceof StoredProperty ? (StoredProperty<?>) entry : new ComputeProperty<>(vertex, key, value(entry));
+    }
+
+    private static List<Object> entries(final Object slot) {
+        return slot instanceof Entries ? (Entries) slot : Collections.singletonList(slot);
+    }
+
+    private static Object value(final Object entry) {
+        return NULL == entry ? null : entry instanceof StoredProperty ? ((StoredProperty<?>) entry).value() : entry;
+    }
+
+    /**
+     * Determines if the entry in a slot is the given one, where a value also matches the {@link StoredProperty} that
+     * took its place.
+     */
+    private static boolean matches(final Object current, final Object entry) {
+        if (current == entry)
+            return true;
+        if (null == current || entry instanceof StoredProperty)
+            return false;
+        return current instanceof StoredProperty ?
+                Objects.equals(((StoredProperty<?>) current).value(), value(entry)) :
+                current.equals(entry);
+    }
+
+    /**
+     * The values of a slot that holds more than one, which is a class of its own so that it is not mistaken for a
+     * value that is a {@link List}.
+     */
+    private static final class Entries extends ArrayList<Object> {
+        private Entries() {
+            super(2);
+        }
+
+        @Override
+        public int indexOf(final Object entry) {
+            for (int i = 0; i < this.size(); i++) {
+                if (matches(this.get(i), entry))
+                    return i;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * The {@link VertexProperty} of a value of a compute key, which is created when the value is written or read and
+     * is not kept. It takes a {@link StoredProperty} in its place in the column once its id or properties are needed,
+     * so that those stay the same for every later read.
+     */
+    private final class ComputeProperty<V> implements VertexProperty<V> {
+        private final TinkerVertex vertex;
+        private final String key;
+        private final V value;
+        private StoredProperty<V> stored = null;
+
+        private ComputeProperty(final TinkerVertex vertex, final String key, final V value) {
+            this.vertex = vertex;
+            this.key = key;
+            this.value = value;
+        }
+
+        private StoredProperty<V> stored() {
+            if (null == this.stored)
+                this.stored = store(this.vertex, this.key, this.value);
+            return this.stored;
+        }
+
+        @Override
+        public String key() {
+            return this.key;
+        }
+
+        @Override
+        public V value() {
+            return this.value;
+        }
+
+        @Override
+        public boolean isPresent() {
+            return true;
+        }
+
+        @Override
+        public Vertex element() {
+            return this.vertex;
+        }
+
+        @Override
+        public Object id() {
+            return this.stored().id();
+        }
+
+        @Override
+        public <U> Property<U> property(final String key, final U value) {
+            return this.stored().property(key, value);
+        }
+
+        @Override
+        public <U> Iterator<Property<U>> properties(final String... propertyKeys) {
+            return null == this.stored ? Collections.emptyIterator() : this.stored.properties(propertyKeys);
+        }
+
+        @Override
+        public Set<String> keys() {
+            return null == this.stored ? Collections.emptySet() : this.stored.keys();
+        }
+
+        @Override
+        public void remove() {
+            if (null == this.stored)
+                removeEntry(this.vertex, this.key, null == this.value ? NULL : this.value);
+            else
+                this.stored.remove();
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            return ElementHelper.areEqual(this, object);
+        }
+
+        @Override
+        public int hashCode() {
+            return ElementHelper.hashCode((Element) this);
+        }
+
+        @Override
+        public String toString() {
+            return StringFactory.propertyString(this);
+        }
+    }
+
+    /**
+     * A value of a compute key that has an id or properties, which takes the place of the value in its column.
+     */
+    private final class StoredProperty<V> extends TinkerVertexProperty<V> {
+        private StoredProperty(final TinkerVertex vertex, final String key, final V value) {
+            super(vertex, key, value);
+        }
+
+        @Override
+        public void remove() {
+            removeEntry((TinkerVertex) this.element(), this.key(), this);
+        }
     }
-}
\ No newline at end of file
+}
@@ -18,29 +18,174 @@
  */
 package org.apache.tinkerpop.gremlin.tinkergraph.process.computer;
 
+import org.apache.tinkerpop.gremlin.process.computer.MessageCombiner;
 import org.apache.tinkerpop.gremlin.process.computer.MessageScope;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
+ * The messages of a vertex program are kept in one array per {@link MessageScope}, in which every vertex has its slot
+ * at the ordinal given to it by the {@link TinkerGraphComputerView}. A slot holds nothing, a single message or a
+ * {@link Messages} list, so a message costs no allocation of its own and a {@link MessageCombiner} folds every new
+ * message into the one already in the slot as it is sent. The arrays of the messages sent in an iteration become the
+ * arrays of the messages received in the next one, and the arrays received from are cleared and reused for sending.
+ * <p/>
+ * Any worker may send a message to any vertex, so writing a slot locks one of a fixed number of stripes.
+ * <p/>
+ * If the board tracks the frontier it also marks every vertex that a message is sent to, or that is kept active, as
+ * one to execute in the next iteration. A vertex program that needs every vertex executed in the next iteration has
+ * to ask for it, as an iteration that marks no vertex is followed by one that executes none.
+ *
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
 final class TinkerMessageBoard<M> {
 
-    public Map<MessageScope, Map<Vertex,Queue<M>>> sendMessages = new ConcurrentHashMap<>();
-    public Map<MessageScope, Map<Vertex, Queue<M>>> receiveMessages = new ConcurrentHashMap<>();
-    public Set<MessageScope> previousMessageScopes = new HashSet<>();
-    public Set<MessageScope> currentMessageScopes = new HashSet<>();
+    private static final int LOCK_STRIPES = 1024;
+
+    private final TinkerGraphComputerView view;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final Queue<Object[]> spareArrays = new ConcurrentLinkedQueue<>();
+    private Map<MessageScope, Object[]> sendMessages = new ConcurrentHashMap<>();
+    private Map<MessageScope, Object[]> receiveMessages = new ConcurrentHashMap<>();
+
+    /**
+     * The vertices to execute in the next iteration by ordinal or {@code null} if the frontier is not tracked.
+     */
+    private final boolean[] active;
+    private volatile boolean activeAll = false;
+    private Vertex[] frontier = null;
+
+    public TinkerMessageBoard(final TinkerGraphComputerView view, final boolean trackFrontier) {
+        this.view = view;
+        this.active = trackFrontier ? new boolean[view.getVertexCount()] : null;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            this.locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Gets the scopes that messages were sent in during the previous iteration.
+     */
+    public Set<MessageScope> getReceiveMessageScopes() {
+        return this.receiveMessages.keySet();
+    }
+
+    /**
+     * Gets the messages that were sent to the vertex in the scope during the previous iteration.
+     */
+    public List<M> getReceivedMessages(final MessageScope messageScope, final Vertex vertex) {
+        final Object[] messages = this.receiveMessages.get(messageScope);
+        final int ordinal = null == messages ? -1 : this.view.ordinal(vertex);
+        if (ordinal < 0) return Collections.emptyList();
+
+        final Object slot = messages[ordinal];
+        if (null == slot)
+            return Collections.emptyList();
+        else if (slot instanceof Messages)
+            return (Messages<M>) slot;
+        else
+            return Collections.singletonList((M) slot);
+    }
+
+    /**
+     * Adds the message for the vertex to the scope, combining it with the message already there if there is a
+     * combiner. Messages to a vertex that is not in the graph, or was added to it during the job, are dropped.
+     *
+     * @return whether it is the first message for the vertex in the scope during this iteration
+     */
+    public boolean sendMessage(final MessageScope messageScope, final Vertex vertex, final M message, final MessageCombiner<M> combiner) {
+        final int ordinal = this.view.ordinal(vertex);
+        if (ordinal < 0) return false;
+
+        final Object[] messages = this.sendMessages.computeIfAbsent(messageScope, ms -> {
+            final Object[] spare = this.spareArrays.poll();
+            return null == spare ? new Object[this.view.getVertexCount()] : spare;
+        });
+        synchronized (this.locks[ordinal & (LOCK_STRIPES - 1)]) {
+            final Object slot = messages[ordinal];
+            if (null == slot) {
+                messages[ordinal] = message;
+                return true;
+            } else if (null != combiner) {
+                messages[ordinal] = combiner.combine((M) slot, message);
+            } else if (slot instanceof Messages) {
+                ((Messages<M>) slot).add(message);
+            } else {
+                final Messages<M> list = new Messages<>();
+                list.add((M) slot);
+                list.add(message);
+                messages[ordinal] = list;
+            }
+            return false;
+        }
+    }
+
+    public boolean tracksFrontier() {
+        return null != this.active;
+    }
+
+    /**
+     * Marks the vertex to be executed in the next iteration if the frontier is tracked.
+     */
+    public void activate(final Vertex vertex) {
+        if (null == this.active) return;
+        final int ordinal = this.view.ordinal(vertex);
+        if (ordinal >= 0) this.active[ordinal] = true;
+    }
+
+    /**
+     * Marks every vertex to be executed in the next iteration.
+     */
+    public void activateAll() {
+        this.activeAll = true;
+    }
+
+    /**
+     * Gets the vertices to execute in this iteration or {@code null} if all are to be executed, which is the case if
+     * the frontier is not tracked, in the first iteration and after an iteration that activated all vertices. The
+     * vertices are empty after an iteration that activated none.
+     */
+    public Vertex[] getFrontier() {
+        return this.frontier;
+    }
 
     public void completeIteration() {
+        for (final Object[] messages : this.receiveMessages.values()) {
+            Arrays.fill(messages, null);
+            this.spareArrays.add(messages);
+        }
         this.receiveMessages = this.sendMessages;
         this.sendMessages = new ConcurrentHashMap<>();
-        this.previousMessageScopes = this.currentMessageScopes;
-        this.currentMessageScopes = new HashSet<>();
+
+        if (null != this.active) {
+            final List<Vertex> frontier = new ArrayList<>();
+            for (int i = 0; i < this.active.length; i++) {
+                if (this.active[i]) {
+                    frontier.add(this.view.getVertex(i));
+                    this.active[i] = false;
+                }
+            }
+            this.frontier = this.activeAll ? null : frontier.toArray(new Vertex[frontier.size()]);
+            this.activeAll = false;
+        }
+    }
+
+    /**
+     * The messages of a slot that holds more than one, which is a type of its own so that it cannot be mistaken for a
+     * single message that happens to be a list.
+     */
+    private static final class Messages<M> extends ArrayList<M> {
+        private Messages() {
+            super(4);
+        }
     }
 }
@@ -33,13 +33,10 @@ import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 import org.apache.tinkerpop.gremlin.util.iterator.MultiIterator;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
-import java.util.Queue;
 import java.util.Spliterator;
 import java.util.Spliterators;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 /**
@@ -60,7 +57,7 @@ public final class TinkerMessenger<M> implements Messenger<M> {
     @Override
     public Iterator<M> receiveMessages() {
         final MultiIterator<M> multiIterator = new MultiIterator<>();
-        for (final MessageScope messageScope : this.messageBoard.receiveMessages.keySet()) {
+        for (final MessageScope messageScope : this.messageBoard.getReceiveMessageScopes()) {
 //        for (final MessageScope messageScope : this.messageBoard.previousMessageScopes) {
             if (messageScope instanceof MessageScope.Local) {
                 final MessageScope.Local<M> localMessageScope = (MessageScope.Local<M>) messageScope;
@@ -76,19 +73,14 @@ public final class TinkerMessenger<M> implements Messenger<M> {
                             } else {
                                 vv = e.outVertex() == this.vertex ? e.inVertex() : e.outVertex();
                             }
-                            return this.messageBoard.receiveMessages.get(messageScope).get(vv);
+                            return this.messageBoard.getReceivedMessages(messageScope, vv);
                         })
-                        .filter(q -> null != q)
-                        .flatMap(Queue::stream)
+                        .flatMap(List::stream)
                         .map(message -> localMessageScope.getEdgeFunction().apply(message, edge[0]))
                         .iterator());
 
             } else {
-                multiIterator.addIterator(Stream.of(this.vertex)
-                        .map(this.messageBoard.receiveMessages.get(messageScope)::get)
-                        .filter(q -> null != q)
-                        .flatMap(Queue::stream)
-                        .iterator());
+                multiIterator.addIterator(this.messageBoard.getReceivedMessages(messageScope, this.vertex).iterator());
             }
         }
         return multiIterator;
@@ -98,22 +90,44 @@ public final class TinkerMessenger<M> implements Messenger<M> {
     public void sendMessage(final MessageScope messageScope, final M message) {
 //        this.messageBoard.currentMessageScopes.add(messageScope);
         if (messageScope instanceof MessageScope.Local) {
-            addMessage(this.vertex, message, messageScope);
+            // a local message is read by the vertices that the incident traversal reaches
+            if (addMessage(this.vertex, message, messageScope) && this.messageBoard.tracksFrontier())
+                activateIncidentVertices((MessageScope.Local<M>) messageScope);
         } else {
-            ((MessageScope.Global) messageScope).vertices().forEach(v -> addMessage(v, message, messageScope));
+            ((MessageScope.Global) messageScope).vertices().forEach(v -> {
+                if (addMessage(v, message, messageScope)) this.messageBoard.activate(v);
+            });
         }
     }
 
-    private void addMessage(final Vertex vertex, final M message, MessageScope messageScope) {
-        this.messageBoard.sendMessages.compute(messageScope, (ms, messages) -> {
-            if(null==messages) messages = new ConcurrentHashMap<>();
-            return messages;
-        });
-        this.messageBoard.sendMessages.get(messageScope).compute(vertex, (v, queue) -> {
-            if (null == queue) queue = new ConcurrentLinkedQueue<>();
-            queue.add(null != this.combiner && !queue.isEmpty() ? this.combiner.combine(queue.remove(), message) : message);
-            return queue;
-        });
+    /**
+     * Keeps the vertex active in the next iteration when the {@link TinkerGraphComputer} only executes the frontier
+     * of vertices that received messages, as configured with {@link TinkerGraphComputer#FRONTIER}.
+     */
+    public void keepActive() {
+        this.messageBoard.activate(this.vertex);
+    }
+
+    /**
+     * Executes every vertex in the next iteration when the {@link TinkerGraphComputer} only executes the frontier of
+     * vertices that received messages, which a program that ends with a pass over all of its vertices must ask for as
+     * an iteration in which no vertex received a message is followed by one that executes no vertex at all.
+     */
+    public void activateAll() {
+        if (this.messageBoard.tracksFrontier()) this.messageBoard.activateAll();
+    }
+
+    private boolean addMessage(final Vertex vertex, final M message, MessageScope messageScope) {
+        return this.messageBoard.sendMessage(messageScope, vertex, message, this.combiner);
+    }
+
+    /**
+     * Activates the vertices adjacent along the edges of the incident traversal, ignoring any filter on the edges
+     * other than their labels, which may activate more vertices than receive the message but never fewer.
+     */
+    private void activateIncidentVertices(final MessageScope.Local<M> messageScope) {
+        final VertexStep<?> step = TraversalHelper.getLastStepOfAssignableClass(VertexStep.class, messageScope.getIncidentTraversal().get().asAdmin()).get();
+        this.vertex.vertices(step.getDirection(), step.getEdgeLabels()).forEachRemaining(this.messageBoard::activate);
     }
 
     ///////////
@@ -23,23 +23,35 @@ import org.apache.tinkerpop.gremlin.process.computer.MapReduce;
 import org.apache.tinkerpop.gremlin.process.computer.VertexProgram;
 import org.apache.tinkerpop.gremlin.process.computer.util.MapReducePool;
 import org.apache.tinkerpop.gremlin.process.computer.util.VertexProgramPool;
+import org.apache.tinkerpop.gremlin.structure.Direction;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerHelper;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerVertex;
 import org.apache.tinkerpop.gremlin.util.function.TriConsumer;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Queue;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
+ * Runs the vertex program and the map stage of the map reduce jobs on a fixed number of workers. The vertices are
+ * split into chunks of about the same weight, where a vertex weighs one plus its degree, and every worker takes the
+ * next chunk as soon as it is done with its last one, so a few vertices with many edges no longer hold up the whole
+ * iteration on one worker while the others are idle. A vertex with a weight beyond that of a chunk forms a chunk of
+ * its own and the heaviest chunks are handed out first.
+ *
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  * @author Stephen Mallette (http://stephen.genoprime.com)
  */
@@ -47,6 +59,11 @@ public final class TinkerWorkerPool implements AutoCloseable {
 
     private static final BasicThreadFactory THREAD_FACTORY_WORKER = new BasicThreadFactory.Builder().namingPattern("tinker-worker-%d").build();
 
+    /**
+     * The number of chunks per worker that the vertices are split into.
+     */
+    private static final int CHUNKS_PER_WORKER = 16;
+
     private final int numberOfWorkers;
     private final ExecutorService workerPool;
     private final CompletionService<Object> completionService;
@@ -54,7 +71,12 @@ public final class TinkerWorkerPool implements AutoCloseable {
     private VertexProgramPool vertexProgramPool;
     private MapReducePool mapReducePool;
     private final Queue<TinkerWorkerMemory> workerMemoryPool = new ConcurrentLinkedQueue<>();
-    private final List<List<Vertex>> workerVertices = new ArrayList<>();
+    private final Vertex[] vertices;
+
+    /**
+     * The start and the end of every chunk in {@link #vertices}, heaviest chunk first.
+     */
+    private final List<int[]> chunks;
 
     public TinkerWorkerPool(final TinkerGraph graph, final TinkerMemory memory, final int numberOfWorkers) {
         this.numberOfWorkers = numberOfWorkers;
@@ -62,26 +84,38 @@ public final class TinkerWorkerPool implements AutoCloseable {
         this.completionService = new ExecutorCompletionService<>(this.workerPool);
         for (int i = 0; i < this.numberOfWorkers; i++) {
             this.workerMemoryPool.add(new TinkerWorkerMemory(memory));
-            this.workerVertices.add(new ArrayList<>());
         }
-        int batchSize = TinkerHelper.getVertices(graph).size() / this.numberOfWorkers;
-        if (0 == batchSize)
-            batchSize = 1;
-        int counter = 0;
-        int index = 0;
-
-        List<Vertex> currentWorkerVertices = this.workerVertices.get(index);
-        final Iterator<Vertex> iterator = graph.vertices();
-        while (iterator.hasNext()) {
-            final Vertex vertex = iterator.next();
-            if (counter++ < batchSize || index == this.workerVertices.size() - 1) {
-                currentWorkerVertices.add(vertex);
-            } else {
-                currentWorkerVertices = this.workerVertices.get(++index);
-                currentWorkerVertices.add(vertex);
-                counter = 1;
+
+        this.vertices = IteratorUtils.list(graph.vertices()).toArray(new Vertex[0]);
+        this.chunks = chunk(this.vertices);
+    }
+
+    /**
+     * Splits the vertices into chunks of about the same weight and orders them heaviest first.
+     */
+    private List<int[]> chunk(final Vertex[] vertices) {
+        final long[] weights = new long[vertices.length];
+        long totalWeight = 0;
+        for (int i = 0; i < vertices.length; i++) {
+            weights[i] = 1 + TinkerHelper.getDegree((TinkerVertex) vertices[i], Direction.BOTH);
+            totalWeight += weights[i];
+        }
+        final long chunkWeight = Math.max(1, totalWeight / ((long) this.numberOfWorkers * CHUNKS_PER_WORKER));
+        final List<long[]> weightedChunks = new ArrayList<>();
+        int start = 0;
+        long weight = 0;
+        for (int i = 0; i < vertices.length; i++) {
+            weight += weights[i];
+            if (weight >= chunkWeight || i == vertices.length - 1) {
+                weightedChunks.add(new long[]{start, i + 1, weight});
+                start = i + 1;
+                weight = 0;
             }
         }
+        weightedChunks.sort((a, b) -> Long.compare(b[2], a[2]));
+        final List<int[]> chunks = new ArrayList<>(weightedChunks.size());
+        weightedChunks.forEach(chunk -> chunks.add(new int[]{(int) chunk[0], (int) chunk[1]}));
+        return chunks;
     }
 
     public void setVertexProgram(final VertexProgram vertexProgram) {
@@ -93,13 +127,25 @@ public final class TinkerWorkerPool implements AutoCloseable {
     }
 
     public void executeVertexProgram(final TriConsumer<Iterator<Vertex>, VertexProgram, TinkerWorkerMemory> worker) throws InterruptedException {
+        executeVertexProgram(this.vertices, this.chunks, worker);
+    }
+
+    /**
+     * Executes the vertex program on the given vertices of the graph only, such as the active vertices of an
+     * iteration.
+     */
+    public void executeVertexProgram(final Vertex[] vertices, final TriConsumer<Iterator<Vertex>, VertexProgram, TinkerWorkerMemory> worker) throws InterruptedException {
+        executeVertexProgram(vertices, chunk(vertices), worker);
+    }
+
+    private void executeVertexProgram(final Vertex[] vertices, final List<int[]> chunks,
+                                      final TriConsumer<Iterator<Vertex>, VertexProgram, TinkerWorkerMemory> worker) throws InterruptedException {
+        final AtomicInteger nextChunk = new AtomicInteger();
         for (int i = 0; i < this.numberOfWorkers; i++) {
-            final int index = i;
             this.completionService.submit(() -> {
                 final VertexProgram vp = this.vertexProgramPool.take();
                 final TinkerWorkerMemory workerMemory = this.workerMemoryPool.poll();
-                final List<Vertex> vertices = this.workerVertices.get(index);
-                worker.accept(vertices.iterator(), vp, workerMemory);
+                worker.accept(new ChunkIterator(vertices, chunks, nextChunk), vp, workerMemory);
                 this.vertexProgramPool.offer(vp);
                 this.workerMemoryPool.offer(workerMemory);
                 return null;
@@ -116,6 +162,14 @@ public final class TinkerWorkerPool implements AutoCloseable {
         }
     }
 
+    /**
+     * Executes the map stage of the map reduce job, giving every worker the chunks of vertices that it takes.
+     */
+    public void executeMapReduce(final BiConsumer<Iterator<Vertex>, MapReduce> worker) throws InterruptedException {
+        final AtomicInteger nextChunk = new AtomicInteger();
+        executeMapReduce(mapReduce -> worker.accept(new ChunkIterator(this.vertices, this.chunks, nextChunk), mapReduce));
+    }
+
     public void executeMapReduce(final Consumer<MapReduce> worker) throws InterruptedException {
         for (int i = 0; i < this.numberOfWorkers; i++) {
             this.completionService.submit(() -> {
@@ -144,4 +198,38 @@ public final class TinkerWorkerPool implements AutoCloseable {
     public void close() throws Exception {
         this.workerPool.shutdown();
     }
+
+    /**
+     * Iterates the vertices of the chunks that it takes, one after the other, until none is left.
+     */
+    private static final class ChunkIterator implements Iterator<Vertex> {
+        private final Vertex[] vertices;
+        private final List<int[]> chunks;
+        private final AtomicInteger nextChunk;
+        private int current = 0;
+        private int end = 0;
+
+        private ChunkIterator(final Vertex[] vertices, final List<int[]> chunks, final AtomicInteger nextChunk) {
+            this.vertices = vertices;
+            this.chunks = chunks;
+            this.nextChunk = nextChunk;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.current == this.end) {
+                final int chunk = this.nextChunk.getAndIncrement();
+                if (chunk >= this.chunks.size()) return false;
+                this.current = this.chunks.get(chunk)[0];
+                this.end = this.chunks.get(chunk)[1];
+            }
+            return true;
+        }
+
+        @Override
+        public Vertex next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return this.vertices[this.current++];
+        }
+    }
 }
\ No newline at end of file
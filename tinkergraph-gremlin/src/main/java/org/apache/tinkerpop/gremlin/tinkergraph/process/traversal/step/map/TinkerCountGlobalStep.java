@@ -19,30 +19,55 @@
 
 package org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.step.map;
 
+import org.apache.tinkerpop.gremlin.process.traversal.Compare;
+import org.apache.tinkerpop.gremlin.process.traversal.Contains;
 import org.apache.tinkerpop.gremlin.process.traversal.Step;
 import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
 import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.AbstractStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
 import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
 import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.T;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerHelper;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
+ * Counts the vertices or edges of the graph, optionally restricted by {@link HasContainer} instances, from the sizes
+ * that the graph maintains for them without iterating the elements. The {@link HasContainer} instances must either all
+ * be on the label, which is counted from the label registries, or be a single equality on an indexed key, which is
+ * counted from the index.
+ *
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
 public final class TinkerCountGlobalStep<S extends Element> extends AbstractStep<S, Long> {
 
     private final Class<S> elementClass;
+    private final List<HasContainer> hasContainers;
     private boolean done = false;
 
     public TinkerCountGlobalStep(final Traversal.Admin traversal, final Class<S> elementClass) {
+        this(traversal, elementClass, Collections.emptyList());
+    }
+
+    public TinkerCountGlobalStep(final Traversal.Admin traversal, final Class<S> elementClass, final List<HasContainer> hasContainers) {
         super(traversal);
         this.elementClass = elementClass;
+        this.hasContainers = hasContainers;
+    }
+
+    public List<HasContainer> getHasContainers() {
+        return Collections.unmodifiableList(this.hasContainers);
     }
 
     @Override
@@ -50,22 +75,79 @@ public final class TinkerCountGlobalStep<S extends Element> extends AbstractStep
         if (!this.done) {
             this.done = true;
             final TinkerGraph graph = (TinkerGraph) this.getTraversal().getGraph().get();
-            return this.getTraversal().getTraverserGenerator().generate(Vertex.class.isAssignableFrom(this.elementClass) ?
-                            (long) TinkerHelper.getVertices(graph).size() :
-                            (long) TinkerHelper.getEdges(graph).size(),
-                    (Step) this, 1L);
+            return this.getTraversal().getTraverserGenerator().generate(count(graph), (Step) this, 1L);
         } else
             throw FastNoSuchElementException.instance();
     }
 
+    private long count(final TinkerGraph graph) {
+        final Map<Object, ? extends Element> elements = Vertex.class.isAssignableFrom(this.elementClass) ?
+                TinkerHelper.getVertices(graph) : TinkerHelper.getEdges(graph);
+        if (this.hasContainers.isEmpty())
+            return elements.size();
+
+        final Set<String> labels = getLabels(this.hasContainers);
+        if (null != labels)
+            return TinkerHelper.countElementsByLabel(graph, this.elementClass, labels);
+        if (1 == this.hasContainers.size() && isIndexCountable(graph, this.elementClass, this.hasContainers.get(0))) {
+            final HasContainer hasContainer = this.hasContainers.get(0);
+            return TinkerHelper.countIndex(graph, this.elementClass, hasContainer.getKey(), hasContainer.getValue());
+        }
+
+        // the index was dropped after the traversal was optimized
+        return elements.values().stream().filter(e -> HasContainer.testAll(e, this.hasContainers)).count();
+    }
+
+    /**
+     * Gets the labels that an element must have to satisfy all of the {@link HasContainer} instances, or null if any
+     * of them is not an equality or {@code within()} on the label.
+     */
+    public static Set<String> getLabels(final List<HasContainer> hasContainers) {
+        Set<String> labels = null;
+        for (final HasContainer hasContainer : hasContainers) {
+            if (!T.label.getAccessor().equals(hasContainer.getKey()))
+                return null;
+            final Object value = hasContainer.getValue();
+            final Set<String> allowed = new LinkedHashSet<>();
+            if (hasContainer.getBiPredicate() == Compare.eq && value instanceof String)
+                allowed.add((String) value);
+            else if (hasContainer.getBiPredicate() == Contains.within && value instanceof Collection &&
+                    ((Collection<?>) value).stream().allMatch(v -> v instanceof String))
+                ((Collection<?>) value).forEach(v -> allowed.add((String) v));
+            else
+                return null;
+
+            if (null == labels)
+                labels = allowed;
+            else
+                labels.retainAll(allowed);
+        }
+        return labels;
+    }
+
+    /**
+     * Determines if the elements that satisfy the {@link HasContainer} can be counted from an index, which requires
+     * an equality on an indexed key with a value that the index holds as is.
+     */
+    public static boolean isIndexCountable(final TinkerGraph graph, final Class<? extends Element> elementClass,
+                                           final HasContainer hasContainer) {
+        final Object value = hasContainer.getValue();
+        return hasContainer.getBiPredicate() == Compare.eq && null != value &&
+                !(value instanceof Double && ((Double) value).isNaN()) &&
+                !(value instanceof Float && ((Float) value).isNaN()) &&
+                graph.getIndexedKeys(elementClass).contains(hasContainer.getKey());
+    }
+
     @Override
     public String toString() {
-        return StringFactory.stepString(this, this.elementClass.getSimpleName().toLowerCase());
+        return this.hasContainers.isEmpty() ?
+                StringFactory.stepString(this, this.elementClass.getSimpleName().toLowerCase()) :
+                StringFactory.stepString(this, this.elementClass.getSimpleName().toLowerCase(), this.hasContainers);
     }
 
     @Override
     public int hashCode() {
-        return super.hashCode() ^ this.elementClass.hashCode();
+        return super.hashCode() ^ this.elementClass.hashCode() ^ this.hasContainers.hashCode();
     }
 
     @Override
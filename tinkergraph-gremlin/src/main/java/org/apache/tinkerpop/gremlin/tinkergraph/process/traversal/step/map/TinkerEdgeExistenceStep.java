@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.step.map;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.FlatMapStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequirement;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.util.CloseableIterator;
+import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Emits the edges with one of the labels between the incoming vertex and the vertices with the given identifiers, or
+ * those vertices once per edge, as {@code outE(labels).where(inV().hasId(ids))} and {@code out(labels).hasId(ids)}
+ * and their variants for in edges would. The edges are looked up in the edge existence index of the
+ * {@link TinkerGraph} instead of iterating the edges of the incoming vertex, which are only iterated if an identifier
+ * does not resolve to a vertex of the graph. Either way the adjacent vertex is tested against all of the
+ * {@link HasContainer} instances that the identifiers were taken from.
+ */
+public final class TinkerEdgeExistenceStep<E extends Element> extends FlatMapStep<Vertex, E> {
+
+    private final Class<E> returnClass;
+    private final Direction direction;
+    private final String[] edgeLabels;
+    private final Object[] ids;
+    private final List<HasContainer> hasContainers;
+
+    public TinkerEdgeExistenceStep(final Traversal.Admin traversal, final Class<E> returnClass, final Direction direction,
+                                   final String[] edgeLabels, final Object[] ids, final List<HasContainer> hasContainers) {
+        super(traversal);
+        if (direction == Direction.BOTH)
+            throw new IllegalArgumentException("The edge existence index can only be looked up from the out or in vertex");
+        this.returnClass = returnClass;
+        this.direction = direction;
+        this.edgeLabels = edgeLabels;
+        this.ids = ids;
+        this.hasContainers = hasContainers;
+    }
+
+    public Direction getDirection() {
+        return this.direction;
+    }
+
+    public String[] getEdgeLabels() {
+        return this.edgeLabels;
+    }
+
+    public Object[] getIds() {
+        return this.ids;
+    }
+
+    public List<HasContainer> getHasContainers() {
+        return Collections.unmodifiableList(this.hasContainers);
+    }
+
+    @Override
+    protected Iterator<E> flatMap(final Traverser.Admin<Vertex> traverser) {
+        final Vertex vertex = traverser.get();
+        final TinkerGraph graph = (TinkerGraph) this.getTraversal().getGraph().get();
+
+        final Set<Vertex> adjacent = new LinkedHashSet<>();
+        for (final Object id : this.ids) {
+            final Iterator<Vertex> found = graph.vertices(id);
+            final Vertex other = found.hasNext() ? found.next() : null;
+            CloseableIterator.closeIterator(found);
+            // the identifier may still match a vertex by the rules of the predicate, which the adjacency will tell
+            if (null == other)
+                return emit(vertex.edges(this.direction, this.edgeLabels));
+            adjacent.add(other);
+        }
+
+        final List<Edge> edges = new ArrayList<>();
+        for (final String edgeLabel : this.edgeLabels) {
+            for (final Vertex other : adjacent) {
+                edges.addAll(this.direction == Direction.OUT ?
+                        TinkerHelper.queryEdgeExistenceIndex(graph, vertex, edgeLabel, other) :
+                        TinkerHelper.queryEdgeExistenceIndex(graph, other, edgeLabel, vertex));
+            }
+        }
+        return emit(edges.iterator());
+    }
+
+    private Iterator<E> emit(final Iterator<? extends Edge> edges) {
+        final List<E> emitted = new ArrayList<>();
+        edges.forEachRemaining(edge -> {
+            final Vertex other = this.direction == Direction.OUT ? edge.inVertex() : edge.outVertex();
+            if (HasContainer.testAll(other, this.hasContainers))
+                emitted.add((E) (Vertex.class.isAssignableFrom(this.returnClass) ? other : edge));
+        });
+        return emitted.iterator();
+    }
+
+    @Override
+    public Set<TraverserRequirement> getRequirements() {
+        return Collections.singleton(TraverserRequirement.OBJECT);
+    }
+
+    @Override
+    public String toString() {
+        return StringFactory.stepString(this, this.direction, Arrays.asList(this.edgeLabels), this.hasContainers,
+                this.returnClass.getSimpleName().toLowerCase());
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode() ^ this.direction.hashCode() ^ this.returnClass.hashCode() ^
+                Arrays.hashCode(this.edgeLabels) ^ this.hasContainers.hashCode();
+    }
+}
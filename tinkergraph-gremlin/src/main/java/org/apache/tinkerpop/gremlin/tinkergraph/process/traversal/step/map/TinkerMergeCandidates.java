@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.step.map;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.RangeGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.EmptyStep;
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.T;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * The candidates of the searches of a batch of merges, which are looked up once for every label or indexed key and
+ * value that the searches of the batch select by. The elements that the merges of the batch create or change are
+ * added to the candidates of their current values so that the later merges of the batch find them, but they are not
+ * removed from the candidates of the values they no longer have, so the candidates must still be filtered.
+ */
+final class TinkerMergeCandidates<E extends Element> {
+
+    private final Map<Object, Map<Object, Set<E>>> candidates = new HashMap<>();
+
+    /**
+     * Gets the candidates for the label, if the key is {@link T#label}, or for the value of the key, looking them up
+     * the first time they are asked for.
+     */
+    Set<E> get(final Object key, final Object value, final Supplier<Iterator<? extends E>> lookup) {
+        return this.candidates.computeIfAbsent(key, k -> new HashMap<>()).computeIfAbsent(value, v -> {
+            final Set<E> elements = new LinkedHashSet<>();
+            lookup.get().forEachRemaining(elements::add);
+            return elements;
+        });
+    }
+
+    /**
+     * Determines if the merge step may run ahead of its consumer by a batch, which is only the case in a root
+     * traversal without a {@link RangeGlobalStep} that bounds the results after it. A {@code limit()} would otherwise
+     * stop pulling while the rest of the batch is already merged, and a parent step may just as well only take the
+     * first result of a child traversal.
+     */
+    static boolean isBatchable(final Step<?, ?> step) {
+        if (!step.getTraversal().isRoot())
+            return false;
+        for (Step<?, ?> next = step.getNextStep(); !(next instanceof EmptyStep); next = next.getNextStep()) {
+            if (next instanceof RangeGlobalStep && ((RangeGlobalStep<?>) next).getHighRange() != -1)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Adds an element that a merge of the batch returned to the candidates of its label and of its values.
+     */
+    void add(final E element) {
+        this.candidates.forEach((key, values) -> {
+            if (key == T.label) {
+                final Set<E> elements = values.get(element.label());
+                if (null != elements) elements.add(element);
+            } else {
+                element.properties((String) key).forEachRemaining(p -> {
+                    final Set<E> elements = values.get(p.value());
+                    if (null != elements) elements.add(element);
+                });
+            }
+        });
+    }
+}
@@ -19,7 +19,9 @@
 package org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.step.map;
 
 import org.apache.tinkerpop.gremlin.process.traversal.Merge;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
 import org.apache.tinkerpop.gremlin.process.traversal.step.map.MergeEdgeStep;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
 import org.apache.tinkerpop.gremlin.structure.Direction;
 import org.apache.tinkerpop.gremlin.structure.Edge;
 import org.apache.tinkerpop.gremlin.structure.Property;
@@ -28,19 +30,36 @@ import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.structure.util.CloseableIterator;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerHelper;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerVertex;
 import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Stream;
 
 /**
- * Optimizes {@code mergeE()} searches by attempting to use an index where possible.
+ * Optimizes {@code mergeE()} searches by looking up the edges of the label, the indexed key or the incident vertex that
+ * selects the fewest of them, so that a search for the edges between two vertices only iterates the edges of the one
+ * with the lower degree for the label. With {@link TinkerGraph#GREMLIN_TINKERGRAPH_EDGE_EXISTENCE_INDEX} set, such a
+ * search is looked up in the edge existence index instead. With {@link
+ * TinkerGraph#GREMLIN_TINKERGRAPH_MERGE_BATCH_SIZE} set, the traversers are merged in batches that look up the edges of
+ * every label and value once and return their results when the whole batch is merged, which assumes that nothing but
+ * the merges of the batch change the graph in the meantime and that the traversal is iterated to the end. Batching is
+ * therefore left off in child traversals and before a {@code limit()} or {@code range()}.
  */
 public class TinkerMergeEdgeStep<S> extends MergeEdgeStep<S> {
 
+    private Deque<Traverser.Admin<Edge>> merged = new ArrayDeque<>();
+    private TinkerMergeCandidates<Edge> candidates = null;
+    private Boolean batchable = null;
+
     public TinkerMergeEdgeStep(final MergeEdgeStep step) {
         super(step.getTraversal(), step.isStart(), step.getSearchCreateTraversal());
         if (step.getOnMatchTraversal() != null) this.addChildOption(Merge.onMatch, step.getOnMatchTraversal());
@@ -48,68 +67,149 @@ public class TinkerMergeEdgeStep<S> extends MergeEdgeStep<S> {
         if (step.getCallbackRegistry() != null) this.callbackRegistry = step.getCallbackRegistry();
     }
 
+    @Override
+    protected Traverser.Admin<Edge> processNextStart() {
+        final int batchSize = TinkerHelper.getMergeBatchSize((TinkerGraph) this.getTraversal().getGraph().get());
+        if (null == this.batchable)
+            this.batchable = TinkerMergeCandidates.isBatchable(this);
+        if (isStart() || batchSize <= 1 || !this.batchable)
+            return super.processNextStart();
+
+        while (this.merged.isEmpty()) {
+            if (!this.starts.hasNext())
+                throw FastNoSuchElementException.instance();
+
+            this.candidates = new TinkerMergeCandidates<>();
+            try {
+                for (int i = 0; i < batchSize && this.starts.hasNext(); i++) {
+                    final Traverser.Admin<S> traverser = this.starts.next();
+                    // the search is done before the candidates learn of the edges that it returns
+                    final List<Edge> edges = IteratorUtils.list(flatMap(traverser));
+                    for (final Edge edge : edges) {
+                        this.candidates.add(edge);
+                        this.merged.add(traverser.split(edge, this));
+                    }
+                }
+            } finally {
+                this.candidates = null;
+            }
+        }
+        return this.merged.removeFirst();
+    }
+
     @Override
     protected Stream<Edge> createSearchStream(final Map<Object, Object> search) {
         final TinkerGraph graph = (TinkerGraph) this.getTraversal().getGraph().get();
-        Optional<String> firstIndex = Optional.empty();
 
-        Stream<Edge> stream;
-        // prioritize lookup by id but otherwise attempt an index lookup
-        if (null == search) {
+        // prioritize lookup by id but otherwise look up the edges of the label, the indexed key or the incident vertex
+        // that selects the fewest of them
+        if (null == search)
             return Stream.empty();
-        } else if (search.containsKey(T.id)) {
+
+        // resolve the incident vertices once rather than for every edge to take advantage of string id conversions of
+        // the graph by doing a lookup rather than direct compare on id
+        final Map<Direction, Vertex> incident = new EnumMap<>(Direction.class);
+        for (final Map.Entry<Object, Object> kv : search.entrySet()) {
+            if (kv.getKey() instanceof Direction) {
+                final Iterator<Vertex> found = graph.vertices(kv.getValue());
+                final Vertex vertex = found.hasNext() ? found.next() : null;
+                CloseableIterator.closeIterator(found);
+                if (null == vertex) return Stream.empty();
+                incident.put((Direction) kv.getKey(), vertex);
+            }
+        }
+
+        Stream<Edge> stream;
+        if (search.containsKey(T.id)) {
             stream = IteratorUtils.stream(graph.edges(search.get(T.id)));
+        } else if (TinkerHelper.hasEdgeExistenceIndex(graph) && incident.containsKey(Direction.OUT) &&
+                incident.containsKey(Direction.IN) && search.get(T.label) instanceof String) {
+            stream = TinkerHelper.queryEdgeExistenceIndex(graph, incident.get(Direction.OUT), (String) search.get(T.label),
+                    incident.get(Direction.IN)).stream();
         } else {
-            // look for the first index we can find - that's the lucky winner. may or may not be the most selective
-            final Set<String> indexedKeys = graph.getIndexedKeys(Edge.class);
-            firstIndex = search.keySet().stream().
-                    filter(k -> k instanceof String).
-                    map(k -> (String) k).
-                    filter(indexedKeys::contains).findFirst();
-
-            // use the index if possible otherwise just in memory filter
-            stream = firstIndex.map(s -> TinkerHelper.queryEdgeIndex(graph, s, search.get(s)).stream().map(e -> (Edge) e)).
-                    orElseGet(() -> {
-                        if (search.containsKey(Direction.BOTH)) {
-                            // filter self-edges with distinct()
-                            return IteratorUtils.stream(graph.vertices(search.get(Direction.BOTH))).flatMap(v -> IteratorUtils.stream(v.edges(Direction.BOTH))).distinct();
-                        } else if (search.containsKey(Direction.OUT)) {
-                            return IteratorUtils.stream(graph.vertices(search.get(Direction.OUT))).flatMap(v -> IteratorUtils.stream(v.edges(Direction.OUT)));
-                        } else if (search.containsKey(Direction.IN)) {
-                            return IteratorUtils.stream(graph.vertices(search.get(Direction.IN))).flatMap(v -> IteratorUtils.stream(v.edges(Direction.IN)));
-                        } else {
-                            return IteratorUtils.stream(graph.edges());
-                        }
-                    });
+            final Object key = selectKey(graph, search, incident);
+            if (null == key) {
+                stream = IteratorUtils.stream(graph.edges());
+            } else if (key instanceof Direction) {
+                final Object label = search.get(T.label);
+                final String[] labels = label instanceof String ? new String[]{(String) label} : new String[0];
+                stream = IteratorUtils.stream(TinkerHelper.getEdges((TinkerVertex) incident.get(key), (Direction) key, labels)).map(e -> (Edge) e);
+                // filter self-edges with distinct()
+                if (key == Direction.BOTH) stream = stream.distinct();
+            } else if (null == this.candidates) {
+                stream = IteratorUtils.stream(lookup(graph, key, search.get(key)));
+            } else {
+                stream = this.candidates.get(key, search.get(key), () -> lookup(graph, key, search.get(key))).stream();
+            }
         }
 
-        final Optional<String> indexUsed = firstIndex;
-        stream = stream.filter(e -> {
+        return stream.filter(e -> {
             // try to match on all search criteria skipping T.id as it was handled above
-            return search.entrySet().stream().filter(kv -> {
-                final Object k = kv.getKey();
-                return k != T.id && !(indexUsed.isPresent() && indexUsed.get().equals(k));
-            }).allMatch(kv -> {
+            return search.entrySet().stream().filter(kv -> kv.getKey() != T.id).allMatch(kv -> {
                 if (kv.getKey() == T.label) {
                     return e.label().equals(kv.getValue());
                 } else if (kv.getKey() instanceof Direction) {
-                    final Direction direction = (Direction) kv.getKey();
-
-                    // try to take advantage of string id conversions of the graph by doing a lookup rather
-                    // than direct compare on id
-                    final Iterator<Vertex> found = graph.vertices(kv.getValue());
-                    final Iterator<Vertex> dfound = e.vertices(direction);
-                    final boolean matched = found.hasNext() && dfound.next().equals(found.next());
-                    CloseableIterator.closeIterator(found);
+                    final Iterator<Vertex> dfound = e.vertices((Direction) kv.getKey());
+                    final boolean matched = dfound.next().equals(incident.get(kv.getKey()));
                     CloseableIterator.closeIterator(dfound);
                     return matched;
                 } else {
                     final Property<Object> vp = e.property(kv.getKey().toString());
-                    return vp.isPresent() && kv.getValue().equals(vp.value());
+                    return vp.isPresent() && Objects.equals(kv.getValue(), vp.value());
                 }
             });
         });
+    }
+
+    /**
+     * Selects the label, the indexed key or the direction of the incident vertex of the search that the fewest edges
+     * have or {@code null} if the search has none of them.
+     */
+    private static Object selectKey(final TinkerGraph graph, final Map<Object, Object> search,
+                                    final Map<Direction, Vertex> incident) {
+        final Set<String> indexedKeys = graph.getIndexedKeys(Edge.class);
+        final Object label = search.get(T.label);
+        Object selected = null;
+        long fewest = Long.MAX_VALUE;
+        for (final Map.Entry<Object, Object> kv : search.entrySet()) {
+            final long count;
+            if (kv.getKey() == T.label && label instanceof String)
+                count = TinkerHelper.countElementsByLabel(graph, Edge.class, Collections.singletonList((String) label));
+            else if (kv.getKey() instanceof String && indexedKeys.contains(kv.getKey()))
+                count = TinkerHelper.countIndex(graph, Edge.class, (String) kv.getKey(), kv.getValue());
+            else if (kv.getKey() instanceof Direction && incident.get(kv.getKey()) instanceof TinkerVertex)
+                count = label instanceof String ?
+                        TinkerHelper.getDegree((TinkerVertex) incident.get(kv.getKey()), (Direction) kv.getKey(), (String) label) :
+                        TinkerHelper.getDegree((TinkerVertex) incident.get(kv.getKey()), (Direction) kv.getKey());
+            else
+                continue;
+
+            if (count < fewest) {
+                selected = kv.getKey();
+                fewest = count;
+            }
+        }
+        return selected;
+    }
 
-        return stream;
+    private static Iterator<Edge> lookup(final TinkerGraph graph, final Object key, final Object value) {
+        return key == T.label ?
+                TinkerHelper.iterateElementsByLabel(graph, Edge.class, Collections.singletonList((String) value)) :
+                IteratorUtils.map(TinkerHelper.queryEdgeIndex(graph, (String) key, value).iterator(), e -> (Edge) e);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        this.merged.clear();
+    }
+
+    @Override
+    public TinkerMergeEdgeStep<S> clone() {
+        final TinkerMergeEdgeStep<S> clone = (TinkerMergeEdgeStep<S>) super.clone();
+        clone.merged = new ArrayDeque<>();
+        clone.candidates = null;
+        clone.batchable = null;
+        return clone;
     }
 }
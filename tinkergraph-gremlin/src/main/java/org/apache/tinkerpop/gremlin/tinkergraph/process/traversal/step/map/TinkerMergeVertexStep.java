@@ -19,9 +19,9 @@
 package org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.step.map;
 
 import org.apache.tinkerpop.gremlin.process.traversal.Merge;
-import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
 import org.apache.tinkerpop.gremlin.process.traversal.step.map.MergeVertexStep;
-import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.process.traversal.util.FastNoSuchElementException;
 import org.apache.tinkerpop.gremlin.structure.T;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.structure.VertexProperty;
@@ -29,15 +29,30 @@ import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerHelper;
 import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Stream;
 
 /**
- * Optimizes {@code mergeV()} searches by attempting to use an index where possible.
+ * Optimizes {@code mergeV()} searches by looking up the vertices of the label or the indexed key that selects the
+ * fewest of them. With {@link TinkerGraph#GREMLIN_TINKERGRAPH_MERGE_BATCH_SIZE} set, the traversers are merged in
+ * batches that look up the vertices of every label and value once and return their results when the whole batch is
+ * merged, which assumes that nothing but the merges of the batch change the graph in the meantime and that the
+ * traversal is iterated to the end. Batching is therefore left off in child traversals and before a {@code limit()} or
+ * {@code range()}.
  */
 public class TinkerMergeVertexStep<S> extends MergeVertexStep<S> {
+
+    private Deque<Traverser.Admin<Vertex>> merged = new ArrayDeque<>();
+    private TinkerMergeCandidates<Vertex> candidates = null;
+    private Boolean batchable = null;
+
     public TinkerMergeVertexStep(final MergeVertexStep step) {
         super(step.getTraversal(), step.isStart(), step.getSearchCreateTraversal());
         if (step.getOnMatchTraversal() != null) this.addChildOption(Merge.onMatch, step.getOnMatchTraversal());
@@ -45,46 +60,114 @@ public class TinkerMergeVertexStep<S> extends MergeVertexStep<S> {
         if (step.getCallbackRegistry() != null) this.callbackRegistry = step.getCallbackRegistry();
     }
 
+    @Override
+    protected Traverser.Admin<Vertex> processNextStart() {
+        final int batchSize = TinkerHelper.getMergeBatchSize((TinkerGraph) this.getTraversal().getGraph().get());
+        if (null == this.batchable)
+            this.batchable = TinkerMergeCandidates.isBatchable(this);
+        if (isStart() || batchSize <= 1 || !this.batchable)
+            return super.processNextStart();
+
+        while (this.merged.isEmpty()) {
+            if (!this.starts.hasNext())
+                throw FastNoSuchElementException.instance();
+
+            this.candidates = new TinkerMergeCandidates<>();
+            try {
+                for (int i = 0; i < batchSize && this.starts.hasNext(); i++) {
+                    final Traverser.Admin<S> traverser = this.starts.next();
+                    // the search is done before the candidates learn of the vertices that it returns
+                    final List<Vertex> vertices = IteratorUtils.list(flatMap(traverser));
+                    for (final Vertex vertex : vertices) {
+                        this.candidates.add(vertex);
+                        this.merged.add(traverser.split(vertex, this));
+                    }
+                }
+            } finally {
+                this.candidates = null;
+            }
+        }
+        return this.merged.removeFirst();
+    }
+
     @Override
     protected Stream<Vertex> createSearchStream(final Map<Object, Object> search) {
         final TinkerGraph graph = (TinkerGraph) this.getTraversal().getGraph().get();
-        Optional<String> firstIndex = Optional.empty();
 
-        Stream<Vertex> stream;
-        // prioritize lookup by id but otherwise attempt an index lookup
+        final Stream<Vertex> stream;
+        // prioritize lookup by id but otherwise look up the vertices of the label or the indexed key that selects the
+        // fewest of them
         if (null == search) {
             return Stream.empty();
         } else if (search.containsKey(T.id)) {
             stream = IteratorUtils.stream(graph.vertices(search.get(T.id)));
         } else {
-            // look for the first index we can find - that's the lucky winner. may or may not be the most selective
-            final Set<String> indexedKeys = graph.getIndexedKeys(Vertex.class);
-            firstIndex = search.keySet().stream().
-                    filter(k -> k instanceof String).
-                    map(k -> (String) k).
-                    filter(indexedKeys::contains).findFirst();
-
-            // use the index if possible otherwise just in memory filter
-            stream = firstIndex.map(s -> TinkerHelper.queryVertexIndex(graph, s, search.get(s)).stream().map(v -> (Vertex) v)).
-                    orElseGet(() -> IteratorUtils.stream(graph.vertices()));
+            final Object key = selectKey(graph, search);
+            if (null == key) {
+                stream = IteratorUtils.stream(graph.vertices());
+            } else if (null == this.candidates) {
+                stream = IteratorUtils.stream(lookup(graph, key, search.get(key)));
+            } else {
+                stream = this.candidates.get(key, search.get(key), () -> lookup(graph, key, search.get(key))).stream();
+            }
         }
 
-        final Optional<String> indexUsed = firstIndex;
-        stream = stream.filter(v -> {
+        return stream.filter(v -> {
             // try to match on all search criteria skipping T.id as it was handled above
-            return search.entrySet().stream().filter(kv -> {
-                final Object k = kv.getKey();
-                return k != T.id && !(indexUsed.isPresent() && indexUsed.get().equals(k));
-            }).allMatch(kv -> {
+            return search.entrySet().stream().filter(kv -> kv.getKey() != T.id).allMatch(kv -> {
                 if (kv.getKey() == T.label) {
                     return v.label().equals(kv.getValue());
                 } else {
                     final VertexProperty<Object> vp = v.property(kv.getKey().toString());
-                    return vp.isPresent() && kv.getValue().equals(vp.value());
+                    return vp.isPresent() && Objects.equals(kv.getValue(), vp.value());
                 }
             });
         });
+    }
 
-        return stream;
+    /**
+     * Selects the label or the indexed key of the search that the fewest vertices have or {@code null} if the search
+     * has neither.
+     */
+    private static Object selectKey(final TinkerGraph graph, final Map<Object, Object> search) {
+        final Set<String> indexedKeys = graph.getIndexedKeys(Vertex.class);
+        Object selected = null;
+        long fewest = Long.MAX_VALUE;
+        for (final Map.Entry<Object, Object> kv : search.entrySet()) {
+            final long count;
+            if (kv.getKey() == T.label && kv.getValue() instanceof String)
+                count = TinkerHelper.countElementsByLabel(graph, Vertex.class, Collections.singletonList((String) kv.getValue()));
+            else if (kv.getKey() instanceof String && indexedKeys.contains(kv.getKey()))
+                count = TinkerHelper.countIndex(graph, Vertex.class, (String) kv.getKey(), kv.getValue());
+            else
+                continue;
+
+            if (count < fewest) {
+                selected = kv.getKey();
+                fewest = count;
+            }
+        }
+        return selected;
+    }
+
+    private static Iterator<Vertex> lookup(final TinkerGraph graph, final Object key, final Object value) {
+        return key == T.label ?
+                TinkerHelper.iterateElementsByLabel(graph, Vertex.class, Collections.singletonList((String) value)) :
+                IteratorUtils.map(TinkerHelper.queryVertexIndex(graph, (String) key, value).iterator(), v -> (Vertex) v);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        this.merged.clear();
+    }
+
+    @Override
+    public TinkerMergeVertexStep<S> clone() {
+        final TinkerMergeVertexStep<S> clone = (TinkerMergeVertexStep<S>) super.clone();
+        clone.merged = new ArrayDeque<>();
+        clone.candidates = null;
+        clone.batchable = null;
+        return clone;
     }
 }
@@ -19,28 +19,40 @@
 package org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.step.sideEffect;
 
 import org.apache.tinkerpop.gremlin.process.traversal.Compare;
+import org.apache.tinkerpop.gremlin.process.traversal.Contains;
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
 import org.apache.tinkerpop.gremlin.process.traversal.P;
 import org.apache.tinkerpop.gremlin.process.traversal.step.HasContainerHolder;
+import org.apache.tinkerpop.gremlin.process.traversal.step.Mutating;
 import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
 import org.apache.tinkerpop.gremlin.process.traversal.util.AndP;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
 import org.apache.tinkerpop.gremlin.structure.Edge;
 import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.Property;
+import org.apache.tinkerpop.gremlin.structure.T;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.structure.util.CloseableIterator;
 import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraphIterator;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraphStatistics;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerHelper;
 import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
@@ -48,11 +60,27 @@ import java.util.stream.Collectors;
  */
 public final class TinkerGraphStep<S, E extends Element> extends GraphStep<S, E> implements HasContainerHolder, AutoCloseable {
 
-    private final List<HasContainer> hasContainers = new ArrayList<>();
+    private List<HasContainer> hasContainers = new ArrayList<>();
+
+    /**
+     * The {@link HasContainer} instances ordered by the number of elements they are estimated to select, which is the
+     * order they are tested in so that most elements are rejected by the first test. They are ranked when the step
+     * first reads elements and kept from then on, so a {@code V()} in the middle of a traversal, which reads elements
+     * for every traverser, does not estimate them again each time.
+     */
+    private List<HasContainer> rankedHasContainers = null;
+    private String orderKey = null;
+    private Order order = Order.asc;
     /**
      * List of iterators opened by this step.
      */
-    private final List<Iterator> iterators = new ArrayList<>();
+    private List<Iterator> iterators = new ArrayList<>();
+    private transient Supplier<Iterator<E>> elementsSupplier;
+    /**
+     * Whether the traversal of this step mutates the graph, which is determined once when the step first reads
+     * elements as the traversal is complete by then.
+     */
+    private Boolean mutating = null;
 
     public TinkerGraphStep(final GraphStep<S, E> originalGraphStep) {
         super(originalGraphStep.getTraversal(), originalGraphStep.getReturnClass(), originalGraphStep.isStartStep(), originalGraphStep.getIds());
@@ -62,25 +90,25 @@ public final class TinkerGraphStep<S, E extends Element> extends GraphStep<S, E>
         // but that allowed the filter in g.V(v).has('k','v') to be ignored.  this created problems for
         // PartitionStrategy which wants to prevent someone from passing "v" from one TraversalSource to
         // another TraversalSource using a different partition
-        this.setIteratorSupplier(() -> (Iterator<E>) (Vertex.class.isAssignableFrom(this.returnClass) ? this.vertices() : this.edges()));
+        this.elementsSupplier = this.newElementsSupplier();
+        this.setIteratorSupplier(this.elementsSupplier);
+    }
+
+    private Supplier<Iterator<E>> newElementsSupplier() {
+        return () -> (Iterator<E>) (Vertex.class.isAssignableFrom(this.returnClass) ? this.vertices() : this.edges());
     }
 
     private Iterator<? extends Edge> edges() {
         final TinkerGraph graph = (TinkerGraph) this.getTraversal().getGraph().get();
-        final HasContainer indexedContainer = getIndexKey(Edge.class);
-        Iterator<Edge> iterator;
+        if (null == this.rankedHasContainers) this.rankedHasContainers = rankHasContainers(graph, Edge.class);
+        final Iterator<? extends Edge> iterator;
         // ids are present, filter on them first
         if (null == this.ids)
             iterator = Collections.emptyIterator();
         else if (this.ids.length > 0)
-            iterator = this.iteratorList(graph.edges(this.ids));
+            iterator = this.filter(graph.edges(this.ids), false);
         else
-            iterator = null == indexedContainer ?
-                    this.iteratorList(graph.edges()) :
-                    TinkerHelper.queryEdgeIndex(graph, indexedContainer.getKey(), indexedContainer.getPredicate().getValue()).stream()
-                                .filter(edge -> HasContainer.testAll(edge, this.hasContainers))
-                                .collect(Collectors.<Edge>toList()).iterator();
-
+            iterator = this.elements(graph, Edge.class, () -> graph.edges());
 
         iterators.add(iterator);
 
@@ -89,41 +117,291 @@ public final class TinkerGraphStep<S, E extends Element> extends GraphStep<S, E>
 
     private Iterator<? extends Vertex> vertices() {
         final TinkerGraph graph = (TinkerGraph) this.getTraversal().getGraph().get();
-        final HasContainer indexedContainer = getIndexKey(Vertex.class);
-        Iterator<? extends Vertex> iterator;
+        if (null == this.rankedHasContainers) this.rankedHasContainers = rankHasContainers(graph, Vertex.class);
+        final Iterator<? extends Vertex> iterator;
         // ids are present, filter on them first
         if (null == this.ids)
             iterator = Collections.emptyIterator();
         else if (this.ids.length > 0)
-            iterator = this.iteratorList(graph.vertices(this.ids));
+            iterator = this.filter(graph.vertices(this.ids), false);
         else
-            iterator = (null == indexedContainer ?
-                    this.iteratorList(graph.vertices()) :
-                    IteratorUtils.filter(TinkerHelper.queryVertexIndex(graph, indexedContainer.getKey(), indexedContainer.getPredicate().getValue()).iterator(),
-                                         vertex -> HasContainer.testAll(vertex, this.hasContainers)));
+            iterator = this.elements(graph, Vertex.class, () -> graph.vertices());
 
         iterators.add(iterator);
 
         return iterator;
     }
 
+    /**
+     * Gets the elements matching the {@link HasContainer} instances, starting from the smallest set of candidates
+     * that the indices and label registries of the graph can provide and falling back to the supplied scan of all
+     * elements.
+     */
+    private <T extends Element> Iterator<T> elements(final TinkerGraph graph, final Class<T> elementClass,
+                                                     final Supplier<Iterator<T>> scan) {
+        final HasContainer indexedContainer = getIndexKey(elementClass);
+        final List<String> compositeKeys = getCompositeIndexKeys(elementClass, indexedContainer);
+        final boolean orderedByIndex = null == compositeKeys && isOrderedByIndex(indexedContainer, elementClass);
+        final List<String> labels = getRegistryLabels(elementClass, indexedContainer, compositeKeys, orderedByIndex);
+
+        final Iterator<T> candidates;
+        if (null != labels)
+            candidates = TinkerHelper.iterateElementsByLabel(graph, elementClass, labels);
+        else if (orderedByIndex)
+            return this.filter(TinkerHelper.iterateIndexRange(graph, elementClass, this.orderKey, this.hasContainers, Order.desc == this.order), true);
+        else if (null != compositeKeys)
+            candidates = TinkerHelper.iterateCompositeIndex(graph, elementClass, compositeKeys, getCompositeValues(compositeKeys));
+        else if (null == indexedContainer)
+            candidates = scan.get();
+        else if (indexedContainer.getPredicate().getBiPredicate() == Compare.eq)
+            candidates = TinkerHelper.iterateIndex(graph, elementClass, indexedContainer.getKey(), indexedContainer.getPredicate().getValue());
+        else
+            candidates = TinkerHelper.iterateIndexRange(graph, elementClass, indexedContainer.getKey(), this.hasContainers, false);
+
+        return this.filter(candidates, false);
+    }
+
+    /**
+     * Filters the candidate elements by the {@link HasContainer} instances. This happens lazily so that a traversal
+     * which only needs the first few matches stops reading there, which is safe as the stores of the graph have
+     * weakly consistent iterators. The matches are collected up front instead if they must be sorted here or if the
+     * traversal mutates the graph, where reading lazily could let the traversal see its own changes.
+     *
+     * @param ordered whether the candidates are already in the order requested by {@link #setOrder(String, Order)}
+     */
+    private <E extends Element> Iterator<E> filter(final Iterator<E> iterator, final boolean ordered) {
+        if ((null != this.orderKey && !ordered) || isMutating())
+            return this.iteratorList(iterator);
+
+        // the step closes the iterators it opened, so keep the source to release it when not fully consumed. the
+        // TinkerGraphIterator looks ahead to the next match so that the source is exhausted, and thus released, as
+        // soon as the last match is read
+        iterators.add(iterator);
+        final List<HasContainer> hasContainers = this.rankedHasContainers;
+        return new TinkerGraphIterator<>(IteratorUtils.filter(iterator, e -> HasContainer.testAll(e, hasContainers) &&
+                (null == this.orderKey || hasOrderValue(e))));
+    }
+
+    /**
+     * Determines if the element has a value to be ordered by. Like {@code order().by(orderKey)} this fails for a
+     * vertex with multiple properties for the key as there is no single value to order it by.
+     */
+    private boolean hasOrderValue(final Element element) {
+        final Iterator<? extends Property<Object>> properties = element.properties(this.orderKey);
+        if (!properties.hasNext())
+            return false;
+        properties.next();
+        if (properties.hasNext())
+            throw Vertex.Exceptions.multiplePropertiesExistForProvidedKey(this.orderKey);
+        return true;
+    }
+
+    private boolean isMutating() {
+        if (null == this.mutating)
+            this.mutating = TraversalHelper.hasStepOfAssignableClassRecursively(Mutating.class, TraversalHelper.getRootTraversal(this.getTraversal()));
+        return this.mutating;
+    }
+
+    /**
+     * Chooses the {@link HasContainer} to look up in an index, which is the equality lookup on an indexed key or the
+     * range lookup on a key with a {@link TinkerGraph.IndexType#SORTED} index that matches the fewest elements
+     * according to the {@link TinkerGraphStatistics}. On a tie the equality lookup is preferred.
+     */
     private HasContainer getIndexKey(final Class<? extends Element> indexedClass) {
-        final Set<String> indexedKeys = ((TinkerGraph) this.getTraversal().getGraph().get()).getIndexedKeys(indexedClass);
+        final TinkerGraph graph = (TinkerGraph) this.getTraversal().getGraph().get();
+        final Set<String> indexedKeys = graph.getIndexedKeys(indexedClass);
+
+        HasContainer indexedContainer = null;
+        double indexedCount = Double.MAX_VALUE;
+        for (final HasContainer hasContainer : this.hasContainers) {
+            if (!indexedKeys.contains(hasContainer.getKey()))
+                continue;
+            final boolean equality = hasContainer.getPredicate().getBiPredicate() == Compare.eq;
+            if (!equality && !(TinkerHelper.isRangeable(hasContainer) &&
+                    graph.getIndexType(hasContainer.getKey(), indexedClass) == TinkerGraph.IndexType.SORTED))
+                continue;
+
+            final double count = graph.statistics().estimate(indexedClass, hasContainer, indexedCount);
+            if (count < indexedCount || (count == indexedCount && equality)) {
+                indexedContainer = hasContainer;
+                indexedCount = count;
+            }
+        }
+        return indexedContainer;
+    }
 
-        final Iterator<HasContainer> itty = IteratorUtils.filter(hasContainers.iterator(),
-                c -> c.getPredicate().getBiPredicate() == Compare.eq && indexedKeys.contains(c.getKey()));
-        return itty.hasNext() ? itty.next() : null;
+    /**
+     * Orders the {@link HasContainer} instances by the number of elements they are estimated to select with the
+     * {@link TinkerGraphStatistics}, keeping the original order between those with equal estimates. Ranges on a
+     * {@link TinkerGraph.IndexType#SORTED} index are estimated last and only counted as far as they could still be
+     * the most selective, so the first {@link HasContainer} is the right one while those behind it are roughly ordered.
+     */
+    private List<HasContainer> rankHasContainers(final TinkerGraph graph, final Class<? extends Element> elementClass) {
+        if (this.hasContainers.size() < 2)
+            return this.hasContainers;
 
+        final Map<HasContainer, Double> estimates = new IdentityHashMap<>();
+        final List<HasContainer> ranges = new ArrayList<>();
+        double smallest = Double.MAX_VALUE;
+        for (final HasContainer hasContainer : this.hasContainers) {
+            if (TinkerHelper.isRangeable(hasContainer) &&
+                    graph.getIndexType(hasContainer.getKey(), elementClass) == TinkerGraph.IndexType.SORTED) {
+                ranges.add(hasContainer);
+                continue;
+            }
+            final double estimate = graph.statistics().estimate(elementClass, hasContainer);
+            estimates.put(hasContainer, estimate);
+            smallest = Math.min(smallest, estimate);
+        }
+        for (final HasContainer hasContainer : ranges) {
+            final double estimate = graph.statistics().estimate(elementClass, hasContainer, smallest);
+            estimates.put(hasContainer, estimate);
+            smallest = Math.min(smallest, estimate);
+        }
+        final List<HasContainer> ranked = new ArrayList<>(this.hasContainers);
+        ranked.sort(Comparator.comparing(estimates::get));
+        return ranked;
+    }
+
+    /**
+     * Chooses the composite index to look up, which must have an equality {@link HasContainer} for each of its keys.
+     * Of those the one matching the fewest elements is taken, unless the equality lookup of the single key index in
+     * the supplied {@link HasContainer} is at least as selective.
+     *
+     * @return the keys of the composite index or {@code null} if no composite index should be used
+     */
+    private List<String> getCompositeIndexKeys(final Class<? extends Element> indexedClass, final HasContainer indexedContainer) {
+        final TinkerGraph graph = (TinkerGraph) this.getTraversal().getGraph().get();
+        final Set<List<String>> compositeIndexedKeys = graph.getCompositeIndexedKeys(indexedClass);
+        if (compositeIndexedKeys.isEmpty())
+            return null;
+
+        List<String> compositeKeys = null;
+        long compositeCount = null != indexedContainer && indexedContainer.getPredicate().getBiPredicate() == Compare.eq ?
+                TinkerHelper.countIndex(graph, indexedClass, indexedContainer.getKey(), indexedContainer.getValue()) :
+                Long.MAX_VALUE;
+        for (final List<String> keys : compositeIndexedKeys) {
+            final List<Object> values = getCompositeValues(keys);
+            if (null == values)
+                continue;
+            final long count = TinkerHelper.countCompositeIndex(graph, indexedClass, keys, values);
+            if (count < compositeCount) {
+                compositeKeys = keys;
+                compositeCount = count;
+            }
+        }
+        return compositeKeys;
+    }
+
+    /**
+     * Chooses the labels whose registries to start from, which requires a {@link HasContainer} that restricts the
+     * label to a set of values. The registries are taken if they hold fewer elements than the chosen index lookup,
+     * or if there is no index to use at all, but not over an index that already provides the requested order.
+     *
+     * @return the labels or {@code null} if the label registries should not be used
+     */
+    private List<String> getRegistryLabels(final Class<? extends Element> elementClass, final HasContainer indexedContainer,
+                                           final List<String> compositeKeys, final boolean orderedByIndex) {
+        final List<String> labels = getElementLabels();
+        if (null == labels)
+            return null;
+
+        final TinkerGraph graph = (TinkerGraph) this.getTraversal().getGraph().get();
+        final long labelCount = TinkerHelper.countElementsByLabel(graph, elementClass, labels);
+        final double indexedCount;
+        if (null != compositeKeys)
+            indexedCount = TinkerHelper.countCompositeIndex(graph, elementClass, compositeKeys, getCompositeValues(compositeKeys));
+        else if (orderedByIndex)
+            return null;
+        else if (null != indexedContainer)
+            indexedCount = graph.statistics().estimate(elementClass, indexedContainer, labelCount);
+        else
+            return labels;
+
+        return labelCount < indexedCount ? labels : null;
+    }
+
+    /**
+     * Gets the labels of the first label {@link HasContainer} that uses {@code eq} or {@code within} on strings.
+     */
+    private List<String> getElementLabels() {
+        for (final HasContainer hasContainer : this.hasContainers) {
+            if (!T.label.getAccessor().equals(hasContainer.getKey()))
+                continue;
+
+            final Object value = hasContainer.getValue();
+            if (hasContainer.getBiPredicate() == Compare.eq && value instanceof String)
+                return Collections.singletonList((String) value);
+            if (hasContainer.getBiPredicate() == Contains.within && value instanceof Collection &&
+                    ((Collection<?>) value).stream().allMatch(label -> label instanceof String))
+                return new ArrayList<>((Collection<String>) value);
+        }
+        return null;
+    }
+
+    /**
+     * Gets the values of the equality {@link HasContainer} instances for the keys of a composite index.
+     *
+     * @return the values in the order of the keys or {@code null} if a key has no equality {@link HasContainer}
+     */
+    private List<Object> getCompositeValues(final List<String> keys) {
+        final List<Object> values = new ArrayList<>(keys.size());
+        for (final String key : keys) {
+            final Optional<HasContainer> hasContainer = this.hasContainers.stream()
+                    .filter(c -> c.getKey().equals(key) && c.getPredicate().getBiPredicate() == Compare.eq)
+                    .findFirst();
+            if (!hasContainer.isPresent())
+                return null;
+            values.add(hasContainer.get().getValue());
+        }
+        return values;
+    }
+
+    /**
+     * Determines if the elements can be read in order from a {@link TinkerGraph.IndexType#SORTED} index on the order
+     * key. An equality lookup on some other key is assumed to be more selective, in which case the matches are sorted
+     * in memory instead.
+     */
+    private boolean isOrderedByIndex(final HasContainer indexedContainer, final Class<? extends Element> indexedClass) {
+        if (null == this.orderKey)
+            return false;
+        final TinkerGraph graph = (TinkerGraph) this.getTraversal().getGraph().get();
+        return graph.getIndexType(this.orderKey, indexedClass) == TinkerGraph.IndexType.SORTED &&
+                (null == indexedContainer || indexedContainer.getKey().equals(this.orderKey) ||
+                        indexedContainer.getPredicate().getBiPredicate() != Compare.eq);
+    }
+
+    /**
+     * Sets the property key and {@link Order} that the elements of this step are to be emitted in, which makes this
+     * step behave as if it was followed by {@code order().by(orderKey, order)}.
+     */
+    public void setOrder(final String orderKey, final Order order) {
+        if (order != Order.asc && order != Order.desc)
+            throw new IllegalArgumentException("Only Order.asc and Order.desc are supported: " + order);
+        this.orderKey = orderKey;
+        this.order = order;
+    }
+
+    public String getOrderKey() {
+        return this.orderKey;
+    }
+
+    public Order getOrder() {
+        return this.order;
     }
 
     @Override
     public String toString() {
-        if (this.hasContainers.isEmpty())
+        if (this.hasContainers.isEmpty() && null == this.orderKey)
             return super.toString();
-        else
+        else if (null == this.orderKey)
             return (null == this.ids || 0 == this.ids.length) ?
                     StringFactory.stepString(this, this.returnClass.getSimpleName().toLowerCase(), this.hasContainers) :
                     StringFactory.stepString(this, this.returnClass.getSimpleName().toLowerCase(), Arrays.toString(this.ids), this.hasContainers);
+        else
+            return (null == this.ids || 0 == this.ids.length) ?
+                    StringFactory.stepString(this, this.returnClass.getSimpleName().toLowerCase(), this.hasContainers, this.orderKey, this.order) :
+                    StringFactory.stepString(this, this.returnClass.getSimpleName().toLowerCase(), Arrays.toString(this.ids), this.hasContainers, this.orderKey, this.order);
     }
 
     private <E extends Element> Iterator<E> iteratorList(final Iterator<E> iterator) {
@@ -132,7 +410,7 @@ public final class TinkerGraphStep<S, E extends Element> extends GraphStep<S, E>
         try {
             while (iterator.hasNext()) {
                 final E e = iterator.next();
-                if (HasContainer.testAll(e, this.hasContainers))
+                if (HasContainer.testAll(e, this.rankedHasContainers) && (null == this.orderKey || hasOrderValue(e)))
                     list.add(e);
             }
         } finally {
@@ -141,6 +419,9 @@ public final class TinkerGraphStep<S, E extends Element> extends GraphStep<S, E>
             CloseableIterator.closeIterator(iterator);
         }
 
+        if (null != this.orderKey)
+            list.sort(Comparator.comparing(e -> e.value(this.orderKey), this.order));
+
         return new TinkerGraphIterator<>(list.iterator());
     }
 
@@ -155,13 +436,35 @@ public final class TinkerGraphStep<S, E extends Element> extends GraphStep<S, E>
             for (final P<?> predicate : ((AndP<?>) hasContainer.getPredicate()).getPredicates()) {
                 this.addHasContainer(new HasContainer(hasContainer.getKey(), predicate));
             }
-        } else
+        } else {
             this.hasContainers.add(hasContainer);
+            this.rankedHasContainers = null;
+        }
+    }
+
+    @Override
+    public TinkerGraphStep<S, E> clone() {
+        final TinkerGraphStep<S, E> clone = (TinkerGraphStep<S, E>) super.clone();
+        clone.hasContainers = new ArrayList<>(this.hasContainers.size());
+        for (final HasContainer hasContainer : this.hasContainers) {
+            clone.hasContainers.add(hasContainer.clone());
+        }
+        clone.rankedHasContainers = null;
+        clone.iterators = new ArrayList<>();
+        clone.mutating = null;
+        // the supplier reads the ids and containers of the step that created it, so the clone needs one of its own
+        clone.elementsSupplier = clone.newElementsSupplier();
+        if (null != this.iteratorSupplier && this.iteratorSupplier == this.elementsSupplier)
+            clone.setIteratorSupplier(clone.elementsSupplier);
+        return clone;
     }
 
     @Override
     public int hashCode() {
-        return super.hashCode() ^ this.hasContainers.hashCode();
+        int result = super.hashCode() ^ this.hasContainers.hashCode();
+        if (null != this.orderKey)
+            result ^= this.orderKey.hashCode() ^ this.order.hashCode();
+        return result;
     }
 
     @Override
@@ -23,19 +23,27 @@ import org.apache.tinkerpop.gremlin.process.traversal.Step;
 import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
 import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.step.TraversalParent;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.map.CountGlobalStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.map.NoOpBarrierStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.AggregateGlobalStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.IdentityStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.sideEffect.SideEffectStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.CollectingBarrierStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.EmptyStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
 import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
 import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.step.map.TinkerCountDegreeStep;
 import org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.step.map.TinkerCountGlobalStep;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -43,12 +51,18 @@ import java.util.Set;
 /**
  * This strategy will do a direct {@link org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerHelper#getVertices}
  * size call if the traversal is a count of the vertices and edges of the graph or a one-to-one map chain thereof.
+ * Counts of the elements with certain labels or with a value of an indexed key are taken from the sizes of the label
+ * registries and the index, and counts of the edges of vertices given by identifier from the sizes of their adjacency
+ * sets.
  *
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  * @example <pre>
- * g.V().count()               // is replaced by TinkerCountGlobalStep
- * g.V().map(out()).count()    // is replaced by TinkerCountGlobalStep
- * g.E().label().count()       // is replaced by TinkerCountGlobalStep
+ * g.V().count()                       // is replaced by TinkerCountGlobalStep
+ * g.V().map(out()).count()            // is replaced by TinkerCountGlobalStep
+ * g.E().label().count()               // is replaced by TinkerCountGlobalStep
+ * g.V().hasLabel("person").count()    // is replaced by TinkerCountGlobalStep
+ * g.V().has("name", "marko").count()  // is replaced by TinkerCountGlobalStep if "name" is indexed
+ * g.V(1).outE("knows").count()        // is replaced by TinkerCountDegreeStep
  * </pre>
  */
 public final class TinkerGraphCountStrategy extends AbstractTraversalStrategy<TraversalStrategy.ProviderOptimizationStrategy> implements TraversalStrategy.ProviderOptimizationStrategy {
@@ -65,12 +79,20 @@ public final class TinkerGraphCountStrategy extends AbstractTraversalStrategy<Tr
         final List<Step> steps = traversal.getSteps();
         if (steps.size() < 2 ||
                 !(steps.get(0) instanceof GraphStep) ||
-                0 != ((GraphStep) steps.get(0)).getIds().length ||
+                null == ((GraphStep) steps.get(0)).getIds() ||
                 !(steps.get(steps.size() - 1) instanceof CountGlobalStep))
             return;
+        final GraphStep<?, ?> graphStep = (GraphStep<?, ?>) steps.get(0);
+        final boolean byIds = 0 != graphStep.getIds().length;
+        final List<HasContainer> hasContainers = new ArrayList<>();
+        VertexStep<?> vertexStep = null;
         for (int i = 1; i < steps.size() - 1; i++) {
             final Step current = steps.get(i);
-            if (!(//current instanceof MapStep ||  // MapSteps will not necessarily emit an element as demonstrated in https://issues.apache.org/jira/browse/TINKERPOP-1958
+            if (!byIds && current instanceof HasStep)
+                hasContainers.addAll(((HasStep<?>) current).getHasContainers());
+            else if (byIds && null == vertexStep && current instanceof VertexStep)
+                vertexStep = (VertexStep<?>) current;
+            else if (!(//current instanceof MapStep ||  // MapSteps will not necessarily emit an element as demonstrated in https://issues.apache.org/jira/browse/TINKERPOP-1958
                     current instanceof IdentityStep ||
                     current instanceof NoOpBarrierStep ||
                     current instanceof CollectingBarrierStep) ||
@@ -78,9 +100,27 @@ public final class TinkerGraphCountStrategy extends AbstractTraversalStrategy<Tr
                             TraversalHelper.anyStepRecursively(s -> (s instanceof SideEffectStep || s instanceof AggregateGlobalStep), (TraversalParent) current)))
                 return;
         }
-        final Class<? extends Element> elementClass = ((GraphStep<?, ?>) steps.get(0)).getReturnClass();
-        TraversalHelper.removeAllSteps(traversal);
-        traversal.addStep(new TinkerCountGlobalStep<>(traversal, elementClass));
+
+        final Class<? extends Element> elementClass = graphStep.getReturnClass();
+        if (byIds) {
+            // the edges of the vertices are counted for g.V(ids).outE() and the like
+            if (null == vertexStep || !Vertex.class.isAssignableFrom(elementClass))
+                return;
+            TraversalHelper.removeAllSteps(traversal);
+            traversal.addStep(new TinkerCountDegreeStep(traversal, graphStep.getIds(), vertexStep.getDirection(), vertexStep.getEdgeLabels()));
+        } else {
+            if (!hasContainers.isEmpty() && null == TinkerCountGlobalStep.getLabels(hasContainers) &&
+                    !(1 == hasContainers.size() && isIndexCountable(traversal, elementClass, hasContainers.get(0))))
+                return;
+            TraversalHelper.removeAllSteps(traversal);
+            traversal.addStep(new TinkerCountGlobalStep<>(traversal, elementClass, hasContainers));
+        }
+    }
+
+    private static boolean isIndexCountable(final Traversal.Admin<?, ?> traversal, final Class<? extends Element> elementClass,
+                                            final HasContainer hasContainer) {
+        final Graph graph = traversal.getGraph().orElse(null);
+        return graph instanceof TinkerGraph && TinkerCountGlobalStep.isIndexCountable((TinkerGraph) graph, elementClass, hasContainer);
     }
 
     @Override
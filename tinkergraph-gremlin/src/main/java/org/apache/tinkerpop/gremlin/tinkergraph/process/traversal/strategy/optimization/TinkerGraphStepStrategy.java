@@ -18,17 +18,40 @@
  */
 package org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.strategy.optimization;
 
+import org.apache.tinkerpop.gremlin.process.traversal.Compare;
+import org.apache.tinkerpop.gremlin.process.traversal.Contains;
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
 import org.apache.tinkerpop.gremlin.process.traversal.Step;
 import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
 import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.lambda.ValueTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.step.HasContainerHolder;
 import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.TraversalFilterStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.EdgeVertexStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.map.NoOpBarrierStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.OrderGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.VertexStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
 import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.step.map.TinkerEdgeExistenceStep;
 import org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.step.sideEffect.TinkerGraphStep;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerHelper;
+import org.javatuples.Pair;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
@@ -60,7 +83,104 @@ public final class TinkerGraphStepStrategy extends AbstractTraversalStrategy<Tra
                 }
                 currentStep = currentStep.getNextStep();
             }
+
+            if (currentStep instanceof OrderGlobalStep && isOrderedBySortedIndex(tinkerGraphStep, (OrderGlobalStep<?, ?>) currentStep)) {
+                final Pair<Traversal.Admin, Comparator> comparator = (Pair) ((OrderGlobalStep<?, ?>) currentStep).getComparators().get(0);
+                tinkerGraphStep.setOrder(((ValueTraversal) comparator.getValue0()).getPropertyKey(), (Order) comparator.getValue1());
+                TraversalHelper.copyLabels(currentStep, currentStep.getPreviousStep(), false);
+                traversal.removeStep(currentStep);
+            }
+        }
+
+        final Optional<Graph> graph = traversal.getGraph();
+        if (graph.isPresent() && graph.get() instanceof TinkerGraph && TinkerHelper.hasEdgeExistenceIndex((TinkerGraph) graph.get())) {
+            for (final VertexStep<?> vertexStep : TraversalHelper.getStepsOfClass(VertexStep.class, traversal)) {
+                replaceEdgeExistenceLookup(vertexStep, traversal);
+            }
+        }
+    }
+
+    /**
+     * An {@code outE(labels).where(inV().hasId(ids))} or {@code out(labels).hasId(ids)}, or their variants for in
+     * edges, can be looked up in the edge existence index of the graph by the identifiers of the adjacent vertices.
+     */
+    private static void replaceEdgeExistenceLookup(final VertexStep<?> vertexStep, final Traversal.Admin<?, ?> traversal) {
+        final Direction direction = vertexStep.getDirection();
+        if (direction == Direction.BOTH || 0 == vertexStep.getEdgeLabels().length)
+            return;
+
+        final Step<?, ?> filterStep = vertexStep.getNextStep();
+        final List<HasContainer> hasContainers;
+        if (vertexStep.returnsVertex() && filterStep instanceof HasStep) {
+            hasContainers = ((HasStep<?>) filterStep).getHasContainers();
+        } else if (vertexStep.returnsEdge() && filterStep instanceof TraversalFilterStep) {
+            final List<Step> steps = ((TraversalFilterStep<?>) filterStep).getFilterTraversal().getSteps();
+            if (steps.size() != 2 || !(steps.get(0) instanceof EdgeVertexStep) || !(steps.get(1) instanceof HasStep) ||
+                    ((EdgeVertexStep) steps.get(0)).getDirection() != direction.opposite() ||
+                    !steps.get(0).getLabels().isEmpty() || !steps.get(1).getLabels().isEmpty())
+                return;
+            hasContainers = ((HasStep<?>) steps.get(1)).getHasContainers();
+        } else {
+            return;
         }
+
+        final Object[] ids = getIds(hasContainers);
+        if (null == ids)
+            return;
+
+        final TinkerEdgeExistenceStep<?> edgeExistenceStep = new TinkerEdgeExistenceStep<>(traversal,
+                vertexStep.getReturnClass(), direction, vertexStep.getEdgeLabels(), ids, new ArrayList<>(hasContainers));
+        vertexStep.getLabels().forEach(edgeExistenceStep::addLabel);
+        TraversalHelper.copyLabels(filterStep, edgeExistenceStep, false);
+        TraversalHelper.replaceStep((Step) vertexStep, edgeExistenceStep, traversal);
+        traversal.removeStep(filterStep);
+    }
+
+    /**
+     * Gets the identifiers that an equality or {@code within()} on {@link T#id} selects or {@code null} if there is
+     * no such {@link HasContainer}.
+     */
+    private static Object[] getIds(final List<HasContainer> hasContainers) {
+        for (final HasContainer hasContainer : hasContainers) {
+            if (!T.id.getAccessor().equals(hasContainer.getKey()))
+                continue;
+            if (hasContainer.getBiPredicate() == Compare.eq && null != hasContainer.getValue())
+                return new Object[]{hasContainer.getValue()};
+            if (hasContainer.getBiPredicate() == Contains.within && hasContainer.getValue() instanceof Collection)
+                return ((Collection<?>) hasContainer.getValue()).toArray();
+        }
+        return null;
+    }
+
+    /**
+     * An {@code order().by(key)} directly following the start of the traversal can be served by the step itself when
+     * there is a {@link TinkerGraph.IndexType#SORTED} index for the key. Vertices are only ordered this way when the
+     * key has {@link VertexProperty.Cardinality#single} by default, as the index holds a vertex with multiple values
+     * under each of them.
+     */
+    private static boolean isOrderedBySortedIndex(final TinkerGraphStep<?, ?> tinkerGraphStep, final OrderGlobalStep<?, ?> orderGlobalStep) {
+        if (!tinkerGraphStep.isStartStep() || tinkerGraphStep.getIds().length > 0)
+            return false;
+
+        final Optional<Graph> graph = tinkerGraphStep.getTraversal().getGraph();
+        if (!graph.isPresent() || !(graph.get() instanceof TinkerGraph))
+            return false;
+
+        final List<? extends Pair<? extends Traversal.Admin<?, ?>, ? extends Comparator<?>>> comparators = orderGlobalStep.getComparators();
+        if (comparators.size() != 1)
+            return false;
+
+        final Traversal.Admin<?, ?> by = comparators.get(0).getValue0();
+        final Comparator<?> comparator = comparators.get(0).getValue1();
+        if (!(by instanceof ValueTraversal) || null != ((ValueTraversal<?, ?>) by).getBypassTraversal() ||
+                (comparator != Order.asc && comparator != Order.desc))
+            return false;
+
+        final String key = ((ValueTraversal<?, ?>) by).getPropertyKey();
+        if (Vertex.class.isAssignableFrom(tinkerGraphStep.getReturnClass()) &&
+                graph.get().features().vertex().getCardinality(key) != VertexProperty.Cardinality.single)
+            return false;
+        return ((TinkerGraph) graph.get()).getIndexType(key, tinkerGraphStep.getReturnClass()) == TinkerGraph.IndexType.SORTED;
     }
 
     public static TinkerGraphStepStrategy instance() {
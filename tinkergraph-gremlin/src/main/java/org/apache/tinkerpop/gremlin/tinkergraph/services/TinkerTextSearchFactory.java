@@ -26,6 +26,7 @@ import org.apache.tinkerpop.gremlin.structure.service.Service;
 import org.apache.tinkerpop.gremlin.structure.util.CloseableIterator;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerHelper;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerTextIndex;
 
 import java.util.Collections;
 import java.util.Iterator;
@@ -36,7 +37,9 @@ import java.util.Set;
 import static org.apache.tinkerpop.gremlin.util.tools.CollectionFactory.asMap;
 
 /**
- * Inefficient text search implementation (scan+filter), searches for {@link Property}s by token/regex.
+ * Text search that finds {@link Property}s in one of two ways. Given a {@code term}, {@code prefix} or {@code phrase}
+ * it looks them up in the text indices created with {@link TinkerGraph#createTextIndex(String, Class)}, otherwise it
+ * scans every property and filters by regex, which is inefficient.
  * Demonstrates a {@link Service.Type#Start} service.
  */
 public class TinkerTextSearchFactory<I, R> extends TinkerServiceRegistry.TinkerServiceFactory<I, R> implements Service<I, R> {
@@ -56,11 +59,31 @@ public class TinkerTextSearchFactory<I, R> extends TinkerServiceRegistry.TinkerS
          * Specify the type of Element to search for (optional)
          */
         String TYPE = "type";
+        /**
+         * Specify text whose tokens must all be in a value, looked up in the text index
+         */
+        String TERM = "term";
+        /**
+         * Specify text whose tokens must all be in a value, the last one only as a prefix, looked up in the text index
+         */
+        String PREFIX = "prefix";
+        /**
+         * Specify text whose tokens must be in a value one after the other, looked up in the text index
+         */
+        String PHRASE = "phrase";
+        /**
+         * Specify the key of the text index to search, otherwise all text indices are searched (optional)
+         */
+        String KEY = "key";
 
         Map DESCRIBE = asMap(
                 SEARCH, "Specify a search term - will be converted to regex via .*(search).*",
                 REGEX, "Directly specify the regex",
-                TYPE, "Specify the type of Element to search for, one of Vertex/Edge/VertexProperty (optional)"
+                TYPE, "Specify the type of Element to search for, one of Vertex/Edge/VertexProperty (optional)",
+                TERM, "Specify text whose tokens must all be in a value, looked up in the text index",
+                PREFIX, "Specify text whose tokens must all be in a value, the last one only as a prefix, looked up in the text index",
+                PHRASE, "Specify text whose tokens must be in a value one after the other, looked up in the text index",
+                KEY, "Specify the key of the text index to search, otherwise all text indices are searched (optional)"
         );
 
         static Class type(final String type) {
@@ -108,15 +131,33 @@ public class TinkerTextSearchFactory<I, R> extends TinkerServiceRegistry.TinkerS
 
     @Override
     public CloseableIterator<R> execute(final ServiceCallContext ctx, final Map params) {
+        final Class type = Params.type((String) params.get(Params.TYPE));
+        final TinkerTextIndex.Mode mode;
+        final Object text;
+        if (params.containsKey(Params.TERM)) {
+            mode = TinkerTextIndex.Mode.TERM;
+            text = params.get(Params.TERM);
+        } else if (params.containsKey(Params.PREFIX)) {
+            mode = TinkerTextIndex.Mode.PREFIX;
+            text = params.get(Params.PREFIX);
+        } else if (params.containsKey(Params.PHRASE)) {
+            mode = TinkerTextIndex.Mode.PHRASE;
+            text = params.get(Params.PHRASE);
+        } else {
+            mode = null;
+            text = null;
+        }
+        if (null != mode)
+            return CloseableIterator.of((Iterator<R>) TinkerHelper.searchText(graph, (String) params.get(Params.KEY), mode, String.valueOf(text), Optional.ofNullable(type)));
+
         final String regex;
         if (params.containsKey(Params.REGEX)) {
             regex = (String) params.get(Params.REGEX);
         } else if (params.containsKey(Params.SEARCH)) {
             regex = ".*(" + params.get(Params.SEARCH) + ").*";
         } else {
-            throw new IllegalStateException("Missing search/regex parameter");
+            throw new IllegalStateException("Missing search/regex/term/prefix/phrase parameter");
         }
-        final Class type = Params.type((String) params.get(Params.TYPE));
 
         return CloseableIterator.of((Iterator<R>) TinkerHelper.search(graph, regex, Optional.ofNullable(type)));
     }
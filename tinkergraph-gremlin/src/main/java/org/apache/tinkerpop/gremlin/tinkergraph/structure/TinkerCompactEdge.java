@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.structure;
+
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+
+/**
+ * A {@link TinkerEdge} of a {@link TinkerGraph} with compact adjacency, which remembers its positions in the
+ * {@link TinkerEdgeArray} of its out vertex and of its in vertex. Keeping them here rather than on every edge means
+ * that graphs without compact adjacency do not pay for them.
+ */
+final class TinkerCompactEdge extends TinkerEdge {
+
+    int outSlot = -1;
+    int inSlot = -1;
+
+    TinkerCompactEdge(final Object id, final Vertex outVertex, final String label, final Vertex inVertex) {
+        super(id, outVertex, label, inVertex);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.structure;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one instance of every label and property key of a {@link TinkerGraph} and of every {@code String} value of
+ * the configured keys, so that the elements share them instead of each holding its own copy. Comparing two shared
+ * instances for equality only compares the references. Strings are never removed, so the values of a key should only
+ * be deduplicated if they have few distinct values.
+ */
+final class TinkerDictionary {
+
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+    private final Set<String> valueKeys;
+
+    TinkerDictionary(final Collection<String> valueKeys) {
+        this.valueKeys = new HashSet<>(valueKeys);
+    }
+
+    String intern(final String string) {
+        if (null == string) return null;
+        final String existing = this.strings.putIfAbsent(string, string);
+        return null == existing ? string : existing;
+    }
+
+    <V> V internValue(final String key, final V value) {
+        return value instanceof String && this.valueKeys.contains(key) ? (V) intern((String) value) : value;
+    }
+
+    int size() {
+        return this.strings.size();
+    }
+}
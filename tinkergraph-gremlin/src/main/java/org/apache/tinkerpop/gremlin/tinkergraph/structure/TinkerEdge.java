@@ -29,7 +29,6 @@ import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
 import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -38,15 +37,19 @@ import java.util.stream.Collectors;
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
-public final class TinkerEdge extends TinkerElement implements Edge {
+public class TinkerEdge extends TinkerElement implements Edge {
 
-    protected Map<String, Property> properties;
+    /**
+     * Volatile so that the copies which replace the properties in copy-on-write mode are published safely.
+     */
+    protected volatile Map<String, Property> properties;
     protected final Vertex inVertex;
     protected final Vertex outVertex;
+
     private final boolean allowNullPropertyValues;
 
     protected TinkerEdge(final Object id, final Vertex outVertex, final String label, final Vertex inVertex) {
-        super(id, label);
+        super(id, TinkerHelper.intern((TinkerGraph) outVertex.graph(), label));
         this.outVertex = outVertex;
         this.inVertex = inVertex;
         this.allowNullPropertyValues = outVertex.graph().features().edge().supportsNullPropertyValues();
@@ -65,21 +68,24 @@ public final class TinkerEdge extends TinkerElement implements Edge {
 
         final Property oldProperty = super.property(key);
         final Property<V> newProperty = new TinkerProperty<>(this, key, value);
-        if (null == this.properties) this.properties = new HashMap<>();
-        this.properties.put(key, newProperty);
-        TinkerHelper.autoUpdateIndex(this, key, value, oldProperty.isPresent() ? oldProperty.value() : null);
+        this.properties = TinkerHelper.putProperty((TinkerGraph) this.graph(), this.properties, newProperty);
+        TinkerHelper.autoUpdateIndex(this, key, newProperty.value(), oldProperty.isPresent() ? oldProperty.value() : null);
+        final TinkerJournal journal = ((TinkerGraph) this.graph()).journal;
+        if (null != journal) journal.addProperty((TinkerProperty<V>) newProperty);
         return newProperty;
 
     }
 
     @Override
     public <V> Property<V> property(final String key) {
-        return null == this.properties ? Property.<V>empty() : this.properties.getOrDefault(key, Property.<V>empty());
+        final Map<String, Property> properties = this.properties;
+        return null == properties ? Property.<V>empty() : properties.getOrDefault(key, Property.<V>empty());
     }
 
     @Override
     public Set<String> keys() {
-        return null == this.properties ? Collections.emptySet() : this.properties.keySet();
+        final Map<String, Property> properties = this.properties;
+        return null == properties ? Collections.emptySet() : properties.keySet();
     }
 
     @Override
@@ -87,19 +93,23 @@ public final class TinkerEdge extends TinkerElement implements Edge {
         final TinkerVertex outVertex = (TinkerVertex) this.outVertex;
         final TinkerVertex inVertex = (TinkerVertex) this.inVertex;
 
-        if (null != outVertex && null != outVertex.outEdges) {
-            final Set<Edge> edges = outVertex.outEdges.get(this.label());
-            if (null != edges)
-                edges.remove(this);
-        }
-        if (null != inVertex && null != inVertex.inEdges) {
-            final Set<Edge> edges = inVertex.inEdges.get(this.label());
-            if (null != edges)
-                edges.remove(this);
-        }
+        if (null != outVertex)
+            TinkerHelper.removeOutEdge(outVertex, this.label(), this);
+        if (null != inVertex)
+            TinkerHelper.removeInEdge(inVertex, this.label(), this);
+
+        this.removeFromGraph();
+    }
 
+    /**
+     * Removes the edge from the graph once it is no longer among the edges of its vertices.
+     */
+    void removeFromGraph() {
         TinkerHelper.removeElementIndex(this);
         ((TinkerGraph) this.graph()).edges.remove(this.id());
+        TinkerHelper.removeFromLabelRegistry(((TinkerGraph) this.graph()).edgesByLabel, this.label, this);
+        final TinkerJournal journal = ((TinkerGraph) this.graph()).journal;
+        if (null != journal) journal.removeEdge(this);
         this.properties = null;
         this.removed = true;
     }
@@ -140,11 +150,12 @@ public final class TinkerEdge extends TinkerElement implements Edge {
 
     @Override
     public <V> Iterator<Property<V>> properties(final String... propertyKeys) {
-        if (null == this.properties) return Collections.emptyIterator();
+        final Map<String, Property> properties = this.properties;
+        if (null == properties) return Collections.emptyIterator();
         if (propertyKeys.length == 1) {
-            final Property<V> property = this.properties.get(propertyKeys[0]);
+            final Property<V> property = properties.get(propertyKeys[0]);
             return null == property ? Collections.emptyIterator() : IteratorUtils.of(property);
         } else
-            return (Iterator) this.properties.entrySet().stream().filter(entry -> ElementHelper.keyExists(entry.getKey(), propertyKeys)).map(entry -> entry.getValue()).collect(Collectors.toList()).iterator();
+            return (Iterator) properties.entrySet().stream().filter(entry -> ElementHelper.keyExists(entry.getKey(), propertyKeys)).map(entry -> entry.getValue()).collect(Collectors.toList()).iterator();
     }
 }
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.structure;
+
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The edges of a vertex with one label in one direction, kept in a growable array for the compact adjacency of
+ * {@link TinkerGraph}. Every {@link TinkerCompactEdge} remembers its position in the array of its out and its in
+ * vertex so that it can be removed in constant time by moving the last edge into its place. Iteration order is
+ * therefore the insertion order only until the first removal.
+ * <p/>
+ * An edge that is added is written past the end of the array before the size grows, so a reader that looks at the
+ * array while a single writer adds edges sees the edges that were present when it started and never an edge in
+ * between. Removal rearranges the array, which is why the copy-on-write mode of {@link TinkerGraph} never removes in
+ * place but replaces the array with a copy {@link #without} the edges, taking all of those of a removed vertex at once.
+ */
+final class TinkerEdgeArray extends AbstractSet<Edge> {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final Direction direction;
+    private TinkerCompactEdge[] edges = new TinkerCompactEdge[INITIAL_CAPACITY];
+    private volatile int size = 0;
+
+    /**
+     * The number of removals, which are the only changes that iterators cannot tolerate.
+     */
+    private int modifications = 0;
+
+    /**
+     * @param direction {@link Direction#OUT} if these are the out edges of the vertex or {@link Direction#IN} if these
+     *                  are its in edges
+     */
+    TinkerEdgeArray(final Direction direction) {
+        if (direction == Direction.BOTH)
+            throw new IllegalArgumentException("The edges must be either the out or the in edges of a vertex");
+        this.direction = direction;
+    }
+
+    @Override
+    public boolean add(final Edge edge) {
+        final TinkerCompactEdge tinkerEdge = (TinkerCompactEdge) edge;
+        if (contains(tinkerEdge))
+            return false;
+
+        final int size = this.size;
+        if (size == this.edges.length)
+            this.edges = Arrays.copyOf(this.edges, size * 2);
+        setSlot(tinkerEdge, size);
+        this.edges[size] = tinkerEdge;
+        this.size = size + 1;
+        return true;
+    }
+
+    /**
+     * Copies the array without the edges, leaving this array as it is for the readers that still look at it.
+     */
+    TinkerEdgeArray without(final Set<Edge> removed) {
+        final TinkerEdgeArray copy = new TinkerEdgeArray(this.direction);
+        final int size = this.size;
+        copy.edges = new TinkerCompactEdge[Math.max(INITIAL_CAPACITY, size)];
+        int copied = 0;
+        for (int i = 0; i < size; i++) {
+            final TinkerCompactEdge e = this.edges[i];
+            if (removed.contains(e)) {
+                setSlot(e, -1);
+            } else {
+                copy.setSlot(e, copied);
+                copy.edges[copied++] = e;
+            }
+        }
+        copy.size = copied;
+        return copy;
+    }
+
+    @Override
+    public boolean remove(final Object edge) {
+        if (!contains(edge))
+            return false;
+
+        final int slot = getSlot((TinkerCompactEdge) edge);
+        final TinkerCompactEdge last = this.edges[--this.size];
+        this.edges[slot] = last;
+        setSlot(last, slot);
+        this.edges[this.size] = null;
+        setSlot((TinkerCompactEdge) edge, -1);
+        this.modifications++;
+
+        // give memory back once most of the edges are gone
+        if (this.edges.length > INITIAL_CAPACITY && this.size < this.edges.length / 4)
+            this.edges = Arrays.copyOf(this.edges, Math.max(INITIAL_CAPACITY, this.edges.length / 2));
+        return true;
+    }
+
+    @Override
+    public boolean contains(final Object edge) {
+        if (!(edge instanceof TinkerCompactEdge))
+            return false;
+        final int slot = getSlot((TinkerCompactEdge) edge);
+        return slot >= 0 && slot < this.size && this.edges[slot] == edge;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public void forEach(final Consumer<? super Edge> action) {
+        // the size is read first as the edges before it are in place in the array at any later point
+        final int size = this.size;
+        final TinkerCompactEdge[] edges = this.edges;
+        for (int i = 0; i < size; i++) {
+            action.accept(edges[i]);
+        }
+    }
+
+    @Override
+    public Object[] toArray() {
+        final int size = this.size;
+        return Arrays.copyOf(this.edges, size, Object[].class);
+    }
+
+    @Override
+    public Iterator<Edge> iterator() {
+        return new Iterator<Edge>() {
+            private int expectedModifications = modifications;
+            private int limit = size;
+            private TinkerCompactEdge[] array = edges;
+            private int index = 0;
+            private boolean removable = false;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < this.limit;
+            }
+
+            @Override
+            public Edge next() {
+                if (modifications != this.expectedModifications)
+                    throw new ConcurrentModificationException();
+                if (this.index >= this.limit)
+                    throw new NoSuchElementException();
+                this.removable = true;
+                return this.array[this.index++];
+            }
+
+            @Override
+            public void remove() {
+                if (!this.removable)
+                    throw new IllegalStateException();
+                if (modifications != this.expectedModifications)
+                    throw new ConcurrentModificationException();
+
+                // the last edge moves into the place of the removed one and so still needs to be visited
+                TinkerEdgeArray.this.remove(this.array[--this.index]);
+                this.expectedModifications = modifications;
+                this.limit--;
+                this.array = edges;
+                this.removable = false;
+            }
+        };
+    }
+
+    private int getSlot(final TinkerCompactEdge edge) {
+        return this.direction == Direction.OUT ? edge.outSlot : edge.inSlot;
+    }
+
+    private void setSlot(final TinkerCompactEdge edge, final int slot) {
+        if (this.direction == Direction.OUT)
+            edge.outSlot = slot;
+        else
+            edge.inSlot = slot;
+    }
+}
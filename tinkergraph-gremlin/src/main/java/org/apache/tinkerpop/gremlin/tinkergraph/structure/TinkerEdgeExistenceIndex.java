@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.structure;
+
+import org.apache.tinkerpop.gremlin.structure.Edge;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A hash index from the identifiers of the out and in vertex and the label of the edges of a {@link TinkerGraph} to
+ * the edges, which tells whether two vertices are connected by an edge with a label without iterating the edges of
+ * either of them. A single edge is kept as is and parallel edges in an array that is replaced on every change, so
+ * that lookups need no locking.
+ */
+final class TinkerEdgeExistenceIndex {
+
+    private final Map<Key, Object> edges = new ConcurrentHashMap<>();
+
+    void add(final Edge edge) {
+        this.edges.merge(new Key(edge), edge, (existing, added) -> {
+            final Edge[] current = existing instanceof Edge ? new Edge[]{(Edge) existing} : (Edge[]) existing;
+            final Edge[] appended = Arrays.copyOf(current, current.length + 1);
+            appended[current.length] = (Edge) added;
+            return appended;
+        });
+    }
+
+    void remove(final Edge edge) {
+        this.edges.computeIfPresent(new Key(edge), (key, existing) -> {
+            if (existing instanceof Edge)
+                return existing.equals(edge) ? null : existing;
+
+            final Edge[] current = (Edge[]) existing;
+            final int i = Arrays.asList(current).indexOf(edge);
+            if (i < 0)
+                return existing;
+            if (2 == current.length)
+                return current[1 - i];
+            final Edge[] remaining = new Edge[current.length - 1];
+            System.arraycopy(current, 0, remaining, 0, i);
+            System.arraycopy(current, i + 1, remaining, i, remaining.length - i);
+            return remaining;
+        });
+    }
+
+    /**
+     * Gets the edges with the label from the vertex with the first identifier to the vertex with the second one.
+     */
+    List<Edge> get(final Object outVertexId, final String label, final Object inVertexId) {
+        final Object found = this.edges.get(new Key(outVertexId, label, inVertexId));
+        if (null == found)
+            return Collections.emptyList();
+        return found instanceof Edge ? Collections.singletonList((Edge) found) : Arrays.asList((Edge[]) found);
+    }
+
+    private static final class Key {
+        private final Object outVertexId;
+        private final String label;
+        private final Object inVertexId;
+        private final int hashCode;
+
+        private Key(final Edge edge) {
+            this(edge.outVertex().id(), edge.label(), edge.inVertex().id());
+        }
+
+        private Key(final Object outVertexId, final String label, final Object inVertexId) {
+            this.outVertexId = outVertexId;
+            this.label = label;
+            this.inVertexId = inVertexId;
+            this.hashCode = Objects.hash(outVertexId, label, inVertexId);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (!(other instanceof Key))
+                return false;
+            final Key key = (Key) other;
+            return this.hashCode == key.hashCode && this.outVertexId.equals(key.outVertexId) &&
+                    this.label.equals(key.label) && this.inVertexId.equals(key.inVertexId);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+}
@@ -55,6 +55,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import static org.apache.tinkerpop.gremlin.tinkergraph.services.TinkerServiceRegistry.TinkerServiceFactory;
@@ -93,29 +94,51 @@ public final class TinkerGraph implements Graph {
     public static final String GREMLIN_TINKERGRAPH_GRAPH_FORMAT = "gremlin.tinkergraph.graphFormat";
     public static final String GREMLIN_TINKERGRAPH_ALLOW_NULL_PROPERTY_VALUES = "gremlin.tinkergraph.allowNullPropertyValues";
     public static final String GREMLIN_TINKERGRAPH_SERVICE = "gremlin.tinkergraph.service";
+    public static final String GREMLIN_TINKERGRAPH_COMPACT_ADJACENCY = "gremlin.tinkergraph.compactAdjacency";
+    public static final String GREMLIN_TINKERGRAPH_JOURNAL = "gremlin.tinkergraph.journal";
+    public static final String GREMLIN_TINKERGRAPH_JOURNAL_COMPACTION_THRESHOLD = "gremlin.tinkergraph.journalCompactionThreshold";
+    public static final String GREMLIN_TINKERGRAPH_JOURNAL_SYNC = "gremlin.tinkergraph.journalSync";
+    public static final String GREMLIN_TINKERGRAPH_LOAD_THREADS = "gremlin.tinkergraph.loadThreads";
+    public static final String GREMLIN_TINKERGRAPH_COPY_ON_WRITE = "gremlin.tinkergraph.copyOnWrite";
+    public static final String GREMLIN_TINKERGRAPH_MERGE_BATCH_SIZE = "gremlin.tinkergraph.mergeBatchSize";
+    public static final String GREMLIN_TINKERGRAPH_EDGE_EXISTENCE_INDEX = "gremlin.tinkergraph.edgeExistenceIndex";
+    public static final String GREMLIN_TINKERGRAPH_DICTIONARY = "gremlin.tinkergraph.dictionary";
+    public static final String GREMLIN_TINKERGRAPH_DICTIONARY_VALUE_KEYS = "gremlin.tinkergraph.dictionaryValueKeys";
 
     private final TinkerGraphFeatures features = new TinkerGraphFeatures();
+    private final TinkerGraphStatistics statistics = new TinkerGraphStatistics(this);
 
     protected AtomicLong currentId = new AtomicLong(-1L);
     protected Map<Object, Vertex> vertices = new ConcurrentHashMap<>();
     protected Map<Object, Edge> edges = new ConcurrentHashMap<>();
+    protected Map<String, Set<Vertex>> verticesByLabel = new ConcurrentHashMap<>();
+    protected Map<String, Set<Edge>> edgesByLabel = new ConcurrentHashMap<>();
 
     protected TinkerGraphVariables variables = null;
     protected TinkerGraphComputerView graphComputerView = null;
     protected TinkerIndex<TinkerVertex> vertexIndex = null;
     protected TinkerIndex<TinkerEdge> edgeIndex = null;
+    protected TinkerTextIndex<TinkerVertex> vertexTextIndex = null;
+    protected TinkerTextIndex<TinkerEdge> edgeTextIndex = null;
+    protected TinkerEdgeExistenceIndex edgeExistenceIndex = null;
+    protected TinkerDictionary dictionary = null;
+    protected TinkerJournal journal = null;
 
     protected final IdManager<?> vertexIdManager;
     protected final IdManager<?> edgeIdManager;
     protected final IdManager<?> vertexPropertyIdManager;
     protected final VertexProperty.Cardinality defaultVertexPropertyCardinality;
     protected final boolean allowNullPropertyValues;
+    protected final boolean compactAdjacency;
+    protected final boolean copyOnWrite;
+    protected final int mergeBatchSize;
 
     protected final TinkerServiceRegistry serviceRegistry;
 
     private final Configuration configuration;
     private final String graphLocation;
     private final String graphFormat;
+    private final int loadThreads;
 
     /**
      * An empty private constructor that initializes {@link TinkerGraph}.
@@ -125,18 +148,46 @@ public final class TinkerGraph implements Graph {
         vertexIdManager = selectIdManager(configuration, GREMLIN_TINKERGRAPH_VERTEX_ID_MANAGER, Vertex.class);
         edgeIdManager = selectIdManager(configuration, GREMLIN_TINKERGRAPH_EDGE_ID_MANAGER, Edge.class);
         vertexPropertyIdManager = selectIdManager(configuration, GREMLIN_TINKERGRAPH_VERTEX_PROPERTY_ID_MANAGER, VertexProperty.class);
+
+        // LONG identifiers can be stored without boxing them into map entries
+        if (vertexIdManager == DefaultIdManager.LONG) vertices = new TinkerLongElementMap<>();
+        if (edgeIdManager == DefaultIdManager.LONG) edges = new TinkerLongElementMap<>();
         defaultVertexPropertyCardinality = VertexProperty.Cardinality.valueOf(
                 configuration.getString(GREMLIN_TINKERGRAPH_DEFAULT_VERTEX_PROPERTY_CARDINALITY, VertexProperty.Cardinality.single.name()));
         allowNullPropertyValues = configuration.getBoolean(GREMLIN_TINKERGRAPH_ALLOW_NULL_PROPERTY_VALUES, false);
+        copyOnWrite = configuration.getBoolean(GREMLIN_TINKERGRAPH_COPY_ON_WRITE, false);
+        // copy-on-write relies on the edge arrays only ever being appended to in place
+        compactAdjacency = copyOnWrite || configuration.getBoolean(GREMLIN_TINKERGRAPH_COMPACT_ADJACENCY, false);
+        mergeBatchSize = configuration.getInt(GREMLIN_TINKERGRAPH_MERGE_BATCH_SIZE, 1);
+        if (configuration.getBoolean(GREMLIN_TINKERGRAPH_EDGE_EXISTENCE_INDEX, false))
+            edgeExistenceIndex = new TinkerEdgeExistenceIndex();
+        final List<String> dictionaryValueKeys = configuration.getList(String.class, GREMLIN_TINKERGRAPH_DICTIONARY_VALUE_KEYS, Collections.emptyList());
+        if (configuration.getBoolean(GREMLIN_TINKERGRAPH_DICTIONARY, false) || !dictionaryValueKeys.isEmpty())
+            dictionary = new TinkerDictionary(dictionaryValueKeys);
 
         graphLocation = configuration.getString(GREMLIN_TINKERGRAPH_GRAPH_LOCATION, null);
         graphFormat = configuration.getString(GREMLIN_TINKERGRAPH_GRAPH_FORMAT, null);
+        loadThreads = configuration.getInt(GREMLIN_TINKERGRAPH_LOAD_THREADS, 1);
 
         if ((graphLocation != null && null == graphFormat) || (null == graphLocation && graphFormat != null))
             throw new IllegalStateException(String.format("The %s and %s must both be specified if either is present",
                     GREMLIN_TINKERGRAPH_GRAPH_LOCATION, GREMLIN_TINKERGRAPH_GRAPH_FORMAT));
 
-        if (graphLocation != null) loadGraph();
+        if (configuration.getBoolean(GREMLIN_TINKERGRAPH_JOURNAL, false) && null == graphLocation)
+            throw new IllegalStateException(String.format("The %s must be specified if %s is enabled",
+                    GREMLIN_TINKERGRAPH_GRAPH_LOCATION, GREMLIN_TINKERGRAPH_JOURNAL));
+
+        if (graphLocation != null) {
+            // the journal only starts recording once the graph is restored so that replaying it appends nothing
+            final TinkerJournal journal = configuration.getBoolean(GREMLIN_TINKERGRAPH_JOURNAL, false) ?
+                    new TinkerJournal(this, graphLocation, configuration.getLong(GREMLIN_TINKERGRAPH_JOURNAL_COMPACTION_THRESHOLD, 100000L),
+                            JournalSync.valueOf(configuration.getString(GREMLIN_TINKERGRAPH_JOURNAL_SYNC, JournalSync.NONE.name()))) :
+                    null;
+            if (null != journal) journal.recover();
+            loadGraph();
+            if (null != journal) journal.replay();
+            this.journal = journal;
+        }
 
         serviceRegistry = new TinkerServiceRegistry(this);
         configuration.getList(String.class, GREMLIN_TINKERGRAPH_SERVICE, Collections.emptyList()).forEach(serviceClass ->
@@ -189,6 +240,8 @@ public final class TinkerGraph implements Graph {
 
         final Vertex vertex = new TinkerVertex(idValue, label, this);
         this.vertices.put(vertex.id(), vertex);
+        TinkerHelper.addToLabelRegistry(this.verticesByLabel, vertex.label(), vertex);
+        if (null != this.journal) this.journal.addVertex((TinkerVertex) vertex);
 
         ElementHelper.attachProperties(vertex, VertexProperty.Cardinality.list, keyValues);
         return vertex;
@@ -231,11 +284,19 @@ public final class TinkerGraph implements Graph {
     public void clear() {
         this.vertices.clear();
         this.edges.clear();
+        this.verticesByLabel.clear();
+        this.edgesByLabel.clear();
         this.variables = null;
         this.currentId.set(-1L);
         this.vertexIndex = null;
         this.edgeIndex = null;
+        this.vertexTextIndex = null;
+        this.edgeTextIndex = null;
+        if (null != this.edgeExistenceIndex) this.edgeExistenceIndex = new TinkerEdgeExistenceIndex();
+        if (null != this.dictionary) this.dictionary = new TinkerDictionary(configuration.getList(String.class,
+                GREMLIN_TINKERGRAPH_DICTIONARY_VALUE_KEYS, Collections.emptyList()));
         this.graphComputerView = null;
+        if (null != this.journal) this.journal.clear();
     }
 
     /**
@@ -245,7 +306,10 @@ public final class TinkerGraph implements Graph {
      */
     @Override
     public void close() {
-        if (graphLocation != null) saveGraph();
+        if (null != journal)
+            journal.close();
+        else if (graphLocation != null)
+            saveGraph(graphLocation);
         // shutdown services
         serviceRegistry.close();
     }
@@ -284,7 +348,12 @@ public final class TinkerGraph implements Graph {
                 } else if (graphFormat.equals("graphson")) {
                     io(IoCore.graphson()).readGraph(graphLocation);
                 } else if (graphFormat.equals("gryo")) {
-                    io(IoCore.gryo()).readGraph(graphLocation);
+                    if (loadThreads > 1)
+                        new TinkerGryoLoader(this, graphLocation, io(IoCore.gryo()).mapper().create(), loadThreads).load();
+                    else
+                        io(IoCore.gryo()).readGraph(graphLocation);
+                } else if (graphFormat.equals("snapshot")) {
+                    TinkerSnapshot.read(this, graphLocation);
                 } else {
                     io(IoCore.createIoBuilder(graphFormat)).readGraph(graphLocation);
                 }
@@ -294,7 +363,7 @@ public final class TinkerGraph implements Graph {
         }
     }
 
-    private void saveGraph() {
+    void saveGraph(final String graphLocation) {
         final File f = new File(graphLocation);
         if (f.exists()) {
             f.delete();
@@ -314,6 +383,8 @@ public final class TinkerGraph implements Graph {
                 io(IoCore.graphson()).writeGraph(graphLocation);
             } else if (graphFormat.equals("gryo")) {
                 io(IoCore.gryo()).writeGraph(graphLocation);
+            } else if (graphFormat.equals("snapshot")) {
+                TinkerSnapshot.write(this, graphLocation);
             } else {
                 io(IoCore.createIoBuilder(graphFormat)).writeGraph(graphLocation);
             }
@@ -327,7 +398,7 @@ public final class TinkerGraph implements Graph {
                                                                   final Object... ids) {
         final Iterator<T> iterator;
         if (0 == ids.length) {
-            iterator = new TinkerGraphIterator<>(elements.values().iterator());
+            iterator = elements.values().iterator();
         } else {
             final List<Object> idList = Arrays.asList(ids);
 
@@ -338,15 +409,20 @@ public final class TinkerGraph implements Graph {
             return new TinkerGraphIterator<>(IteratorUtils.filter(IteratorUtils.map(idList, id -> {
                 // ids cant be null so all of those filter out
                 if (null == id) return null;
+                // numeric ids need no conversion to look them up in a store of LONG ids
+                if (id instanceof Number && elements instanceof TinkerLongElementMap)
+                    return ((TinkerLongElementMap<T>) elements).get(((Number) id).longValue());
                 final Object iid = clazz.isAssignableFrom(id.getClass()) ? clazz.cast(id).id() : idManager.convert(id);
                 return elements.get(idManager.convert(iid));
             }).iterator(), Objects::nonNull));
         }
-        return TinkerHelper.inComputerMode(this) ?
+
+        // wrap last so that closing the returned iterator releases it even if the computer filter is applied
+        return new TinkerGraphIterator<>(TinkerHelper.inComputerMode(this) ?
                 (Iterator<T>) (clazz.equals(Vertex.class) ?
                         IteratorUtils.filter((Iterator<Vertex>) iterator, t -> this.graphComputerView.legalVertex(t)) :
                         IteratorUtils.filter((Iterator<Edge>) iterator, t -> this.graphComputerView.legalEdge(t.outVertex(), t))) :
-                iterator;
+                iterator);
     }
 
     /**
@@ -499,18 +575,34 @@ public final class TinkerGraph implements Graph {
      * Create an index for said element class ({@link Vertex} or {@link Edge}) and said property key.
      * Whenever an element has the specified key mutated, the index is updated.
      * When the index is created, all existing elements are indexed to ensure that they are captured by the index.
+     * The index is created as an {@link IndexType#HASH} index.
      *
      * @param key          the property key to index
      * @param elementClass the element class to index
      * @param <E>          The type of the element class
      */
     public <E extends Element> void createIndex(final String key, final Class<E> elementClass) {
+        createIndex(key, elementClass, IndexType.HASH);
+    }
+
+    /**
+     * Create an index of the specified {@link IndexType} for said element class ({@link Vertex} or {@link Edge}) and
+     * said property key. Whenever an element has the specified key mutated, the index is updated. When the index is
+     * created, all existing elements are indexed to ensure that they are captured by the index. If the key is already
+     * indexed with a different {@link IndexType}, the existing index is replaced.
+     *
+     * @param key          the property key to index
+     * @param elementClass the element class to index
+     * @param indexType    the type of index to create
+     * @param <E>          The type of the element class
+     */
+    public <E extends Element> void createIndex(final String key, final Class<E> elementClass, final IndexType indexType) {
         if (Vertex.class.isAssignableFrom(elementClass)) {
             if (null == this.vertexIndex) this.vertexIndex = new TinkerIndex<>(this, TinkerVertex.class);
-            this.vertexIndex.createKeyIndex(key);
+            this.vertexIndex.createKeyIndex(key, indexType);
         } else if (Edge.class.isAssignableFrom(elementClass)) {
             if (null == this.edgeIndex) this.edgeIndex = new TinkerIndex<>(this, TinkerEdge.class);
-            this.edgeIndex.createKeyIndex(key);
+            this.edgeIndex.createKeyIndex(key, indexType);
         } else {
             throw new IllegalArgumentException("Class is not indexable: " + elementClass);
         }
@@ -550,6 +642,160 @@ public final class TinkerGraph implements Graph {
         }
     }
 
+    /**
+     * Create a composite index for said element class ({@link Vertex} or {@link Edge}) over the ordered tuple of
+     * property keys. An element is indexed if it has all of the keys and it can then be looked up by equality on all
+     * of them at once, which is far more selective than a lookup on any one of the keys. Whenever an element has one
+     * of the keys mutated, the index is updated. When the index is created, all existing elements are indexed.
+     *
+     * @param elementClass the element class to index
+     * @param keys         the property keys to index, at least two of them
+     * @param <E>          The type of the element class
+     */
+    public <E extends Element> void createCompositeIndex(final Class<E> elementClass, final String... keys) {
+        if (Vertex.class.isAssignableFrom(elementClass)) {
+            if (null == this.vertexIndex) this.vertexIndex = new TinkerIndex<>(this, TinkerVertex.class);
+            this.vertexIndex.createCompositeIndex(Arrays.asList(keys));
+        } else if (Edge.class.isAssignableFrom(elementClass)) {
+            if (null == this.edgeIndex) this.edgeIndex = new TinkerIndex<>(this, TinkerEdge.class);
+            this.edgeIndex.createCompositeIndex(Arrays.asList(keys));
+        } else {
+            throw new IllegalArgumentException("Class is not indexable: " + elementClass);
+        }
+    }
+
+    /**
+     * Drop the composite index for the specified element class ({@link Vertex} or {@link Edge}) and keys.
+     *
+     * @param elementClass the element class of the index to drop
+     * @param keys         the property keys of the index in the order they were given on creation
+     * @param <E>          The type of the element class
+     */
+    public <E extends Element> void dropCompositeIndex(final Class<E> elementClass, final String... keys) {
+        if (Vertex.class.isAssignableFrom(elementClass)) {
+            if (null != this.vertexIndex) this.vertexIndex.dropCompositeIndex(Arrays.asList(keys));
+        } else if (Edge.class.isAssignableFrom(elementClass)) {
+            if (null != this.edgeIndex) this.edgeIndex.dropCompositeIndex(Arrays.asList(keys));
+        } else {
+            throw new IllegalArgumentException("Class is not indexable: " + elementClass);
+        }
+    }
+
+    /**
+     * Return the key tuples of all the composite indices for said element class ({@link Vertex} or {@link Edge}).
+     *
+     * @param elementClass the element class to get the composite indices for
+     * @param <E>          The type of the element class
+     * @return the set of key tuples currently being indexed
+     */
+    public <E extends Element> Set<List<String>> getCompositeIndexedKeys(final Class<E> elementClass) {
+        if (Vertex.class.isAssignableFrom(elementClass)) {
+            return null == this.vertexIndex ? Collections.emptySet() : this.vertexIndex.getCompositeKeys();
+        } else if (Edge.class.isAssignableFrom(elementClass)) {
+            return null == this.edgeIndex ? Collections.emptySet() : this.edgeIndex.getCompositeKeys();
+        } else {
+            throw new IllegalArgumentException("Class is not indexable: " + elementClass);
+        }
+    }
+
+    /**
+     * Return the {@link IndexType} of the index on the specified key for said element class ({@link Vertex} or
+     * {@link Edge}).
+     *
+     * @param key          the property key to get the index type for
+     * @param elementClass the element class to get the index type for
+     * @param <E>          The type of the element class
+     * @return the type of the index or {@code null} if the key is not indexed
+     */
+    public <E extends Element> IndexType getIndexType(final String key, final Class<E> elementClass) {
+        if (Vertex.class.isAssignableFrom(elementClass)) {
+            return null == this.vertexIndex ? null : this.vertexIndex.getIndexType(key);
+        } else if (Edge.class.isAssignableFrom(elementClass)) {
+            return null == this.edgeIndex ? null : this.edgeIndex.getIndexType(key);
+        } else {
+            throw new IllegalArgumentException("Class is not indexable: " + elementClass);
+        }
+    }
+
+    /**
+     * Create a text index for said element class ({@link Vertex} or {@link Edge}) and said property key that splits
+     * the {@code String} values of the key with the {@link TinkerTextIndex#STANDARD_TOKENIZER}.
+     *
+     * @param key          the property key to index
+     * @param elementClass the element class to index
+     * @param <E>          The type of the element class
+     */
+    public <E extends Element> void createTextIndex(final String key, final Class<E> elementClass) {
+        createTextIndex(key, elementClass, TinkerTextIndex.STANDARD_TOKENIZER);
+    }
+
+    /**
+     * Create a text index for said element class ({@link Vertex} or {@link Edge}) and said property key, which maps
+     * the tokens of the {@code String} values of the key to the elements that have them so that the
+     * {@link org.apache.tinkerpop.gremlin.tinkergraph.services.TinkerTextSearchFactory} can look up terms, prefixes
+     * and phrases without scanning the graph. Whenever an element has the specified key mutated, the index is
+     * updated. When the index is created, all existing elements are indexed. If the key already has a text index, it
+     * is replaced.
+     *
+     * @param key          the property key to index
+     * @param elementClass the element class to index
+     * @param tokenizer    splits a value, as well as the text searched for, into its tokens
+     * @param <E>          The type of the element class
+     */
+    public <E extends Element> void createTextIndex(final String key, final Class<E> elementClass, final Function<String, List<String>> tokenizer) {
+        if (Vertex.class.isAssignableFrom(elementClass)) {
+            if (null == this.vertexTextIndex) this.vertexTextIndex = new TinkerTextIndex<>(this, TinkerVertex.class);
+            this.vertexTextIndex.createKeyIndex(key, tokenizer);
+        } else if (Edge.class.isAssignableFrom(elementClass)) {
+            if (null == this.edgeTextIndex) this.edgeTextIndex = new TinkerTextIndex<>(this, TinkerEdge.class);
+            this.edgeTextIndex.createKeyIndex(key, tokenizer);
+        } else {
+            throw new IllegalArgumentException("Class is not indexable: " + elementClass);
+        }
+    }
+
+    /**
+     * Drop the text index for the specified element class ({@link Vertex} or {@link Edge}) and key.
+     *
+     * @param key          the property key to stop indexing
+     * @param elementClass the element class of the index to drop
+     * @param <E>          The type of the element class
+     */
+    public <E extends Element> void dropTextIndex(final String key, final Class<E> elementClass) {
+        if (Vertex.class.isAssignableFrom(elementClass)) {
+            if (null != this.vertexTextIndex) this.vertexTextIndex.dropKeyIndex(key);
+        } else if (Edge.class.isAssignableFrom(elementClass)) {
+            if (null != this.edgeTextIndex) this.edgeTextIndex.dropKeyIndex(key);
+        } else {
+            throw new IllegalArgumentException("Class is not indexable: " + elementClass);
+        }
+    }
+
+    /**
+     * Return all the keys that have a text index for said element class ({@link Vertex} or {@link Edge}).
+     *
+     * @param elementClass the element class to get the text indexed keys for
+     * @param <E>          The type of the element class
+     * @return the set of keys that have a text index
+     */
+    public <E extends Element> Set<String> getTextIndexedKeys(final Class<E> elementClass) {
+        if (Vertex.class.isAssignableFrom(elementClass)) {
+            return null == this.vertexTextIndex ? Collections.emptySet() : this.vertexTextIndex.getIndexedKeys();
+        } else if (Edge.class.isAssignableFrom(elementClass)) {
+            return null == this.edgeTextIndex ? Collections.emptySet() : this.edgeTextIndex.getIndexedKeys();
+        } else {
+            throw new IllegalArgumentException("Class is not indexable: " + elementClass);
+        }
+    }
+
+    /**
+     * Gets the statistics about the elements of the graph that the optimizer uses to estimate the selectivity of
+     * filters, which are kept current by the label registries and indices of the graph.
+     */
+    public TinkerGraphStatistics statistics() {
+        return this.statistics;
+    }
+
     /**
      * Construct an {@link TinkerGraph.IdManager} from the TinkerGraph {@code Configuration}.
      */
@@ -575,6 +821,41 @@ public final class TinkerGraph implements Graph {
         }
     }
 
+    /**
+     * The policies for forcing the journal enabled with {@link #GREMLIN_TINKERGRAPH_JOURNAL} to the storage device,
+     * which are set with {@link #GREMLIN_TINKERGRAPH_JOURNAL_SYNC}.
+     */
+    public enum JournalSync {
+        /**
+         * Leaves it to the operating system to write the journal to the storage device, so that a mutation survives
+         * the end of the process but may be lost if the operating system fails.
+         */
+        NONE,
+
+        /**
+         * Forces every record of the journal and every snapshot to the storage device before going on, so that a
+         * mutation survives a failure of the operating system at the cost of waiting for the device each time.
+         */
+        ALWAYS
+    }
+
+    /**
+     * The kinds of property indices that can be created with {@link #createIndex(String, Class, IndexType)}.
+     */
+    public enum IndexType {
+        /**
+         * A hash-based index that can only answer equality lookups.
+         */
+        HASH,
+
+        /**
+         * An index that keeps its values in Gremlin order so that it can answer equality lookups, range lookups with
+         * {@code gt}, {@code gte}, {@code lt}, {@code lte} and their compositions like {@code between} and
+         * {@code inside}, as well as provide elements already sorted for {@code order().by(key)}.
+         */
+        SORTED
+    }
+
     /**
      * TinkerGraph will use an implementation of this interface to generate identifiers when a user does not supply
      * them and to handle identifier conversions when querying to provide better flexibility with respect to
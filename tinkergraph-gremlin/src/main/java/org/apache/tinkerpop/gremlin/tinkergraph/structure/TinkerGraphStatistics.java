@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.structure;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Compare;
+import org.apache.tinkerpop.gremlin.process.traversal.Contains;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+/**
+ * Statistics about the elements of a {@link TinkerGraph} for the optimizer to estimate how many elements a
+ * {@link HasContainer} selects. They are read from the structures that the graph maintains on every change anyway,
+ * so they are always exact: the label registries give the number of elements per label and the indices give the
+ * number of distinct values of an indexed key and the number of elements per value. Predicates that these cannot
+ * answer are estimated with fixed selectivities. Only the count of a range on a sorted index is not a lookup, which
+ * is why it can be bounded by the estimate it competes against.
+ */
+public final class TinkerGraphStatistics {
+
+    /**
+     * The assumed share of the elements that an equality on a key without an index selects.
+     */
+    public static final double EQUALITY_SELECTIVITY = 0.1;
+
+    /**
+     * The assumed share of the elements that a range on a key without a {@link TinkerGraph.IndexType#SORTED} index
+     * selects.
+     */
+    public static final double RANGE_SELECTIVITY = 1.0 / 3;
+
+    /**
+     * The assumed share of the elements that any other predicate selects.
+     */
+    public static final double DEFAULT_SELECTIVITY = 0.5;
+
+    private final TinkerGraph graph;
+
+    TinkerGraphStatistics(final TinkerGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Counts the vertices or the edges of the graph.
+     */
+    public long count(final Class<? extends Element> elementClass) {
+        return isVertex(elementClass) ? this.graph.vertices.size() : this.graph.edges.size();
+    }
+
+    /**
+     * Counts the vertices or the edges of the graph that have the label.
+     */
+    public long count(final Class<? extends Element> elementClass, final String label) {
+        return TinkerHelper.countElementsByLabel(this.graph, elementClass, Collections.singletonList(label));
+    }
+
+    /**
+     * Gets the labels of the vertices or the edges of the graph.
+     */
+    public Set<String> getLabels(final Class<? extends Element> elementClass) {
+        return new HashSet<>(isVertex(elementClass) ? this.graph.verticesByLabel.keySet() : this.graph.edgesByLabel.keySet());
+    }
+
+    /**
+     * Counts the distinct values of an indexed key or returns -1 if the key is not indexed.
+     */
+    public long countDistinct(final Class<? extends Element> elementClass, final String key) {
+        final TinkerIndex<?> index = getIndex(elementClass);
+        return null == index ? -1 : index.countDistinct(key);
+    }
+
+    /**
+     * Counts the elements of each value of an indexed key. The map is empty if the key is not indexed.
+     */
+    public Map<Object, Long> getHistogram(final Class<? extends Element> elementClass, final String key) {
+        final TinkerIndex<?> index = getIndex(elementClass);
+        return null == index ? Collections.emptyMap() : index.histogram(key);
+    }
+
+    /**
+     * Gets the average number of edges with the label per vertex, which is the same for out and in edges.
+     */
+    public double getAverageDegree(final String edgeLabel) {
+        final long vertexCount = count(Vertex.class);
+        return 0 == vertexCount ? 0 : (double) count(Edge.class, edgeLabel) / vertexCount;
+    }
+
+    /**
+     * Estimates the number of vertices or edges that satisfy the {@link HasContainer}. The estimate is exact for
+     * labels and identifiers, for equality on an indexed key and for ranges on a key with a
+     * {@link TinkerGraph.IndexType#SORTED} index.
+     */
+    public double estimate(final Class<? extends Element> elementClass, final HasContainer hasContainer) {
+        return estimate(elementClass, hasContainer, Double.MAX_VALUE);
+    }
+
+    /**
+     * Estimates the number of vertices or edges that satisfy the {@link HasContainer} like
+     * {@link #estimate(Class, HasContainer)}, but only as far as the caller needs it. A range on a
+     * {@link TinkerGraph.IndexType#SORTED} index has to walk every distinct value it covers to be counted, so that
+     * count stops once it exceeds the limit, in which case the estimate is some value above the limit. Callers that
+     * only compare the estimate against the best one found so far should pass that one as the limit.
+     */
+    public double estimate(final Class<? extends Element> elementClass, final HasContainer hasContainer, final double limit) {
+        final long total = count(elementClass);
+        if (0 == total) return 0;
+
+        final String key = hasContainer.getKey();
+        final BiPredicate<?, ?> biPredicate = hasContainer.getBiPredicate();
+        final Object value = hasContainer.getValue();
+        if (T.label.getAccessor().equals(key)) {
+            if ((biPredicate == Compare.eq || biPredicate == Compare.neq) && value instanceof String) {
+                final long count = count(elementClass, (String) value);
+                return biPredicate == Compare.eq ? count : total - count;
+            }
+            if ((biPredicate == Contains.within || biPredicate == Contains.without) && isStrings(value)) {
+                final long count = TinkerHelper.countElementsByLabel(this.graph, elementClass, (Collection<String>) value);
+                return biPredicate == Contains.within ? count : total - count;
+            }
+        } else if (T.id.getAccessor().equals(key)) {
+            if (biPredicate == Compare.eq) return 1;
+            if (biPredicate == Contains.within && value instanceof Collection)
+                return Math.min(total, ((Collection<?>) value).size());
+        }
+
+        final TinkerIndex<?> index = getIndex(elementClass);
+        if (null != index && index.getIndexedKeys().contains(key)) {
+            if (biPredicate == Compare.eq)
+                return index.count(key, value);
+            if (biPredicate == Compare.neq)
+                return total - index.count(key, value);
+            if (biPredicate == Contains.within && value instanceof Collection) {
+                long count = 0;
+                for (final Object v : new LinkedHashSet<>((Collection<?>) value)) {
+                    count += index.count(key, v);
+                }
+                return count;
+            }
+            if (TinkerIndex.isRangeable(biPredicate) && index.getIndexType(key) == TinkerGraph.IndexType.SORTED)
+                return index.countRange(key, Collections.singletonList(hasContainer), (long) limit);
+        }
+
+        if (biPredicate == Compare.eq)
+            return total * EQUALITY_SELECTIVITY;
+        if (biPredicate == Compare.neq || biPredicate == Contains.without)
+            return total * (1 - EQUALITY_SELECTIVITY);
+        if (biPredicate == Contains.within && value instanceof Collection)
+            return total * Math.min(1, ((Collection<?>) value).size() * EQUALITY_SELECTIVITY);
+        if (biPredicate == Compare.gt || biPredicate == Compare.gte || biPredicate == Compare.lt || biPredicate == Compare.lte)
+            return total * RANGE_SELECTIVITY;
+        return total * DEFAULT_SELECTIVITY;
+    }
+
+    private TinkerIndex<?> getIndex(final Class<? extends Element> elementClass) {
+        return isVertex(elementClass) ? this.graph.vertexIndex : this.graph.edgeIndex;
+    }
+
+    private static boolean isVertex(final Class<? extends Element> elementClass) {
+        return Vertex.class.isAssignableFrom(elementClass);
+    }
+
+    private static boolean isStrings(final Object value) {
+        return value instanceof Collection && ((Collection<?>) value).stream().allMatch(v -> v instanceof String);
+    }
+}
@@ -0,0 +1,494 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.structure;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.io.gryo.GryoMapper;
+import org.apache.tinkerpop.gremlin.structure.util.Attachable;
+import org.apache.tinkerpop.gremlin.structure.util.ElementHelper;
+import org.apache.tinkerpop.gremlin.structure.util.star.StarGraph;
+import org.apache.tinkerpop.shaded.kryo.Kryo;
+import org.apache.tinkerpop.shaded.kryo.KryoException;
+import org.apache.tinkerpop.shaded.kryo.Registration;
+import org.apache.tinkerpop.shaded.kryo.Serializer;
+import org.apache.tinkerpop.shaded.kryo.io.Input;
+import org.apache.tinkerpop.shaded.kryo.io.Output;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads a Gryo file as written by {@code GryoWriter.writeGraph()} into an empty {@link TinkerGraph} on several
+ * threads. Such a file is a sequence of {@link StarGraph} records that each start with {@link GryoMapper#HEADER} and
+ * carry no length, so the file is cut into byte ranges and every range is decoded from the first header found in it up
+ * to the first record that starts past its end. A header found that way may also be a coincidence within the data of
+ * a record, which is detected by comparing where a range started decoding with where the range before it stopped, in
+ * which case the range is decoded again from the right position. Data that happens to look like a header is mostly
+ * told apart by the bytes that begin a record. As decoding from such a position may still come across a count or a
+ * nesting that is out of all proportion, the objects of a record may be nested no deeper than {@link #MAXIMUM_DEPTH}
+ * and no count that a string, an array or a list is sized by may exceed the bytes left in the file, each of its
+ * elements taking at least one. A record that breaks these bounds where a record is known to start fails the load.
+ * <p/>
+ * The vertices are then added in parallel, followed by the edges, each of which is added by the range of its out
+ * vertex. As the in edges of a vertex may come from any range they are collected in partitions by in vertex and
+ * attached partition by partition, visiting the ranges in file order, so the result does not depend on the
+ * scheduling of the threads.
+ */
+final class TinkerGryoLoader {
+
+    private static final BasicThreadFactory THREAD_FACTORY_LOADER = new BasicThreadFactory.Builder().namingPattern("tinker-loader-%d").build();
+
+    /**
+     * The smallest byte range decoded by one task.
+     */
+    private static final long MINIMUM_RANGE_SIZE = 1 << 20;
+
+    /**
+     * The version that {@code StarGraphSerializer} writes at the start of every {@link StarGraph}.
+     */
+    private static final byte STAR_GRAPH_VERSION = Byte.MIN_VALUE;
+
+    /**
+     * The deepest that the objects of a record may be nested.
+     */
+    private static final int MAXIMUM_DEPTH = 512;
+
+    /**
+     * The classes whose serializers size an array by the count that they read first.
+     */
+    private static final List<Class<?>> PRESIZED_CLASSES = Arrays.asList(ArrayList.class, Object[].class, String[].class);
+
+    private final TinkerGraph graph;
+    private final File file;
+    private final GryoMapper mapper;
+    private final int threads;
+    private final ThreadLocal<Kryo> kryo;
+
+    TinkerGryoLoader(final TinkerGraph graph, final String graphLocation, final GryoMapper mapper, final int threads) {
+        this.graph = graph;
+        this.file = new File(graphLocation);
+        this.mapper = mapper;
+        this.threads = threads;
+        this.kryo = ThreadLocal.withInitial(this::createKryo);
+    }
+
+    private Kryo createKryo() {
+        final Kryo kryo = this.mapper.createMapper();
+        kryo.setMaxDepth(MAXIMUM_DEPTH);
+        for (final Class<?> presized : PRESIZED_CLASSES) {
+            final Registration registration = kryo.getRegistration(presized);
+            registration.setSerializer(new BoundedSerializer<>(registration.getSerializer()));
+        }
+        return kryo;
+    }
+
+    void load() throws IOException {
+        final ExecutorService pool = Executors.newFixedThreadPool(this.threads, THREAD_FACTORY_LOADER);
+        try {
+            final List<Range> ranges = decode(pool);
+            final Map<Object, Vertex> vertices = new ConcurrentHashMap<>();
+            invokeAll(pool, ranges, range -> {
+                for (final StarGraph starGraph : range.starGraphs) {
+                    final StarGraph.StarVertex starVertex = starGraph.getStarVertex();
+                    vertices.put(starVertex.id(), Attachable.Method.createVertex(starVertex, this.graph));
+                }
+            });
+
+            final int partitions = this.threads;
+            invokeAll(pool, ranges, range -> {
+                range.inEdges = new ArrayList<>(partitions);
+                for (int i = 0; i < partitions; i++) range.inEdges.add(new ArrayList<>());
+                for (final StarGraph starGraph : range.starGraphs) {
+                    starGraph.getStarVertex().edges(Direction.OUT).forEachRemaining(edge -> {
+                        final TinkerEdge tinkerEdge = addEdge(edge, vertices);
+                        range.inEdges.get(Math.floorMod(tinkerEdge.inVertex().hashCode(), partitions)).add(tinkerEdge);
+                    });
+                }
+                range.starGraphs = null;
+            });
+
+            final List<Integer> partitionIds = new ArrayList<>(partitions);
+            for (int i = 0; i < partitions; i++) partitionIds.add(i);
+            invokeAll(pool, partitionIds, partition -> {
+                for (final Range range : ranges) {
+                    for (final TinkerEdge edge : range.inEdges.get(partition)) {
+                        TinkerHelper.addInEdge((TinkerVertex) edge.inVertex(), edge.label(), edge);
+                    }
+                }
+            });
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Decodes the ranges of the file in parallel and then checks them in file order, decoding a range again where it
+     * did not start at the record that the previous range stopped at.
+     */
+    private List<Range> decode(final ExecutorService pool) throws IOException {
+        final long length = this.file.length();
+        final long rangeSize = Math.max(MINIMUM_RANGE_SIZE, length / (this.threads * 4L) + 1);
+        final List<Range> ranges = new ArrayList<>();
+        for (long from = 0; from < length; from += rangeSize) {
+            ranges.add(new Range(from, Math.min(length, from + rangeSize)));
+        }
+
+        final List<Future<?>> futures = new ArrayList<>();
+        for (final Range range : ranges) {
+            futures.add(pool.submit(() -> {
+                try {
+                    final long start = 0 == range.from ? 0 : findHeader(range.from, range.to);
+                    if (start >= 0) decode(range, start);
+                } catch (KryoException | IllegalArgumentException | IndexOutOfBoundsException | ClassCastException ex) {
+                    // what decoding data that only looked like a record fails with, the range is decoded again
+                    // below. anything else, like a failure to read the file, is not retried and ends the load
+                    range.start = -1;
+                }
+                return null;
+            }));
+        }
+        await(futures);
+
+        long position = 0;
+        final List<Range> decoded = new ArrayList<>();
+        for (final Range range : ranges) {
+            if (position >= range.to) continue;
+            if (range.start != position) {
+                try {
+                    decode(range, position);
+                } catch (KryoException | IllegalArgumentException | IndexOutOfBoundsException | ClassCastException ex) {
+                    throw new IOException(String.format("Could not read the record at position %s of %s", position, this.file), ex);
+                }
+            }
+            position = range.end;
+            decoded.add(range);
+        }
+        return decoded;
+    }
+
+    private void decode(final Range range, final long start) throws IOException {
+        range.start = start;
+        range.starGraphs = new ArrayList<>();
+        final long length = this.file.length();
+        try (final Input input = new BoundedInput(open(start), length - start)) {
+            long position = start;
+            while (position < range.to && position < length) {
+                readHeader(input);
+                range.starGraphs.add(this.kryo.get().readObject(input, StarGraph.class));
+                // read the terminator
+                this.kryo.get().readClassAndObject(input);
+                position = start + input.total();
+            }
+            range.end = position;
+        }
+    }
+
+    /**
+     * Finds the position of the first {@link GryoMapper#HEADER} that starts within the range and is followed by the
+     * start of a {@link StarGraph} or -1 if there is none.
+     */
+    private long findHeader(final long from, final long to) throws IOException {
+        final byte[] header = GryoMapper.HEADER;
+        try (final InputStream input = new BufferedInputStream(open(from), 1 << 16)) {
+            int matched = 0;
+            for (long position = from; position < to + header.length - 1; position++) {
+                final int b = input.read();
+                if (b < 0) return -1;
+                // the first byte of the header does not occur again in it so a mismatch can only restart a match
+                if (b == header[matched]) matched++;
+                else matched = b == header[0] ? 1 : 0;
+                if (matched == header.length) {
+                    final long start = position - header.length + 1;
+                    if (start >= to) return -1;
+                    input.mark(3);
+                    if (isRecordStart(input)) return start;
+                    input.reset();
+                    matched = 0;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Determines if the bytes are the marker of a new object and the version of a {@link StarGraph} followed by the
+     * marker of its edge properties, which may be {@code null}.
+     */
+    private static boolean isRecordStart(final InputStream input) throws IOException {
+        return input.read() == Kryo.NOT_NULL && input.read() == (STAR_GRAPH_VERSION & 0xff) && isNullMarker(input.read());
+    }
+
+    private static boolean isNullMarker(final int b) {
+        return b == Kryo.NULL || b == Kryo.NOT_NULL;
+    }
+
+    private InputStream open(final long position) throws IOException {
+        final FileInputStream input = new FileInputStream(this.file);
+        input.getChannel().position(position);
+        return input;
+    }
+
+    private static void readHeader(final Input input) throws IOException {
+        final byte[] header = input.readBytes(GryoMapper.HEADER.length);
+        for (int i = 0; i < GryoMapper.GIO.length; i++) {
+            if (header[i] != GryoMapper.GIO[i])
+                throw new IOException("Invalid format - first three bytes of header do not match expected value");
+        }
+    }
+
+    /**
+     * Adds the edge to the graph and to the out edges of its out vertex, which is only ever touched by the task of the
+     * range that the out vertex was read from. The in edges are attached separately.
+     */
+    private TinkerEdge addEdge(final Edge starEdge, final Map<Object, Vertex> vertices) {
+        final TinkerVertex outVertex = (TinkerVertex) vertices.get(starEdge.outVertex().id());
+        final TinkerVertex inVertex = (TinkerVertex) vertices.get(starEdge.inVertex().id());
+        if (null == outVertex) throw new IllegalStateException(String.format("Could not find outV with id [%s] to create edge with id [%s]", starEdge.outVertex().id(), starEdge.id()));
+        if (null == inVertex) throw new IllegalStateException(String.format("Could not find inV with id [%s] to create edge with id [%s]", starEdge.inVertex().id(), starEdge.id()));
+
+        ElementHelper.validateLabel(starEdge.label());
+        final Object idValue = this.graph.features().edge().willAllowId(starEdge.id()) ?
+                this.graph.edgeIdManager.convert(starEdge.id()) :
+                this.graph.edgeIdManager.getNextId(this.graph);
+        if (this.graph.edges.containsKey(idValue))
+            throw Graph.Exceptions.edgeWithIdAlreadyExists(idValue);
+
+        final TinkerEdge edge = TinkerHelper.createEdge(this.graph, idValue, outVertex, starEdge.label(), inVertex);
+        starEdge.properties().forEachRemaining(p -> edge.property(p.key(), p.value()));
+        this.graph.edges.put(edge.id(), edge);
+        TinkerHelper.addToLabelRegistry(this.graph.edgesByLabel, edge.label(), edge);
+        TinkerHelper.addOutEdge(outVertex, edge.label(), edge);
+        return edge;
+    }
+
+    private static <T> void invokeAll(final ExecutorService pool, final List<T> items, final Task<T> task) throws IOException {
+        final List<Future<?>> futures = new ArrayList<>(items.size());
+        for (final T item : items) {
+            futures.add(pool.submit((Callable<Void>) () -> {
+                task.run(item);
+                return null;
+            }));
+        }
+        await(futures);
+    }
+
+    private static void await(final List<Future<?>> futures) throws IOException {
+        try {
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    @FunctionalInterface
+    private interface Task<T> {
+        void run(final T item) throws Exception;
+    }
+
+    /**
+     * A byte range of the file along with the records decoded from it.
+     */
+    private static final class Range {
+        private final long from;
+        private final long to;
+
+        /**
+         * The position of the first record decoded or -1 if decoding failed.
+         */
+        private long start = -1;
+
+        /**
+         * The position of the first record that was not decoded.
+         */
+        private long end = -1;
+
+        private List<StarGraph> starGraphs = new ArrayList<>();
+        private List<List<TinkerEdge>> inEdges;
+
+        private Range(final long from, final long to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * An {@code Input} over the rest of the file that fails to read a string or an array that is longer than the bytes
+     * that are left.
+     */
+    private static final class BoundedInput extends Input {
+        private final long size;
+
+        private BoundedInput(final InputStream input, final long size) {
+            super(input, 1 << 16);
+            this.size = size;
+        }
+
+        /**
+         * Fails if the count is larger than the bytes left, including those of the count itself.
+         */
+        private void checkCount(final long count) {
+            final long left = this.size - this.total();
+            if (count > left)
+                throw new KryoException(String.format("A count of %s exceeds the %s bytes left", count, left));
+        }
+
+        /**
+         * Checks the count that a serializer reads first as a positive variable length int.
+         */
+        private void checkVarInt() {
+            long count = 0;
+            for (int i = 0; i < 5; i++) {
+                require(i + 1);
+                final int b = this.buffer[this.position + i];
+                count |= (long) (b & 0x7F) << (7 * i);
+                if ((b & 0x80) == 0) break;
+            }
+            checkCount(count);
+        }
+
+        @Override
+        public String readString() {
+            // the length of a string that is not ascii is one more than its number of characters and carries two
+            // flags in its first byte
+            require(1);
+            int b = this.buffer[this.position];
+            if ((b & 0x80) != 0) {
+                long length = b & 0x3F;
+                for (int i = 1; i < 5 && (b & (1 == i ? 0x40 : 0x80)) != 0; i++) {
+                    require(i + 1);
+                    b = this.buffer[this.position + i];
+                    length |= (long) (b & 0x7F) << (7 * i - 1);
+                }
+                checkCount(length - 1);
+            }
+            return super.readString();
+        }
+
+        @Override
+        public byte[] readBytes(final int length) {
+            checkCount(length);
+            return super.readBytes(length);
+        }
+
+        @Override
+        public char[] readChars(final int length) {
+            checkCount(length);
+            return super.readChars(length);
+        }
+
+        @Override
+        public short[] readShorts(final int length) {
+            checkCount(length);
+            return super.readShorts(length);
+        }
+
+        @Override
+        public int[] readInts(final int length, final boolean optimizePositive) {
+            checkCount(length);
+            return super.readInts(length, optimizePositive);
+        }
+
+        @Override
+        public int[] readInts(final int length) {
+            checkCount(length);
+            return super.readInts(length);
+        }
+
+        @Override
+        public long[] readLongs(final int length, final boolean optimizePositive) {
+            checkCount(length);
+            return super.readLongs(length, optimizePositive);
+        }
+
+        @Override
+        public long[] readLongs(final int length) {
+            checkCount(length);
+            return super.readLongs(length);
+        }
+
+        @Override
+        public float[] readFloats(final int length) {
+            checkCount(length);
+            return super.readFloats(length);
+        }
+
+        @Override
+        public double[] readDoubles(final int length) {
+            checkCount(length);
+            return super.readDoubles(length);
+        }
+    }
+
+    /**
+     * Checks the count that the serializer of one of the {@link #PRESIZED_CLASSES} sizes an array by before it reads
+     * the object.
+     */
+    private static final class BoundedSerializer<T> extends Serializer<T> {
+        private final Serializer<T> serializer;
+
+        private BoundedSerializer(final Serializer<T> serializer) {
+            super(serializer.getAcceptsNull(), serializer.isImmutable());
+            this.serializer = serializer;
+        }
+
+        @Override
+        public void setGenerics(final Kryo kryo, final Class[] generics) {
+            this.serializer.setGenerics(kryo, generics);
+        }
+
+        @Override
+        public void write(final Kryo kryo, final Output output, final T object) {
+            this.serializer.write(kryo, output, object);
+        }
+
+        @Override
+        public T read(final Kryo kryo, final Input input, final Class<T> type) {
+            if (input instanceof BoundedInput) ((BoundedInput) input).checkVarInt();
+            return this.serializer.read(kryo, input, type);
+        }
+
+        @Override
+        public T copy(final Kryo kryo, final T original) {
+            return this.serializer.copy(kryo, original);
+        }
+    }
+}
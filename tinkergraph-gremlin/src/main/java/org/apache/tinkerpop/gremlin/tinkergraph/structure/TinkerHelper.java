@@ -20,6 +20,7 @@ package org.apache.tinkerpop.gremlin.tinkergraph.structure;
 
 import org.apache.tinkerpop.gremlin.process.computer.GraphFilter;
 import org.apache.tinkerpop.gremlin.process.computer.VertexComputeKey;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
 import org.apache.tinkerpop.gremlin.structure.Direction;
 import org.apache.tinkerpop.gremlin.structure.Edge;
 import org.apache.tinkerpop.gremlin.structure.Element;
@@ -32,15 +33,19 @@ import org.apache.tinkerpop.gremlin.tinkergraph.process.computer.TinkerGraphComp
 import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -67,33 +72,293 @@ public final class TinkerHelper {
             idValue = graph.edgeIdManager.getNextId(graph);
         }
 
-        edge = new TinkerEdge(idValue, outVertex, label, inVertex);
+        edge = createEdge(graph, idValue, outVertex, label, inVertex);
         ElementHelper.attachProperties(edge, keyValues);
         graph.edges.put(edge.id(), edge);
-        TinkerHelper.addOutEdge(outVertex, label, edge);
-        TinkerHelper.addInEdge(inVertex, label, edge);
+        TinkerHelper.addToLabelRegistry(graph.edgesByLabel, edge.label(), edge);
+        TinkerHelper.addOutEdge(outVertex, edge.label(), edge);
+        TinkerHelper.addInEdge(inVertex, edge.label(), edge);
+        if (null != graph.journal) graph.journal.addEdge((TinkerEdge) edge);
         return edge;
 
     }
 
+    /**
+     * Creates an edge of the kind that the adjacency of the graph stores, which is a {@link TinkerCompactEdge} when
+     * the graph uses compact adjacency.
+     */
+    protected static TinkerEdge createEdge(final TinkerGraph graph, final Object id, final Vertex outVertex,
+                                           final String label, final Vertex inVertex) {
+        return graph.compactAdjacency ?
+                new TinkerCompactEdge(id, outVertex, label, inVertex) :
+                new TinkerEdge(id, outVertex, label, inVertex);
+    }
+
+    /**
+     * Gets the instance of the label or key that the dictionary of the graph shares or the string itself if the
+     * graph has no dictionary.
+     */
+    protected static String intern(final TinkerGraph graph, final String string) {
+        return null == graph.dictionary ? string : graph.dictionary.intern(string);
+    }
+
+    /**
+     * Gets the instance of the value that the dictionary of the graph shares if it deduplicates the values of the
+     * key or the value itself otherwise.
+     */
+    protected static <V> V intern(final TinkerGraph graph, final String key, final V value) {
+        return null == graph.dictionary ? value : graph.dictionary.internValue(key, value);
+    }
+
     protected static void addOutEdge(final TinkerVertex vertex, final String label, final Edge edge) {
-        if (null == vertex.outEdges) vertex.outEdges = new HashMap<>();
-        Set<Edge> edges = vertex.outEdges.get(label);
-        if (null == edges) {
-            edges = new HashSet<>();
-            vertex.outEdges.put(label, edges);
-        }
-        edges.add(edge);
+        vertex.outEdges = addEdge(vertex, vertex.outEdges, Direction.OUT, label, edge);
+        final TinkerEdgeExistenceIndex edgeExistenceIndex = ((TinkerGraph) vertex.graph()).edgeExistenceIndex;
+        if (null != edgeExistenceIndex) edgeExistenceIndex.add(edge);
     }
 
     protected static void addInEdge(final TinkerVertex vertex, final String label, final Edge edge) {
-        if (null == vertex.inEdges) vertex.inEdges = new HashMap<>();
-        Set<Edge> edges = vertex.inEdges.get(label);
-        if (null == edges) {
-            edges = new HashSet<>();
-            vertex.inEdges.put(label, edges);
+        vertex.inEdges = addEdge(vertex, vertex.inEdges, Direction.IN, label, edge);
+    }
+
+    protected static void removeOutEdge(final TinkerVertex vertex, final String label, final Edge edge) {
+        vertex.outEdges = removeEdges(vertex, vertex.outEdges, Collections.singletonMap(label, Collections.singleton(edge)));
+        final TinkerEdgeExistenceIndex edgeExistenceIndex = ((TinkerGraph) vertex.graph()).edgeExistenceIndex;
+        if (null != edgeExistenceIndex) edgeExistenceIndex.remove(edge);
+    }
+
+    protected static void removeInEdge(final TinkerVertex vertex, final String label, final Edge edge) {
+        vertex.inEdges = removeEdges(vertex, vertex.inEdges, Collections.singletonMap(label, Collections.singleton(edge)));
+    }
+
+    /**
+     * Removes the edges of a vertex that is being removed. In the copy-on-write mode, where every removal copies the
+     * edges with its label of both of its vertices, the edges are grouped so that the edges of each vertex are copied
+     * once per label rather than once per edge, which would take quadratic time for a vertex with many edges.
+     */
+    protected static void removeEdges(final TinkerGraph graph, final Collection<Edge> edges) {
+        if (!graph.copyOnWrite) {
+            edges.stream().filter(edge -> !((TinkerEdge) edge).removed).forEach(Edge::remove);
+            return;
+        }
+
+        // an edge from the vertex to itself appears among its out and its in edges
+        final Map<TinkerVertex, Map<String, Set<Edge>>> outEdges = new HashMap<>();
+        final Map<TinkerVertex, Map<String, Set<Edge>>> inEdges = new HashMap<>();
+        final Set<TinkerEdge> removed = new LinkedHashSet<>();
+        for (final Edge edge : edges) {
+            final TinkerEdge tinkerEdge = (TinkerEdge) edge;
+            if (tinkerEdge.removed || !removed.add(tinkerEdge))
+                continue;
+            if (null != tinkerEdge.outVertex)
+                outEdges.computeIfAbsent((TinkerVertex) tinkerEdge.outVertex, v -> new HashMap<>())
+                        .computeIfAbsent(tinkerEdge.label, l -> new HashSet<>()).add(tinkerEdge);
+            if (null != tinkerEdge.inVertex)
+                inEdges.computeIfAbsent((TinkerVertex) tinkerEdge.inVertex, v -> new HashMap<>())
+                        .computeIfAbsent(tinkerEdge.label, l -> new HashSet<>()).add(tinkerEdge);
+        }
+
+        outEdges.forEach((vertex, byLabel) -> vertex.outEdges = removeEdges(vertex, vertex.outEdges, byLabel));
+        inEdges.forEach((vertex, byLabel) -> vertex.inEdges = removeEdges(vertex, vertex.inEdges, byLabel));
+        for (final TinkerEdge edge : removed) {
+            if (null != graph.edgeExistenceIndex && null != edge.outVertex) graph.edgeExistenceIndex.remove(edge);
+            edge.removeFromGraph();
+        }
+    }
+
+    private static Map<String, Set<Edge>> addEdge(final TinkerVertex vertex, final Map<String, Set<Edge>> adjacency,
+                                                  final Direction direction, final String label, final Edge edge) {
+        final TinkerGraph graph = (TinkerGraph) vertex.graph();
+        Set<Edge> edges = null == adjacency ? null : adjacency.get(label);
+        if (null != edges) {
+            // edge arrays are appended to in place even when copying on write as readers stop at their old size
+            edges.add(edge);
+            return adjacency;
         }
+
+        edges = graph.compactAdjacency ? new TinkerEdgeArray(direction) : new HashSet<>();
         edges.add(edge);
+        if (graph.copyOnWrite) {
+            final Map<String, Set<Edge>> copy = null == adjacency ? new HashMap<>() : new HashMap<>(adjacency);
+            copy.put(label, edges);
+            return Collections.unmodifiableMap(copy);
+        }
+        final Map<String, Set<Edge>> map = null == adjacency ? new HashMap<>() : adjacency;
+        map.put(label, edges);
+        return map;
+    }
+
+    private static Map<String, Set<Edge>> removeEdges(final TinkerVertex vertex, final Map<String, Set<Edge>> adjacency,
+                                                      final Map<String, Set<Edge>> removals) {
+        if (null == adjacency)
+            return null;
+        if (((TinkerGraph) vertex.graph()).copyOnWrite) {
+            Map<String, Set<Edge>> copy = null;
+            for (final Map.Entry<String, Set<Edge>> removal : removals.entrySet()) {
+                final Set<Edge> edges = adjacency.get(removal.getKey());
+                if (null == edges || removal.getValue().stream().noneMatch(edges::contains))
+                    continue;
+                if (null == copy)
+                    copy = new HashMap<>(adjacency);
+                final TinkerEdgeArray remaining = ((TinkerEdgeArray) edges).without(removal.getValue());
+                if (remaining.isEmpty())
+                    copy.remove(removal.getKey());
+                else
+                    copy.put(removal.getKey(), remaining);
+            }
+            return null == copy ? adjacency : Collections.unmodifiableMap(copy);
+        }
+        removals.forEach((label, removed) -> {
+            final Set<Edge> edges = adjacency.get(label);
+            if (null != edges) edges.removeAll(removed);
+        });
+        return adjacency;
+    }
+
+    protected static void addVertexProperty(final TinkerVertex vertex, final VertexProperty<?> vertexProperty) {
+        final String key = vertexProperty.key();
+        if (((TinkerGraph) vertex.graph()).copyOnWrite) {
+            final Map<String, List<VertexProperty>> copy = null == vertex.properties ? new HashMap<>() : new HashMap<>(vertex.properties);
+            final List<VertexProperty> list = new ArrayList<>(copy.getOrDefault(key, Collections.emptyList()));
+            list.add(vertexProperty);
+            copy.put(key, Collections.unmodifiableList(list));
+            vertex.properties = Collections.unmodifiableMap(copy);
+        } else {
+            if (null == vertex.properties) vertex.properties = new HashMap<>();
+            final List<VertexProperty> list = vertex.properties.getOrDefault(key, new ArrayList<>());
+            list.add(vertexProperty);
+            vertex.properties.put(key, list);
+        }
+    }
+
+    /**
+     * Removes the vertex property from its vertex and tells if it was the last one with its key.
+     */
+    protected static boolean removeVertexProperty(final TinkerVertex vertex, final VertexProperty<?> vertexProperty) {
+        final String key = vertexProperty.key();
+        final Map<String, List<VertexProperty>> properties = vertex.properties;
+        final List<VertexProperty> list = null == properties ? null : properties.get(key);
+        if (null == list)
+            return false;
+        if (((TinkerGraph) vertex.graph()).copyOnWrite) {
+            final List<VertexProperty> remaining = new ArrayList<>(list);
+            remaining.remove(vertexProperty);
+            final Map<String, List<VertexProperty>> copy = new HashMap<>(properties);
+            if (remaining.isEmpty())
+                copy.remove(key);
+            else
+                copy.put(key, Collections.unmodifiableList(remaining));
+            vertex.properties = Collections.unmodifiableMap(copy);
+            return remaining.isEmpty();
+        }
+        list.remove(vertexProperty);
+        if (!list.isEmpty())
+            return false;
+        properties.remove(key);
+        return true;
+    }
+
+    /**
+     * Puts the property into the properties of an edge or a vertex property and returns the properties to keep.
+     */
+    protected static Map<String, Property> putProperty(final TinkerGraph graph, final Map<String, Property> properties,
+                                                       final Property<?> property) {
+        if (graph.copyOnWrite) {
+            final Map<String, Property> copy = null == properties ? new HashMap<>() : new HashMap<>(properties);
+            copy.put(property.key(), property);
+            return Collections.unmodifiableMap(copy);
+        }
+        final Map<String, Property> map = null == properties ? new HashMap<>() : properties;
+        map.put(property.key(), property);
+        return map;
+    }
+
+    /**
+     * Removes the key from the properties of an edge or a vertex property and returns the properties to keep.
+     */
+    protected static Map<String, Property> removeProperty(final TinkerGraph graph, final Map<String, Property> properties,
+                                                          final String key) {
+        if (null == properties || !properties.containsKey(key))
+            return properties;
+        if (graph.copyOnWrite) {
+            final Map<String, Property> copy = new HashMap<>(properties);
+            copy.remove(key);
+            return Collections.unmodifiableMap(copy);
+        }
+        properties.remove(key);
+        return properties;
+    }
+
+    /**
+     * Count the edges of the vertex in the specified direction that have one of the labels, or all of its edges in
+     * that direction if no labels are given, from the sizes of its adjacency sets and so without iterating them.
+     */
+    public static long getDegree(final TinkerVertex vertex, final Direction direction, final String... edgeLabels) {
+        long degree = 0;
+        if (direction.equals(Direction.OUT) || direction.equals(Direction.BOTH))
+            degree += getDegree(vertex.outEdges, edgeLabels);
+        if (direction.equals(Direction.IN) || direction.equals(Direction.BOTH))
+            degree += getDegree(vertex.inEdges, edgeLabels);
+        return degree;
+    }
+
+    private static long getDegree(final Map<String, Set<Edge>> edges, final String... edgeLabels) {
+        if (null == edges)
+            return 0;
+        long degree = 0;
+        if (edgeLabels.length == 0) {
+            for (final Set<Edge> labeled : edges.values()) {
+                degree += labeled.size();
+            }
+        } else {
+            for (final String label : new HashSet<>(Arrays.asList(edgeLabels))) {
+                degree += edges.getOrDefault(label, Collections.emptySet()).size();
+            }
+        }
+        return degree;
+    }
+
+    protected static <E extends Element> void addToLabelRegistry(final Map<String, Set<E>> registry, final String label, final E element) {
+        registry.compute(label, (l, elements) -> {
+            final Set<E> set = null == elements ? ConcurrentHashMap.newKeySet() : elements;
+            set.add(element);
+            return set;
+        });
+    }
+
+    protected static <E extends Element> void removeFromLabelRegistry(final Map<String, Set<E>> registry, final String label, final E element) {
+        registry.computeIfPresent(label, (l, elements) -> {
+            elements.remove(element);
+            return elements.isEmpty() ? null : elements;
+        });
+    }
+
+    /**
+     * Iterate the elements of the specified class that have one of the labels from the per-label registries of the
+     * graph. The iterator is weakly consistent and so may or may not reflect changes made to the graph while iterating.
+     */
+    public static <E extends Element> Iterator<E> iterateElementsByLabel(final TinkerGraph graph, final Class<E> elementClass,
+                                                                         final Collection<String> labels) {
+        final Map<String, ? extends Set<? extends Element>> registry = Vertex.class.isAssignableFrom(elementClass) ?
+                graph.verticesByLabel : graph.edgesByLabel;
+        return IteratorUtils.flatMap(new LinkedHashSet<>(labels).iterator(), label -> {
+            final Set<? extends Element> labeled = registry.get(label);
+            return null == labeled ? Collections.emptyIterator() : (Iterator<E>) labeled.iterator();
+        });
+    }
+
+    /**
+     * Count the elements of the specified class that have one of the labels.
+     */
+    public static long countElementsByLabel(final TinkerGraph graph, final Class<? extends Element> elementClass,
+                                            final Collection<String> labels) {
+        final Map<String, ? extends Set<? extends Element>> registry = Vertex.class.isAssignableFrom(elementClass) ?
+                graph.verticesByLabel : graph.edgesByLabel;
+        long count = 0;
+        for (final String label : new LinkedHashSet<>(labels)) {
+            final Set<? extends Element> labeled = registry.get(label);
+            if (null != labeled) count += labeled.size();
+        }
+        return count;
     }
 
     public static List<TinkerVertex> queryVertexIndex(final TinkerGraph graph, final String key, final Object value) {
@@ -104,10 +369,88 @@ public final class TinkerHelper {
         return null == graph.edgeIndex ? Collections.emptyList() : graph.edgeIndex.get(key, value);
     }
 
+    /**
+     * Count the elements of the specified class that an index lookup of the key and value would return.
+     */
+    public static long countIndex(final TinkerGraph graph, final Class<? extends Element> elementClass, final String key, final Object value) {
+        final TinkerIndex<?> index = Vertex.class.isAssignableFrom(elementClass) ? graph.vertexIndex : graph.edgeIndex;
+        return null == index ? 0 : index.count(key, value);
+    }
+
+    /**
+     * Count the elements of the specified class that a composite index lookup of the keys and values would return.
+     */
+    public static long countCompositeIndex(final TinkerGraph graph, final Class<? extends Element> elementClass,
+                                           final List<String> keys, final List<Object> values) {
+        final TinkerIndex<?> index = Vertex.class.isAssignableFrom(elementClass) ? graph.vertexIndex : graph.edgeIndex;
+        return null == index ? 0 : index.countComposite(keys, values);
+    }
+
+    /**
+     * Iterate the elements of the specified class that an index lookup of the key and value would return without
+     * copying them. The iterator is weakly consistent.
+     */
+    public static <E extends Element> Iterator<E> iterateIndex(final TinkerGraph graph, final Class<E> elementClass,
+                                                               final String key, final Object value) {
+        final TinkerIndex<?> index = Vertex.class.isAssignableFrom(elementClass) ? graph.vertexIndex : graph.edgeIndex;
+        return null == index ? Collections.emptyIterator() : (Iterator<E>) index.iterator(key, value);
+    }
+
+    /**
+     * Iterate the elements of the specified class that a composite index lookup of the keys and values would return
+     * without copying them. The iterator is weakly consistent.
+     */
+    public static <E extends Element> Iterator<E> iterateCompositeIndex(final TinkerGraph graph, final Class<E> elementClass,
+                                                                        final List<String> keys, final List<Object> values) {
+        final TinkerIndex<?> index = Vertex.class.isAssignableFrom(elementClass) ? graph.vertexIndex : graph.edgeIndex;
+        return null == index ? Collections.emptyIterator() : (Iterator<E>) index.compositeIterator(keys, values);
+    }
+
+    /**
+     * Iterate a {@link TinkerGraph.IndexType#SORTED} index of the specified class lazily in index order, reading the
+     * range described by the {@code Compare} predicates of the {@link HasContainer} instances on the specified key
+     * only as far as the iterator is consumed. The iterator is weakly consistent.
+     */
+    public static <E extends Element> Iterator<E> iterateIndexRange(final TinkerGraph graph, final Class<E> elementClass,
+                                                                    final String key, final List<HasContainer> hasContainers,
+                                                                    final boolean descending) {
+        final TinkerIndex<?> index = Vertex.class.isAssignableFrom(elementClass) ? graph.vertexIndex : graph.edgeIndex;
+        return null == index ? Collections.emptyIterator() : (Iterator<E>) index.rangeIterator(key, hasContainers, descending);
+    }
+
+    /**
+     * Determines if the predicate of the {@link HasContainer} can be answered by a range of a
+     * {@link TinkerGraph.IndexType#SORTED} index.
+     */
+    public static boolean isRangeable(final HasContainer hasContainer) {
+        return TinkerIndex.isRangeable(hasContainer.getBiPredicate());
+    }
+
     public static boolean inComputerMode(final TinkerGraph graph) {
         return null != graph.graphComputerView;
     }
 
+    public static boolean hasEdgeExistenceIndex(final TinkerGraph graph) {
+        return null != graph.edgeExistenceIndex;
+    }
+
+    /**
+     * Gets the edges with the label from the out vertex to the in vertex from the edge existence index of the graph,
+     * which must be enabled with {@link TinkerGraph#GREMLIN_TINKERGRAPH_EDGE_EXISTENCE_INDEX}.
+     */
+    public static List<Edge> queryEdgeExistenceIndex(final TinkerGraph graph, final Vertex outVertex, final String label,
+                                                     final Vertex inVertex) {
+        return graph.edgeExistenceIndex.get(outVertex.id(), label, inVertex.id());
+    }
+
+    /**
+     * Gets the number of traversers that a {@code mergeV()} or {@code mergeE()} step resolves together, where a value
+     * of one or less resolves every traverser on its own.
+     */
+    public static int getMergeBatchSize(final TinkerGraph graph) {
+        return graph.mergeBatchSize;
+    }
+
     public static TinkerGraphComputerView createGraphComputerView(final TinkerGraph graph, final GraphFilter graphFilter, final Set<VertexComputeKey> computeKeys) {
         return graph.graphComputerView = new TinkerGraphComputerView(graph, graphFilter, computeKeys);
     }
@@ -128,58 +471,72 @@ public final class TinkerHelper {
         final TinkerGraph graph = (TinkerGraph) edge.graph();
         if (graph.edgeIndex != null)
             graph.edgeIndex.autoUpdate(key, newValue, oldValue, edge);
+        if (graph.edgeTextIndex != null)
+            graph.edgeTextIndex.autoUpdate(key, newValue, oldValue, edge);
     }
 
     public static void autoUpdateIndex(final TinkerVertex vertex, final String key, final Object newValue, final Object oldValue) {
         final TinkerGraph graph = (TinkerGraph) vertex.graph();
         if (graph.vertexIndex != null)
             graph.vertexIndex.autoUpdate(key, newValue, oldValue, vertex);
+        if (graph.vertexTextIndex != null)
+            graph.vertexTextIndex.autoUpdate(key, newValue, oldValue, vertex);
     }
 
     public static void removeElementIndex(final TinkerVertex vertex) {
         final TinkerGraph graph = (TinkerGraph) vertex.graph();
         if (graph.vertexIndex != null)
             graph.vertexIndex.removeElement(vertex);
+        if (graph.vertexTextIndex != null)
+            graph.vertexTextIndex.removeElement(vertex);
     }
 
     public static void removeElementIndex(final TinkerEdge edge) {
         final TinkerGraph graph = (TinkerGraph) edge.graph();
         if (graph.edgeIndex != null)
             graph.edgeIndex.removeElement(edge);
+        if (graph.edgeTextIndex != null)
+            graph.edgeTextIndex.removeElement(edge);
     }
 
     public static void removeIndex(final TinkerVertex vertex, final String key, final Object value) {
         final TinkerGraph graph = (TinkerGraph) vertex.graph();
         if (graph.vertexIndex != null)
             graph.vertexIndex.remove(key, value, vertex);
+        if (graph.vertexTextIndex != null)
+            graph.vertexTextIndex.remove(key, value, vertex);
     }
 
     public static void removeIndex(final TinkerEdge edge, final String key, final Object value) {
         final TinkerGraph graph = (TinkerGraph) edge.graph();
         if (graph.edgeIndex != null)
             graph.edgeIndex.remove(key, value, edge);
+        if (graph.edgeTextIndex != null)
+            graph.edgeTextIndex.remove(key, value, edge);
     }
 
     public static Iterator<TinkerEdge> getEdges(final TinkerVertex vertex, final Direction direction, final String... edgeLabels) {
         final List<Edge> edges = new ArrayList<>();
+        final Map<String, Set<Edge>> outEdges = vertex.outEdges;
+        final Map<String, Set<Edge>> inEdges = vertex.inEdges;
         if (direction.equals(Direction.OUT) || direction.equals(Direction.BOTH)) {
-            if (vertex.outEdges != null) {
+            if (outEdges != null) {
                 if (edgeLabels.length == 0)
-                    vertex.outEdges.values().forEach(edges::addAll);
+                    outEdges.values().forEach(edges::addAll);
                 else if (edgeLabels.length == 1)
-                    edges.addAll(vertex.outEdges.getOrDefault(edgeLabels[0], Collections.emptySet()));
+                    edges.addAll(outEdges.getOrDefault(edgeLabels[0], Collections.emptySet()));
                 else
-                    Stream.of(edgeLabels).map(vertex.outEdges::get).filter(Objects::nonNull).forEach(edges::addAll);
+                    Stream.of(edgeLabels).map(outEdges::get).filter(Objects::nonNull).forEach(edges::addAll);
             }
         }
         if (direction.equals(Direction.IN) || direction.equals(Direction.BOTH)) {
-            if (vertex.inEdges != null) {
+            if (inEdges != null) {
                 if (edgeLabels.length == 0)
-                    vertex.inEdges.values().forEach(edges::addAll);
+                    inEdges.values().forEach(edges::addAll);
                 else if (edgeLabels.length == 1)
-                    edges.addAll(vertex.inEdges.getOrDefault(edgeLabels[0], Collections.emptySet()));
+                    edges.addAll(inEdges.getOrDefault(edgeLabels[0], Collections.emptySet()));
                 else
-                    Stream.of(edgeLabels).map(vertex.inEdges::get).filter(Objects::nonNull).forEach(edges::addAll);
+                    Stream.of(edgeLabels).map(inEdges::get).filter(Objects::nonNull).forEach(edges::addAll);
             }
         }
         return (Iterator) edges.iterator();
@@ -187,24 +544,26 @@ public final class TinkerHelper {
 
     public static Iterator<TinkerVertex> getVertices(final TinkerVertex vertex, final Direction direction, final String... edgeLabels) {
         final List<Vertex> vertices = new ArrayList<>();
+        final Map<String, Set<Edge>> outEdges = vertex.outEdges;
+        final Map<String, Set<Edge>> inEdges = vertex.inEdges;
         if (direction.equals(Direction.OUT) || direction.equals(Direction.BOTH)) {
-            if (vertex.outEdges != null) {
+            if (outEdges != null) {
                 if (edgeLabels.length == 0)
-                    vertex.outEdges.values().forEach(set -> set.forEach(edge -> vertices.add(((TinkerEdge) edge).inVertex)));
+                    outEdges.values().forEach(set -> set.forEach(edge -> vertices.add(((TinkerEdge) edge).inVertex)));
                 else if (edgeLabels.length == 1)
-                    vertex.outEdges.getOrDefault(edgeLabels[0], Collections.emptySet()).forEach(edge -> vertices.add(((TinkerEdge) edge).inVertex));
+                    outEdges.getOrDefault(edgeLabels[0], Collections.emptySet()).forEach(edge -> vertices.add(((TinkerEdge) edge).inVertex));
                 else
-                    Stream.of(edgeLabels).map(vertex.outEdges::get).filter(Objects::nonNull).flatMap(Set::stream).forEach(edge -> vertices.add(((TinkerEdge) edge).inVertex));
+                    Stream.of(edgeLabels).map(outEdges::get).filter(Objects::nonNull).flatMap(Set::stream).forEach(edge -> vertices.add(((TinkerEdge) edge).inVertex));
             }
         }
         if (direction.equals(Direction.IN) || direction.equals(Direction.BOTH)) {
-            if (vertex.inEdges != null) {
+            if (inEdges != null) {
                 if (edgeLabels.length == 0)
-                    vertex.inEdges.values().forEach(set -> set.forEach(edge -> vertices.add(((TinkerEdge) edge).outVertex)));
+                    inEdges.values().forEach(set -> set.forEach(edge -> vertices.add(((TinkerEdge) edge).outVertex)));
                 else if (edgeLabels.length == 1)
-                    vertex.inEdges.getOrDefault(edgeLabels[0], Collections.emptySet()).forEach(edge -> vertices.add(((TinkerEdge) edge).outVertex));
+                    inEdges.getOrDefault(edgeLabels[0], Collections.emptySet()).forEach(edge -> vertices.add(((TinkerEdge) edge).outVertex));
                 else
-                    Stream.of(edgeLabels).map(vertex.inEdges::get).filter(Objects::nonNull).flatMap(Set::stream).forEach(edge -> vertices.add(((TinkerEdge) edge).outVertex));
+                    Stream.of(edgeLabels).map(inEdges::get).filter(Objects::nonNull).flatMap(Set::stream).forEach(edge -> vertices.add(((TinkerEdge) edge).outVertex));
             }
         }
         return (Iterator) vertices.iterator();
@@ -265,4 +624,31 @@ public final class TinkerHelper {
         return search(graph, regex, Optional.empty());
     }
 
+    /**
+     * Search for {@link Property}s of the key, or of all keys that have a text index if it is {@code null}, by their
+     * text index. The type may be {@link Vertex} or {@link Edge} and if it is not given both are searched.
+     */
+    public static <E extends Element> Iterator<Property> searchText(final TinkerGraph graph, final String key,
+                                                                    final TinkerTextIndex.Mode mode, final String text,
+                                                                    final Optional<Class<E>> type) {
+        final boolean vertices = !type.isPresent() || Vertex.class.isAssignableFrom(type.get());
+        final boolean edges = !type.isPresent() || Edge.class.isAssignableFrom(type.get());
+        if (!vertices && !edges)
+            throw new IllegalArgumentException("A text index can only be searched for Vertex or Edge properties: " + type.get().getSimpleName());
+
+        final List<Property> properties = new ArrayList<>();
+        boolean indexed = false;
+        if (vertices && null != graph.vertexTextIndex && (null == key || graph.vertexTextIndex.getIndexedKeys().contains(key))) {
+            properties.addAll(graph.vertexTextIndex.search(key, mode, text));
+            indexed = true;
+        }
+        if (edges && null != graph.edgeTextIndex && (null == key || graph.edgeTextIndex.getIndexedKeys().contains(key))) {
+            properties.addAll(graph.edgeTextIndex.search(key, mode, text));
+            indexed = true;
+        }
+        if (!indexed && null != key)
+            throw new IllegalArgumentException("There is no text index on the key " + key);
+        return properties.iterator();
+    }
+
 }
@@ -18,25 +18,44 @@
  */
 package org.apache.tinkerpop.gremlin.tinkergraph.structure;
 
+import org.apache.tinkerpop.gremlin.process.traversal.Compare;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
 import org.apache.tinkerpop.gremlin.structure.Element;
 import org.apache.tinkerpop.gremlin.structure.Graph;
 import org.apache.tinkerpop.gremlin.structure.Property;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.util.GremlinValueComparator;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
 final class TinkerIndex<T extends Element> {
 
+    /**
+     * Orders the keys of a {@link TinkerGraph.IndexType#SORTED} index with Gremlin orderability semantics so that
+     * ranges of the index line up with the ranges that {@link Compare} predicates select.
+     */
+    private static final Comparator<Object> SORTED_INDEX_COMPARATOR = (a, b) ->
+            GremlinValueComparator.ORDERABILITY.compare(unindexable(a), unindexable(b));
+
     protected Map<String, Map<Object, Set<T>>> index = new ConcurrentHashMap<>();
+    protected Map<String, NavigableMap<Object, Set<T>>> sortedIndex = new ConcurrentHashMap<>();
+    protected Map<List<String>, Map<List<Object>, Set<T>>> compositeIndex = new ConcurrentHashMap<>();
     protected final Class<T> indexClass;
     private final Set<String> indexedKeys = new HashSet<>();
     private final TinkerGraph graph;
@@ -47,21 +66,22 @@ final class TinkerIndex<T extends Element> {
     }
 
     protected void put(final String key, final Object value, final T element) {
-        Map<Object, Set<T>> keyMap = this.index.get(key);
+        Map<Object, Set<T>> keyMap = getKeyMap(key);
         if (null == keyMap) {
             this.index.putIfAbsent(key, new ConcurrentHashMap<>());
             keyMap = this.index.get(key);
         }
-        Set<T> objects = keyMap.get(value);
+        final Object indexableValue = indexable(value);
+        Set<T> objects = keyMap.get(indexableValue);
         if (null == objects) {
-            keyMap.putIfAbsent(value, ConcurrentHashMap.newKeySet());
-            objects = keyMap.get(value);
+            keyMap.putIfAbsent(indexableValue, ConcurrentHashMap.newKeySet());
+            objects = keyMap.get(indexableValue);
         }
         objects.add(element);
     }
 
     public List<T> get(final String key, final Object value) {
-        final Map<Object, Set<T>> keyMap = this.index.get(key);
+        final Map<Object, Set<T>> keyMap = getKeyMap(key);
         if (null == keyMap) {
             return Collections.emptyList();
         } else {
@@ -73,8 +93,135 @@ final class TinkerIndex<T extends Element> {
         }
     }
 
+    /**
+     * Gets the same elements as {@link #get(String, Object)} without copying them. The iterator is weakly consistent
+     * and so may or may not reflect changes made to the index while iterating.
+     */
+    public Iterator<T> iterator(final String key, final Object value) {
+        final Map<Object, Set<T>> keyMap = getKeyMap(key);
+        if (null == keyMap) {
+            return Collections.emptyIterator();
+        } else {
+            final Set<T> set = keyMap.get(indexable(value));
+            return null == set ? Collections.emptyIterator() : set.iterator();
+        }
+    }
+
+    /**
+     * Gets the elements of a {@link TinkerGraph.IndexType#SORTED} index on the specified key that could satisfy the
+     * {@link Compare} predicates of the supplied {@link HasContainer} instances for that key. Results are returned in
+     * the order of the index (optionally reversed) and are a superset of the actual matches as elements must still be
+     * tested against the containers. Containers for other keys or with other predicates are ignored. The index is
+     * read lazily, only as far as the iterator is consumed. The iterator is weakly consistent and so may or may not
+     * reflect changes made to the index while iterating.
+     */
+    public Iterator<T> rangeIterator(final String key, final List<HasContainer> hasContainers, final boolean descending) {
+        final Iterator<T> elements = IteratorUtils.flatMap(rangeSets(key, hasContainers, descending), Set::iterator);
+        if (!Vertex.class.isAssignableFrom(this.indexClass))
+            return elements;
+
+        // a vertex with several values for the key is indexed under each of them and so may be found more than once
+        // in a range. only those vertices need to be remembered to return each element a single time
+        final Set<T> seen = new HashSet<>();
+        return IteratorUtils.filter(elements, e -> !hasMultipleValues(e, key) || seen.add(e));
+    }
+
+    private static boolean hasMultipleValues(final Element element, final String key) {
+        final Iterator<? extends Property<Object>> properties = element.properties(key);
+        if (!properties.hasNext()) return false;
+        properties.next();
+        return properties.hasNext();
+    }
+
+    /**
+     * Counts the elements that {@link #rangeIterator(String, List, boolean)} would return, which takes one step per
+     * distinct value in the range. A vertex with several values in the range is counted once for each of them. The
+     * count stops as soon as it exceeds the limit, so the result is only exact if it is not larger than the limit.
+     */
+    public long countRange(final String key, final List<HasContainer> hasContainers, final long limit) {
+        long count = 0;
+        final Iterator<Set<T>> sets = rangeSets(key, hasContainers, false);
+        while (sets.hasNext() && count <= limit) {
+            count += sets.next().size();
+        }
+        return count;
+    }
+
+    private Iterator<Set<T>> rangeSets(final String key, final List<HasContainer> hasContainers, final boolean descending) {
+        final NavigableMap<Object, Set<T>> keyMap = this.sortedIndex.get(key);
+        if (null == keyMap) return Collections.emptyIterator();
+
+        Object from = null, to = null;
+        boolean hasFrom = false, hasTo = false, fromInclusive = true, toInclusive = true;
+        for (final HasContainer hasContainer : hasContainers) {
+            if (!key.equals(hasContainer.getKey()) || !isRangeable(hasContainer.getBiPredicate()))
+                continue;
+
+            final Compare compare = (Compare) hasContainer.getBiPredicate();
+            final Object value = indexable(hasContainer.getValue());
+            if (compare == Compare.eq || compare == Compare.gt || compare == Compare.gte) {
+                final int c = hasFrom ? SORTED_INDEX_COMPARATOR.compare(value, from) : 1;
+                if (c > 0 || (c == 0 && compare == Compare.gt)) {
+                    from = value;
+                    fromInclusive = compare != Compare.gt;
+                    hasFrom = true;
+                }
+            }
+            if (compare == Compare.eq || compare == Compare.lt || compare == Compare.lte) {
+                final int c = hasTo ? SORTED_INDEX_COMPARATOR.compare(value, to) : -1;
+                if (c < 0 || (c == 0 && compare == Compare.lt)) {
+                    to = value;
+                    toInclusive = compare != Compare.lt;
+                    hasTo = true;
+                }
+            }
+        }
+
+        // comparisons do not cross type boundaries, so only the block of the index holding values of the same
+        // type as the bounds can contain matches
+        final GremlinValueComparator.Type type = hasFrom ? typeOf(from) : hasTo ? typeOf(to) : null;
+        if (hasFrom && hasTo && (typeOf(to) != type || SORTED_INDEX_COMPARATOR.compare(from, to) > 0))
+            return Collections.emptyIterator();
+
+        NavigableMap<Object, Set<T>> range = keyMap;
+        if (hasFrom) range = range.tailMap(from, fromInclusive);
+        if (hasTo) range = range.headMap(to, toInclusive);
+        if (descending) range = range.descendingMap();
+
+        final Iterator<Map.Entry<Object, Set<T>>> entries = range.entrySet().iterator();
+        if (null == type)
+            return IteratorUtils.map(entries, Map.Entry::getValue);
+
+        return new Iterator<Set<T>>() {
+            private Set<T> next = advance();
+
+            private Set<T> advance() {
+                while (entries.hasNext()) {
+                    final Map.Entry<Object, Set<T>> entry = entries.next();
+                    final int c = typeOf(entry.getKey()).priority() - type.priority();
+                    if (c == 0) return entry.getValue();
+                    if ((c > 0) != descending) return null;
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return null != this.next;
+            }
+
+            @Override
+            public Set<T> next() {
+                if (null == this.next) throw new NoSuchElementException();
+                final Set<T> set = this.next;
+                this.next = advance();
+                return set;
+            }
+        };
+    }
+
     public long count(final String key, final Object value) {
-        final Map<Object, Set<T>> keyMap = this.index.get(key);
+        final Map<Object, Set<T>> keyMap = getKeyMap(key);
         if (null == keyMap) {
             return 0;
         } else {
@@ -86,14 +233,68 @@ final class TinkerIndex<T extends Element> {
         }
     }
 
+    /**
+     * Counts the distinct values of the key in the index or returns -1 if the key is not indexed.
+     */
+    public long countDistinct(final String key) {
+        final Map<Object, Set<T>> keyMap = getKeyMap(key);
+        return null == keyMap ? -1 : keyMap.size();
+    }
+
+    /**
+     * Counts the elements of each value of the key in the index. The map is empty if the key is not indexed.
+     */
+    public Map<Object, Long> histogram(final String key) {
+        final Map<Object, Set<T>> keyMap = getKeyMap(key);
+        if (null == keyMap) return Collections.emptyMap();
+        final Map<Object, Long> histogram = new HashMap<>();
+        keyMap.forEach((value, elements) -> {
+            if (!elements.isEmpty()) histogram.put(unindexable(value), (long) elements.size());
+        });
+        return histogram;
+    }
+
+    /**
+     * Gets the elements of the composite index over the specified keys that have the specified values, which are
+     * given in the order of the keys. The iterator is weakly consistent and so may or may not reflect changes made to
+     * the index while iterating.
+     */
+    public Iterator<T> compositeIterator(final List<String> keys, final List<Object> values) {
+        final Map<List<Object>, Set<T>> tupleMap = this.compositeIndex.get(keys);
+        if (null == tupleMap) {
+            return Collections.emptyIterator();
+        } else {
+            final Set<T> set = tupleMap.get(indexableTuple(values));
+            return null == set ? Collections.emptyIterator() : set.iterator();
+        }
+    }
+
+    public long countComposite(final List<String> keys, final List<Object> values) {
+        final Map<List<Object>, Set<T>> tupleMap = this.compositeIndex.get(keys);
+        if (null == tupleMap) {
+            return 0;
+        } else {
+            final Set<T> set = tupleMap.get(indexableTuple(values));
+            if (null == set)
+                return 0;
+            else
+                return set.size();
+        }
+    }
+
     public void remove(final String key, final Object value, final T element) {
-        final Map<Object, Set<T>> keyMap = this.index.get(key);
+        this.removeValue(key, value, element);
+        this.removeComposite(key, value, element);
+    }
+
+    private void removeValue(final String key, final Object value, final T element) {
+        final Map<Object, Set<T>> keyMap = getKeyMap(key);
         if (null != keyMap) {
             final Set<T> objects = keyMap.get(indexable(value));
             if (null != objects) {
                 objects.remove(element);
                 if (objects.size() == 0) {
-                    keyMap.remove(value);
+                    keyMap.remove(indexable(value));
                 }
             }
         }
@@ -106,25 +307,122 @@ final class TinkerIndex<T extends Element> {
                     set.remove(element);
                 }
             }
+            for (Map<Object, Set<T>> map : sortedIndex.values()) {
+                for (Set<T> set : map.values()) {
+                    set.remove(element);
+                }
+            }
+            for (Map<List<Object>, Set<T>> map : compositeIndex.values()) {
+                for (Set<T> set : map.values()) {
+                    set.remove(element);
+                }
+            }
         }
     }
 
     public void autoUpdate(final String key, final Object newValue, final Object oldValue, final T element) {
         if (this.indexedKeys.contains(key)) {
-            this.remove(key, oldValue, element);
+            this.removeValue(key, oldValue, element);
             this.put(key, newValue, element);
         }
+        this.removeComposite(key, oldValue, element);
+        this.putComposite(key, newValue, element);
+    }
+
+    private void putComposite(final String key, final Object value, final T element) {
+        for (Map.Entry<List<String>, Map<List<Object>, Set<T>>> entry : this.compositeIndex.entrySet()) {
+            if (!entry.getKey().contains(key))
+                continue;
+            final Map<List<Object>, Set<T>> tupleMap = entry.getValue();
+            for (List<Object> tuple : tuples(element, entry.getKey(), key, value)) {
+                Set<T> objects = tupleMap.get(tuple);
+                if (null == objects) {
+                    tupleMap.putIfAbsent(tuple, ConcurrentHashMap.newKeySet());
+                    objects = tupleMap.get(tuple);
+                }
+                objects.add(element);
+            }
+        }
+    }
+
+    private void removeComposite(final String key, final Object value, final T element) {
+        for (Map.Entry<List<String>, Map<List<Object>, Set<T>>> entry : this.compositeIndex.entrySet()) {
+            if (!entry.getKey().contains(key))
+                continue;
+            final Map<List<Object>, Set<T>> tupleMap = entry.getValue();
+            for (List<Object> tuple : tuples(element, entry.getKey(), key, value)) {
+                final Set<T> objects = tupleMap.get(tuple);
+                if (null != objects) {
+                    objects.remove(element);
+                    if (objects.size() == 0) {
+                        tupleMap.remove(tuple);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the tuples under which the element is found in the composite index over the specified keys, taking the
+     * supplied value for the supplied key and the current property values of the element for all other keys. A
+     * vertex with multiple values for a key is found under every combination of its values. There are no tuples if
+     * the element is missing one of the keys.
+     */
+    private List<List<Object>> tuples(final T element, final List<String> keys, final String key, final Object value) {
+        List<List<Object>> tuples = Collections.singletonList(Collections.emptyList());
+        for (String k : keys) {
+            final List<Object> values = new ArrayList<>();
+            if (k.equals(key))
+                values.add(indexable(value));
+            else
+                element.properties(k).forEachRemaining(p -> values.add(indexable(p.value())));
+            if (values.isEmpty())
+                return Collections.emptyList();
+
+            final List<List<Object>> extended = new ArrayList<>(tuples.size() * values.size());
+            for (List<Object> tuple : tuples) {
+                for (Object v : values) {
+                    final List<Object> t = new ArrayList<>(tuple.size() + 1);
+                    t.addAll(tuple);
+                    t.add(v);
+                    extended.add(t);
+                }
+            }
+            tuples = extended;
+        }
+        return tuples;
+    }
+
+    private static List<Object> indexableTuple(final List<Object> values) {
+        final List<Object> tuple = new ArrayList<>(values.size());
+        for (Object value : values) {
+            tuple.add(indexable(value));
+        }
+        return tuple;
     }
 
     public void createKeyIndex(final String key) {
+        createKeyIndex(key, TinkerGraph.IndexType.HASH);
+    }
+
+    public void createKeyIndex(final String key, final TinkerGraph.IndexType indexType) {
         if (null == key)
             throw Graph.Exceptions.argumentCanNotBeNull("key");
         if (key.isEmpty())
             throw new IllegalArgumentException("The key for the index cannot be an empty string");
+        if (null == indexType)
+            throw Graph.Exceptions.argumentCanNotBeNull("indexType");
 
-        if (this.indexedKeys.contains(key))
-            return;
+        if (this.indexedKeys.contains(key)) {
+            if (getIndexType(key) == indexType)
+                return;
+
+            // changing the type of an existing index means rebuilding it from scratch
+            this.dropKeyIndex(key);
+        }
         this.indexedKeys.add(key);
+        if (indexType == TinkerGraph.IndexType.SORTED)
+            this.sortedIndex.put(key, new ConcurrentSkipListMap<>(SORTED_INDEX_COMPARATOR));
 
         (Vertex.class.isAssignableFrom(this.indexClass) ?
                 this.graph.vertices.values().parallelStream() :
@@ -137,10 +435,71 @@ final class TinkerIndex<T extends Element> {
     public void dropKeyIndex(final String key) {
         if (this.index.containsKey(key))
             this.index.remove(key).clear();
+        if (this.sortedIndex.containsKey(key))
+            this.sortedIndex.remove(key).clear();
 
         this.indexedKeys.remove(key);
     }
 
+    public void createCompositeIndex(final List<String> keys) {
+        if (null == keys)
+            throw Graph.Exceptions.argumentCanNotBeNull("keys");
+        if (keys.size() < 2)
+            throw new IllegalArgumentException("A composite index requires at least two keys");
+        if (new HashSet<>(keys).size() != keys.size())
+            throw new IllegalArgumentException("The keys of a composite index must be distinct: " + keys);
+        for (String key : keys) {
+            if (null == key)
+                throw Graph.Exceptions.argumentCanNotBeNull("key");
+            if (key.isEmpty())
+                throw new IllegalArgumentException("The key for the index cannot be an empty string");
+        }
+
+        final List<String> compositeKeys = Collections.unmodifiableList(new ArrayList<>(keys));
+        if (this.compositeIndex.containsKey(compositeKeys))
+            return;
+        final Map<List<Object>, Set<T>> tupleMap = new ConcurrentHashMap<>();
+        this.compositeIndex.put(compositeKeys, tupleMap);
+
+        (Vertex.class.isAssignableFrom(this.indexClass) ?
+                this.graph.vertices.values().parallelStream() :
+                this.graph.edges.values().parallelStream())
+                .forEach(e -> tuples((T) e, compositeKeys, null, null).forEach(tuple ->
+                        tupleMap.computeIfAbsent(tuple, t -> ConcurrentHashMap.newKeySet()).add((T) e)));
+    }
+
+    public void dropCompositeIndex(final List<String> keys) {
+        if (this.compositeIndex.containsKey(keys))
+            this.compositeIndex.remove(keys).clear();
+    }
+
+    public Set<List<String>> getCompositeKeys() {
+        return Collections.unmodifiableSet(this.compositeIndex.keySet());
+    }
+
+    /**
+     * Gets the {@link TinkerGraph.IndexType} of the index on the specified key or {@code null} if the key is not
+     * indexed.
+     */
+    public TinkerGraph.IndexType getIndexType(final String key) {
+        if (!this.indexedKeys.contains(key))
+            return null;
+        return this.sortedIndex.containsKey(key) ? TinkerGraph.IndexType.SORTED : TinkerGraph.IndexType.HASH;
+    }
+
+    private Map<Object, Set<T>> getKeyMap(final String key) {
+        final Map<Object, Set<T>> sortedKeyMap = this.sortedIndex.get(key);
+        return null == sortedKeyMap ? this.index.get(key) : sortedKeyMap;
+    }
+
+    /**
+     * Determines if the predicate can be answered by a range of a {@link TinkerGraph.IndexType#SORTED} index.
+     */
+    public static boolean isRangeable(final Object biPredicate) {
+        return biPredicate == Compare.eq || biPredicate == Compare.gt || biPredicate == Compare.gte ||
+                biPredicate == Compare.lt || biPredicate == Compare.lte;
+    }
+
     /**
      * Provides a way for an index to have a {@code null} value as {@code ConcurrentHashMap} will not allow a
      * {@code null} key.
@@ -149,6 +508,14 @@ final class TinkerIndex<T extends Element> {
         return null == obj ? IndexedNull.instance() : obj;
     }
 
+    private static Object unindexable(final Object obj) {
+        return obj instanceof IndexedNull ? null : obj;
+    }
+
+    private static GremlinValueComparator.Type typeOf(final Object obj) {
+        return GremlinValueComparator.Type.type(unindexable(obj));
+    }
+
     public Set<String> getIndexedKeys() {
         return this.indexedKeys;
     }
@@ -0,0 +1,572 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.structure;
+
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Property;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.apache.tinkerpop.gremlin.structure.io.gryo.GryoMapper;
+import org.apache.tinkerpop.gremlin.structure.io.gryo.GryoVersion;
+import org.apache.tinkerpop.shaded.kryo.Kryo;
+import org.apache.tinkerpop.shaded.kryo.io.Input;
+import org.apache.tinkerpop.shaded.kryo.io.Output;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of the mutations of a {@link TinkerGraph} that is persisted to a {@code graphLocation}, written
+ * next to it as {@code <graphLocation>.journal}. Every mutation is appended as a single Gryo encoded record as soon as
+ * it has been applied, so a graph that was not closed loses none of them, and the whole graph is written as a new
+ * snapshot in the configured {@code graphFormat} when the graph is closed. A graph in copy-on-write mode can be read
+ * while it is written to, so it also takes a snapshot in the background after a configurable number of records.
+ * <p/>
+ * Each record is preceded by its length and a checksum. A record that was only partially written when the process
+ * ended is cut off on replay, while any other record that cannot be read or applied fails the replay.
+ * <p/>
+ * A snapshot replaces the previous one in steps that can each be interrupted: the journal is first renamed to
+ * {@code <graphLocation>.journal.old} so that the mutations that follow start a new journal, then the snapshot is
+ * written to {@code <graphLocation>.tmp}, then it is moved over the old one and finally the old journal is deleted. A
+ * snapshot only ever takes the place of the previous one once it is complete, so {@link #recover()} discards a
+ * left over {@code <graphLocation>.tmp} and {@link #replay()} applies the old journal before the new one. Replaying
+ * skips records that are already reflected in the snapshot, which happens as the graph is written to while a
+ * snapshot is taken.
+ */
+final class TinkerJournal {
+
+    private static final byte ADD_VERTEX = 1;
+    private static final byte ADD_EDGE = 2;
+    private static final byte ADD_VERTEX_PROPERTY = 3;
+    private static final byte ADD_META_PROPERTY = 4;
+    private static final byte ADD_EDGE_PROPERTY = 5;
+    private static final byte REMOVE_VERTEX = 6;
+    private static final byte REMOVE_EDGE = 7;
+    private static final byte REMOVE_VERTEX_PROPERTY = 8;
+    private static final byte REMOVE_META_PROPERTY = 9;
+    private static final byte REMOVE_EDGE_PROPERTY = 10;
+    private static final byte CLEAR = 11;
+
+    /**
+     * The length of the record header, which holds the length of the record and its checksum.
+     */
+    private static final int HEADER_LENGTH = 8;
+
+    private final TinkerGraph graph;
+    private final File graphFile;
+    private final File snapshotFile;
+    private final File journalFile;
+    private final File oldJournalFile;
+    private final long compactionThreshold;
+    private final TinkerGraph.JournalSync sync;
+    private final Kryo kryo = GryoMapper.build().version(GryoVersion.V3_0).addRegistry(TinkerIoRegistryV3d0.instance()).create().createMapper();
+    private final Output record = new Output(4096, -1);
+    private final CRC32 checksum = new CRC32();
+
+    private FileOutputStream stream = null;
+    private long records = 0;
+    private volatile Thread compaction = null;
+
+    /**
+     * @param compactionThreshold the number of records after which a graph in copy-on-write mode takes a snapshot in
+     *                            the background or a value less than one to only take it on {@link TinkerGraph#close()}
+     * @param sync                when to force the journal and the snapshots to the storage device
+     */
+    TinkerJournal(final TinkerGraph graph, final String graphLocation, final long compactionThreshold,
+                  final TinkerGraph.JournalSync sync) {
+        this.graph = graph;
+        this.graphFile = new File(graphLocation);
+        this.snapshotFile = new File(graphLocation + ".tmp");
+        this.journalFile = new File(graphLocation + ".journal");
+        this.oldJournalFile = new File(graphLocation + ".journal.old");
+        this.compactionThreshold = compactionThreshold;
+        this.sync = sync;
+    }
+
+    /**
+     * Discards a snapshot that was interrupted before it was complete. Must be called before the graph is loaded.
+     */
+    void recover() {
+        try {
+            Files.deleteIfExists(this.snapshotFile.toPath());
+        } catch (IOException ex) {
+            throw new RuntimeException(String.format("Could not recover the journal at %s", this.journalFile), ex);
+        }
+    }
+
+    /**
+     * Applies the records of the old journal, if a snapshot was interrupted, and of the journal to the loaded graph.
+     * Must be called before the journal is assigned to the graph so that the replayed mutations are not appended
+     * again. A record that was cut off is truncated. The interrupted snapshot is taken again once all records are
+     * applied.
+     */
+    void replay() {
+        replay(this.oldJournalFile);
+        this.records = replay(this.journalFile);
+
+        if (this.oldJournalFile.exists()) {
+            writeSnapshot();
+            deleteJournal();
+        }
+    }
+
+    private long replay(final File file) {
+        if (!file.exists()) return 0;
+
+        final long length = file.length();
+        long position = 0;
+        long count = 0;
+        try (final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (position < length) {
+                final byte[] payload = readRecord(input, file, position, length);
+                if (null == payload) break;
+
+                final byte operation;
+                final List<Object> values = new ArrayList<>();
+                try (final Input recordInput = new Input(payload)) {
+                    operation = recordInput.readByte();
+                    for (int i = arity(operation); i > 0; i--) {
+                        values.add(this.kryo.readClassAndObject(recordInput));
+                    }
+                } catch (RuntimeException ex) {
+                    throw new IllegalStateException(String.format("Could not read the record at offset %s of the journal at %s", position, file), ex);
+                }
+                apply(operation, values);
+                position += HEADER_LENGTH + payload.length;
+                count++;
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(String.format("Could not replay the journal at %s", file), ex);
+        }
+
+        if (position < length) {
+            try (final RandomAccessFile f = new RandomAccessFile(file, "rw")) {
+                f.setLength(position);
+            } catch (IOException ex) {
+                throw new RuntimeException(String.format("Could not truncate the journal at %s", file), ex);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads the next record of the journal, returning {@code null} if it is the last record and was not completely
+     * written. That is the case if its header or its payload is cut off, if its checksum does not match or if the
+     * rest of the file consists of zeros, which is what some file systems leave behind after a crash. A damaged
+     * record that is followed by more data is not the result of an interrupted append and fails the replay.
+     */
+    private byte[] readRecord(final DataInputStream input, final File file, final long position, final long length) throws IOException {
+        final long remaining = length - position;
+        if (remaining < HEADER_LENGTH)
+            return null;
+
+        final int recordLength = input.readInt();
+        final int recordChecksum = input.readInt();
+        if (recordLength > remaining - HEADER_LENGTH)
+            return null;
+        if (recordLength < 1) {
+            if (0 == recordLength && 0 == recordChecksum && isZero(input))
+                return null;
+            throw new IllegalStateException(String.format("The record at offset %s of the journal at %s is damaged", position, file));
+        }
+
+        final byte[] payload = new byte[recordLength];
+        input.readFully(payload);
+        this.checksum.reset();
+        this.checksum.update(payload, 0, payload.length);
+        if ((int) this.checksum.getValue() != recordChecksum) {
+            if (recordLength == remaining - HEADER_LENGTH)
+                return null;
+            throw new IllegalStateException(String.format("The record at offset %s of the journal at %s is damaged", position, file));
+        }
+        return payload;
+    }
+
+    private static boolean isZero(final DataInputStream input) throws IOException {
+        int b;
+        while ((b = input.read()) != -1) {
+            if (b != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Waits for a snapshot that is taken in the background, takes a snapshot if anything was journaled since and
+     * releases the journal file, which is opened again by the next mutation.
+     */
+    synchronized void close() {
+        awaitCompaction();
+        closeStream();
+        if (this.records > 0 || this.oldJournalFile.exists() || !this.graphFile.exists()) {
+            writeSnapshot();
+            deleteJournal();
+        }
+    }
+
+    /**
+     * Waits for the snapshot that is taken in the background, if there is one.
+     */
+    void awaitCompaction() {
+        final Thread thread = this.compaction;
+        if (null == thread) return;
+        try {
+            thread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(String.format("Interrupted while waiting for a snapshot of the journal at %s", this.journalFile), ex);
+        }
+    }
+
+    void addVertex(final TinkerVertex vertex) {
+        append(ADD_VERTEX, vertex.id(), vertex.label());
+    }
+
+    void addEdge(final TinkerEdge edge) {
+        final Map<String, Object> properties = new HashMap<>();
+        if (null != edge.properties)
+            edge.properties.forEach((key, property) -> properties.put(key, property.value()));
+        append(ADD_EDGE, edge.id(), edge.label(), edge.outVertex().id(), edge.inVertex().id(), properties);
+    }
+
+    /**
+     * Journals a vertex property by its vertex, key and value rather than by its identifier, which the snapshot may
+     * not keep. Vertex properties of a vertex with the same key and value are told apart by their number.
+     */
+    void addVertexProperty(final TinkerVertexProperty<?> vertexProperty) {
+        final Vertex vertex = vertexProperty.element();
+        append(ADD_VERTEX_PROPERTY, vertex.id(), vertexProperty.key(), vertexProperty.value(),
+                getVertexProperties(vertex, vertexProperty.key(), vertexProperty.value()).size());
+    }
+
+    void removeVertex(final TinkerVertex vertex) {
+        append(REMOVE_VERTEX, vertex.id());
+    }
+
+    void removeEdge(final TinkerEdge edge) {
+        append(REMOVE_EDGE, edge.id());
+    }
+
+    /**
+     * Journals the removal of a vertex property with the number of vertex properties of the vertex with the same key
+     * and value that remain.
+     */
+    void removeVertexProperty(final TinkerVertexProperty<?> vertexProperty) {
+        final Vertex vertex = vertexProperty.element();
+        append(REMOVE_VERTEX_PROPERTY, vertex.id(), vertexProperty.key(), vertexProperty.value(),
+                getVertexProperties(vertex, vertexProperty.key(), vertexProperty.value()).size());
+    }
+
+    /**
+     * Journals a property of an edge or a meta-property unless its owner is not part of the graph yet, as is the case
+     * for the properties given to {@link Vertex#addEdge(String, Vertex, Object...)} which are journaled with the edge.
+     */
+    void addProperty(final TinkerProperty<?> property) {
+        if (property.element() instanceof Edge) {
+            final TinkerEdge edge = (TinkerEdge) property.element();
+            if (this.graph.edges.get(edge.id()) == edge)
+                append(ADD_EDGE_PROPERTY, edge.id(), property.key(), property.value());
+        } else {
+            final TinkerVertexProperty<?> vertexProperty = (TinkerVertexProperty<?>) property.element();
+            final int position = getPosition(vertexProperty);
+            if (position >= 0)
+                append(ADD_META_PROPERTY, vertexProperty.element().id(), vertexProperty.key(), vertexProperty.value(),
+                        position, property.key(), property.value());
+        }
+    }
+
+    void removeProperty(final TinkerProperty<?> property) {
+        if (property.element() instanceof Edge) {
+            append(REMOVE_EDGE_PROPERTY, property.element().id(), property.key());
+        } else {
+            final TinkerVertexProperty<?> vertexProperty = (TinkerVertexProperty<?>) property.element();
+            final int position = getPosition(vertexProperty);
+            if (position >= 0)
+                append(REMOVE_META_PROPERTY, vertexProperty.element().id(), vertexProperty.key(), vertexProperty.value(),
+                        position, property.key());
+        }
+    }
+
+    void clear() {
+        append(CLEAR);
+    }
+
+    private synchronized void append(final byte operation, final Object... values) {
+        // the record is encoded completely before anything is written so that a value that cannot be serialized
+        // does not leave a partial record behind
+        this.record.clear();
+        this.record.setPosition(HEADER_LENGTH);
+        this.record.writeByte(operation);
+        for (final Object value : values) {
+            this.kryo.writeClassAndObject(this.record, value);
+        }
+        final byte[] buffer = this.record.getBuffer();
+        final int length = this.record.position() - HEADER_LENGTH;
+        this.checksum.reset();
+        this.checksum.update(buffer, HEADER_LENGTH, length);
+        writeInt(buffer, 0, length);
+        writeInt(buffer, 4, (int) this.checksum.getValue());
+
+        try {
+            if (null == this.stream) this.stream = new FileOutputStream(this.journalFile, true);
+            this.stream.write(buffer, 0, HEADER_LENGTH + length);
+            if (this.sync == TinkerGraph.JournalSync.ALWAYS) this.stream.getChannel().force(false);
+        } catch (IOException ex) {
+            throw new RuntimeException(String.format("Could not write to the journal at %s", this.journalFile), ex);
+        }
+
+        if (++this.records >= this.compactionThreshold && this.compactionThreshold > 0 && this.graph.copyOnWrite &&
+                (null == this.compaction || !this.compaction.isAlive()))
+            startCompaction();
+    }
+
+    private static void writeInt(final byte[] buffer, final int offset, final int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Starts a new journal and takes a snapshot in the background. If the old journal is still there because the
+     * last snapshot failed, the journal is kept as well and the snapshot is simply taken again.
+     */
+    private void startCompaction() {
+        if (!this.oldJournalFile.exists()) {
+            closeStream();
+            try {
+                if (this.journalFile.exists())
+                    Files.move(this.journalFile.toPath(), this.oldJournalFile.toPath());
+            } catch (IOException ex) {
+                throw new RuntimeException(String.format("Could not start a new journal at %s", this.journalFile), ex);
+            }
+        }
+        this.records = 0;
+        this.compaction = new Thread(this::writeSnapshot, "tinkergraph-journal-compaction");
+        this.compaction.setDaemon(true);
+        this.compaction.start();
+    }
+
+    /**
+     * Writes the graph as a new snapshot, puts it in place of the previous one and deletes the old journal, whose
+     * records the snapshot now includes.
+     */
+    private void writeSnapshot() {
+        this.graph.saveGraph(this.snapshotFile.getPath());
+        try {
+            if (this.sync == TinkerGraph.JournalSync.ALWAYS) {
+                try (final FileChannel channel = FileChannel.open(this.snapshotFile.toPath(), StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+            }
+            Files.move(this.snapshotFile.toPath(), this.graphFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(this.oldJournalFile.toPath());
+        } catch (IOException ex) {
+            throw new RuntimeException(String.format("Could not write a snapshot of the journal at %s", this.journalFile), ex);
+        }
+    }
+
+    private void deleteJournal() {
+        try {
+            Files.deleteIfExists(this.journalFile.toPath());
+        } catch (IOException ex) {
+            throw new RuntimeException(String.format("Could not delete the journal at %s", this.journalFile), ex);
+        }
+        this.records = 0;
+    }
+
+    private void closeStream() {
+        if (null == this.stream) return;
+        try {
+            this.stream.close();
+        } catch (IOException ex) {
+            throw new RuntimeException(String.format("Could not close the journal at %s", this.journalFile), ex);
+        } finally {
+            this.stream = null;
+        }
+    }
+
+    /**
+     * Gets the number of the vertex property among those of its vertex with the same key and value or -1 if it is not
+     * part of the graph yet.
+     */
+    private static int getPosition(final TinkerVertexProperty<?> vertexProperty) {
+        final TinkerVertex vertex = (TinkerVertex) vertexProperty.element();
+        if (null == vertex.properties) return -1;
+        final List<VertexProperty> list = vertex.properties.get(vertexProperty.key());
+        if (null == list) return -1;
+        int position = 0;
+        for (final VertexProperty candidate : list) {
+            if (candidate == vertexProperty) return position;
+            if (Objects.equals(candidate.value(), vertexProperty.value())) position++;
+        }
+        return -1;
+    }
+
+    private static List<VertexProperty<?>> getVertexProperties(final Vertex vertex, final String key, final Object value) {
+        final List<VertexProperty<?>> vertexProperties = new ArrayList<>();
+        if (null == vertex) return vertexProperties;
+        final Iterator<VertexProperty<Object>> iterator = vertex.properties(key);
+        while (iterator.hasNext()) {
+            final VertexProperty<?> vertexProperty = iterator.next();
+            if (Objects.equals(vertexProperty.value(), value)) vertexProperties.add(vertexProperty);
+        }
+        return vertexProperties;
+    }
+
+    private static VertexProperty<?> getVertexProperty(final Vertex vertex, final String key, final Object value, final int position) {
+        final List<VertexProperty<?>> vertexProperties = getVertexProperties(vertex, key, value);
+        return position < vertexProperties.size() ? vertexProperties.get(position) : null;
+    }
+
+    private static int arity(final byte operation) {
+        switch (operation) {
+            case ADD_VERTEX:
+                return 2;
+            case ADD_EDGE:
+                return 5;
+            case ADD_VERTEX_PROPERTY:
+                return 4;
+            case ADD_META_PROPERTY:
+                return 6;
+            case ADD_EDGE_PROPERTY:
+                return 3;
+            case REMOVE_VERTEX:
+                return 1;
+            case REMOVE_EDGE:
+                return 1;
+            case REMOVE_VERTEX_PROPERTY:
+                return 4;
+            case REMOVE_META_PROPERTY:
+                return 5;
+            case REMOVE_EDGE_PROPERTY:
+                return 2;
+            case CLEAR:
+                return 0;
+            default:
+                throw new IllegalStateException(String.format("Unknown journal operation %s", operation));
+        }
+    }
+
+    /**
+     * Applies a single record, skipping it if its outcome is already part of the graph.
+     */
+    private void apply(final byte operation, final List<Object> values) {
+        switch (operation) {
+            case ADD_VERTEX:
+                if (null == this.graph.vertices.get(values.get(0)))
+                    this.graph.addVertex(T.id, values.get(0), T.label, values.get(1));
+                break;
+            case ADD_EDGE: {
+                final Vertex outVertex = this.graph.vertices.get(values.get(2));
+                final Vertex inVertex = this.graph.vertices.get(values.get(3));
+                if (null == this.graph.edges.get(values.get(0)) && null != outVertex && null != inVertex) {
+                    final List<Object> keyValues = new ArrayList<>();
+                    keyValues.add(T.id);
+                    keyValues.add(values.get(0));
+                    ((Map<String, Object>) values.get(4)).forEach((key, value) -> {
+                        keyValues.add(key);
+                        keyValues.add(value);
+                    });
+                    outVertex.addEdge((String) values.get(1), inVertex, keyValues.toArray());
+                }
+                break;
+            }
+            case ADD_VERTEX_PROPERTY: {
+                // the record holds the number of vertex properties with the key and value once it was added
+                final Vertex vertex = this.graph.vertices.get(values.get(0));
+                if (null != vertex && getVertexProperties(vertex, (String) values.get(1), values.get(2)).size() < (int) values.get(3))
+                    vertex.property(VertexProperty.Cardinality.list, (String) values.get(1), values.get(2));
+                break;
+            }
+            case ADD_META_PROPERTY: {
+                final VertexProperty<?> vertexProperty = getVertexProperty(this.graph.vertices.get(values.get(0)),
+                        (String) values.get(1), values.get(2), (int) values.get(3));
+                if (null != vertexProperty)
+                    vertexProperty.property((String) values.get(4), values.get(5));
+                break;
+            }
+            case ADD_EDGE_PROPERTY: {
+                final Edge edge = this.graph.edges.get(values.get(0));
+                if (null != edge)
+                    edge.property((String) values.get(1), values.get(2));
+                break;
+            }
+            case REMOVE_VERTEX: {
+                final Vertex vertex = this.graph.vertices.get(values.get(0));
+                if (null != vertex)
+                    vertex.remove();
+                break;
+            }
+            case REMOVE_EDGE: {
+                final Edge edge = this.graph.edges.get(values.get(0));
+                if (null != edge)
+                    edge.remove();
+                break;
+            }
+            case REMOVE_VERTEX_PROPERTY: {
+                // the record holds the number of vertex properties with the key and value that remained
+                final List<VertexProperty<?>> vertexProperties = getVertexProperties(this.graph.vertices.get(values.get(0)),
+                        (String) values.get(1), values.get(2));
+                if (vertexProperties.size() > (int) values.get(3))
+                    vertexProperties.get(0).remove();
+                break;
+            }
+            case REMOVE_META_PROPERTY: {
+                final VertexProperty<?> vertexProperty = getVertexProperty(this.graph.vertices.get(values.get(0)),
+                        (String) values.get(1), values.get(2), (int) values.get(3));
+                if (null != vertexProperty) {
+                    final Property<?> property = vertexProperty.property((String) values.get(4));
+                    if (property.isPresent())
+                        property.remove();
+                }
+                break;
+            }
+            case REMOVE_EDGE_PROPERTY: {
+                final Edge edge = this.graph.edges.get(values.get(0));
+                if (null != edge) {
+                    final Property<?> property = edge.property((String) values.get(1));
+                    if (property.isPresent())
+                        property.remove();
+                }
+                break;
+            }
+            case CLEAR:
+                this.graph.clear();
+                break;
+        }
+    }
+}
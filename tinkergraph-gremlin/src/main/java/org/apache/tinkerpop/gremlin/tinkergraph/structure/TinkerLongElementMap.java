@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.structure;
+
+import org.apache.tinkerpop.gremlin.structure.Element;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A store of elements with {@code Long} identifiers, as used by {@link TinkerGraph} in place of a
+ * {@code ConcurrentHashMap} when the {@link TinkerGraph.DefaultIdManager#LONG} id manager is configured. The elements
+ * are kept in a single open addressing table without entry objects and the key of a slot is read from the identifier
+ * of the element it holds, which is immutable, so a lookup by a primitive {@code long} allocates nothing.
+ * <p/>
+ * Reads do not lock and see the table as it was when they started, so iterators are weakly consistent in the same
+ * way as those of {@code ConcurrentHashMap}. Writes are serialized.
+ */
+final class TinkerLongElementMap<E extends Element> extends AbstractMap<Object, E> {
+
+    private static final int MINIMUM_CAPACITY = 16;
+
+    /**
+     * Marks a slot whose element was removed so that lookups continue probing past it.
+     */
+    private static final Object REMOVED = new Object();
+
+    private volatile AtomicReferenceArray<Object> table = new AtomicReferenceArray<>(MINIMUM_CAPACITY);
+    private volatile int size = 0;
+
+    /**
+     * The number of slots that are not empty, including those marked as {@link #REMOVED}.
+     */
+    private int used = 0;
+
+    public E get(final long id) {
+        final AtomicReferenceArray<Object> table = this.table;
+        final int mask = table.length() - 1;
+        for (int i = slot(id, mask); ; i = (i + 1) & mask) {
+            final Object element = table.get(i);
+            if (null == element)
+                return null;
+            if (element != REMOVED && id(element) == id)
+                return (E) element;
+        }
+    }
+
+    @Override
+    public E get(final Object key) {
+        return key instanceof Long ? get(((Long) key).longValue()) : null;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return null != get(key);
+    }
+
+    @Override
+    public synchronized E put(final Object key, final E element) {
+        if (!(key instanceof Long) || !key.equals(element.id()))
+            throw new IllegalArgumentException(String.format("The key %s must be the Long identifier of the element %s", key, element));
+
+        final long id = (Long) key;
+        final AtomicReferenceArray<Object> table = this.table;
+        final int mask = table.length() - 1;
+        int free = -1;
+        int i = slot(id, mask);
+        for (Object current = table.get(i); null != current; current = table.get(i = (i + 1) & mask)) {
+            if (current == REMOVED) {
+                if (free < 0) free = i;
+            } else if (id(current) == id) {
+                table.set(i, element);
+                return (E) current;
+            }
+        }
+
+        if (free < 0) {
+            free = i;
+            this.used++;
+        }
+        table.set(free, element);
+        this.size++;
+
+        if (this.used > table.length() / 4 * 3)
+            resize();
+        return null;
+    }
+
+    @Override
+    public synchronized E remove(final Object key) {
+        if (!(key instanceof Long))
+            return null;
+
+        final long id = (Long) key;
+        final AtomicReferenceArray<Object> table = this.table;
+        final int mask = table.length() - 1;
+        for (int i = slot(id, mask); ; i = (i + 1) & mask) {
+            final Object element = table.get(i);
+            if (null == element)
+                return null;
+            if (element != REMOVED && id(element) == id) {
+                table.set(i, REMOVED);
+                this.size--;
+                return (E) element;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.table = new AtomicReferenceArray<>(MINIMUM_CAPACITY);
+        this.used = 0;
+        this.size = 0;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return 0 == this.size;
+    }
+
+    @Override
+    public Collection<E> values() {
+        return new AbstractCollection<E>() {
+            @Override
+            public Iterator<E> iterator() {
+                return new ElementIterator();
+            }
+
+            @Override
+            public int size() {
+                return TinkerLongElementMap.this.size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Map.Entry<Object, E>> entrySet() {
+        return new AbstractSet<Map.Entry<Object, E>>() {
+            @Override
+            public Iterator<Map.Entry<Object, E>> iterator() {
+                final ElementIterator elements = new ElementIterator();
+                return new Iterator<Map.Entry<Object, E>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return elements.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<Object, E> next() {
+                        final E element = elements.next();
+                        return new SimpleImmutableEntry<>(element.id(), element);
+                    }
+
+                    @Override
+                    public void remove() {
+                        elements.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return TinkerLongElementMap.this.size;
+            }
+        };
+    }
+
+    /**
+     * Copies the elements into a new table that is large enough for them to take up at most half of it, which also
+     * drops the slots marked as {@link #REMOVED}. Readers holding the old table are not affected.
+     */
+    private void resize() {
+        final AtomicReferenceArray<Object> table = this.table;
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity / 2 < this.size) {
+            capacity <<= 1;
+        }
+
+        final AtomicReferenceArray<Object> resized = new AtomicReferenceArray<>(capacity);
+        final int mask = capacity - 1;
+        for (int j = 0; j < table.length(); j++) {
+            final Object element = table.get(j);
+            if (null == element || element == REMOVED)
+                continue;
+            int i = slot(id(element), mask);
+            while (null != resized.get(i)) {
+                i = (i + 1) & mask;
+            }
+            resized.set(i, element);
+        }
+        this.used = this.size;
+        this.table = resized;
+    }
+
+    private static long id(final Object element) {
+        return (Long) ((Element) element).id();
+    }
+
+    /**
+     * Spreads the bits of the identifier, which are often sequential, over the table with the finalizer of the 64-bit
+     * MurmurHash3.
+     */
+    private static int slot(final long id, final int mask) {
+        long h = id;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private final class ElementIterator implements Iterator<E> {
+        private final AtomicReferenceArray<Object> table = TinkerLongElementMap.this.table;
+        private int index = 0;
+        private E next = null;
+        private E last = null;
+
+        @Override
+        public boolean hasNext() {
+            while (null == this.next && this.index < this.table.length()) {
+                final Object element = this.table.get(this.index++);
+                if (null != element && element != REMOVED)
+                    this.next = (E) element;
+            }
+            return null != this.next;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            this.last = this.next;
+            this.next = null;
+            return this.last;
+        }
+
+        @Override
+        public void remove() {
+            if (null == this.last)
+                throw new IllegalStateException();
+            TinkerLongElementMap.this.remove(this.last.id());
+            this.last = null;
+        }
+    }
+}
@@ -35,8 +35,13 @@ public final class TinkerProperty<V> implements Property<V> {
 
     public TinkerProperty(final Element element, final String key, final V value) {
         this.element = element;
-        this.key = key;
-        this.value = value;
+        if (element.graph() instanceof TinkerGraph) {
+            this.key = TinkerHelper.intern((TinkerGraph) element.graph(), key);
+            this.value = TinkerHelper.intern((TinkerGraph) element.graph(), this.key, value);
+        } else {
+            this.key = key;
+            this.value = value;
+        }
     }
 
     @Override
@@ -80,10 +85,14 @@ public final class TinkerProperty<V> implements Property<V> {
     @Override
     public void remove() {
         if (this.element instanceof Edge) {
-            ((TinkerEdge) this.element).properties.remove(this.key);
+            final TinkerEdge edge = (TinkerEdge) this.element;
+            edge.properties = TinkerHelper.removeProperty((TinkerGraph) edge.graph(), edge.properties, this.key);
             TinkerHelper.removeIndex((TinkerEdge) this.element, this.key, this.value);
         } else {
-            ((TinkerVertexProperty) this.element).properties.remove(this.key);
+            final TinkerVertexProperty<?> vertexProperty = (TinkerVertexProperty<?>) this.element;
+            vertexProperty.properties = TinkerHelper.removeProperty((TinkerGraph) vertexProperty.graph(), vertexProperty.properties, this.key);
         }
+        final TinkerJournal journal = ((TinkerGraph) this.element.graph()).journal;
+        if (null != journal) journal.removeProperty(this);
     }
 }
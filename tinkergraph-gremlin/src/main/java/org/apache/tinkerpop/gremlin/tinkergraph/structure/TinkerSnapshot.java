@@ -0,0 +1,510 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.structure;
+
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Property;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.apache.tinkerpop.gremlin.structure.io.gryo.GryoMapper;
+import org.apache.tinkerpop.gremlin.structure.io.gryo.GryoVersion;
+import org.apache.tinkerpop.shaded.kryo.Kryo;
+import org.apache.tinkerpop.shaded.kryo.io.Input;
+import org.apache.tinkerpop.shaded.kryo.io.Output;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * A binary file format for {@link TinkerGraph} that is laid out to be read through {@link FileChannel#map} rather
+ * than by a {@code GraphReader}, used when the {@code graphFormat} is {@code snapshot}. The file consists of a
+ * header, the vertex records, the edge records, a dictionary of the labels and property keys, the offsets of every
+ * vertex and edge record and the adjacency of the vertices as offsets into the edges:
+ * <ul>
+ *     <li>the edges are written grouped by their out vertex so that the out edges of the vertex at position {@code i}
+ *     are the edges from position {@code outOffsets[i]} to {@code outOffsets[i + 1]}</li>
+ *     <li>the in edges of the vertex at position {@code i} are the edges whose positions are listed in
+ *     {@code inEdges} from {@code inOffsets[i]} to {@code inOffsets[i + 1]}</li>
+ * </ul>
+ * Vertices and edges reference each other and their labels and keys by position, so reading needs no lookups by
+ * identifier and the records can be decoded in parallel chunks, each mapped separately, which also lifts the limit
+ * of a single mapping to two gigabytes. Identifiers and property values of the common primitive types are written
+ * directly and any other value is written with Gryo.
+ */
+final class TinkerSnapshot {
+
+    private static final int MAGIC = 0x54475331;
+    private static final int VERSION = 1;
+
+    /**
+     * The magic number, the version, the vertex, edge and in edge counts and the positions of the edge records and
+     * of the five sections that follow them.
+     */
+    private static final int HEADER_SIZE = 5 * Integer.BYTES + 7 * Long.BYTES;
+
+    /**
+     * The number of vertices or edges decoded by one task when reading.
+     */
+    private static final int CHUNK_SIZE = 4096;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte SHORT = 7;
+    private static final byte BYTE = 8;
+    private static final byte UUID_VALUE = 9;
+    private static final byte GRYO = 10;
+
+    private TinkerSnapshot() {
+    }
+
+    static void write(final TinkerGraph graph, final String graphLocation) throws IOException {
+        try (final FileChannel channel = FileChannel.open(Paths.get(graphLocation), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final Writer out = new Writer(channel);
+            out.putBytes(new byte[HEADER_SIZE]);
+
+            final List<TinkerVertex> vertices = new ArrayList<>(graph.vertices.size());
+            final Map<Vertex, Integer> vertexPositions = new IdentityHashMap<>();
+            graph.vertices.values().forEach(vertex -> {
+                vertexPositions.put(vertex, vertices.size());
+                vertices.add((TinkerVertex) vertex);
+            });
+
+            final long[] vertexOffsets = new long[vertices.size()];
+            for (int i = 0; i < vertices.size(); i++) {
+                vertexOffsets[i] = out.position();
+                writeVertex(out, vertices.get(i));
+            }
+
+            // the graph may still change while it is written, as happens when a journal takes a snapshot, so edges
+            // to vertices that were not written are left to the journal
+            final long edgeRecordsPosition = out.position();
+            long[] edgeOffsets = new long[graph.edges.size()];
+            final int[] outOffsets = new int[vertices.size() + 1];
+            final Map<Edge, Integer> edgePositions = new IdentityHashMap<>();
+            for (int i = 0; i < vertices.size(); i++) {
+                outOffsets[i] = edgePositions.size();
+                final TinkerVertex vertex = vertices.get(i);
+                if (null == vertex.outEdges) continue;
+                for (final Set<Edge> edges : vertex.outEdges.values()) {
+                    for (final Edge edge : edges) {
+                        final Integer inPosition = vertexPositions.get(edge.inVertex());
+                        if (null == inPosition) continue;
+                        if (edgePositions.size() == edgeOffsets.length)
+                            edgeOffsets = Arrays.copyOf(edgeOffsets, edgeOffsets.length * 2 + 1);
+                        edgeOffsets[edgePositions.size()] = out.position();
+                        writeEdge(out, (TinkerEdge) edge, i, inPosition);
+                        edgePositions.put(edge, edgePositions.size());
+                    }
+                }
+            }
+            outOffsets[vertices.size()] = edgePositions.size();
+
+            final int[] inOffsets = new int[vertices.size() + 1];
+            final int[] inEdges = new int[edgePositions.size()];
+            int inEdgeCount = 0;
+            for (int i = 0; i < vertices.size(); i++) {
+                inOffsets[i] = inEdgeCount;
+                final TinkerVertex vertex = vertices.get(i);
+                if (null == vertex.inEdges) continue;
+                for (final Set<Edge> edges : vertex.inEdges.values()) {
+                    for (final Edge edge : edges) {
+                        final Integer position = edgePositions.get(edge);
+                        if (null != position && inEdgeCount < inEdges.length) inEdges[inEdgeCount++] = position;
+                    }
+                }
+            }
+            inOffsets[vertices.size()] = inEdgeCount;
+
+            final long dictionaryPosition = out.position();
+            out.putInt(out.dictionary.size());
+            for (final String string : out.dictionary) {
+                final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                out.putInt(bytes.length);
+                out.putBytes(bytes);
+            }
+
+            final long vertexOffsetsPosition = out.position();
+            for (final long offset : vertexOffsets) out.putLong(offset);
+            final long edgeOffsetsPosition = out.position();
+            for (int i = 0; i < edgePositions.size(); i++) out.putLong(edgeOffsets[i]);
+            final long outOffsetsPosition = out.position();
+            for (final int offset : outOffsets) out.putInt(offset);
+            final long inOffsetsPosition = out.position();
+            for (final int offset : inOffsets) out.putInt(offset);
+            final long inEdgesPosition = out.position();
+            for (int i = 0; i < inEdgeCount; i++) out.putInt(inEdges[i]);
+            out.flush();
+
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(vertices.size()).putInt(edgePositions.size()).putInt(inEdgeCount);
+            header.putLong(edgeRecordsPosition).putLong(dictionaryPosition).putLong(vertexOffsetsPosition)
+                    .putLong(edgeOffsetsPosition).putLong(outOffsetsPosition).putLong(inOffsetsPosition).putLong(inEdgesPosition);
+            header.flip();
+            channel.write(header, 0);
+        }
+    }
+
+    static void read(final TinkerGraph graph, final String graphLocation) throws IOException {
+        try (final FileChannel channel = FileChannel.open(Paths.get(graphLocation), StandardOpenOption.READ)) {
+            final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC)
+                throw new IllegalStateException(String.format("%s is not a TinkerGraph snapshot", graphLocation));
+            final int version = header.getInt();
+            if (version != VERSION)
+                throw new IllegalStateException(String.format("The TinkerGraph snapshot version %s of %s is not supported", version, graphLocation));
+
+            final int vertexCount = header.getInt();
+            final int edgeCount = header.getInt();
+            final int inEdgeCount = header.getInt();
+            final long edgeRecordsPosition = header.getLong();
+            final long dictionaryPosition = header.getLong();
+            final long vertexOffsetsPosition = header.getLong();
+            final long edgeOffsetsPosition = header.getLong();
+            final long outOffsetsPosition = header.getLong();
+            final long inOffsetsPosition = header.getLong();
+            final long inEdgesPosition = header.getLong();
+
+            final ByteBuffer dictionaryBuffer = channel.map(FileChannel.MapMode.READ_ONLY, dictionaryPosition, vertexOffsetsPosition - dictionaryPosition);
+            final String[] dictionary = new String[dictionaryBuffer.getInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                final byte[] bytes = new byte[dictionaryBuffer.getInt()];
+                dictionaryBuffer.get(bytes);
+                dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            final LongBuffer vertexOffsets = channel.map(FileChannel.MapMode.READ_ONLY, vertexOffsetsPosition, (long) Long.BYTES * vertexCount).asLongBuffer();
+            final LongBuffer edgeOffsets = channel.map(FileChannel.MapMode.READ_ONLY, edgeOffsetsPosition, (long) Long.BYTES * edgeCount).asLongBuffer();
+            final IntBuffer outOffsets = channel.map(FileChannel.MapMode.READ_ONLY, outOffsetsPosition, (long) Integer.BYTES * (vertexCount + 1)).asIntBuffer();
+            final IntBuffer inOffsets = channel.map(FileChannel.MapMode.READ_ONLY, inOffsetsPosition, (long) Integer.BYTES * (vertexCount + 1)).asIntBuffer();
+            final IntBuffer inEdges = channel.map(FileChannel.MapMode.READ_ONLY, inEdgesPosition, (long) Integer.BYTES * inEdgeCount).asIntBuffer();
+
+            final ThreadLocal<Kryo> kryo = ThreadLocal.withInitial(TinkerSnapshot::createKryo);
+
+            final TinkerVertex[] vertices = new TinkerVertex[vertexCount];
+            inChunks(vertexCount, (from, to) -> {
+                final long end = to < vertexCount ? vertexOffsets.get(to) : edgeRecordsPosition;
+                final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, vertexOffsets.get(from), end - vertexOffsets.get(from));
+                for (int i = from; i < to; i++) {
+                    final TinkerVertex vertex = readVertex(graph, buffer, dictionary, kryo);
+                    graph.vertices.put(vertex.id(), vertex);
+                    TinkerHelper.addToLabelRegistry(graph.verticesByLabel, vertex.label(), vertex);
+                    vertices[i] = vertex;
+                }
+            });
+
+            final TinkerEdge[] edges = new TinkerEdge[edgeCount];
+            inChunks(edgeCount, (from, to) -> {
+                final long end = to < edgeCount ? edgeOffsets.get(to) : dictionaryPosition;
+                final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, edgeOffsets.get(from), end - edgeOffsets.get(from));
+                for (int i = from; i < to; i++) {
+                    final TinkerEdge edge = readEdge(graph, buffer, dictionary, vertices, kryo);
+                    graph.edges.put(edge.id(), edge);
+                    TinkerHelper.addToLabelRegistry(graph.edgesByLabel, edge.label(), edge);
+                    edges[i] = edge;
+                }
+            });
+
+            // each task only touches the adjacency of its own vertices
+            inChunks(vertexCount, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    for (int j = outOffsets.get(i); j < outOffsets.get(i + 1); j++) {
+                        TinkerHelper.addOutEdge(vertices[i], edges[j].label(), edges[j]);
+                    }
+                    for (int j = inOffsets.get(i); j < inOffsets.get(i + 1); j++) {
+                        final TinkerEdge edge = edges[inEdges.get(j)];
+                        TinkerHelper.addInEdge(vertices[i], edge.label(), edge);
+                    }
+                }
+            });
+        }
+    }
+
+    private static void writeVertex(final Writer out, final TinkerVertex vertex) throws IOException {
+        out.putValue(vertex.id());
+        out.putString(vertex.label());
+        final Map<String, List<VertexProperty>> properties = null == vertex.properties ? new HashMap<>() : vertex.properties;
+        out.putInt(properties.size());
+        for (final Map.Entry<String, List<VertexProperty>> entry : properties.entrySet()) {
+            out.putString(entry.getKey());
+            out.putInt(entry.getValue().size());
+            for (final VertexProperty vertexProperty : entry.getValue()) {
+                out.putValue(vertexProperty.id());
+                out.putValue(vertexProperty.value());
+                writeProperties(out, ((TinkerVertexProperty) vertexProperty).properties);
+            }
+        }
+    }
+
+    private static void writeEdge(final Writer out, final TinkerEdge edge, final int outPosition, final int inPosition) throws IOException {
+        out.putValue(edge.id());
+        out.putString(edge.label());
+        out.putInt(outPosition);
+        out.putInt(inPosition);
+        writeProperties(out, edge.properties);
+    }
+
+    private static void writeProperties(final Writer out, final Map<String, Property> properties) throws IOException {
+        if (null == properties) {
+            out.putInt(0);
+            return;
+        }
+        out.putInt(properties.size());
+        for (final Property property : properties.values()) {
+            out.putString(property.key());
+            out.putValue(property.value());
+        }
+    }
+
+    private static TinkerVertex readVertex(final TinkerGraph graph, final ByteBuffer buffer, final String[] dictionary,
+                                           final ThreadLocal<Kryo> kryo) {
+        final Object id = graph.vertexIdManager.convert(readValue(buffer, kryo));
+        final TinkerVertex vertex = new TinkerVertex(id, dictionary[buffer.getInt()], graph);
+        final int keyCount = buffer.getInt();
+        if (keyCount > 0) vertex.properties = new HashMap<>();
+        for (int i = 0; i < keyCount; i++) {
+            final String key = dictionary[buffer.getInt()];
+            final int count = buffer.getInt();
+            final List<VertexProperty> list = new ArrayList<>(count);
+            for (int j = 0; j < count; j++) {
+                final Object vertexPropertyId = graph.vertexPropertyIdManager.convert(readValue(buffer, kryo));
+                final TinkerVertexProperty<Object> vertexProperty = new TinkerVertexProperty<>(vertexPropertyId, vertex, key, readValue(buffer, kryo));
+                vertexProperty.properties = readProperties(vertexProperty, buffer, dictionary, kryo);
+                list.add(vertexProperty);
+            }
+            vertex.properties.put(key, list);
+        }
+        return vertex;
+    }
+
+    private static TinkerEdge readEdge(final TinkerGraph graph, final ByteBuffer buffer, final String[] dictionary,
+                                       final TinkerVertex[] vertices, final ThreadLocal<Kryo> kryo) {
+        final Object id = graph.edgeIdManager.convert(readValue(buffer, kryo));
+        final String label = dictionary[buffer.getInt()];
+        final TinkerVertex outVertex = vertices[buffer.getInt()];
+        final TinkerEdge edge = TinkerHelper.createEdge(graph, id, outVertex, label, vertices[buffer.getInt()]);
+        edge.properties = readProperties(edge, buffer, dictionary, kryo);
+        return edge;
+    }
+
+    private static Map<String, Property> readProperties(final TinkerElement element, final ByteBuffer buffer,
+                                                        final String[] dictionary, final ThreadLocal<Kryo> kryo) {
+        final int count = buffer.getInt();
+        if (0 == count) return null;
+        final Map<String, Property> properties = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            final String key = dictionary[buffer.getInt()];
+            properties.put(key, new TinkerProperty<>(element, key, readValue(buffer, kryo)));
+        }
+        return properties;
+    }
+
+    private static Object readValue(final ByteBuffer buffer, final ThreadLocal<Kryo> kryo) {
+        final byte type = buffer.get();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return new String(readBytes(buffer), StandardCharsets.UTF_8);
+            case INTEGER:
+                return buffer.getInt();
+            case LONG:
+                return buffer.getLong();
+            case DOUBLE:
+                return buffer.getDouble();
+            case FLOAT:
+                return buffer.getFloat();
+            case BOOLEAN:
+                return buffer.get() != 0;
+            case SHORT:
+                return buffer.getShort();
+            case BYTE:
+                return buffer.get();
+            case UUID_VALUE:
+                return new UUID(buffer.getLong(), buffer.getLong());
+            case GRYO:
+                return kryo.get().readClassAndObject(new Input(readBytes(buffer)));
+            default:
+                throw new IllegalStateException(String.format("Unknown value type %s in TinkerGraph snapshot", type));
+        }
+    }
+
+    private static byte[] readBytes(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static Kryo createKryo() {
+        return GryoMapper.build().version(GryoVersion.V3_0).addRegistry(TinkerIoRegistryV3d0.instance()).create().createMapper();
+    }
+
+    /**
+     * Runs the task over consecutive ranges of {@link #CHUNK_SIZE} positions in parallel.
+     */
+    private static void inChunks(final int count, final ChunkTask task) throws IOException {
+        try {
+            IntStream.range(0, (count + CHUNK_SIZE - 1) / CHUNK_SIZE).parallel().forEach(chunk -> {
+                try {
+                    task.run(chunk * CHUNK_SIZE, Math.min(count, (chunk + 1) * CHUNK_SIZE));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkTask {
+        void run(final int from, final int to) throws IOException;
+    }
+
+    /**
+     * Buffers the writes to the file and keeps the dictionary of the labels and property keys written so far.
+     */
+    private static final class Writer {
+        private final FileChannel channel;
+        private final Map<String, Integer> positions = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private Kryo kryo = null;
+
+        private Writer(final FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private long position() throws IOException {
+            return this.channel.position() + this.buffer.position();
+        }
+
+        private void flush() throws IOException {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+            this.buffer.clear();
+        }
+
+        private void ensure(final int bytes) throws IOException {
+            if (this.buffer.remaining() >= bytes) return;
+            flush();
+            if (this.buffer.capacity() < bytes) this.buffer = ByteBuffer.allocate(bytes);
+        }
+
+        private void putByte(final byte value) throws IOException {
+            ensure(Byte.BYTES);
+            this.buffer.put(value);
+        }
+
+        private void putInt(final int value) throws IOException {
+            ensure(Integer.BYTES);
+            this.buffer.putInt(value);
+        }
+
+        private void putLong(final long value) throws IOException {
+            ensure(Long.BYTES);
+            this.buffer.putLong(value);
+        }
+
+        private void putBytes(final byte[] bytes) throws IOException {
+            ensure(bytes.length);
+            this.buffer.put(bytes);
+        }
+
+        /**
+         * Writes the position of the string in the dictionary, adding it there if it is new.
+         */
+        private void putString(final String string) throws IOException {
+            Integer position = this.positions.get(string);
+            if (null == position) {
+                position = this.dictionary.size();
+                this.positions.put(string, position);
+                this.dictionary.add(string);
+            }
+            putInt(position);
+        }
+
+        private void putValue(final Object value) throws IOException {
+            if (null == value) {
+                putByte(NULL);
+            } else if (value instanceof String) {
+                putByte(STRING);
+                final byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                putInt(bytes.length);
+                putBytes(bytes);
+            } else if (value instanceof Integer) {
+                putByte(INTEGER);
+                putInt((Integer) value);
+            } else if (value instanceof Long) {
+                putByte(LONG);
+                putLong((Long) value);
+            } else if (value instanceof Double) {
+                putByte(DOUBLE);
+                putLong(Double.doubleToRawLongBits((Double) value));
+            } else if (value instanceof Float) {
+                putByte(FLOAT);
+                putInt(Float.floatToRawIntBits((Float) value));
+            } else if (value instanceof Boolean) {
+                putByte(BOOLEAN);
+                putByte((byte) ((Boolean) value ? 1 : 0));
+            } else if (value instanceof Short) {
+                putByte(SHORT);
+                ensure(Short.BYTES);
+                this.buffer.putShort((Short) value);
+            } else if (value instanceof Byte) {
+                putByte(BYTE);
+                putByte((Byte) value);
+            } else if (value instanceof UUID) {
+                putByte(UUID_VALUE);
+                putLong(((UUID) value).getMostSignificantBits());
+                putLong(((UUID) value).getLeastSignificantBits());
+            } else {
+                if (null == this.kryo) this.kryo = createKryo();
+                final Output output = new Output(256, -1);
+                this.kryo.writeClassAndObject(output, value);
+                putByte(GRYO);
+                putInt(output.position());
+                putBytes(output.toBytes());
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.structure;
+
+import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Property;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * An inverted index from the tokens of the {@code String} values of a property key to the elements that have them.
+ * Every key is split into tokens by its own tokenizer, which is also applied to the text that is searched for. A
+ * lookup takes its candidates from the index and then checks the properties of every candidate, so that it returns
+ * exactly the properties that match.
+ */
+public final class TinkerTextIndex<T extends Element> {
+
+    /**
+     * Lower cases the text and splits it into the runs of letters and digits.
+     */
+    public static final Function<String, List<String>> STANDARD_TOKENIZER = text -> {
+        final List<String> tokens = new ArrayList<>();
+        for (final String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    };
+
+    /**
+     * The ways in which the tokens of the searched text are matched against the tokens of a property value.
+     */
+    public enum Mode {
+        /**
+         * The value has all of the tokens.
+         */
+        TERM,
+
+        /**
+         * The value has all of the tokens but the last one, which only has to be the start of one of its tokens.
+         */
+        PREFIX,
+
+        /**
+         * The value has all of the tokens one after the other.
+         */
+        PHRASE
+    }
+
+    private final TinkerGraph graph;
+    private final Class<T> indexClass;
+    private final Map<String, Function<String, List<String>>> tokenizers = new ConcurrentHashMap<>();
+
+    /**
+     * The elements that have a token in a value of a key along with the number of their values that have it.
+     */
+    private final Map<String, NavigableMap<String, Map<T, Integer>>> postings = new ConcurrentHashMap<>();
+
+    TinkerTextIndex(final TinkerGraph graph, final Class<T> indexClass) {
+        this.graph = graph;
+        this.indexClass = indexClass;
+    }
+
+    public Set<String> getIndexedKeys() {
+        return Collections.unmodifiableSet(new HashSet<>(this.tokenizers.keySet()));
+    }
+
+    void createKeyIndex(final String key, final Function<String, List<String>> tokenizer) {
+        if (null == key)
+            throw Graph.Exceptions.argumentCanNotBeNull("key");
+        if (key.isEmpty())
+            throw new IllegalArgumentException("The key for the index cannot be an empty string");
+        if (null == tokenizer)
+            throw Graph.Exceptions.argumentCanNotBeNull("tokenizer");
+
+        this.dropKeyIndex(key);
+        this.postings.put(key, new ConcurrentSkipListMap<>());
+        this.tokenizers.put(key, tokenizer);
+        (Vertex.class.isAssignableFrom(this.indexClass) ?
+                this.graph.vertices.values() :
+                this.graph.edges.values()).forEach(e -> e.properties(key).forEachRemaining(p -> this.put(key, p.value(), (T) e)));
+    }
+
+    void dropKeyIndex(final String key) {
+        this.tokenizers.remove(key);
+        this.postings.remove(key);
+    }
+
+    void autoUpdate(final String key, final Object newValue, final Object oldValue, final T element) {
+        if (this.tokenizers.containsKey(key)) {
+            this.remove(key, oldValue, element);
+            this.put(key, newValue, element);
+        }
+    }
+
+    void put(final String key, final Object value, final T element) {
+        final NavigableMap<String, Map<T, Integer>> tokens = this.postings.get(key);
+        if (null == tokens || !(value instanceof String)) return;
+        for (final String token : new HashSet<>(this.tokenizers.get(key).apply((String) value))) {
+            tokens.computeIfAbsent(token, t -> new ConcurrentHashMap<>()).merge(element, 1, Integer::sum);
+        }
+    }
+
+    void remove(final String key, final Object value, final T element) {
+        final NavigableMap<String, Map<T, Integer>> tokens = this.postings.get(key);
+        if (null == tokens || !(value instanceof String)) return;
+        for (final String token : new HashSet<>(this.tokenizers.get(key).apply((String) value))) {
+            final Map<T, Integer> elements = tokens.get(token);
+            if (null == elements) continue;
+            elements.computeIfPresent(element, (e, count) -> count > 1 ? count - 1 : null);
+            if (elements.isEmpty()) tokens.remove(token, elements);
+        }
+    }
+
+    /**
+     * Removes the element from the index by the values it still has, so it must be called before its properties are
+     * dropped.
+     */
+    void removeElement(final T element) {
+        if (this.indexClass.isAssignableFrom(element.getClass())) {
+            for (final String key : this.tokenizers.keySet()) {
+                element.properties(key).forEachRemaining(p -> this.remove(key, p.value(), element));
+            }
+        }
+    }
+
+    /**
+     * Finds the properties of the key, or of all the keys of the index if it is {@code null}, whose value matches the
+     * text in the given mode.
+     */
+    public List<Property> search(final String key, final Mode mode, final String text) {
+        if (null != key && !this.tokenizers.containsKey(key))
+            throw new IllegalArgumentException(String.format("There is no text index on the key %s for %s", key, this.indexClass.getSimpleName()));
+
+        final List<Property> properties = new ArrayList<>();
+        for (final String k : null == key ? this.tokenizers.keySet() : Collections.singleton(key)) {
+            final Function<String, List<String>> tokenizer = this.tokenizers.get(k);
+            final List<String> tokens = tokenizer.apply(text);
+            if (tokens.isEmpty()) continue;
+            for (final T element : candidates(k, mode, tokens)) {
+                element.properties(k).forEachRemaining(p -> {
+                    if (p.value() instanceof String && matches(mode, tokens, tokenizer.apply((String) p.value())))
+                        properties.add(p);
+                });
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Gets the elements of the least frequent token that has to be matched whole or, if there is none, those of all
+     * the tokens that start with the prefix.
+     */
+    private Collection<T> candidates(final String key, final Mode mode, final List<String> tokens) {
+        final NavigableMap<String, Map<T, Integer>> postings = this.postings.get(key);
+        final int whole = mode == Mode.PREFIX ? tokens.size() - 1 : tokens.size();
+        Map<T, Integer> smallest = null;
+        for (int i = 0; i < whole; i++) {
+            final Map<T, Integer> elements = postings.get(tokens.get(i));
+            if (null == elements) return Collections.emptyList();
+            if (null == smallest || elements.size() < smallest.size()) smallest = elements;
+        }
+        if (null != smallest)
+            return new ArrayList<>(smallest.keySet());
+
+        final String prefix = tokens.get(tokens.size() - 1);
+        final Set<T> elements = new LinkedHashSet<>();
+        postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values().forEach(m -> elements.addAll(m.keySet()));
+        return elements;
+    }
+
+    private static boolean matches(final Mode mode, final List<String> tokens, final List<String> valueTokens) {
+        switch (mode) {
+            case PHRASE:
+                return Collections.indexOfSubList(valueTokens, tokens) >= 0;
+            case PREFIX:
+                final String prefix = tokens.get(tokens.size() - 1);
+                return valueTokens.containsAll(tokens.subList(0, tokens.size() - 1)) &&
+                        valueTokens.stream().anyMatch(t -> t.startsWith(prefix));
+            default:
+                return valueTokens.containsAll(tokens);
+        }
+    }
+}
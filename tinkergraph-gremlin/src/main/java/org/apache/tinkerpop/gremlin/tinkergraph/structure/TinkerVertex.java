@@ -29,7 +29,6 @@ import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -42,14 +41,19 @@ import java.util.stream.Collectors;
  */
 public final class TinkerVertex extends TinkerElement implements Vertex {
 
-    protected Map<String, List<VertexProperty>> properties;
-    protected Map<String, Set<Edge>> outEdges;
-    protected Map<String, Set<Edge>> inEdges;
+    /**
+     * The properties and edges are volatile so that the copies which replace them in copy-on-write mode are seen
+     * whole by the threads that read the vertex while it is written to.
+     */
+    protected volatile Map<String, List<VertexProperty>> properties;
+    protected volatile Map<String, Set<Edge>> outEdges;
+    protected volatile Map<String, Set<Edge>> inEdges;
+
     private final TinkerGraph graph;
     private boolean allowNullPropertyValues;
 
     protected TinkerVertex(final Object id, final String label, final TinkerGraph graph) {
-        super(id, label);
+        super(id, TinkerHelper.intern(graph, label));
         this.graph = graph;
         this.allowNullPropertyValues = graph.features().vertex().supportsNullPropertyValues();
     }
@@ -71,8 +75,9 @@ public final class TinkerVertex extends TinkerElement implements Vertex {
             else
                 throw Vertex.Exceptions.multiplePropertiesExistForProvidedKey(key);
         } else {
-            if (this.properties != null && this.properties.containsKey(key)) {
-                final List<VertexProperty> list = (List) this.properties.get(key);
+            final Map<String, List<VertexProperty>> properties = this.properties;
+            final List<VertexProperty> list = null == properties ? null : properties.get(key);
+            if (null != list) {
                 if (list.size() > 1)
                     throw Vertex.Exceptions.multiplePropertiesExistForProvidedKey(key);
                 else
@@ -97,37 +102,37 @@ public final class TinkerVertex extends TinkerElement implements Vertex {
             return VertexProperty.empty();
         }
 
+        // the view applies the cardinality to the compute keys itself
+        if (TinkerHelper.inComputerMode(this.graph)) {
+            final VertexProperty<V> vertexProperty = this.graph.graphComputerView.addProperty(this, cardinality, key, value);
+            ElementHelper.attachProperties(vertexProperty, keyValues);
+            return vertexProperty;
+        }
+
         final Optional<Object> optionalId = ElementHelper.getIdValue(keyValues);
         final Optional<VertexProperty<V>> optionalVertexProperty = ElementHelper.stageVertexProperty(this, cardinality, key, value, keyValues);
         if (optionalVertexProperty.isPresent()) return optionalVertexProperty.get();
 
-        if (TinkerHelper.inComputerMode(this.graph)) {
-            final VertexProperty<V> vertexProperty = (VertexProperty<V>) this.graph.graphComputerView.addProperty(this, key, value);
-            ElementHelper.attachProperties(vertexProperty, keyValues);
-            return vertexProperty;
-        } else {
-            final Object idValue = optionalId.isPresent() ?
-                    graph.vertexPropertyIdManager.convert(optionalId.get()) :
-                    graph.vertexPropertyIdManager.getNextId(graph);
+        final Object idValue = optionalId.isPresent() ?
+                graph.vertexPropertyIdManager.convert(optionalId.get()) :
+                graph.vertexPropertyIdManager.getNextId(graph);
 
-            final VertexProperty<V> vertexProperty = new TinkerVertexProperty<V>(idValue, this, key, value);
+        final VertexProperty<V> vertexProperty = new TinkerVertexProperty<V>(idValue, this, key, value);
 
-            if (null == this.properties) this.properties = new HashMap<>();
-            final List<VertexProperty> list = this.properties.getOrDefault(key, new ArrayList<>());
-            list.add(vertexProperty);
-            this.properties.put(key, list);
-            TinkerHelper.autoUpdateIndex(this, key, value, null);
-            ElementHelper.attachProperties(vertexProperty, keyValues);
-            return vertexProperty;
-        }
+        TinkerHelper.addVertexProperty(this, vertexProperty);
+        TinkerHelper.autoUpdateIndex(this, key, vertexProperty.value(), null);
+        if (null != this.graph.journal) this.graph.journal.addVertexProperty((TinkerVertexProperty<V>) vertexProperty);
+        ElementHelper.attachProperties(vertexProperty, keyValues);
+        return vertexProperty;
     }
 
     @Override
     public Set<String> keys() {
-        if (null == this.properties) return Collections.emptySet();
+        final Map<String, List<VertexProperty>> properties = this.properties;
+        if (null == properties) return Collections.emptySet();
         return TinkerHelper.inComputerMode((TinkerGraph) graph()) ?
                 Vertex.super.keys() :
-                this.properties.keySet();
+                properties.keySet();
     }
 
     @Override
@@ -141,10 +146,12 @@ public final class TinkerVertex extends TinkerElement implements Vertex {
     public void remove() {
         final List<Edge> edges = new ArrayList<>();
         this.edges(Direction.BOTH).forEachRemaining(edges::add);
-        edges.stream().filter(edge -> !((TinkerEdge) edge).removed).forEach(Edge::remove);
-        this.properties = null;
+        TinkerHelper.removeEdges(this.graph, edges);
         TinkerHelper.removeElementIndex(this);
+        this.properties = null;
         this.graph.vertices.remove(this.id);
+        TinkerHelper.removeFromLabelRegistry(this.graph.verticesByLabel, this.label, this);
+        if (null != this.graph.journal) this.graph.journal.removeVertex(this);
         this.removed = true;
     }
 
@@ -176,20 +183,21 @@ public final class TinkerVertex extends TinkerElement implements Vertex {
     public <V> Iterator<VertexProperty<V>> properties(final String... propertyKeys) {
         if (this.removed) return Collections.emptyIterator();
         if (TinkerHelper.inComputerMode((TinkerGraph) graph()))
-            return (Iterator) ((TinkerGraph) graph()).graphComputerView.getProperties(TinkerVertex.this).stream().filter(p -> ElementHelper.keyExists(p.key(), propertyKeys)).iterator();
+            return (Iterator) ((TinkerGraph) graph()).graphComputerView.getProperties(TinkerVertex.this, propertyKeys).iterator();
         else {
-            if (null == this.properties) return Collections.emptyIterator();
+            final Map<String, List<VertexProperty>> properties = this.properties;
+            if (null == properties) return Collections.emptyIterator();
             if (propertyKeys.length == 1) {
-                final List<VertexProperty> properties = this.properties.getOrDefault(propertyKeys[0], Collections.emptyList());
-                if (properties.size() == 1) {
-                    return IteratorUtils.of(properties.get(0));
-                } else if (properties.isEmpty()) {
+                final List<VertexProperty> keyed = properties.getOrDefault(propertyKeys[0], Collections.emptyList());
+                if (keyed.size() == 1) {
+                    return IteratorUtils.of(keyed.get(0));
+                } else if (keyed.isEmpty()) {
                     return Collections.emptyIterator();
                 } else {
-                    return (Iterator) new ArrayList<>(properties).iterator();
+                    return (Iterator) new ArrayList<>(keyed).iterator();
                 }
             } else
-                return (Iterator) this.properties.entrySet().stream().filter(entry -> ElementHelper.keyExists(entry.getKey(), propertyKeys)).flatMap(entry -> entry.getValue().stream()).collect(Collectors.toList()).iterator();
+                return (Iterator) properties.entrySet().stream().filter(entry -> ElementHelper.keyExists(entry.getKey(), propertyKeys)).flatMap(entry -> entry.getValue().stream()).collect(Collectors.toList()).iterator();
         }
     }
 }
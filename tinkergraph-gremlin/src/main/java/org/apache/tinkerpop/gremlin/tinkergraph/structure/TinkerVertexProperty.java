@@ -28,7 +28,6 @@ import org.apache.tinkerpop.gremlin.tinkergraph.process.computer.TinkerGraphComp
 import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -40,7 +39,10 @@ import java.util.stream.Collectors;
  */
 public class TinkerVertexProperty<V> extends TinkerElement implements VertexProperty<V> {
 
-    protected Map<String, Property> properties;
+    /**
+     * Replaced by a modified copy on each change in copy-on-write mode, which readers must see fully built.
+     */
+    protected volatile Map<String, Property> properties;
     private final TinkerVertex vertex;
     private final String key;
     private final V value;
@@ -60,14 +62,14 @@ public class TinkerVertexProperty<V> extends TinkerElement implements VertexProp
      * can be explicitly set and validated against the expected data type.
      */
     public TinkerVertexProperty(final Object id, final TinkerVertex vertex, final String key, final V value, final Object... propertyKeyValues) {
-        super(id, key);
+        super(id, TinkerHelper.intern((TinkerGraph) vertex.graph(), key));
         this.allowNullPropertyValues = vertex.graph().features().vertex().properties().supportsNullPropertyValues();
         if (!allowNullPropertyValues && null == value)
             throw new IllegalArgumentException("value cannot be null as feature supportsNullPropertyValues is false");
 
         this.vertex = vertex;
-        this.key = key;
-        this.value = value;
+        this.key = this.label;
+        this.value = TinkerHelper.intern((TinkerGraph) vertex.graph(), this.key, value);
         ElementHelper.legalPropertyKeyValueArray(propertyKeyValues);
         ElementHelper.attachProperties(this, propertyKeyValues);
     }
@@ -105,12 +107,14 @@ public class TinkerVertexProperty<V> extends TinkerElement implements VertexProp
 
     @Override
     public Set<String> keys() {
-        return null == this.properties ? Collections.emptySet() : this.properties.keySet();
+        final Map<String, Property> properties = this.properties;
+        return null == properties ? Collections.emptySet() : properties.keySet();
     }
 
     @Override
     public <U> Property<U> property(final String key) {
-        return null == this.properties ? Property.<U>empty() : this.properties.getOrDefault(key, Property.<U>empty());
+        final Map<String, Property> properties = this.properties;
+        return null == properties ? Property.<U>empty() : properties.getOrDefault(key, Property.<U>empty());
     }
 
     @Override
@@ -123,8 +127,9 @@ public class TinkerVertexProperty<V> extends TinkerElement implements VertexProp
         }
 
         final Property<U> property = new TinkerProperty<>(this, key, value);
-        if (this.properties == null) this.properties = new HashMap<>();
-        this.properties.put(key, property);
+        this.properties = TinkerHelper.putProperty((TinkerGraph) this.vertex.graph(), this.properties, property);
+        final TinkerJournal journal = ((TinkerGraph) this.vertex.graph()).journal;
+        if (null != journal) journal.addProperty((TinkerProperty<U>) property);
         return property;
     }
 
@@ -136,11 +141,8 @@ public class TinkerVertexProperty<V> extends TinkerElement implements VertexProp
     @Override
     public void remove() {
         if (null != this.vertex.properties && this.vertex.properties.containsKey(this.key)) {
-            this.vertex.properties.get(this.key).remove(this);
-            if (this.vertex.properties.get(this.key).size() == 0) {
-                this.vertex.properties.remove(this.key);
+            if (TinkerHelper.removeVertexProperty(this.vertex, this))
                 TinkerHelper.removeIndex(this.vertex, this.key, this.value);
-            }
             final AtomicBoolean delete = new AtomicBoolean(true);
             this.vertex.properties(this.key).forEachRemaining(property -> {
                 final Object currentPropertyValue = property.value();
@@ -148,6 +150,8 @@ public class TinkerVertexProperty<V> extends TinkerElement implements VertexProp
                     delete.set(false);
             });
             if (delete.get()) TinkerHelper.removeIndex(this.vertex, this.key, this.value);
+            final TinkerJournal journal = ((TinkerGraph) this.vertex.graph()).journal;
+            if (null != journal) journal.removeVertexProperty(this);
             this.properties = null;
             this.removed = true;
         }
@@ -155,11 +159,12 @@ public class TinkerVertexProperty<V> extends TinkerElement implements VertexProp
 
     @Override
     public <U> Iterator<Property<U>> properties(final String... propertyKeys) {
-        if (null == this.properties) return Collections.emptyIterator();
+        final Map<String, Property> properties = this.properties;
+        if (null == properties) return Collections.emptyIterator();
         if (propertyKeys.length == 1) {
-            final Property<U> property = this.properties.get(propertyKeys[0]);
+            final Property<U> property = properties.get(propertyKeys[0]);
             return null == property ? Collections.emptyIterator() : IteratorUtils.of(property);
         } else
-            return (Iterator) this.properties.entrySet().stream().filter(entry -> ElementHelper.keyExists(entry.getKey(), propertyKeys)).map(entry -> entry.getValue()).collect(Collectors.toList()).iterator();
+            return (Iterator) properties.entrySet().stream().filter(entry -> ElementHelper.keyExists(entry.getKey(), propertyKeys)).map(entry -> entry.getValue()).collect(Collectors.toList()).iterator();
     }
 }
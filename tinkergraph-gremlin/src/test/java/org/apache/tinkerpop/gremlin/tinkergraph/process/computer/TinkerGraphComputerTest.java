@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.process.computer;
+
+import org.apache.tinkerpop.gremlin.process.computer.Computer;
+import org.apache.tinkerpop.gremlin.process.computer.ComputerResult;
+import org.apache.tinkerpop.gremlin.process.computer.GraphComputer;
+import org.apache.tinkerpop.gremlin.process.computer.Memory;
+import org.apache.tinkerpop.gremlin.process.computer.MemoryComputeKey;
+import org.apache.tinkerpop.gremlin.process.computer.MessageScope;
+import org.apache.tinkerpop.gremlin.process.computer.Messenger;
+import org.apache.tinkerpop.gremlin.process.computer.VertexComputeKey;
+import org.apache.tinkerpop.gremlin.process.computer.VertexProgram;
+import org.apache.tinkerpop.gremlin.process.computer.ranking.pagerank.PageRankVertexProgram;
+import org.apache.tinkerpop.gremlin.process.computer.traversal.step.map.ConnectedComponent;
+import org.apache.tinkerpop.gremlin.process.traversal.Operator;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerFactory;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class TinkerGraphComputerTest {
+
+    @Test
+    public void shouldSendMessagesFromManyWorkers() throws Exception {
+        final TinkerGraph graph = TinkerGraph.open();
+        final Random random = new Random(123);
+        final List<Vertex> vertices = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            vertices.add(graph.addVertex(T.id, i));
+        }
+        for (int i = 0; i < 2000; i++) {
+            vertices.get(random.nextInt(250)).addEdge("link", vertices.get(random.nextInt(250)));
+            vertices.get(250 + random.nextInt(250)).addEdge("link", vertices.get(250 + random.nextInt(250)));
+        }
+
+        // page rank combines its messages while connected components does not
+        final Map<Object, Object> ranks = graph.traversal().withComputer(Computer.compute().workers(1)).V().pageRank().
+                group().by(T.id).by(PageRankVertexProgram.PAGE_RANK).next();
+        final Map<Object, Object> components = graph.traversal().withComputer(Computer.compute().workers(1)).V().connectedComponent().
+                group().by(T.id).by(ConnectedComponent.component).next();
+        assertEquals(500, ranks.size());
+        final Set<Object> lower = new HashSet<>();
+        final Set<Object> upper = new HashSet<>();
+        components.forEach((id, component) -> ((Integer) id < 250 ? lower : upper).add(component));
+        assertEquals(Collections.emptySet(), lower.stream().filter(upper::contains).collect(Collectors.toSet()));
+
+        // the number of workers is limited to the number of processors
+        for (int workers = 2; workers <= Runtime.getRuntime().availableProcessors(); workers *= 2) {
+            final Map<Object, Object> r = graph.traversal().withComputer(Computer.compute().workers(workers)).V().pageRank().
+                    group().by(T.id).by(PageRankVertexProgram.PAGE_RANK).next();
+            assertEquals(ranks.keySet(), r.keySet());
+            ranks.forEach((id, rank) -> assertEquals((Double) ((List) rank).get(0), (Double) ((List) r.get(id)).get(0), 0.000001d));
+            assertEquals(components, graph.traversal().withComputer(Computer.compute().workers(workers)).V().connectedComponent().
+                    group().by(T.id).by(ConnectedComponent.component).next());
+        }
+    }
+
+    @Test
+    public void shouldVisitEveryVertexOnceWithSupernodes() throws Exception {
+        final TinkerGraph graph = TinkerGraph.open();
+        final List<Vertex> hubs = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            hubs.add(graph.addVertex("hub", i));
+        }
+        for (int i = 0; i < 3000; i++) {
+            final Vertex v = graph.addVertex("leaf", i);
+            hubs.get(i % 3).addEdge("link", v);
+            if (i % 100 == 0) hubs.get(0).addEdge("link", hubs.get(1 + i % 2));
+        }
+
+        final int workers = Runtime.getRuntime().availableProcessors();
+        final GraphTraversalSource g = graph.traversal().withComputer(Computer.compute().workers(workers));
+        assertEquals(new Long(3003), g.V().count().next());
+        assertEquals(new Long(2 * IteratorUtils.count(graph.edges())), g.V().both().count().next());
+        assertEquals(new Long(3003), g.V().pageRank().values(PageRankVertexProgram.PAGE_RANK).count().next());
+        assertEquals(3003, g.V().id().toList().stream().distinct().count());
+    }
+
+    @Test
+    public void shouldOnlyExecuteFrontier() throws Exception {
+        final TinkerGraph graph = TinkerGraph.open();
+        Vertex previous = graph.addVertex(T.id, 0);
+        for (int i = 1; i < 100; i++) {
+            final Vertex v = graph.addVertex(T.id, i);
+            previous.addEdge("next", v);
+            previous = v;
+        }
+        for (int i = 100; i < 200; i++) {
+            graph.addVertex(T.id, i);
+        }
+
+        final ComputerResult all = graph.compute().program(new HopVertexProgram()).submit().get();
+        assertEquals(200L * 101, (long) all.memory().get(HopVertexProgram.EXECUTED));
+        assertEquals(99, (int) all.graph().vertices(99).next().value(HopVertexProgram.HOPS));
+
+        // the first iteration, one vertex per hop and none once no vertex is active
+        final ComputerResult frontier = graph.compute().program(new HopVertexProgram()).configure(TinkerGraphComputer.FRONTIER, true).submit().get();
+        assertEquals(200L + 99, (long) frontier.memory().get(HopVertexProgram.EXECUTED));
+        assertEquals(99, (int) frontier.graph().vertices(99).next().value(HopVertexProgram.HOPS));
+        assertEquals(0, IteratorUtils.count(frontier.graph().vertices(150).next().properties(HopVertexProgram.HOPS)));
+
+        // the last hop asks for a pass over all vertices
+        final ComputerResult fullPass = graph.compute().program(new HopVertexProgram(true)).configure(TinkerGraphComputer.FRONTIER, true).submit().get();
+        assertEquals(200L + 99 + 200, (long) fullPass.memory().get(HopVertexProgram.EXECUTED));
+        assertEquals(99, (int) fullPass.graph().vertices(99).next().value(HopVertexProgram.HOPS));
+
+        final TinkerGraph modern = TinkerFactory.createModern();
+        final Computer computer = Computer.compute().configure(TinkerGraphComputer.FRONTIER, true);
+        assertEquals(modern.traversal().withComputer().V().connectedComponent().values(ConnectedComponent.component).toList(),
+                modern.traversal().withComputer(computer).V().connectedComponent().values(ConnectedComponent.component).toList());
+    }
+
+    /**
+     * Counts the hops from the vertex with id 0 along out edges and the number of times that a vertex is executed.
+     */
+    private static final class HopVertexProgram implements VertexProgram<Integer> {
+        private static final String HOPS = "hops";
+        private static final String EXECUTED = "executed";
+        private static final String HALT = "halt";
+        private static final MessageScope.Local<Integer> SCOPE = MessageScope.Local.of(__::outE);
+
+        private final boolean fullPass;
+
+        private HopVertexProgram() {
+            this(false);
+        }
+
+        private HopVertexProgram(final boolean fullPass) {
+            this.fullPass = fullPass;
+        }
+
+        @Override
+        public void setup(final Memory memory) {
+            memory.set(EXECUTED, 0L);
+            memory.set(HALT, true);
+        }
+
+        @Override
+        public void execute(final Vertex vertex, final Messenger<Integer> messenger, final Memory memory) {
+            memory.add(EXECUTED, 1L);
+            if (memory.isInitialIteration()) {
+                if (vertex.id().equals(0)) {
+                    vertex.property(HOPS, 0);
+                    messenger.sendMessage(SCOPE, 1);
+                    memory.add(HALT, false);
+                }
+            } else if (!vertex.property(HOPS).isPresent()) {
+                final Iterator<Integer> messages = messenger.receiveMessages();
+                if (messages.hasNext()) {
+                    final int hops = messages.next();
+                    vertex.property(HOPS, hops);
+                    messenger.sendMessage(SCOPE, hops + 1);
+                    memory.add(HALT, false);
+                    if (this.fullPass && !vertex.edges(Direction.OUT).hasNext())
+                        ((TinkerMessenger<Integer>) messenger).activateAll();
+                }
+            }
+        }
+
+        @Override
+        public boolean terminate(final Memory memory) {
+            final boolean halt = memory.get(HALT);
+            memory.set(HALT, true);
+            return halt;
+        }
+
+        @Override
+        public Set<VertexComputeKey> getVertexComputeKeys() {
+            return Collections.singleton(VertexComputeKey.of(HOPS, false));
+        }
+
+        @Override
+        public Set<MemoryComputeKey> getMemoryComputeKeys() {
+            return new HashSet<>(Arrays.asList(
+                    MemoryComputeKey.of(EXECUTED, Operator.sum, false, false),
+                    MemoryComputeKey.of(HALT, Operator.and, false, true)));
+        }
+
+        @Override
+        public Set<MessageScope> getMessageScopes(final Memory memory) {
+            return Collections.singleton(SCOPE);
+        }
+
+        @Override
+        public VertexProgram<Integer> clone() {
+            return this;
+        }
+
+        @Override
+        public GraphComputer.ResultGraph getPreferredResultGraph() {
+            return GraphComputer.ResultGraph.NEW;
+        }
+
+        @Override
+        public GraphComputer.Persist getPreferredPersist() {
+            return GraphComputer.Persist.VERTEX_PROPERTIES;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.process.computer;
+
+import org.apache.tinkerpop.gremlin.process.computer.GraphComputer;
+import org.apache.tinkerpop.gremlin.process.computer.GraphFilter;
+import org.apache.tinkerpop.gremlin.process.computer.VertexComputeKey;
+import org.apache.tinkerpop.gremlin.process.computer.ranking.pagerank.PageRankVertexProgram;
+import org.apache.tinkerpop.gremlin.process.computer.traversal.step.map.PageRank;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerFactory;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerHelper;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerVertex;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TinkerGraphComputerViewTest {
+
+    @Test
+    public void shouldKeepComputeKeysInColumns() throws Exception {
+        final TinkerGraph graph = TinkerFactory.createModern();
+        final Vertex added = graph.addVertex("name", "lonely");
+        graph.compute().program(PageRankVertexProgram.build().create(graph))
+                .result(GraphComputer.ResultGraph.ORIGINAL)
+                .persist(GraphComputer.Persist.VERTEX_PROPERTIES).submit().get();
+
+        graph.vertices().forEachRemaining(v -> {
+            final List<Object> ranks = IteratorUtils.list(v.values(PageRankVertexProgram.PAGE_RANK));
+            assertEquals(1, ranks.size());
+            assertThat((Double) ranks.get(0), greaterThan(0.0));
+            // the edge count is a transient compute key and so is not persisted
+            assertEquals(Collections.singleton(PageRankVertexProgram.PAGE_RANK), v.keys().stream().filter(k -> k.startsWith("gremlin.")).collect(Collectors.toSet()));
+        });
+
+        // a vertex added after the job was created gets its own position in the columns of the next job
+        final Vertex later = graph.addVertex("name", "later");
+        added.addEdge("knows", later);
+        final List<Object> ranks = graph.traversal().withComputer().V().pageRank().with(PageRank.propertyName, "rank").hasId(later.id()).values("rank").toList();
+        assertEquals(1, ranks.size());
+        assertThat((Double) ranks.get(0), greaterThan(0.0));
+    }
+
+    @Test
+    public void shouldCreateComputeKeyPropertiesOnRead() {
+        final TinkerGraph graph = TinkerFactory.createModern();
+        final TinkerVertex marko = (TinkerVertex) graph.vertices(1).next();
+        TinkerHelper.createGraphComputerView(graph, new GraphFilter(), new HashSet<>(Arrays.asList(
+                VertexComputeKey.of("rank", false), VertexComputeKey.of("tags", false))));
+        try {
+            // a value that is a list is kept apart from the values of a key with more than one
+            final List<String> path = Arrays.asList("a", "b");
+            marko.property(VertexProperty.Cardinality.single, "rank", path);
+            assertEquals(path, marko.value("rank"));
+            marko.property(VertexProperty.Cardinality.single, "rank", 0.5d);
+            assertEquals(0.5d, marko.<Double>value("rank"), 0d);
+
+            marko.property(VertexProperty.Cardinality.list, "tags", "x");
+            marko.property(VertexProperty.Cardinality.list, "tags", "y");
+            marko.property(VertexProperty.Cardinality.set, "tags", "x");
+            assertEquals(Arrays.asList("x", "y"), IteratorUtils.list(marko.values("tags")));
+
+            // the id of a compute key and its properties stay with it once they are asked for
+            final VertexProperty<Double> rank = marko.property("rank");
+            rank.property("iteration", 3);
+            assertEquals(rank.id(), marko.property("rank").id());
+            assertEquals(3, (int) marko.<Double>property("rank").value("iteration"));
+
+            marko.properties("tags").forEachRemaining(p -> {
+                if (p.value().equals("x")) p.remove();
+            });
+            assertEquals(Collections.singletonList("y"), IteratorUtils.list(marko.values("tags")));
+            assertEquals(new HashSet<>(Arrays.asList("name", "age", "rank", "tags")), marko.keys());
+
+            try {
+                marko.property("unknown", 1);
+                fail("Only compute keys may be written while the graph computer view is in place");
+            } catch (IllegalArgumentException ex) {
+                // expected
+            }
+        } finally {
+            TinkerHelper.dropGraphComputerView(graph);
+        }
+        assertEquals(Collections.emptyList(), IteratorUtils.list(marko.values("rank")));
+    }
+}
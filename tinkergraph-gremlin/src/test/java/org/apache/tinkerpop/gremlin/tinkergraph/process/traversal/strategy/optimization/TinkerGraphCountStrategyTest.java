@@ -19,15 +19,20 @@
 
 package org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.strategy.optimization;
 
+import org.apache.tinkerpop.gremlin.process.traversal.P;
 import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
 import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategies;
 import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.DefaultGraphTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
 import org.apache.tinkerpop.gremlin.process.traversal.util.DefaultTraversalStrategies;
 import org.apache.tinkerpop.gremlin.process.traversal.util.EmptyTraversal;
+import org.apache.tinkerpop.gremlin.structure.Direction;
 import org.apache.tinkerpop.gremlin.structure.Element;
+import org.apache.tinkerpop.gremlin.structure.T;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.step.map.TinkerCountDegreeStep;
 import org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.step.map.TinkerCountGlobalStep;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
 import org.junit.Test;
@@ -79,6 +84,14 @@ public class TinkerGraphCountStrategyTest {
 
     }
 
+    private static Traversal.Admin<?, ?> countStep(final Class<? extends Element> elementClass, final HasContainer... hasContainers) {
+        return new DefaultGraphTraversal<>().addStep(new TinkerCountGlobalStep(EmptyTraversal.instance(), elementClass, Arrays.asList(hasContainers)));
+    }
+
+    private static Traversal.Admin<?, ?> degreeStep(final Object id, final Direction direction, final String... edgeLabels) {
+        return new DefaultGraphTraversal<>().addStep(new TinkerCountDegreeStep(EmptyTraversal.instance(), new Object[]{id}, direction, edgeLabels));
+    }
+
     @Parameterized.Parameters(name = "{0}")
     public static Iterable<Object[]> generateTestParameters() {
         return Arrays.asList(new Object[][]{
@@ -91,10 +104,18 @@ public class TinkerGraphCountStrategyTest {
                 {__.V().map(out().groupCount()).identity().count().as("a"), null, TraversalStrategies.GlobalCache.getStrategies(TinkerGraph.class).toList()},
                 {__.V().label().map(s -> s.get().length()).count(), null, TraversalStrategies.GlobalCache.getStrategies(TinkerGraph.class).toList()},
                 {__.V().as("a").map(select("a")).count(), null, TraversalStrategies.GlobalCache.getStrategies(TinkerGraph.class).toList()},
+                {__.V().hasLabel("person").count(), countStep(Vertex.class, new HasContainer(T.label.getAccessor(), P.eq("person"))), Collections.emptyList()},
+                {__.V().hasLabel("person", "software").count(), countStep(Vertex.class, new HasContainer(T.label.getAccessor(), P.within("person", "software"))), TraversalStrategies.GlobalCache.getStrategies(TinkerGraph.class).toList()},
+                {__.V(1).outE("knows").count(), degreeStep(1, Direction.OUT, "knows"), Collections.emptyList()},
+                {__.V(1).both().count(), degreeStep(1, Direction.BOTH), TraversalStrategies.GlobalCache.getStrategies(TinkerGraph.class).toList()},
                 //
                 {__.V(), null, Collections.emptyList()},
                 {__.V().out().count(), null, Collections.emptyList()},
                 {__.V(1).count(), null, Collections.emptyList()},
+                {__.V().has("name", "marko").count(), null, Collections.emptyList()},
+                {__.V().hasLabel("person").out().count(), null, Collections.emptyList()},
+                {__.V(1).out().out().count(), null, Collections.emptyList()},
+                {__.V(1).outE().has("weight", 0.5).count(), null, Collections.emptyList()},
                 {__.count(), null, Collections.emptyList()},
                 {__.V().map(out().groupCount("m")).identity().count().as("a"), null, Collections.emptyList()},
         });
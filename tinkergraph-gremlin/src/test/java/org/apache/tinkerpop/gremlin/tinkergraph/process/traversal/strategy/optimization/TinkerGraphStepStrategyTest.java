@@ -18,6 +18,8 @@
  */
 package org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.strategy.optimization;
 
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.apache.commons.configuration2.Configuration;
 import org.apache.tinkerpop.gremlin.process.traversal.P;
 import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
 import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategies;
@@ -32,7 +34,12 @@ import org.apache.tinkerpop.gremlin.process.traversal.strategy.optimization.Inli
 import org.apache.tinkerpop.gremlin.process.traversal.strategy.optimization.LazyBarrierStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.util.DefaultTraversalStrategies;
 import org.apache.tinkerpop.gremlin.process.traversal.util.EmptyTraversal;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.T;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.step.map.TinkerEdgeExistenceStep;
 import org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.step.sideEffect.TinkerGraphStep;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
 import org.junit.Test;
@@ -46,9 +53,12 @@ import java.util.Collections;
 import static org.apache.tinkerpop.gremlin.process.traversal.P.eq;
 import static org.apache.tinkerpop.gremlin.process.traversal.P.gt;
 import static org.apache.tinkerpop.gremlin.process.traversal.P.lt;
+import static org.apache.tinkerpop.gremlin.process.traversal.P.within;
 import static org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__.filter;
 import static org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__.has;
+import static org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__.inV;
 import static org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__.not;
+import static org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__.outV;
 import static org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__.properties;
 import static org.junit.Assert.assertEquals;
 
@@ -98,9 +108,30 @@ public class TinkerGraphStepStrategyTest {
         return graphStep;
     }
 
+    private static GraphTraversal<?, ?> onGraph(final Graph graph, final GraphTraversal<?, ?> traversal) {
+        traversal.asAdmin().setGraph(graph);
+        return traversal;
+    }
+
+    private static TinkerEdgeExistenceStep<?> exists(final Class<?> returnClass, final Direction direction, final String edgeLabel,
+                                                     final P<?> predicate, final String... labels) {
+        final Object[] ids = predicate.getValue() instanceof Collection ?
+                ((Collection<?>) predicate.getValue()).toArray() : new Object[]{predicate.getValue()};
+        final TinkerEdgeExistenceStep<?> step = new TinkerEdgeExistenceStep<>(EmptyTraversal.instance(), (Class) returnClass,
+                direction, new String[]{edgeLabel}, ids, Collections.singletonList(new HasContainer(T.id.getAccessor(), predicate)));
+        for (final String label : labels) {
+            step.addLabel(label);
+        }
+        return step;
+    }
+
     @Parameterized.Parameters(name = "{0}")
     public static Iterable<Object[]> generateTestParameters() {
         final int LAZY_SIZE = 2500;
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_EDGE_EXISTENCE_INDEX, true);
+        final TinkerGraph indexed = TinkerGraph.open(conf);
+        final TinkerGraph unindexed = TinkerGraph.open();
         return Arrays.asList(new Object[][]{
                 {__.V().out(), g_V().out(), Collections.emptyList()},
                 {__.V().has("name", "marko").out(), g_V("name", eq("marko")).out(), Collections.emptyList()},
@@ -131,6 +162,27 @@ public class TinkerGraphStepStrategyTest {
                 {__.V().has("name", P.eq("marko").and(P.eq("bob").or(P.eq("stephen")))).out("knows"),
                         g_V("name", eq("marko"), "name", P.eq("bob").or(eq("stephen"))).out("knows"), Collections.emptyList()},
                 ///////
+                {onGraph(indexed, __.V().out("knows").hasId(2)),
+                        g_V().asAdmin().addStep(exists(Vertex.class, Direction.OUT, "knows", eq(2))), Collections.emptyList()},
+                {onGraph(indexed, __.V().in("knows").hasId(1, 2)),
+                        g_V().asAdmin().addStep(exists(Vertex.class, Direction.IN, "knows", within(1, 2))), Collections.emptyList()},
+                {onGraph(indexed, __.V().outE("knows").where(inV().hasId(2))),
+                        g_V().asAdmin().addStep(exists(Edge.class, Direction.OUT, "knows", eq(2))), Collections.emptyList()},
+                {onGraph(indexed, __.V().inE("knows").where(outV().hasId(1, 2)).count()),
+                        g_V().asAdmin().addStep(exists(Edge.class, Direction.IN, "knows", within(1, 2))).count(), Collections.emptyList()},
+                {onGraph(indexed, __.V().out("knows").as("a").hasId(2).as("b")),
+                        g_V().asAdmin().addStep(exists(Vertex.class, Direction.OUT, "knows", eq(2), "a", "b")), Collections.emptyList()},
+                {onGraph(indexed, __.V().outE("knows").as("a").where(inV().hasId(2)).as("b").inV()),
+                        g_V().asAdmin().addStep(exists(Edge.class, Direction.OUT, "knows", eq(2), "a", "b")).inV(), Collections.emptyList()},
+                {onGraph(indexed, __.V().outE("knows").where(inV().hasId(2))),
+                        g_V().asAdmin().addStep(exists(Edge.class, Direction.OUT, "knows", eq(2))), TraversalStrategies.GlobalCache.getStrategies(TinkerGraph.class).toList()},
+                {onGraph(unindexed, __.V().out("knows").hasId(2)), g_V().out("knows").hasId(2), Collections.emptyList()},
+                {onGraph(indexed, __.V().both("knows").hasId(2)), g_V().both("knows").hasId(2), Collections.emptyList()},
+                {onGraph(indexed, __.V().out().hasId(2)), g_V().out().hasId(2), Collections.emptyList()},
+                {onGraph(indexed, __.V().out("knows").hasId(gt(2))), g_V().out("knows").hasId(gt(2)), Collections.emptyList()},
+                {onGraph(indexed, __.V().outE("knows").where(outV().hasId(2))), g_V().outE("knows").where(outV().hasId(2)), Collections.emptyList()},
+                {onGraph(indexed, __.V().outE("knows").where(inV().as("a").hasId(2))), g_V().outE("knows").where(inV().as("a").hasId(2)), Collections.emptyList()},
+                ///////
                 {__.V().out().out().V().has("name", "marko").out(), g_V().out().barrier(LAZY_SIZE).out().barrier(LAZY_SIZE).asAdmin().addStep(V("name", eq("marko"))).barrier(LAZY_SIZE).out(), Arrays.asList(InlineFilterStrategy.instance(), FilterRankingStrategy.instance(), LazyBarrierStrategy.instance())},
                 {__.V().out().out().V().has("name", "marko").as("a").out(), g_V().out().barrier(LAZY_SIZE).out().barrier(LAZY_SIZE).asAdmin().addStep(V("name", eq("marko"))).barrier(LAZY_SIZE).as("a").out(), Arrays.asList(InlineFilterStrategy.instance(), FilterRankingStrategy.instance(), LazyBarrierStrategy.instance())},
                 {__.V().out().V().has("age", gt(32)).barrier(10).has("name", "marko").as("a"), g_V().out().barrier(LAZY_SIZE).asAdmin().addStep(V("age", gt(32), "name", eq("marko"))).barrier(LAZY_SIZE).barrier(10).as("a"), Arrays.asList(InlineFilterStrategy.instance(), FilterRankingStrategy.instance(), LazyBarrierStrategy.instance())},
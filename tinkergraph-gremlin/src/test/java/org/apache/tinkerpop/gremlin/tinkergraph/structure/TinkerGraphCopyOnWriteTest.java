@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.structure;
+
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TinkerGraphCopyOnWriteTest {
+
+    @Test
+    public void shouldCopyOnWrite() {
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_COPY_ON_WRITE, true);
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_DEFAULT_VERTEX_PROPERTY_CARDINALITY, VertexProperty.Cardinality.list.name());
+        final TinkerGraph g = TinkerGraph.open(conf);
+
+        final TinkerVertex hub = (TinkerVertex) g.addVertex("name", "hub");
+        final List<Edge> edges = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            edges.add(hub.addEdge("knows", g.addVertex(), "oid", i));
+        }
+        final VertexProperty<String> location = hub.property("location", "santa fe", "startTime", 1997);
+        hub.property("location", "brussels");
+
+        // readers holding on to the structures of an element keep seeing them as they were
+        final Set<Edge> knows = hub.outEdges.get("knows");
+        final Map<String, List<VertexProperty>> properties = hub.properties;
+        edges.get(0).remove();
+        location.property("endTime", 2001);
+        location.property("startTime").remove();
+        hub.property("location", "santa cruz");
+        hub.properties("name").forEachRemaining(VertexProperty::remove);
+        edges.get(1).property("oid").remove();
+
+        assertEquals(10, knows.size());
+        assertEquals(2, properties.get("location").size());
+        assertTrue(properties.containsKey("name"));
+
+        assertEquals(9, IteratorUtils.count(hub.edges(Direction.OUT)));
+        assertEquals(9, TinkerHelper.getDegree(hub, Direction.OUT, "knows"));
+        assertEquals(Arrays.asList("santa fe", "brussels", "santa cruz"), g.traversal().V(hub).values("location").toList());
+        assertEquals(Collections.singleton("endTime"), location.keys());
+        assertEquals(Collections.singleton("location"), hub.keys());
+        assertEquals(Collections.emptySet(), edges.get(1).keys());
+        assertEquals(new Long(8), g.traversal().V(hub).outE().has("oid").count().next());
+
+        hub.remove();
+        assertEquals(0, IteratorUtils.count(g.edges()));
+        assertEquals(new Long(0), g.traversal().V().bothE().count().next());
+    }
+
+    @Test
+    public void shouldRemoveVertexWithManyEdgesWithCopyOnWrite() {
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_COPY_ON_WRITE, true);
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_EDGE_EXISTENCE_INDEX, true);
+        final TinkerGraph g = TinkerGraph.open(conf);
+
+        final TinkerVertex hub = (TinkerVertex) g.addVertex("name", "hub");
+        final TinkerVertex other = (TinkerVertex) g.addVertex("name", "other");
+        for (int i = 0; i < 20000; i++) {
+            final Vertex v = g.addVertex();
+            hub.addEdge(i % 2 == 0 ? "even" : "odd", v);
+            v.addEdge("knows", hub);
+        }
+        hub.addEdge("self", hub);
+        hub.addEdge("knows", other);
+        other.addEdge("knows", hub);
+        other.addEdge("knows", other);
+
+        // readers holding on to the edges of the vertices keep seeing them as they were
+        final Set<Edge> even = hub.outEdges.get("even");
+        final Set<Edge> otherIn = other.inEdges.get("knows");
+
+        hub.remove();
+        assertEquals(10000, even.size());
+        assertEquals(2, otherIn.size());
+        assertEquals(1, IteratorUtils.count(g.edges()));
+        assertEquals(1, TinkerHelper.getDegree(other, Direction.OUT, "knows"));
+        assertEquals(1, IteratorUtils.count(other.edges(Direction.IN)));
+        assertEquals(new Long(0), g.traversal().V().hasNot("name").bothE().count().next());
+        assertFalse(g.traversal().V(other).outE("knows").where(__.inV().hasId(hub.id())).hasNext());
+        assertTrue(g.traversal().V(other).outE("knows").where(__.inV().hasId(other.id())).hasNext());
+    }
+
+    @Test
+    public void shouldReadWhileWritingWithCopyOnWrite() throws Exception {
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_COPY_ON_WRITE, true);
+        final TinkerGraph g = TinkerGraph.open(conf);
+        final Vertex hub = g.addVertex("name", "hub");
+
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        final Thread writer = new Thread(() -> {
+            try {
+                final List<Edge> edges = new ArrayList<>();
+                for (int i = 0; i < 20000; i++) {
+                    final Vertex v = g.addVertex("i", i);
+                    edges.add(hub.addEdge(i % 2 == 0 ? "even" : "odd", v, "i", i));
+                    hub.property("last", i).property("at", i);
+                    if (i % 3 == 0) edges.get(i / 2).remove();
+                }
+            } catch (Throwable t) {
+                failures.add(t);
+            } finally {
+                writing.set(false);
+            }
+        });
+
+        final List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            readers.add(new Thread(() -> {
+                try {
+                    final GraphTraversalSource gts = g.traversal();
+                    while (writing.get()) {
+                        IteratorUtils.count(hub.edges(Direction.OUT));
+                        IteratorUtils.count(hub.vertices(Direction.OUT, "even", "odd"));
+                        hub.properties().forEachRemaining(p -> p.keys().size());
+                        gts.V(hub).outE("odd").values("i").sum().tryNext();
+                        gts.V(hub).properties().properties().count().next();
+                        gts.V().has("i", P.gt(100)).limit(10).toList();
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            }));
+        }
+
+        readers.forEach(Thread::start);
+        writer.start();
+        writer.join();
+        for (final Thread reader : readers) {
+            reader.join();
+        }
+
+        assertEquals(Collections.emptyList(), failures);
+        assertEquals(new Long(20000 - 6667), g.traversal().V(hub).outE().count().next());
+    }
+}
@@ -94,6 +94,17 @@ public class TinkerGraphIdManagerTest {
             assertEquals(300l, vp.id());
         }
 
+        @Test
+        public void shouldFindElementsWithLongIdManager() {
+            final Graph graph = TinkerGraph.open(longIdManagerConfig);
+            final Vertex v = graph.addVertex(T.id, vertexIdValue);
+            final Edge e = v.addEdge("self", v, T.id, edgeIdValue);
+
+            assertEquals(v, graph.vertices(vertexIdValue).next());
+            assertEquals(e, graph.edges(edgeIdValue).next());
+            assertEquals(v, graph.vertices(v).next());
+        }
+
         @Test
         public void shouldUseIntegerIdManagerToCoerceTypes() {
             final Graph graph = TinkerGraph.open(integerIdManagerConfig);
@@ -26,6 +26,7 @@ import org.apache.tinkerpop.gremlin.process.traversal.traverser.TraverserRequire
 import org.apache.tinkerpop.gremlin.process.traversal.traverser.util.TraverserSet;
 import org.apache.tinkerpop.gremlin.structure.Direction;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
 import org.apache.tinkerpop.gremlin.tinkergraph.services.TinkerDegreeCentralityFactory;
 import org.apache.tinkerpop.gremlin.tinkergraph.services.TinkerServiceRegistry;
 import org.apache.tinkerpop.gremlin.tinkergraph.services.TinkerTextSearchFactory;
@@ -37,6 +38,7 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
@@ -55,8 +57,11 @@ import static org.apache.tinkerpop.gremlin.structure.service.Service.ServiceCall
 import static org.apache.tinkerpop.gremlin.structure.service.Service.Type;
 import static org.apache.tinkerpop.gremlin.tinkergraph.services.TinkerServiceRegistry.LambdaServiceFactory;
 import static org.apache.tinkerpop.gremlin.util.tools.CollectionFactory.asMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.StringContains.containsString;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 
 /**
@@ -164,6 +169,54 @@ public class TinkerGraphServiceTest {
 
     }
 
+    /**
+     * Demonstrate / test the text index lookups of the search service.
+     */
+    @Test
+    public void g_call_search_text() {
+        graph.createTextIndex("name", Vertex.class);
+        graph.addVertex("name", "Apache TinkerPop Gremlin");
+        graph.addVertex("name", "the Gremlin Console");
+        final Vertex server = graph.addVertex("name", "gremlin-server");
+
+        checkResults(Arrays.asList("Apache TinkerPop Gremlin", "the Gremlin Console", "gremlin-server"),
+                g.call("tinker.search").with("term", "GREMLIN").value());
+        checkResults(Arrays.asList("Apache TinkerPop Gremlin"),
+                g.call("tinker.search").with("prefix", "gremlin tink").value());
+        checkResults(Arrays.asList("marko"),
+                g.call("tinker.search", asMap("prefix", "mar", "key", "name", "type", "Vertex")).value());
+        checkResults(Arrays.asList("the Gremlin Console"),
+                g.call("tinker.search").with("phrase", "gremlin console").value());
+        checkResults(Collections.emptyList(),
+                g.call("tinker.search").with("phrase", "console gremlin"));
+
+        // the index follows the writes to the key
+        server.property("name", "Gremlin Server");
+        g.V().has("name", "the Gremlin Console").drop().iterate();
+        checkResults(Arrays.asList("Apache TinkerPop Gremlin", "Gremlin Server"),
+                g.call("tinker.search").with("term", "gremlin").value());
+        server.property(VertexProperty.Cardinality.list, "name", "TinkerPop Server");
+        checkResults(Arrays.asList("Apache TinkerPop Gremlin", "TinkerPop Server"),
+                g.call("tinker.search").with("term", "tinkerpop").value());
+        server.properties("name").forEachRemaining(p -> {
+            if (p.value().equals("TinkerPop Server")) p.remove();
+        });
+        checkResults(Arrays.asList("Apache TinkerPop Gremlin"),
+                g.call("tinker.search").with("term", "tinkerpop").value());
+
+        // the tokenizer is configurable per key
+        graph.createTextIndex("lang", Vertex.class, text -> Arrays.asList(text.split("")));
+        checkResults(Arrays.asList("java", "java"),
+                g.call("tinker.search").with("phrase", "av").with("key", "lang").value());
+
+        try {
+            g.call("tinker.search").with("term", "0.4").with("key", "weight").iterate();
+            fail("Should not search a key without a text index");
+        } catch (IllegalArgumentException ex) {
+            assertThat(ex.getMessage(), containsString("weight"));
+        }
+    }
+
     @Test
     public void g_V_call_degree_centrality() {
         assertArrayEquals(new String[] {
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.structure;
+
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.HasContainer;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TinkerGraphStatisticsTest {
+
+    @Test
+    public void shouldProvideStatistics() {
+        final TinkerGraph g = TinkerGraph.open();
+        g.createIndex("status", Vertex.class);
+        g.createIndex("ts", Vertex.class, TinkerGraph.IndexType.SORTED);
+        final Vertex v = g.addVertex(T.label, "hub");
+        for (int i = 0; i < 100; i++) {
+            final Vertex u = g.addVertex(T.label, i < 10 ? "rare" : "common", "status", i < 90 ? "on" : "off", "ts", i);
+            v.addEdge("link", u);
+        }
+
+        final TinkerGraphStatistics statistics = g.statistics();
+        assertEquals(101, statistics.count(Vertex.class));
+        assertEquals(100, statistics.count(Edge.class));
+        assertEquals(10, statistics.count(Vertex.class, "rare"));
+        assertEquals(0, statistics.count(Vertex.class, "missing"));
+        assertEquals(new HashSet<>(Arrays.asList("hub", "rare", "common")), statistics.getLabels(Vertex.class));
+        assertEquals(2, statistics.countDistinct(Vertex.class, "status"));
+        assertEquals(100, statistics.countDistinct(Vertex.class, "ts"));
+        assertEquals(-1, statistics.countDistinct(Vertex.class, "name"));
+        assertEquals(new Long(90), statistics.getHistogram(Vertex.class, "status").get("on"));
+        assertEquals(new Long(10), statistics.getHistogram(Vertex.class, "status").get("off"));
+        assertEquals(100d / 101, statistics.getAverageDegree("link"), 0.0001d);
+
+        assertEquals(10, statistics.estimate(Vertex.class, new HasContainer(T.label.getAccessor(), P.eq("rare"))), 0d);
+        assertEquals(91, statistics.estimate(Vertex.class, new HasContainer(T.label.getAccessor(), P.neq("rare"))), 0d);
+        assertEquals(10, statistics.estimate(Vertex.class, new HasContainer("status", P.eq("off"))), 0d);
+        assertEquals(100, statistics.estimate(Vertex.class, new HasContainer("status", P.within("on", "off"))), 0d);
+        assertEquals(5, statistics.estimate(Vertex.class, new HasContainer("ts", P.gte(95))), 0d);
+        assertEquals(5, statistics.estimate(Vertex.class, new HasContainer("ts", P.gte(95)), 5), 0d);
+
+        // a range is only counted as far as it can compete with the limit
+        assertEquals(11, statistics.estimate(Vertex.class, new HasContainer("ts", P.gte(0)), 10), 0d);
+        assertEquals(100, statistics.estimate(Vertex.class, new HasContainer("ts", P.gte(0))), 0d);
+        assertEquals(10.1, statistics.estimate(Vertex.class, new HasContainer("name", P.eq("x"))), 0.0001d);
+
+        // the statistics follow the changes to the graph
+        g.traversal().V().hasLabel("rare").drop().iterate();
+        assertEquals(0, statistics.count(Vertex.class, "rare"));
+        assertEquals(90, statistics.count(Edge.class));
+        assertEquals(new Long(80), statistics.getHistogram(Vertex.class, "status").get("on"));
+    }
+
+    @Test
+    public void shouldUseMostSelectiveIndex() {
+        final TinkerGraph g = TinkerGraph.open();
+        g.createIndex("status", Vertex.class);
+        g.createIndex("ts", Vertex.class, TinkerGraph.IndexType.SORTED);
+        for (int i = 0; i < 100; i++) {
+            g.addVertex("status", "on", "ts", i, "oid", i, "name", i % 2 == 0 ? "even" : "odd");
+        }
+
+        // the range on the sorted index selects fewer vertices than the equality on the other index
+        assertEquals(new Long(3), g.traversal().V().has("oid", P.test((t, u) -> {
+            assertTrue((int) t >= 97);
+            return true;
+        }, 0)).has("status", "on").has("ts", P.gte(97)).count().next());
+
+        // the equality on an unindexed key is tested ahead of a predicate that is assumed to be less selective
+        final AtomicInteger tested = new AtomicInteger();
+        assertEquals(new Long(50), g.traversal().V().has("oid", P.test((t, u) -> tested.incrementAndGet() > 0, 0)).
+                has("name", "even").count().next());
+        assertEquals(50, tested.get());
+
+        // a V() in the middle of the traversal keeps the ranking it made for the first traverser
+        tested.set(0);
+        assertEquals(new Long(150), g.traversal().inject(1, 2, 3).V().has("oid", P.test((t, u) -> tested.incrementAndGet() > 0, 0)).
+                has("name", "even").count().next());
+        assertEquals(150, tested.get());
+    }
+}
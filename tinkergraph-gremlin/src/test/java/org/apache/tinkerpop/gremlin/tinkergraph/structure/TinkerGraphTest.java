@@ -23,9 +23,11 @@ import org.apache.commons.configuration2.Configuration;
 import org.apache.tinkerpop.gremlin.GraphHelper;
 import org.apache.tinkerpop.gremlin.TestHelper;
 import org.apache.tinkerpop.gremlin.process.computer.Computer;
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
 import org.apache.tinkerpop.gremlin.process.traversal.P;
 import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
 import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.Traverser;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
 import org.apache.tinkerpop.gremlin.process.traversal.lambda.AbstractLambdaTraversal;
@@ -36,8 +38,8 @@ import org.apache.tinkerpop.gremlin.process.traversal.strategy.verification.Comp
 import org.apache.tinkerpop.gremlin.process.traversal.strategy.verification.ReservedKeysVerificationStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.strategy.verification.VerificationException;
 import org.apache.tinkerpop.gremlin.process.traversal.util.Metrics;
-import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
 import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalMetrics;
+import org.apache.tinkerpop.gremlin.structure.Direction;
 import org.apache.tinkerpop.gremlin.structure.Edge;
 import org.apache.tinkerpop.gremlin.structure.Graph;
 import org.apache.tinkerpop.gremlin.structure.T;
@@ -57,6 +59,9 @@ import org.apache.tinkerpop.gremlin.structure.io.gryo.GryoMapper;
 import org.apache.tinkerpop.gremlin.structure.io.gryo.GryoVersion;
 import org.apache.tinkerpop.gremlin.structure.io.gryo.GryoWriter;
 import org.apache.tinkerpop.gremlin.structure.util.empty.EmptyGraph;
+import org.apache.tinkerpop.gremlin.tinkergraph.process.computer.TinkerGraphComputer;
+import org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.step.map.TinkerCountGlobalStep;
+import org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.step.map.TinkerEdgeExistenceStep;
 import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
 import org.apache.tinkerpop.shaded.jackson.databind.ObjectMapper;
 import org.apache.tinkerpop.shaded.kryo.ClassResolver;
@@ -85,16 +90,23 @@ import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.apache.tinkerpop.gremlin.process.traversal.AnonymousTraversalSource.traversal;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.core.StringContains.containsString;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeThat;
@@ -328,6 +340,151 @@ public class TinkerGraphTest {
         }, 0.5)).has("oid", "1").count().next());
     }
 
+    @Test
+    public void shouldCountWithoutIteration() {
+        final TinkerGraph g = TinkerGraph.open();
+        g.createIndex("status", Vertex.class);
+        final Vertex hub = g.addVertex(T.label, "hub");
+        for (int i = 0; i < 100; i++) {
+            final Vertex v = g.addVertex(T.label, i < 10 ? "rare" : "common", "status", i < 90 ? "on" : "off");
+            hub.addEdge(i % 2 == 0 ? "even" : "odd", v);
+        }
+        hub.addEdge("self", hub);
+
+        final GraphTraversalSource gts = g.traversal();
+        final Traversal.Admin<Vertex, Long> optimized = gts.V().hasLabel("rare").count().asAdmin();
+        optimized.applyStrategies();
+        assertThat(optimized.getStartStep(), instanceOf(TinkerCountGlobalStep.class));
+        assertEquals(new Long(10), gts.V().hasLabel("rare").count().next());
+        assertEquals(new Long(100), gts.V().hasLabel("rare", "common").count().next());
+        assertEquals(new Long(0), gts.V().hasLabel("rare", "hub").hasLabel("common").count().next());
+        assertEquals(new Long(50), gts.E().hasLabel("odd").count().next());
+        assertEquals(new Long(10), gts.V().has("status", "off").count().next());
+        assertEquals(new Long(0), gts.V().has("status", "unknown").count().next());
+        assertEquals(new Long(50), gts.V(hub.id()).outE("even").count().next());
+        assertEquals(new Long(50), gts.V(hub).out("odd").count().next());
+        assertEquals(new Long(100), gts.V(hub.id()).outE("even", "odd").count().next());
+        assertEquals(new Long(102), gts.V(hub.id()).both().count().next());
+        assertEquals(new Long(4), gts.V(hub.id(), hub.id(), "missing").bothE("self").count().next());
+        assertEquals(new Long(1), gts.V(hub.id()).inE().count().next());
+
+        // the counts follow the changes to the graph and survive the index being dropped
+        gts.V().hasLabel("rare").drop().iterate();
+        assertEquals(new Long(0), gts.V().hasLabel("rare").count().next());
+        assertEquals(new Long(45), gts.V(hub.id()).outE("even").count().next());
+        final Traversal.Admin<Vertex, Long> traversal = gts.V().has("status", "on").count().asAdmin();
+        traversal.applyStrategies();
+        assertThat(traversal.getStartStep(), instanceOf(TinkerCountGlobalStep.class));
+        g.dropIndex("status", Vertex.class);
+        assertEquals(new Long(80), traversal.next());
+    }
+
+    @Test
+    public void shouldReadElementsLazily() {
+        final TinkerGraph g = TinkerGraph.open();
+        g.createIndex("status", Vertex.class);
+        g.createIndex("oid", Edge.class, TinkerGraph.IndexType.SORTED);
+        final Vertex v = g.addVertex();
+        for (int i = 0; i < 100; i++) {
+            g.addVertex("status", "on", "oid", i);
+            v.addEdge("link", v, "oid", i);
+        }
+
+        // spy into the pipeline to check that the elements after the first match are never tested
+        final AtomicInteger tested = new AtomicInteger();
+        final P<Object> spy = P.test((t, u) -> tested.incrementAndGet() > 0, 0);
+        assertEquals(1, g.traversal().V().has("oid", spy).limit(1).toList().size());
+        assertThat(tested.getAndSet(0), lessThan(100));
+        assertEquals(1, g.traversal().V().has("oid", spy).has("status", "on").limit(1).toList().size());
+        assertThat(tested.getAndSet(0), lessThan(100));
+        assertEquals(1, g.traversal().E().has("oid", spy).has("oid", P.gte(0)).limit(1).toList().size());
+        assertThat(tested.getAndSet(0), lessThan(100));
+        assertEquals(1, g.traversal().E().has("oid", spy).order().by("oid", Order.desc).limit(1).toList().size());
+        assertThat(tested.getAndSet(0), lessThan(100));
+    }
+
+    @Test
+    public void shouldNotSeeOwnChangesWhenReadingLazily() {
+        final TinkerGraph g = TinkerGraph.open();
+        g.createIndex("oid", Vertex.class, TinkerGraph.IndexType.SORTED);
+        for (int i = 0; i < 10; i++) {
+            g.addVertex("oid", i);
+        }
+
+        assertEquals(10, g.traversal().V().addV().toList().size());
+        assertEquals(new Long(20), g.traversal().V().count().next());
+        assertEquals(10, g.traversal().V().has("oid", P.gte(0)).property("oid", __.values("oid").math("_ + 10")).toList().size());
+        assertEquals(new Long(10), g.traversal().V().has("oid", P.gte(10)).count().next());
+    }
+
+    @Test
+    public void shouldStoreElementsWithLongIdManager() {
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_VERTEX_ID_MANAGER, TinkerGraph.DefaultIdManager.LONG.name());
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_EDGE_ID_MANAGER, TinkerGraph.DefaultIdManager.LONG.name());
+        final TinkerGraph g = TinkerGraph.open(conf);
+
+        final Vertex first = g.addVertex();
+        for (int i = 0; i < 1000; i++) {
+            first.addEdge("link", g.addVertex(T.id, 1L << 40 | i), "weight", i);
+        }
+        assertEquals(1001, IteratorUtils.count(g.vertices()));
+        assertEquals(1000, IteratorUtils.count(g.edges()));
+
+        g.traversal().V().hasId(P.gte(1L << 40)).filter(v -> (long) v.get().id() % 2 == 0).drop().iterate();
+        assertEquals(501, IteratorUtils.count(g.vertices()));
+        assertEquals(500, IteratorUtils.count(g.edges()));
+        assertEquals(0, IteratorUtils.count(g.vertices(1L << 40)));
+        assertEquals(1, IteratorUtils.count(g.vertices(1L << 40 | 1)));
+
+        // removed identifiers can be used again
+        g.addVertex(T.id, 1L << 40);
+        assertEquals(1, IteratorUtils.count(g.vertices(1L << 40)));
+        assertEquals(502, IteratorUtils.count(g.vertices()));
+
+        g.clear();
+        assertEquals(0, IteratorUtils.count(g.vertices()));
+        assertEquals(0, IteratorUtils.count(g.edges()));
+    }
+
+    @Test
+    public void shouldKeepEdgesInCompactAdjacency() {
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_COMPACT_ADJACENCY, true);
+        final TinkerGraph g = TinkerGraph.open(conf);
+
+        final TinkerVertex hub = (TinkerVertex) g.addVertex();
+        final List<Edge> edges = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final Vertex other = g.addVertex();
+            edges.add(hub.addEdge(i % 2 == 0 ? "knows" : "likes", other, "oid", i));
+            other.addEdge("knows", hub);
+        }
+        edges.add(hub.addEdge("self", hub));
+        assertThat(edges.get(0), instanceOf(TinkerCompactEdge.class));
+        final Vertex plain = TinkerGraph.open().addVertex();
+        assertThat(plain.addEdge("self", plain), is(not(instanceOf(TinkerCompactEdge.class))));
+
+        assertEquals(101, TinkerHelper.getDegree(hub, Direction.OUT));
+        assertEquals(101, TinkerHelper.getDegree(hub, Direction.IN, "knows", "self"));
+        assertEquals(202, TinkerHelper.getDegree(hub, Direction.BOTH));
+
+        // removals move the last edge into the freed slot
+        for (int i = 0; i < 100; i += 3) {
+            edges.get(i).remove();
+        }
+        edges.get(100).remove();
+        assertEquals(66, TinkerHelper.getDegree(hub, Direction.OUT));
+        assertEquals(66, IteratorUtils.count(hub.edges(Direction.OUT)));
+        assertEquals(33, IteratorUtils.count(hub.vertices(Direction.OUT, "knows")));
+        assertEquals(new HashSet<>(g.traversal().V(hub).outE().toList()),
+                edges.stream().filter(e -> !((TinkerEdge) e).removed).collect(Collectors.toSet()));
+
+        hub.remove();
+        assertEquals(0, IteratorUtils.count(g.edges()));
+        assertEquals(0, (long) g.traversal().V().inE().count().next());
+    }
+
     @Test
     public void shouldSerializeTinkerGraphToGryo() throws Exception {
         final TinkerGraph graph = TinkerFactory.createModern();
@@ -905,6 +1062,252 @@ public class TinkerGraphTest {
         assertEquals(3, g.V(100, "1000", uuid).count().next().intValue());
     }
 
+    @Test
+    public void shouldMergeByTheFewestCandidates() {
+        final TinkerGraph graph = TinkerGraph.open();
+        graph.createIndex("country", Vertex.class);
+        graph.createIndex("name", Vertex.class);
+        final GraphTraversalSource g = graph.traversal();
+
+        final Vertex hub = g.addV("person").property("name", "hub").property("country", "us").next();
+        for (int i = 0; i < 1000; i++) {
+            final Vertex other = g.addV("person").property("name", "p" + i).property("country", "us").next();
+            g.addE("knows").from(hub).to(other).property("weight", i % 2).iterate();
+        }
+        final Vertex p500 = g.V().has("name", "p500").next();
+
+        final Map<Object, Object> person = new HashMap<>();
+        person.put(T.label, "person");
+        person.put("country", "us");
+        person.put("name", "p500");
+        assertEquals(p500, g.mergeV(person).next());
+        person.put("name", "p1000");
+        g.mergeV(person).iterate();
+        assertEquals(1002, (long) g.V().count().next());
+        assertEquals(1, (long) g.V().has("name", "p1000").count().next());
+
+        // the edge is looked up from the in vertex which has a single edge rather than from the hub
+        final Map<Object, Object> knows = new HashMap<>();
+        knows.put(Direction.OUT, hub.id());
+        knows.put(Direction.IN, p500.id());
+        knows.put(T.label, "knows");
+        knows.put("weight", 0);
+        assertEquals(g.V(p500).inE("knows").next(), g.mergeE(knows).next());
+        assertEquals(1000, (long) g.E().count().next());
+
+        knows.put("weight", 1);
+        g.mergeE(knows).iterate();
+        assertEquals(1001, (long) g.E().count().next());
+        assertEquals(2, TinkerHelper.getDegree((TinkerVertex) p500, Direction.IN, "knows"));
+    }
+
+    @Test
+    public void shouldMergeInBatches() {
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_MERGE_BATCH_SIZE, 100);
+        final TinkerGraph graph = TinkerGraph.open(conf);
+        graph.createIndex("name", Vertex.class);
+        final GraphTraversalSource g = graph.traversal();
+
+        // every name is merged several times, within the batch that creates its vertex and in later batches
+        final List<Map<Object, Object>> people = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            final Map<Object, Object> person = new HashMap<>();
+            person.put(T.label, "person");
+            person.put("name", "p" + (i % 60));
+            people.add(person);
+        }
+        final List<Vertex> vertices = g.inject(people).unfold().mergeV().toList();
+        assertEquals(250, vertices.size());
+        assertEquals(60, (long) g.V().count().next());
+        for (int i = 0; i < 250; i++) {
+            assertEquals("p" + (i % 60), vertices.get(i).value("name"));
+            assertEquals(vertices.get(i % 60), vertices.get(i));
+        }
+
+        final Vertex hub = vertices.get(0);
+        final List<Map<Object, Object>> knows = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            final Map<Object, Object> edge = new HashMap<>();
+            edge.put(Direction.OUT, hub.id());
+            edge.put(Direction.IN, vertices.get(i % 60).id());
+            edge.put(T.label, "knows");
+            knows.add(edge);
+        }
+        final List<Edge> edges = g.inject(knows).unfold().mergeE().toList();
+        assertEquals(250, edges.size());
+        assertEquals(60, (long) g.E().count().next());
+        for (int i = 0; i < 250; i++) {
+            assertEquals(edges.get(i % 60), edges.get(i));
+        }
+    }
+
+    @Test
+    public void shouldNotMergeInBatchesAheadOfLimit() {
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_MERGE_BATCH_SIZE, 100);
+        final TinkerGraph graph = TinkerGraph.open(conf);
+        final GraphTraversalSource g = graph.traversal();
+
+        final List<Map<Object, Object>> people = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final Map<Object, Object> person = new HashMap<>();
+            person.put(T.label, "person");
+            person.put("name", "p" + i);
+            people.add(person);
+        }
+        // limit() pulls one traverser past its end before it stops, just like it does without batches
+        assertEquals(2, g.inject(people).unfold().mergeV().limit(2).toList().size());
+        assertEquals(3, (long) g.V().count().next());
+        assertEquals(3, g.inject(people).unfold().mergeV().range(1, 4).toList().size());
+        assertEquals(5, (long) g.V().count().next());
+
+        final Vertex hub = g.V().has("name", "p0").next();
+        final List<Map<Object, Object>> knows = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final Map<Object, Object> edge = new HashMap<>();
+            edge.put(Direction.OUT, hub.id());
+            edge.put(Direction.IN, g.V().has("name", "p" + i).next().id());
+            edge.put(T.label, "knows");
+            knows.add(edge);
+        }
+        assertEquals(1, g.inject(knows).unfold().mergeE().limit(1).toList().size());
+        assertEquals(2, (long) g.E().count().next());
+
+        // without a limit the whole batch is merged before the first result is returned
+        g.inject(people).unfold().mergeV().next();
+        assertEquals(10, (long) g.V().count().next());
+    }
+
+    @Test
+    public void shouldLookUpEdgesInEdgeExistenceIndex() {
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_EDGE_EXISTENCE_INDEX, true);
+        final TinkerGraph graph = TinkerGraph.open(conf);
+        final GraphTraversalSource g = graph.traversal();
+
+        final Vertex hub = graph.addVertex();
+        final List<Vertex> others = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final Vertex other = graph.addVertex("name", "p" + i);
+            hub.addEdge("knows", other);
+            others.add(other);
+        }
+        final Vertex p1 = others.get(1);
+        final Edge parallel = hub.addEdge("knows", p1);
+        p1.addEdge("likes", hub);
+
+        final Traversal.Admin<Vertex, Edge> traversal = g.V(hub).outE("knows").where(__.inV().hasId(p1.id())).asAdmin();
+        traversal.applyStrategies();
+        assertThat(traversal.getSteps().get(1), instanceOf(TinkerEdgeExistenceStep.class));
+        assertEquals(2, IteratorUtils.count(traversal));
+        final Traversal.Admin<Vertex, Vertex> adjacent = g.V(hub).out("knows").hasId(p1.id()).asAdmin();
+        adjacent.applyStrategies();
+        assertThat(adjacent.getSteps().get(1), instanceOf(TinkerEdgeExistenceStep.class));
+        assertEquals(new Long(3), g.V(hub).out("knows").hasId(p1.id(), others.get(2).id()).count().next());
+        assertEquals(new Long(0), g.V(hub).out("knows").hasId(p1.id()).has("name", "p2").count().next());
+        assertEquals(new Long(2), g.V(p1).inE("knows").where(__.outV().hasId(hub.id())).count().next());
+        assertEquals(new Long(1), g.V(p1).out("likes").hasId(hub.id()).count().next());
+        assertEquals(new Long(0), g.V(hub).out("likes").hasId(p1.id()).count().next());
+
+        // an identifier that only matches by the rules of the predicate falls back to the adjacency
+        assertEquals(new Long(2), g.V(hub).out("knows").hasId(((Long) p1.id()).intValue()).count().next());
+
+        // mergeE() finds the edge in the index as well
+        final Map<Object, Object> knows = new HashMap<>();
+        knows.put(Direction.OUT, hub.id());
+        knows.put(Direction.IN, others.get(2).id());
+        knows.put(T.label, "knows");
+        assertEquals(g.V(others.get(2)).inE().next(), g.mergeE(knows).next());
+        assertEquals(new Long(1002), g.E().count().next());
+
+        parallel.remove();
+        assertEquals(new Long(1), g.V(hub).outE("knows").where(__.inV().hasId(p1.id())).count().next());
+        p1.remove();
+        assertEquals(new Long(0), g.V(hub).outE("knows").where(__.inV().hasId(p1.id())).count().next());
+
+        graph.clear();
+        final Vertex a = graph.addVertex();
+        a.addEdge("knows", graph.addVertex());
+        assertEquals(new Long(0), g.V(hub).outE("knows").where(__.inV().hasId(p1.id())).count().next());
+        assertEquals(new Long(1), g.V(a).out("knows").hasId(a.id(), (Long) a.id() + 1).count().next());
+    }
+
+    @Test
+    public void shouldShareStringsThroughDictionary() {
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_DICTIONARY_VALUE_KEYS, Collections.singletonList("status"));
+        final TinkerGraph graph = TinkerGraph.open(conf);
+        graph.createIndex("status", Vertex.class);
+
+        // every string is a new instance as if it was read from a file
+        final List<Vertex> vertices = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            vertices.add(graph.addVertex(T.label, new String("person"), new String("status"), new String(i % 2 == 0 ? "on" : "off"),
+                    new String("city"), new String("rome")));
+        }
+        final Edge e1 = vertices.get(0).addEdge(new String("knows"), vertices.get(1), new String("weight"), 1);
+        final Edge e2 = vertices.get(2).addEdge(new String("knows"), vertices.get(3), new String("weight"), 2);
+        final VertexProperty<String> status = vertices.get(0).property("status");
+        status.property(new String("weight"), 3);
+
+        assertSame(vertices.get(0).label(), vertices.get(1).label());
+        assertSame(status.key(), vertices.get(2).property("status").key());
+        assertSame(status.value(), vertices.get(2).value("status"));
+        assertSame(vertices.get(0).property("city").key(), vertices.get(1).property("city").key());
+        assertNotSame(vertices.get(0).value("city"), vertices.get(1).value("city"));
+        assertSame(e1.label(), e2.label());
+        assertSame(e1.property("weight").key(), e2.property("weight").key());
+        assertSame(e1.property("weight").key(), status.property("weight").key());
+        assertEquals(7, graph.dictionary.size());
+
+        final GraphTraversalSource g = graph.traversal();
+        assertEquals(new Long(50), g.V().has("status", "on").count().next());
+        assertEquals(new Long(100), g.V().hasLabel("person").has("city", "rome").count().next());
+        assertEquals(new Long(2), g.E().hasLabel("knows").count().next());
+
+        graph.clear();
+        assertEquals(0, graph.dictionary.size());
+        assertNull(TinkerGraph.open().dictionary);
+    }
+
+    @Test
+    public void shouldIterateStepsInBatches() {
+        final TinkerGraph graph = TinkerGraph.open();
+        final List<Vertex> vertices = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            vertices.add(graph.addVertex(T.label, "person", "age", i));
+        }
+        for (int i = 0; i < 100; i++) {
+            vertices.get(i).addEdge("knows", vertices.get((i + 1) % 100));
+            vertices.get(i).addEdge("knows", vertices.get((i + 7) % 100));
+        }
+        final GraphTraversalSource g = graph.traversal();
+
+        final Traversal.Admin<Vertex, Object> oneByOne = g.V().out().out().has("age", P.lt(50)).id().asAdmin();
+        oneByOne.applyStrategies();
+        final List<Traverser.Admin<Object>> expected = new ArrayList<>();
+        oneByOne.getEndStep().forEachRemaining(expected::add);
+
+        final Traversal.Admin<Vertex, Object> batched = g.V().out().out().has("age", P.lt(50)).id().asAdmin();
+        batched.applyStrategies();
+        final List<Traverser.Admin<Object>> batch = new ArrayList<>();
+        int size;
+        while ((size = batched.getEndStep().nextBatch(batch, 7)) == 7) {
+            assertEquals(0, batch.size() % 7);
+        }
+        assertEquals(expected.size() % 7, size);
+
+        assertEquals(expected.size(), batch.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).get(), batch.get(i).get());
+            assertEquals(expected.get(i).bulk(), batch.get(i).bulk());
+        }
+        assertEquals(new Long(expected.stream().mapToLong(Traverser::bulk).sum()),
+                g.V().out().out().has("age", P.lt(50)).count().next());
+        assertEquals(new Long(400), g.V().out().out().count().next());
+    }
+
     /**
      * Basically just trying to validate through {@link CountStrategy} that a child traversal constructed there gets
      * its {@link Graph} instance set. By using {@link AssertGraphStrategy} an exception can get triggered in betweeen
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.structure;
+
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.tinkerpop.gremlin.TestHelper;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.apache.tinkerpop.gremlin.structure.io.IoTest;
+import org.apache.tinkerpop.gremlin.structure.io.gryo.GryoMapper;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
+import org.apache.tinkerpop.shaded.kryo.Kryo;
+import org.apache.tinkerpop.shaded.kryo.io.Output;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TinkerGryoLoaderTest {
+
+    @Test
+    public void shouldLoadGryoInParallel() {
+        final String graphLocation = TestHelper.makeTestDataFile(TinkerGryoLoaderTest.class, "shouldLoadGryoInParallel.kryo");
+        final File f = new File(graphLocation);
+        if (f.exists() && f.isFile()) f.delete();
+
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_FORMAT, "gryo");
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_LOCATION, graphLocation);
+        final TinkerGraph graph = TinkerGraph.open(conf);
+        final String padding = String.join("", Collections.nCopies(100, "x"));
+        for (int i = 0; i < 20000; i++) {
+            graph.addVertex(T.id, i, T.label, "node", "i", i, "padding", padding);
+        }
+        for (int i = 0; i < 20000; i++) {
+            final Vertex v = graph.vertices(i).next();
+            v.addEdge("next", graph.vertices((i + 1) % 20000).next(), "weight", i);
+            v.addEdge("skip", graph.vertices((i * 7) % 20000).next());
+        }
+        graph.close();
+
+        // the file is large enough to be cut into several ranges
+        assertThat(f.length(), greaterThan(4L << 20));
+
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_LOAD_THREADS, 4);
+        final TinkerGraph reloadedGraph = TinkerGraph.open(conf);
+        final GraphTraversalSource g = reloadedGraph.traversal();
+        assertEquals(20000, (long) g.V().count().next());
+        assertEquals(40000, (long) g.E().count().next());
+        assertEquals(20000, (long) g.V().out("next").dedup().count().next());
+        assertEquals(4370, g.V(4371).in("next").values("i").next());
+        assertEquals(4372, g.V(4371).out("next").values("i").next());
+        assertEquals(4371, g.V(4371).outE("next").values("weight").next());
+        assertEquals(Collections.singletonList(2857), g.V(19999).in("skip").values("i").toList());
+        assertEquals((long) (19999 * 10000), g.E().hasLabel("next").values("weight").sum().next().longValue());
+        reloadedGraph.close();
+    }
+
+    @Test
+    public void shouldLoadGryoInParallelAndHandleMultiProperties() {
+        final String graphLocation = TestHelper.makeTestDataFile(TinkerGryoLoaderTest.class, "shouldLoadGryoInParallelMulti.kryo");
+        final File f = new File(graphLocation);
+        if (f.exists() && f.isFile()) f.delete();
+
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_FORMAT, "gryo");
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_LOCATION, graphLocation);
+        final TinkerGraph graph = TinkerGraph.open(conf);
+        TinkerFactory.generateTheCrew(graph);
+        graph.close();
+
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_DEFAULT_VERTEX_PROPERTY_CARDINALITY, VertexProperty.Cardinality.list.toString());
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_LOAD_THREADS, 2);
+        final TinkerGraph reloadedGraph = TinkerGraph.open(conf);
+        IoTest.assertCrewGraph(reloadedGraph, false);
+        reloadedGraph.close();
+    }
+
+    @Test
+    public void shouldLoadGryoInParallelPastFakeRecordsNestedTooDeeply() {
+        // every vertex carries things that look like the start of a record with a map of edge properties, whose
+        // first key is a list nested so deeply that decoding it would run out of stack
+        final Kryo kryo = GryoMapper.build().create().createMapper();
+        final Output level = new Output(16, -1);
+        kryo.writeClassAndObject(level, new ArrayList<>(Collections.singletonList(null)));
+        final ByteArrayOutputStream fake = new ByteArrayOutputStream();
+        for (int i = 0; i < 10; i++) {
+            writeFakeRecordStart(fake);
+            for (int j = 0; j < 50000; j++) {
+                fake.write(level.getBuffer(), 0, level.position() - 1);
+            }
+        }
+        assertLoadGryoInParallelPastFakeRecords("shouldLoadGryoPastFakeRecordsNested.kryo", fake.toByteArray(), 5);
+    }
+
+    @Test
+    public void shouldLoadGryoInParallelPastFakeRecordsWithTooLargeCount() {
+        // every vertex carries things that look like the start of a record with a map of edge properties, whose
+        // first key is a list of a size that decoding it would run out of memory on
+        final Kryo kryo = GryoMapper.build().create().createMapper();
+        final Output list = new Output(16, -1);
+        kryo.writeClass(list, ArrayList.class);
+        list.writeVarInt(Kryo.NOT_NULL, true);
+        list.writeVarInt(Integer.MAX_VALUE - 16, true);
+        final ByteArrayOutputStream fake = new ByteArrayOutputStream();
+        for (int i = 0; i < 50000; i++) {
+            writeFakeRecordStart(fake);
+            fake.write(list.getBuffer(), 0, list.position());
+        }
+        assertLoadGryoInParallelPastFakeRecords("shouldLoadGryoPastFakeRecordsLarge.kryo", fake.toByteArray(), 10);
+    }
+
+    @Test
+    public void shouldFailToLoadGryoInParallelWithRecordOutOfBounds() throws Exception {
+        final String graphLocation = TestHelper.makeTestDataFile(TinkerGryoLoaderTest.class, "shouldFailToLoadGryoOutOfBounds.kryo");
+        final File f = new File(graphLocation);
+        if (f.exists() && f.isFile()) f.delete();
+
+        // the only record has a map of edge properties whose first key is a list of a size beyond the file
+        final Kryo kryo = GryoMapper.build().create().createMapper();
+        final Output record = new Output(16, -1);
+        record.writeBytes(GryoMapper.HEADER);
+        record.writeBytes(new byte[]{1, Byte.MIN_VALUE, 1, 1});
+        kryo.writeClass(record, ArrayList.class);
+        record.writeVarInt(Kryo.NOT_NULL, true);
+        record.writeVarInt(Integer.MAX_VALUE - 16, true);
+        Files.write(f.toPath(), record.toBytes());
+
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_FORMAT, "gryo");
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_LOCATION, graphLocation);
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_LOAD_THREADS, 2);
+        try {
+            TinkerGraph.open(conf);
+            fail("The record should not have been read");
+        } catch (RuntimeException ex) {
+            assertThat(ex.getCause(), instanceOf(IOException.class));
+            assertThat(ex.getCause().getMessage(), startsWith("Could not read the record at position 0"));
+            assertThat(ex.getCause().getCause().getMessage(), containsString("exceeds the"));
+        }
+    }
+
+    private static void writeFakeRecordStart(final ByteArrayOutputStream fake) {
+        fake.write(GryoMapper.HEADER, 0, GryoMapper.HEADER.length);
+        fake.write(new byte[]{1, Byte.MIN_VALUE, 1, 1}, 0, 4);
+    }
+
+    private static void assertLoadGryoInParallelPastFakeRecords(final String fileName, final byte[] fake, final int vertices) {
+        final String graphLocation = TestHelper.makeTestDataFile(TinkerGryoLoaderTest.class, fileName);
+        final File f = new File(graphLocation);
+        if (f.exists() && f.isFile()) f.delete();
+
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_FORMAT, "gryo");
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_LOCATION, graphLocation);
+        final TinkerGraph graph = TinkerGraph.open(conf);
+        for (int i = 0; i < vertices; i++) {
+            graph.addVertex(T.id, i, "fake", fake);
+        }
+        graph.close();
+        assertThat(f.length(), greaterThan(4L << 20));
+
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_LOAD_THREADS, 4);
+        final TinkerGraph reloadedGraph = TinkerGraph.open(conf);
+        assertEquals(vertices, IteratorUtils.count(reloadedGraph.vertices()));
+        assertThat(Arrays.equals(fake, reloadedGraph.vertices(vertices - 1).next().value("fake")), is(true));
+        reloadedGraph.close();
+    }
+}
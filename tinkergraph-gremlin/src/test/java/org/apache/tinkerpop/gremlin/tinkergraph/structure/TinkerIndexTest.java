@@ -0,0 +1,345 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.structure;
+
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.OrderGlobalStep;
+import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.apache.tinkerpop.gremlin.tinkergraph.process.traversal.step.sideEffect.TinkerGraphStep;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TinkerIndexTest {
+
+    @Test
+    public void shouldManageSortedIndices() {
+        final TinkerGraph g = TinkerGraph.open();
+        g.createIndex("ts", Vertex.class, TinkerGraph.IndexType.SORTED);
+        g.createIndex("name", Vertex.class);
+
+        assertEquals(TinkerGraph.IndexType.SORTED, g.getIndexType("ts", Vertex.class));
+        assertEquals(TinkerGraph.IndexType.HASH, g.getIndexType("name", Vertex.class));
+        assertNull(g.getIndexType("ts", Edge.class));
+        assertEquals(2, g.getIndexedKeys(Vertex.class).size());
+
+        // changing the type replaces the index
+        g.createIndex("name", Vertex.class, TinkerGraph.IndexType.SORTED);
+        assertEquals(TinkerGraph.IndexType.SORTED, g.getIndexType("name", Vertex.class));
+        assertEquals(2, g.getIndexedKeys(Vertex.class).size());
+
+        g.dropIndex("ts", Vertex.class);
+        assertNull(g.getIndexType("ts", Vertex.class));
+        assertEquals(1, g.getIndexedKeys(Vertex.class).size());
+    }
+
+    @Test
+    public void shouldUseSortedVertexIndexForRanges() {
+        final TinkerGraph g = TinkerGraph.open();
+        g.createIndex("ts", Vertex.class, TinkerGraph.IndexType.SORTED);
+
+        for (int i = 0; i < 100; i++) {
+            g.addVertex("ts", i, "age", i);
+        }
+        g.addVertex("ts", "not-a-number", "age", -1);
+        g.addVertex("age", -1);
+
+        // spy into the pipeline to ensure that only elements in the range of the index get filtered. mixing the
+        // numeric types in the predicates checks that the index follows Gremlin comparison semantics
+        assertEquals(new Long(9), g.traversal().V().has("age", P.test((t, u) -> {
+            assertTrue((int) t > 90);
+            return true;
+        }, 0)).has("ts", P.gt(90L)).count().next());
+        assertEquals(new Long(10), g.traversal().V().has("age", P.test((t, u) -> {
+            assertTrue((int) t >= 10 && (int) t < 20);
+            return true;
+        }, 0)).has("ts", P.between(10, 20.0d)).count().next());
+        assertEquals(new Long(3), g.traversal().V().has("age", P.test((t, u) -> {
+            assertTrue((int) t < 3);
+            return true;
+        }, 0)).has("ts", P.lt(3)).count().next());
+        assertEquals(new Long(1), g.traversal().V().has("ts", P.gt("a")).count().next());
+        assertEquals(new Long(0), g.traversal().V().has("ts", P.inside(50, 40)).count().next());
+
+        // the index is maintained as values change
+        g.traversal().V().has("ts", 95).property("ts", 5).iterate();
+        assertEquals(new Long(8), g.traversal().V().has("ts", P.gt(90L)).count().next());
+        assertEquals(Arrays.asList(5, 95), g.traversal().V().has("ts", 5).values("age").order().toList());
+        g.traversal().V().has("ts", P.lt(50)).drop().iterate();
+        assertEquals(new Long(0), g.traversal().V().has("ts", P.lte(5)).count().next());
+    }
+
+    @Test
+    public void shouldUseSortedEdgeIndexForRanges() {
+        final TinkerGraph g = TinkerGraph.open();
+        g.createIndex("weight", Edge.class, TinkerGraph.IndexType.SORTED);
+
+        final Vertex v = g.addVertex();
+        for (int i = 0; i < 10; i++) {
+            v.addEdge("knows", v, "weight", i / 10.0d, "oid", i);
+        }
+
+        assertEquals(new Long(3), g.traversal().E().has("oid", P.test((t, u) -> {
+            assertTrue((int) t >= 7);
+            return true;
+        }, 0)).has("weight", P.gte(0.7d)).count().next());
+        assertEquals(Arrays.asList(9, 8, 7), g.traversal().E().order().by("weight", Order.desc).limit(3).values("oid").toList());
+    }
+
+    @Test
+    public void shouldNotRepeatMultiValuedVerticesInSortedIndexRanges() {
+        final TinkerGraph g = TinkerGraph.open();
+        g.createIndex("ts", Vertex.class, TinkerGraph.IndexType.SORTED);
+
+        final Vertex v0 = g.addVertex("name", "v0");
+        v0.property(VertexProperty.Cardinality.list, "ts", 10);
+        v0.property(VertexProperty.Cardinality.list, "ts", 30);
+        v0.property(VertexProperty.Cardinality.list, "ts", 30);
+        final Vertex v1 = g.addVertex("name", "v1", "ts", 20);
+        g.addVertex("name", "v2", "ts", 5);
+
+        final GraphTraversalSource gts = g.traversal();
+        assertEquals(Arrays.asList("v0", "v1"), gts.V().has("ts", P.gte(10)).values("name").order().toList());
+        assertEquals(new Long(2), gts.V().has("ts", P.gte(10)).count().next());
+        assertEquals(Arrays.asList(v0, v1), gts.V().has("ts", P.between(10, 25)).toList());
+        assertEquals(Collections.singletonList(v0), gts.V().has("ts", P.gt(20)).toList());
+
+        // the same traversals without the index
+        g.dropIndex("ts", Vertex.class);
+        assertEquals(Arrays.asList("v0", "v1"), gts.V().has("ts", P.gte(10)).values("name").order().toList());
+        assertEquals(Collections.singletonList(v0), gts.V().has("ts", P.gt(20)).toList());
+    }
+
+    @Test
+    public void shouldNotFoldOrderOfMultiValuedKeysIntoSortedIndex() {
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_DEFAULT_VERTEX_PROPERTY_CARDINALITY, VertexProperty.Cardinality.list.name());
+        final TinkerGraph g = TinkerGraph.open(conf);
+        g.createIndex("ts", Vertex.class, TinkerGraph.IndexType.SORTED);
+        g.addVertex("ts", 2);
+        g.addVertex("ts", 1);
+
+        final GraphTraversalSource gts = g.traversal();
+        final Traversal.Admin<?, ?> traversal = gts.V().order().by("ts").asAdmin();
+        traversal.applyStrategies();
+        assertEquals(1, TraversalHelper.getStepsOfClass(OrderGlobalStep.class, traversal).size());
+        assertNull(((TinkerGraphStep) traversal.getStartStep()).getOrderKey());
+        assertEquals(Arrays.asList(1, 2), gts.V().order().by("ts").values("ts").toList());
+    }
+
+    @Test
+    public void shouldFailOrderWithSortedIndexOnMultiValuedVertex() {
+        final TinkerGraph g = TinkerGraph.open();
+        g.createIndex("ts", Vertex.class, TinkerGraph.IndexType.SORTED);
+        g.addVertex("ts", 1);
+        final Vertex v = g.addVertex("ts", 2);
+        v.property(VertexProperty.Cardinality.list, "ts", 3);
+
+        // like order().by("ts") without the index there is no single value to order the vertex by
+        try {
+            g.traversal().V().order().by("ts").toList();
+            fail("Should have failed on the vertex with multiple values for the order key");
+        } catch (IllegalStateException ex) {
+            assertEquals(Vertex.Exceptions.multiplePropertiesExistForProvidedKey("ts").getMessage(), ex.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldOrderWithSortedIndex() {
+        final TinkerGraph g = TinkerGraph.open();
+        g.createIndex("ts", Vertex.class, TinkerGraph.IndexType.SORTED);
+        g.createIndex("name", Vertex.class);
+
+        final List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            g.addVertex("ts", (i * 37) % 100, "name", i % 2 == 0 ? "even" : "odd");
+            expected.add(i);
+        }
+        g.addVertex("name", "even");
+
+        final GraphTraversalSource gts = g.traversal();
+        assertEquals(expected, gts.V().order().by("ts").values("ts").toList());
+        assertEquals(Arrays.asList(99, 98, 97), gts.V().order().by("ts", Order.desc).limit(3).values("ts").toList());
+        assertEquals(Arrays.asList(11, 12, 13), gts.V().has("ts", P.gt(10)).order().by("ts").limit(3).values("ts").toList());
+        assertEquals(Arrays.asList(0, 2, 4), gts.V().has("name", "even").order().by("ts").limit(3).values("ts").toList());
+
+        // the order() is folded into the TinkerGraphStep
+        final Traversal.Admin<?, ?> traversal = gts.V().order().by("ts").asAdmin();
+        traversal.applyStrategies();
+        assertEquals(0, TraversalHelper.getStepsOfClass(OrderGlobalStep.class, traversal).size());
+        assertEquals("ts", ((TinkerGraphStep) traversal.getStartStep()).getOrderKey());
+
+        // the index is dropped after the traversal was compiled so the step must sort on its own
+        final Traversal<?, ?> sorted = gts.V().order().by("ts").values("ts");
+        sorted.asAdmin().applyStrategies();
+        g.dropIndex("ts", Vertex.class);
+        assertEquals(expected, sorted.toList());
+    }
+
+    @Test
+    public void shouldManageCompositeIndices() {
+        final TinkerGraph g = TinkerGraph.open();
+        assertEquals(0, g.getCompositeIndexedKeys(Vertex.class).size());
+
+        g.createCompositeIndex(Vertex.class, "tenant", "type");
+        g.createCompositeIndex(Vertex.class, "tenant", "type");
+        g.createCompositeIndex(Edge.class, "tenant", "type", "status");
+
+        assertEquals(Collections.singleton(Arrays.asList("tenant", "type")), g.getCompositeIndexedKeys(Vertex.class));
+        assertEquals(Collections.singleton(Arrays.asList("tenant", "type", "status")), g.getCompositeIndexedKeys(Edge.class));
+        assertEquals(0, g.getIndexedKeys(Vertex.class).size());
+
+        g.dropCompositeIndex(Vertex.class, "tenant", "type");
+        assertEquals(0, g.getCompositeIndexedKeys(Vertex.class).size());
+        g.dropCompositeIndex(Vertex.class, "better-not-error", "index-does-not-exist");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotCreateCompositeIndexWithOneKey() {
+        final TinkerGraph g = TinkerGraph.open();
+        g.createCompositeIndex(Vertex.class, "tenant");
+    }
+
+    @Test
+    public void shouldUseCompositeVertexIndex() {
+        final TinkerGraph g = TinkerGraph.open();
+        g.createIndex("tenant", Vertex.class);
+        for (int i = 0; i < 100; i++) {
+            g.addVertex("tenant", "a", "type", i % 10, "status", i % 2 == 0 ? "on" : "off", "oid", i);
+        }
+        g.addVertex("tenant", "b", "type", 1, "status", "on", "oid", 100);
+
+        // create after the data to check that existing elements are indexed
+        g.createCompositeIndex(Vertex.class, "tenant", "type", "status");
+
+        // spy into the pipeline to check that only the matches of the composite index get filtered
+        final Supplier<Long> count = () -> g.traversal().V().has("oid", P.test((t, u) -> {
+            assertEquals(1, (int) t % 10);
+            return true;
+        }, 0)).has("status", "off").has("tenant", "a").has("type", 1).count().next();
+        assertEquals(new Long(10), count.get());
+
+        // the index follows property changes
+        g.traversal().V().has("oid", 11).property("status", "on").iterate();
+        assertEquals(new Long(9), count.get());
+        g.traversal().V().has("oid", 21).properties("type").drop().iterate();
+        assertEquals(new Long(8), count.get());
+        g.traversal().V().has("oid", 21).property("type", 1).iterate();
+        assertEquals(new Long(9), count.get());
+        g.traversal().V().has("oid", 31).drop().iterate();
+        assertEquals(new Long(8), count.get());
+    }
+
+    @Test
+    public void shouldUseCompositeEdgeIndex() {
+        final TinkerGraph g = TinkerGraph.open();
+        g.createCompositeIndex(Edge.class, "tenant", "type");
+
+        final Vertex v = g.addVertex();
+        for (int i = 0; i < 10; i++) {
+            v.addEdge("link", v, "tenant", "a", "type", i % 2, "oid", i);
+        }
+
+        assertEquals(new Long(5), g.traversal().E().has("oid", P.test((t, u) -> {
+            assertEquals(0, (int) t % 2);
+            return true;
+        }, 0)).has("tenant", "a").has("type", 0).count().next());
+        assertEquals(new Long(0), g.traversal().E().has("tenant", "b").has("type", 0).count().next());
+    }
+
+    @Test
+    public void shouldUseLabelRegistryForVertices() {
+        final TinkerGraph g = TinkerGraph.open();
+        for (int i = 0; i < 100; i++) {
+            g.addVertex(T.label, i % 10 == 0 ? "person" : i % 10 == 1 ? "software" : "other", "oid", i);
+        }
+
+        // spy into the pipeline to check that only the vertices with the labels get filtered
+        final Supplier<Long> count = () -> g.traversal().V().has("oid", P.test((t, u) -> {
+            assertThat((int) t % 10, lessThan(2));
+            return true;
+        }, 0)).hasLabel("person", "software").count().next();
+        assertEquals(new Long(20), count.get());
+        assertEquals(new Long(10), g.traversal().V().has("oid", P.test((t, u) -> {
+            assertEquals(0, (int) t % 10);
+            return true;
+        }, 0)).hasLabel("person").count().next());
+
+        // the registries follow removals
+        g.traversal().V().has("oid", 10).drop().iterate();
+        assertEquals(new Long(19), count.get());
+        g.traversal().V().hasLabel("software").drop().iterate();
+        assertEquals(new Long(9), count.get());
+        assertEquals(new Long(0), g.traversal().V().hasLabel("software").count().next());
+
+        g.clear();
+        assertEquals(new Long(0), g.traversal().V().hasLabel("person").count().next());
+    }
+
+    @Test
+    public void shouldUseLabelRegistryForEdges() {
+        final TinkerGraph g = TinkerGraph.open();
+        final Vertex v = g.addVertex();
+        for (int i = 0; i < 10; i++) {
+            v.addEdge(i % 2 == 0 ? "knows" : "created", v, "oid", i);
+        }
+
+        assertEquals(new Long(5), g.traversal().E().has("oid", P.test((t, u) -> {
+            assertEquals(0, (int) t % 2);
+            return true;
+        }, 0)).hasLabel("knows").count().next());
+
+        v.remove();
+        assertEquals(new Long(0), g.traversal().E().hasLabel("knows").count().next());
+    }
+
+    @Test
+    public void shouldPreferLabelRegistryOverLessSelectiveIndex() {
+        final TinkerGraph g = TinkerGraph.open();
+        g.createIndex("status", Vertex.class);
+        for (int i = 0; i < 100; i++) {
+            g.addVertex(T.label, i == 0 ? "rare" : "common", "status", "on", "oid", i);
+        }
+
+        assertEquals(new Long(1), g.traversal().V().has("oid", P.test((t, u) -> {
+            assertEquals(0, (int) t);
+            return true;
+        }, 0)).has("status", "on").hasLabel("rare").count().next());
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.structure;
+
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.tinkerpop.gremlin.TestHelper;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.io.IoTest;
+import org.apache.tinkerpop.gremlin.util.iterator.IteratorUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TinkerJournalTest {
+
+    @Test
+    public void shouldReplayJournalAfterUncleanShutdown() throws Exception {
+        final String graphLocation = TestHelper.makeTestDataFile(TinkerJournalTest.class, "shouldReplayJournal.kryo");
+        deleteJournaledGraph(graphLocation);
+
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_FORMAT, "gryo");
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_LOCATION, graphLocation);
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_JOURNAL, true);
+        final TinkerGraph graph = TinkerGraph.open(conf);
+        TinkerFactory.generateModern(graph);
+        final GraphTraversalSource g = graph.traversal();
+        g.V().has("name", "peter").drop().iterate();
+        g.E().has("weight", 0.4).property("weight", 0.5).iterate();
+        g.V().has("name", "marko").properties("name").property("since", 2009).iterate();
+        g.V().has("name", "vadas").addE("knows").to(__.V().has("name", "ripple")).property("weight", 0.1).iterate();
+
+        // never closed so nothing but the journal has been written
+        assertThat(new File(graphLocation).exists(), is(false));
+
+        // a record that was cut off by the crash is ignored
+        try (final FileOutputStream journal = new FileOutputStream(graphLocation + ".journal", true)) {
+            journal.write(new byte[]{1, 3});
+        }
+
+        final TinkerGraph reloadedGraph = TinkerGraph.open(conf);
+        final GraphTraversalSource r = reloadedGraph.traversal();
+        assertEquals(5, (long) r.V().count().next());
+        assertEquals(6, (long) r.E().count().next());
+        assertEquals(3, (long) r.E().has("weight", 0.5).count().next());
+        assertEquals(2009, r.V().has("name", "marko").properties("name").values("since").next());
+        assertEquals("ripple", r.V().has("name", "vadas").out("knows").values("name").next());
+        assertEquals(0.1, r.V().has("name", "vadas").outE("knows").values("weight").next());
+        reloadedGraph.addVertex("name", "daniel");
+        reloadedGraph.close();
+
+        assertThat(new File(graphLocation + ".journal").exists(), is(false));
+        final TinkerGraph compactedGraph = TinkerGraph.open(conf);
+        assertEquals(6, (long) compactedGraph.traversal().V().count().next());
+        compactedGraph.close();
+    }
+
+    @Test
+    public void shouldCompactJournalInBackground() {
+        final String graphLocation = TestHelper.makeTestDataFile(TinkerJournalTest.class, "shouldCompactJournal.kryo");
+        deleteJournaledGraph(graphLocation);
+
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_FORMAT, "gryo");
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_LOCATION, graphLocation);
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_JOURNAL, true);
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_JOURNAL_COMPACTION_THRESHOLD, 10);
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_COPY_ON_WRITE, true);
+        final TinkerGraph graph = TinkerGraph.open(conf);
+        TinkerFactory.generateModern(graph);
+
+        // 26 records were written so at least one snapshot was taken in the background
+        graph.journal.awaitCompaction();
+        assertThat(new File(graphLocation).exists(), is(true));
+        assertThat(new File(graphLocation + ".tmp").exists(), is(false));
+        assertThat(new File(graphLocation + ".journal.old").exists(), is(false));
+
+        final TinkerGraph reloadedGraph = TinkerGraph.open(conf);
+        IoTest.assertModernGraph(reloadedGraph, true, false);
+        reloadedGraph.close();
+    }
+
+    @Test
+    public void shouldOnlyCompactJournalOnCloseWithoutCopyOnWrite() {
+        final String graphLocation = TestHelper.makeTestDataFile(TinkerJournalTest.class, "shouldCompactJournalOnClose.kryo");
+        deleteJournaledGraph(graphLocation);
+
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_FORMAT, "gryo");
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_LOCATION, graphLocation);
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_JOURNAL, true);
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_JOURNAL_COMPACTION_THRESHOLD, 10);
+        final TinkerGraph graph = TinkerGraph.open(conf);
+        TinkerFactory.generateModern(graph);
+
+        // the graph cannot be read while it is written to so the mutations do not take a snapshot
+        assertThat(new File(graphLocation).exists(), is(false));
+        assertThat(new File(graphLocation + ".journal").exists(), is(true));
+        graph.close();
+        assertThat(new File(graphLocation).exists(), is(true));
+        assertThat(new File(graphLocation + ".journal").exists(), is(false));
+
+        final TinkerGraph reloadedGraph = TinkerGraph.open(conf);
+        IoTest.assertModernGraph(reloadedGraph, true, false);
+        reloadedGraph.close();
+    }
+
+    @Test
+    public void shouldRecoverInterruptedJournalCompaction() throws Exception {
+        final String graphLocation = TestHelper.makeTestDataFile(TinkerJournalTest.class, "shouldRecoverJournal.kryo");
+        final String otherGraphLocation = TestHelper.makeTestDataFile(TinkerJournalTest.class, "shouldRecoverJournalOther.kryo");
+        deleteJournaledGraph(graphLocation);
+        deleteJournaledGraph(otherGraphLocation);
+
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_FORMAT, "gryo");
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_LOCATION, graphLocation);
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_JOURNAL, true);
+        final TinkerGraph graph = TinkerGraph.open(conf);
+        graph.addVertex(T.id, 1, "name", "marko");
+        graph.close();
+        final TinkerGraph graphWithJournal = TinkerGraph.open(conf);
+        graphWithJournal.vertices(1).next().property("age", 29);
+        graphWithJournal.addVertex(T.id, 2, "name", "vadas");
+
+        // the journal was renamed but the snapshot was only partially written
+        Files.move(new File(graphLocation + ".journal").toPath(), new File(graphLocation + ".journal.old").toPath());
+        try (final FileOutputStream snapshot = new FileOutputStream(graphLocation + ".tmp")) {
+            snapshot.write(new byte[]{1, 3});
+        }
+
+        // meanwhile the mutations that followed started a new journal, which has to be replayed after the old one
+        final BaseConfiguration otherConf = new BaseConfiguration();
+        otherConf.copy(conf);
+        otherConf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_LOCATION, otherGraphLocation);
+        final TinkerGraph otherGraph = TinkerGraph.open(otherConf);
+        otherGraph.addVertex(T.id, 1).property("age", 29);
+        otherGraph.vertices(1).next().property("age", 30);
+        Files.copy(new File(otherGraphLocation + ".journal").toPath(), new File(graphLocation + ".journal").toPath());
+
+        final TinkerGraph reloadedGraph = TinkerGraph.open(conf);
+        assertThat(new File(graphLocation + ".tmp").exists(), is(false));
+        assertThat(new File(graphLocation + ".journal.old").exists(), is(false));
+        assertEquals(30, (int) reloadedGraph.vertices(1).next().value("age"));
+        assertEquals("vadas", reloadedGraph.vertices(2).next().value("name"));
+        reloadedGraph.close();
+    }
+
+    @Test
+    public void shouldFailReplayOnDamagedJournalRecord() throws Exception {
+        final String graphLocation = TestHelper.makeTestDataFile(TinkerJournalTest.class, "shouldFailReplayOnDamagedJournal.kryo");
+        deleteJournaledGraph(graphLocation);
+
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_FORMAT, "gryo");
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_LOCATION, graphLocation);
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_JOURNAL, true);
+        final TinkerGraph graph = TinkerGraph.open(conf);
+        graph.addVertex(T.id, 1, "name", "marko");
+        graph.addVertex(T.id, 2);
+        final File journal = new File(graphLocation + ".journal");
+        final long length = journal.length();
+
+        // damaging the last record looks like an interrupted append and it is cut off
+        try (final RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+            file.seek(length - 1);
+            final int b = file.read();
+            file.seek(length - 1);
+            file.write(b ^ 0xff);
+        }
+        final TinkerGraph truncatedGraph = TinkerGraph.open(conf);
+        assertEquals(1, IteratorUtils.count(truncatedGraph.vertices()));
+        assertEquals("marko", truncatedGraph.vertices(1).next().value("name"));
+        assertThat(journal.length(), lessThan(length));
+
+        // damaging a record that is followed by others cannot be the result of a crash
+        truncatedGraph.addVertex(T.id, 3, "name", "josh");
+        try (final RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+            file.seek(9);
+            final int b = file.read();
+            file.seek(9);
+            file.write(b ^ 0xff);
+        }
+        final long damagedLength = journal.length();
+        try {
+            TinkerGraph.open(conf);
+            fail("The journal should not have been replayed with a damaged record");
+        } catch (IllegalStateException ex) {
+            assertThat(ex.getMessage(), containsString("is damaged"));
+        }
+        assertEquals(damagedLength, journal.length());
+    }
+
+    @Test
+    public void shouldReplayJournalOverSnapshotWithoutVertexPropertyIds() {
+        final String graphLocation = TestHelper.makeTestDataFile(TinkerJournalTest.class, "shouldReplayJournalOverGraphML.xml");
+        deleteJournaledGraph(graphLocation);
+
+        // graphml does not keep the identifiers of vertex properties and these are generated anew on every load
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_FORMAT, "graphml");
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_LOCATION, graphLocation);
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_VERTEX_ID_MANAGER, TinkerGraph.DefaultIdManager.LONG.name());
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_VERTEX_PROPERTY_ID_MANAGER, TinkerGraph.DefaultIdManager.UUID.name());
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_JOURNAL, true);
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_JOURNAL_SYNC, TinkerGraph.JournalSync.ALWAYS.name());
+        final TinkerGraph graph = TinkerGraph.open(conf);
+        graph.addVertex(T.id, 1, "name", "marko", "age", 29);
+        graph.close();
+
+        final TinkerGraph graphWithJournal = TinkerGraph.open(conf);
+        final Vertex marko = graphWithJournal.vertices(1).next();
+        marko.property("age").remove();
+        marko.property("name", "mark");
+        marko.property("name").property("since", 2009);
+
+        final TinkerGraph reloadedGraph = TinkerGraph.open(conf);
+        final Vertex reloaded = reloadedGraph.vertices(1).next();
+        assertThat(reloaded.property("age").isPresent(), is(false));
+        assertEquals("mark", reloaded.value("name"));
+        assertEquals(2009, (int) reloaded.property("name").value("since"));
+        reloadedGraph.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRequireGraphLocationIfJournalIsEnabled() {
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_JOURNAL, true);
+        TinkerGraph.open(conf);
+    }
+
+    private static void deleteJournaledGraph(final String graphLocation) {
+        for (final String suffix : Arrays.asList("", ".tmp", ".journal", ".journal.old")) {
+            final File f = new File(graphLocation + suffix);
+            if (f.exists() && f.isFile()) f.delete();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.tinkerpop.gremlin.tinkergraph.structure;
+
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.tinkerpop.gremlin.TestHelper;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.io.IoTest;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+public class TinkerSnapshotTest {
+
+    @Test
+    public void shouldPersistToSnapshot() {
+        final String graphLocation = TestHelper.makeTestDataFile(TinkerSnapshotTest.class, "shouldPersistToSnapshot.bin");
+        final File f = new File(graphLocation);
+        if (f.exists() && f.isFile()) f.delete();
+
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_FORMAT, "snapshot");
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_LOCATION, graphLocation);
+        final TinkerGraph graph = TinkerGraph.open(conf);
+        TinkerFactory.generateModern(graph);
+        graph.close();
+
+        final TinkerGraph reloadedGraph = TinkerGraph.open(conf);
+        IoTest.assertModernGraph(reloadedGraph, true, false);
+        reloadedGraph.close();
+    }
+
+    @Test
+    public void shouldPersistToSnapshotAndHandleMultiProperties() {
+        final String graphLocation = TestHelper.makeTestDataFile(TinkerSnapshotTest.class, "shouldPersistToSnapshotMulti.bin");
+        final File f = new File(graphLocation);
+        if (f.exists() && f.isFile()) f.delete();
+
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_FORMAT, "snapshot");
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_LOCATION, graphLocation);
+        final TinkerGraph graph = TinkerGraph.open(conf);
+        TinkerFactory.generateTheCrew(graph);
+        graph.close();
+
+        // the cardinality of each property is kept as it was so no default has to be configured
+        final TinkerGraph reloadedGraph = TinkerGraph.open(conf);
+        IoTest.assertCrewGraph(reloadedGraph, false);
+        reloadedGraph.close();
+    }
+
+    @Test
+    public void shouldPersistLargeGraphToSnapshot() {
+        final String graphLocation = TestHelper.makeTestDataFile(TinkerSnapshotTest.class, "shouldPersistLargeGraphToSnapshot.bin");
+        final File f = new File(graphLocation);
+        if (f.exists() && f.isFile()) f.delete();
+
+        final Configuration conf = new BaseConfiguration();
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_FORMAT, "snapshot");
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_GRAPH_LOCATION, graphLocation);
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_VERTEX_ID_MANAGER, TinkerGraph.DefaultIdManager.LONG.name());
+        conf.setProperty(TinkerGraph.GREMLIN_TINKERGRAPH_COMPACT_ADJACENCY, true);
+        final TinkerGraph graph = TinkerGraph.open(conf);
+        final GraphTraversalSource g = graph.traversal();
+        for (int i = 0; i < 10000; i++) {
+            graph.addVertex(T.id, (long) i, T.label, i % 2 == 0 ? "even" : "odd", "i", i, "tags", Arrays.asList("a", i));
+        }
+        for (int i = 1; i < 10000; i++) {
+            graph.vertices((long) i).next().addEdge("next", graph.vertices(i - 1L).next(), "weight", i / 2.0, "at", UUID.nameUUIDFromBytes(new byte[]{(byte) i}));
+        }
+        graph.close();
+
+        final TinkerGraph reloadedGraph = TinkerGraph.open(conf);
+        final GraphTraversalSource r = reloadedGraph.traversal();
+        assertEquals(10000, (long) r.V().count().next());
+        assertEquals(9999, (long) r.E().count().next());
+        assertEquals(5000, (long) r.V().hasLabel("odd").count().next());
+        assertEquals(Arrays.asList("a", 4097), r.V(4097L).values("tags").next());
+        assertEquals(4096, r.V(4097L).out("next").values("i").next());
+        assertEquals(4098, r.V(4097L).in("next").values("i").next());
+        assertEquals(2048.5, r.V(4097L).outE("next").values("weight").next());
+        assertEquals(UUID.nameUUIDFromBytes(new byte[]{(byte) 4097}), r.V(4097L).outE("next").values("at").next());
+        assertEquals(r.V().values("i").sum().next(), g.V().values("i").sum().next());
+        reloadedGraph.close();
+    }
+}